@@ -0,0 +1,183 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * JMH benchmark that compares the ways in which
+ * {@link ParallelJsonDumpProcessor} can pass the entities of a JSON dump to a
+ * {@link StreamingEntityDocumentProcessor}: as complete documents
+ * ("documents"), as documents that only contain the data of the projection
+ * of the processor ("projected"), and as a {@link FlyweightEntityDocument}
+ * ("flyweight"). Unlike {@link ProcessorBenchmark}, the time for parsing is
+ * included. The lines of the dump are read into memory before the benchmark,
+ * and each operation parses and processes one line.
+ * <p>
+ * Run it from the main directory of the examples with
+ * "java -cp benchmarks/target/benchmarks.jar examples.FlyweightDocumentBenchmark";
+ * all options of JMH can be given as arguments, such as
+ * "-p dumpFile=results/synthetic-dump.json.gz". The bytes allocated per
+ * entity are reported as gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class FlyweightDocumentBenchmark {
+
+	/**
+	 * The JSON lines of a dump, which are shared by all benchmarks of one
+	 * fork.
+	 */
+	@State(Scope.Benchmark)
+	public static class Lines {
+
+		@Param({ "resources/sample-dump-20150815.json.gz" })
+		public String dumpFile;
+
+		byte[][] lines;
+
+		@Setup(Level.Trial)
+		public void load() throws IOException {
+			ExampleHelpers.configureLogging();
+			List<byte[]> lines = new ArrayList<>();
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(new MwLocalDumpFile(this.dumpFile)
+							.getDumpFileStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.length() > 1) { // skip "[" and "]"
+						lines.add(line.getBytes(StandardCharsets.UTF_8));
+					}
+				}
+			}
+			if (lines.isEmpty()) {
+				throw new IllegalStateException("No entities found in "
+						+ this.dumpFile);
+			}
+			this.lines = lines.toArray(new byte[0][]);
+		}
+	}
+
+	@Param({ "LifeExpectancyProcessor", "GreatestNumberProcessor",
+			"PropertyQuantilesProcessor" })
+	public String processor;
+
+	@Param({ "documents", "projected", "flyweight" })
+	public String mode;
+
+	ParallelJsonDumpProcessor parallelJsonDumpProcessor;
+	EntityDocumentProcessor entityDocumentProcessor;
+	int index;
+	PrintStream standardOut;
+
+	/**
+	 * Creates a new processor for each iteration, so that the data that it
+	 * has collected does not grow beyond the data of the dump.
+	 */
+	@Setup(Level.Iteration)
+	public void createProcessor() {
+		StreamingEntityDocumentProcessor streamingProcessor = (StreamingEntityDocumentProcessor) ProcessorBenchmark
+				.createProcessor(this.processor);
+		if ("flyweight".equals(this.mode)) {
+			this.entityDocumentProcessor = streamingProcessor;
+		} else {
+			// hide the flyweight methods from the dump processor:
+			this.entityDocumentProcessor = new EntityDocumentProcessor() {
+				@Override
+				public void processItemDocument(ItemDocument itemDocument) {
+					streamingProcessor.processItemDocument(itemDocument);
+				}
+			};
+		}
+		this.parallelJsonDumpProcessor = new ParallelJsonDumpProcessor(
+				this.entityDocumentProcessor, 1);
+		if (!"documents".equals(this.mode)) {
+			this.parallelJsonDumpProcessor
+					.setEntityProjection(streamingProcessor
+							.getEntityProjection());
+		}
+		this.index = 0;
+		// the processors print their progress once in a while:
+		this.standardOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@TearDown(Level.Iteration)
+	public void restoreOutput() {
+		System.setOut(this.standardOut);
+	}
+
+	@Benchmark
+	public void processLine(Lines lines) {
+		byte[] line = lines.lines[this.index];
+		this.parallelJsonDumpProcessor.processLine(line, 0, line.length,
+				this.entityDocumentProcessor);
+		if (++this.index == lines.lines.length) {
+			this.index = 0;
+		}
+	}
+
+	/**
+	 * Runs the benchmark with the GC profiler, using the given JMH options.
+	 */
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(FlyweightDocumentBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,202 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark that compares the decompression speed of
+ * {@link GZIPInputStream} with {@link ParallelGzipInputStream}. Before the
+ * benchmark, the contents of a gzip-compressed dump (by default the sample
+ * dump that comes with the examples) are repeated and written to a temporary
+ * test file, either as a single gzip member, like the dumps published by
+ * Wikimedia ("single"), or as many small members ("multi"). Each operation
+ * decompresses the whole file; the parameter threads selects the number of
+ * threads of {@link ParallelGzipInputStream}, where 0 stands for
+ * {@link GZIPInputStream}.
+ * <p>
+ * Run it from the main directory of the examples with
+ * "java -cp benchmarks/target/benchmarks.jar examples.GzipDecompressionBenchmark";
+ * all options of JMH can be given as arguments, such as "-p threads=0,4".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class GzipDecompressionBenchmark {
+
+	/**
+	 * Size of the uncompressed data in one member of the multi-member file.
+	 */
+	static final int MEMBER_SIZE = 1024 * 1024;
+
+	@Param({ "resources/sample-dump-20150815.json.gz" })
+	public String dumpFile;
+
+	/**
+	 * Number of times that the contents of the dump are repeated in the test
+	 * file.
+	 */
+	@Param({ "200" })
+	public int repetitions;
+
+	@Param({ "single", "multi" })
+	public String members;
+
+	@Param({ "0", "1", "2", "4" })
+	public int threads;
+
+	Path testFile;
+	long expectedChecksum;
+
+	@Setup(Level.Trial)
+	public void writeTestFile() throws IOException {
+		byte[] data;
+		try (InputStream in = new GZIPInputStream(
+				Files.newInputStream(Paths.get(this.dumpFile)))) {
+			data = in.readAllBytes();
+		}
+		this.testFile = Files.createTempFile("gzip-benchmark-", ".gz");
+		if ("single".equals(this.members)) {
+			writeSingleMember(this.testFile, data, this.repetitions);
+		} else if ("multi".equals(this.members)) {
+			writeMultiMember(this.testFile, data, this.repetitions);
+		} else {
+			throw new IllegalArgumentException("Unknown member layout "
+					+ this.members);
+		}
+
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < this.repetitions; i++) {
+			crc.update(data);
+		}
+		this.expectedChecksum = crc.getValue();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteTestFile() throws IOException {
+		Files.deleteIfExists(this.testFile);
+	}
+
+	/**
+	 * Decompresses the test file and checks the CRC of the data.
+	 *
+	 * @return the CRC of the decompressed data
+	 */
+	@Benchmark
+	public long decompress() throws IOException {
+		InputStream in;
+		if (this.threads == 0) {
+			in = new GZIPInputStream(new BufferedInputStream(
+					Files.newInputStream(this.testFile), 64 * 1024), 64 * 1024);
+		} else {
+			in = new ParallelGzipInputStream(this.testFile, this.threads);
+		}
+		CRC32 crc = new CRC32();
+		try (InputStream stream = in) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		}
+		if (crc.getValue() != this.expectedChecksum) {
+			throw new IllegalStateException("Wrong result for " + this.members
+					+ "-member file with " + this.threads + " threads");
+		}
+		return crc.getValue();
+	}
+
+	static void writeSingleMember(Path file, byte[] data, int repetitions)
+			throws IOException {
+		try (OutputStream out = new GZIPOutputStream(
+				Files.newOutputStream(file), 64 * 1024)) {
+			for (int i = 0; i < repetitions; i++) {
+				out.write(data);
+			}
+		}
+	}
+
+	static void writeMultiMember(Path file, byte[] data, int repetitions)
+			throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			ByteArrayOutputStream member = new ByteArrayOutputStream();
+			long total = (long) data.length * repetitions;
+			for (long position = 0; position < total; position += MEMBER_SIZE) {
+				member.reset();
+				try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+					long end = Math.min(total, position + MEMBER_SIZE);
+					for (long p = position; p < end;) {
+						int offset = (int) (p % data.length);
+						int length = (int) Math.min(end - p, data.length
+								- offset);
+						gzip.write(data, offset, length);
+						p += length;
+					}
+				}
+				member.writeTo(out);
+			}
+		}
+	}
+
+	/**
+	 * Runs the benchmark with the given JMH options.
+	 */
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(GzipDecompressionBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,175 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * JMH benchmark that compares the heap that is needed to keep all items of a
+ * dump in memory: as parsed from the JSON ("parsed"), as copies made with the
+ * default {@link DataObjectFactoryImpl} ("default"), and as copies made with
+ * an {@link InterningDataObjectFactory} ("interning"). Each operation reads
+ * the dump with {@link ParallelJsonDumpProcessor} and keeps all items in a
+ * list. After each iteration, the heap that the list retains is measured
+ * after a garbage collection and printed as "retained heap" in bytes per
+ * item; JMH itself reports the time of an operation.
+ * <p>
+ * Run it from the main directory of the examples with
+ * "java -cp benchmarks/target/benchmarks.jar examples.InterningFootprintBenchmark";
+ * all options of JMH can be given as arguments. The sample dump is very
+ * small, so a larger dump gives more meaningful numbers, e.g., one written
+ * by {@link SyntheticDumpGenerator} ("-p dumpFile=results/synthetic-dump.json.gz").
+ * The heap of the fork must be large enough for all items ("-jvmArgs -Xmx8g").
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Benchmark)
+public class InterningFootprintBenchmark {
+
+	@Param({ "resources/sample-dump-20150815.json.gz" })
+	public String dumpFile;
+
+	@Param({ "parsed", "default", "interning" })
+	public String factory;
+
+	InterningDataObjectFactory interningDataObjectFactory;
+	List<ItemDocument> items;
+	long heapBefore;
+
+	@Setup(Level.Trial)
+	public void configureLogging() {
+		ExampleHelpers.configureLogging();
+	}
+
+	/**
+	 * Measures the heap before the operation. A new interning factory is
+	 * used in each iteration, so that its pools are part of the measured
+	 * heap.
+	 */
+	@Setup(Level.Iteration)
+	public void measureHeapBefore() {
+		this.items = null;
+		this.interningDataObjectFactory = null;
+		this.heapBefore = getUsedHeap();
+		if ("interning".equals(this.factory)) {
+			this.interningDataObjectFactory = new InterningDataObjectFactory();
+		}
+	}
+
+	/**
+	 * Prints the heap that the items retain, and lets them be collected.
+	 */
+	@TearDown(Level.Iteration)
+	public void measureHeapAfter() {
+		long heap = getUsedHeap() - this.heapBefore;
+		System.out.println(String.format(
+				"retained heap: %.1f MB, %d bytes/item, %d items%s",
+				heap / 1024.0 / 1024.0, heap / Math.max(1, this.items.size()),
+				this.items.size(),
+				this.interningDataObjectFactory == null ? ""
+						: ", " + this.interningDataObjectFactory.getPoolSize()
+								+ " pooled objects"));
+		this.items = null;
+		this.interningDataObjectFactory = null;
+	}
+
+	/**
+	 * Reads all items of the dump, copied with the factory of the benchmark.
+	 *
+	 * @return the number of items
+	 */
+	@Benchmark
+	public int loadItems() {
+		List<ItemDocument> items = new ArrayList<>();
+		ParallelJsonDumpProcessor parallelJsonDumpProcessor = new ParallelJsonDumpProcessor(
+				new EntityDocumentProcessor() {
+					@Override
+					public void processItemDocument(ItemDocument itemDocument) {
+						items.add(itemDocument);
+					}
+				}, 1);
+		if ("default".equals(this.factory)) {
+			parallelJsonDumpProcessor
+					.setDataObjectFactory(new DataObjectFactoryImpl());
+		} else if ("interning".equals(this.factory)) {
+			parallelJsonDumpProcessor
+					.setDataObjectFactory(this.interningDataObjectFactory);
+		} else if (!"parsed".equals(this.factory)) {
+			throw new IllegalArgumentException("Unknown factory "
+					+ this.factory);
+		}
+		parallelJsonDumpProcessor.processDump(new MwLocalDumpFile(
+				this.dumpFile));
+		this.items = items;
+		return items.size();
+	}
+
+	/**
+	 * Returns the number of bytes that are used on the heap after garbage
+	 * collection.
+	 */
+	static long getUsedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * Runs the benchmark with the given JMH options.
+	 */
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(InterningFootprintBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,206 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * JMH benchmark that measures how many items per second each processor of
+ * the examples can handle in {@link EntityDocumentProcessor#processItemDocument(ItemDocument)},
+ * without the time needed for reading and parsing the dump. The items are
+ * parsed once before the benchmark, and then passed to the processor one
+ * after another, starting again with the first item at the end. Each
+ * operation is one item.
+ * <p>
+ * By default, the items of the sample dump that comes with the examples are
+ * used. Since this dump is very small, a larger dump (e.g., a synthetic one)
+ * gives more realistic numbers; it can be set with the parameter dumpFile,
+ * such as "-p dumpFile=results/synthetic-dump.json.gz". Single processors
+ * can be selected with the parameter processor.
+ * <p>
+ * The main method runs the benchmark with the GC profiler of JMH, which
+ * reports the allocation rate, and in particular the bytes allocated per
+ * item (gc.alloc.rate.norm). Run it from the main directory of the examples
+ * with "java -jar benchmarks/target/benchmarks.jar"; all options of JMH can
+ * be given as arguments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class ProcessorBenchmark {
+
+	/**
+	 * The items of a dump, which are shared by all benchmarks of one fork.
+	 */
+	@State(Scope.Benchmark)
+	public static class Corpus {
+
+		@Param({ "resources/sample-dump-20150815.json.gz" })
+		public String dumpFile;
+
+		ItemDocument[] items;
+
+		@Setup(Level.Trial)
+		public void load() {
+			ExampleHelpers.configureLogging();
+			List<ItemDocument> items = new ArrayList<>();
+			new ParallelJsonDumpProcessor(new EntityDocumentProcessor() {
+				@Override
+				public void processItemDocument(ItemDocument itemDocument) {
+					items.add(itemDocument);
+				}
+			}, 1).processDump(new MwLocalDumpFile(this.dumpFile));
+			if (items.isEmpty()) {
+				throw new IllegalStateException("No items found in "
+						+ this.dumpFile);
+			}
+			this.items = items.toArray(new ItemDocument[0]);
+		}
+	}
+
+	@Param({ "EntityStatisticsProcessor", "ClassPropertyUsageAnalyzer",
+			"GenderRatioProcessor", "LifeExpectancyProcessor",
+			"WorldMapProcessor", "GreatestNumberProcessor",
+			"TutorialDocumentProcessor", "PropertyDistinctValuesProcessor",
+			"PropertyQuantilesProcessor" })
+	public String processor;
+
+	EntityDocumentProcessor entityDocumentProcessor;
+	int index;
+	PrintStream standardOut;
+
+	/**
+	 * Creates a new processor for each iteration, so that the data that it
+	 * has collected does not grow beyond the data of the corpus.
+	 */
+	@Setup(Level.Iteration)
+	public void createProcessor() {
+		this.entityDocumentProcessor = createProcessor(this.processor);
+		this.index = 0;
+		// the processors print their progress once in a while:
+		this.standardOut = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+	@TearDown(Level.Iteration)
+	public void restoreOutput() {
+		System.setOut(this.standardOut);
+	}
+
+	@Benchmark
+	public void processItemDocument(Corpus corpus) {
+		this.entityDocumentProcessor
+				.processItemDocument(corpus.items[this.index]);
+		if (++this.index == corpus.items.length) {
+			this.index = 0;
+		}
+	}
+
+	/**
+	 * Creates the processor of the given name, configured as in the
+	 * examples, but without reports of its progress where possible.
+	 *
+	 * @param name
+	 *            the simple name of the class of the processor
+	 * @return the processor
+	 */
+	static EntityDocumentProcessor createProcessor(String name) {
+		switch (name) {
+		case "EntityStatisticsProcessor":
+			EntityStatisticsProcessor entityStatisticsProcessor = new EntityStatisticsProcessor();
+			entityStatisticsProcessor.reportProgress = false;
+			return entityStatisticsProcessor;
+		case "ClassPropertyUsageAnalyzer":
+			return new ClassPropertyUsageAnalyzer();
+		case "GenderRatioProcessor":
+			GenderRatioProcessor genderRatioProcessor = new GenderRatioProcessor();
+			genderRatioProcessor.reportProgress = false;
+			return genderRatioProcessor;
+		case "LifeExpectancyProcessor":
+			LifeExpectancyProcessor lifeExpectancyProcessor = new LifeExpectancyProcessor();
+			lifeExpectancyProcessor.reportProgress = false;
+			return lifeExpectancyProcessor;
+		case "WorldMapProcessor":
+			WorldMapProcessor worldMapProcessor = new WorldMapProcessor(
+					8 * 360, 1.0);
+			worldMapProcessor.addSite(null);
+			worldMapProcessor.addSite("enwiki");
+			worldMapProcessor.reportProgress = false;
+			return worldMapProcessor;
+		case "GreatestNumberProcessor":
+			return new GreatestNumberProcessor();
+		case "TutorialDocumentProcessor":
+			return new TutorialDocumentProcessor();
+		case "PropertyDistinctValuesProcessor":
+			PropertyDistinctValuesProcessor propertyDistinctValuesProcessor = new PropertyDistinctValuesProcessor();
+			propertyDistinctValuesProcessor.reportProgress = false;
+			return propertyDistinctValuesProcessor;
+		case "PropertyQuantilesProcessor":
+			PropertyQuantilesProcessor propertyQuantilesProcessor = new PropertyQuantilesProcessor(
+					PropertyQuantilesProcessor.DEFAULT_PROPERTY_IDS);
+			propertyQuantilesProcessor.reportProgress = false;
+			return propertyQuantilesProcessor;
+		default:
+			throw new IllegalArgumentException("Unknown processor " + name);
+		}
+	}
+
+	/**
+	 * Runs the benchmark with the GC profiler, using the given JMH options.
+	 */
+	public static void main(String[] args) throws RunnerException,
+			CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.include(ProcessorBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
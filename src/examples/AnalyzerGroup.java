@@ -0,0 +1,183 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+/**
+ * Group of analyzers that are fed with the same entities and that can be
+ * merged and checkpointed as a whole. Every analyzer of the group must be a
+ * {@link MergeableEntityDocumentProcessor} and a
+ * {@link CheckpointableEntityDocumentProcessor}. The checkpoint of the group
+ * contains the checkpoints of all analyzers, so it can also be used to send
+ * the partial results of a group to another process, where they are read
+ * into a copy of the group and merged (see {@link ShardedDumpProcessor}).
+ * <p>
+ * Unlike {@link MultiAnalyzerRunner}, the group does not measure the
+ * analyzers or share any facts between them.
+ */
+public class AnalyzerGroup implements
+		MergeableEntityDocumentProcessor<AnalyzerGroup>,
+		CheckpointableEntityDocumentProcessor {
+
+	final List<String> analyzerNames = new ArrayList<>();
+	final List<EntityDocumentProcessor> analyzers = new ArrayList<>();
+
+	/**
+	 * Adds an analyzer. Analyzers are called in the order in which they have
+	 * been added.
+	 *
+	 * @param name
+	 *            the name of the analyzer, which is used to check that a
+	 *            checkpoint fits the group
+	 * @param analyzer
+	 *            the analyzer, which must be mergeable and checkpointable
+	 */
+	public void addAnalyzer(String name, EntityDocumentProcessor analyzer) {
+		if (!(analyzer instanceof MergeableEntityDocumentProcessor)
+				|| !(analyzer instanceof CheckpointableEntityDocumentProcessor)) {
+			throw new IllegalArgumentException("Analyzer " + name
+					+ " must be mergeable and checkpointable");
+		}
+		this.analyzerNames.add(name);
+		this.analyzers.add(analyzer);
+	}
+
+	/**
+	 * Returns the analyzers of the group, in the order in which they have
+	 * been added.
+	 *
+	 * @return the analyzers
+	 */
+	public List<EntityDocumentProcessor> getAnalyzers() {
+		return this.analyzers;
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		processDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		processDocument(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		processDocument(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		processDocument(mediaInfoDocument);
+	}
+
+	@Override
+	public void processEntityRedirectDocument(
+			EntityRedirectDocument entityRedirectDocument) {
+		processDocument(entityRedirectDocument);
+	}
+
+	/**
+	 * Passes the document to all analyzers.
+	 *
+	 * @param document
+	 *            the document to process
+	 */
+	void processDocument(EntityDocument document) {
+		for (EntityDocumentProcessor analyzer : this.analyzers) {
+			ParallelJsonDumpProcessor.dispatchDocument(document, analyzer);
+		}
+	}
+
+	@Override
+	public AnalyzerGroup createWorkerCopy() {
+		AnalyzerGroup copy = new AnalyzerGroup();
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			copy.addAnalyzer(this.analyzerNames.get(i),
+					((MergeableEntityDocumentProcessor<?>) this.analyzers
+							.get(i)).createWorkerCopy());
+		}
+		return copy;
+	}
+
+	@Override
+	public void merge(AnalyzerGroup other) {
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			ParallelJsonDumpProcessor.mergeInto(this.analyzers.get(i),
+					other.analyzers.get(i));
+		}
+	}
+
+	/**
+	 * Writes the checkpoints of all analyzers. The checkpoint of each
+	 * analyzer is preceded by its name and its length.
+	 */
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeInt(this.analyzers.size());
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream analyzerOut = new DataOutputStream(bytes)) {
+				((CheckpointableEntityDocumentProcessor) this.analyzers.get(i))
+						.writeCheckpoint(analyzerOut);
+			}
+			out.writeUTF(this.analyzerNames.get(i));
+			out.writeInt(bytes.size());
+			bytes.writeTo(out);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		if (in.readInt() != this.analyzers.size()) {
+			throw new IOException(
+					"Checkpoint has a different number of analyzers");
+		}
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			String name = in.readUTF();
+			if (!name.equals(this.analyzerNames.get(i))) {
+				throw new IOException("Checkpoint has data of analyzer "
+						+ name + " instead of " + this.analyzerNames.get(i));
+			}
+			byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			((CheckpointableEntityDocumentProcessor) this.analyzers.get(i))
+					.readCheckpoint(new DataInputStream(
+							new ByteArrayInputStream(bytes)));
+		}
+	}
+}
@@ -0,0 +1,494 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.Equality;
+import org.wikidata.wdtk.datamodel.helpers.Hash;
+import org.wikidata.wdtk.datamodel.helpers.ToString;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.dumpfiles.EntityTimerProcessor.TimeoutException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reader for binary dumps written by {@link BinaryDumpWriter}. The file is
+ * mapped into memory, and the documents that are passed to the processor are
+ * views on the mapped data: only the id and the revision are read right away,
+ * while labels, descriptions, aliases, statements, and site links are decoded
+ * when they are first requested. A processor that only looks at the
+ * statements of an item therefore never decodes its terms or site links.
+ * <p>
+ * The documents remain valid after they have been processed, but keep the
+ * mapped region of the file in memory as long as they are referenced.
+ */
+public class BinaryDumpFile implements Closeable {
+
+	/**
+	 * Maximal size of the part of the file that is mapped at one time.
+	 */
+	static final long WINDOW_SIZE = 1L << 30;
+
+	final FileChannel channel;
+	final long dictionaryOffset;
+	final long recordCount;
+	final String[] dictionary;
+	final ObjectReader documentReader;
+
+	/**
+	 * Opens the given binary dump.
+	 *
+	 * @param file
+	 *            the file written by {@link BinaryDumpWriter}
+	 * @throws IOException
+	 *             if the file could not be read or is not a binary dump
+	 */
+	public BinaryDumpFile(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(BinaryDumpWriter.HEADER_SIZE);
+		ParallelGzipInputStream.readFully(this.channel, header, 0);
+		header.flip();
+		if (header.getLong() != BinaryDumpFormat.FILE_MAGIC) {
+			this.channel.close();
+			throw new IOException("Not a binary dump: " + file);
+		}
+		this.dictionaryOffset = header.getLong();
+		this.recordCount = header.getLong();
+
+		MappedByteBuffer dictionaryData = this.channel.map(MapMode.READ_ONLY,
+				this.dictionaryOffset, this.channel.size()
+						- this.dictionaryOffset);
+		this.dictionary = new String[dictionaryData.getInt()];
+		for (int i = 0; i < this.dictionary.length; i++) {
+			this.dictionary[i] = BinaryDumpFormat.readString(dictionaryData);
+		}
+
+		this.documentReader = new DatamodelMapper(Datamodel.SITE_WIKIDATA)
+				.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+	}
+
+	/**
+	 * Returns the number of entities in the file.
+	 *
+	 * @return number of entities
+	 */
+	public long getEntityCount() {
+		return this.recordCount;
+	}
+
+	/**
+	 * Passes all entities in the file to the given processor.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor for the entities
+	 * @throws IOException
+	 *             if the file could not be read
+	 * @throws TimeoutException
+	 *             if the processing was aborted by a timer
+	 */
+	public void processEntities(EntityDocumentProcessor entityDocumentProcessor)
+			throws IOException {
+		long windowStart = BinaryDumpWriter.HEADER_SIZE;
+		while (windowStart < this.dictionaryOffset) {
+			MappedByteBuffer window = this.channel.map(MapMode.READ_ONLY,
+					windowStart, Math.min(WINDOW_SIZE, this.dictionaryOffset
+							- windowStart));
+			// process all records that fit into the window completely:
+			while (window.remaining() >= 4) {
+				int recordStart = window.position();
+				int length = window.getInt(recordStart);
+				if (length > window.remaining() - 4) {
+					if (recordStart == 0) {
+						throw new IOException("Record at position "
+								+ windowStart + " is too large");
+					}
+					break;
+				}
+				window.position(recordStart + 4);
+				ByteBuffer record = window.slice();
+				record.limit(length);
+				window.position(recordStart + 4 + length);
+				ParallelJsonDumpProcessor.dispatchDocument(
+						readDocument(record), entityDocumentProcessor);
+			}
+			windowStart += window.position();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * Creates the document for one record. The given buffer contains exactly
+	 * the record without its length.
+	 */
+	EntityDocument readDocument(ByteBuffer record) throws IOException {
+		byte type = record.get();
+		switch (type) {
+		case BinaryDumpFormat.RECORD_ITEM:
+			return new BinaryItemDocument(record, this.dictionary);
+		case BinaryDumpFormat.RECORD_PROPERTY:
+			return new BinaryPropertyDocument(record, this.dictionary);
+		case BinaryDumpFormat.RECORD_JSON:
+			return this.documentReader.readValue(BinaryDumpFormat
+					.readString(record));
+		default:
+			throw new IOException("Unknown record type " + type);
+		}
+	}
+
+	/**
+	 * Common base class for views on items and properties. The sections of
+	 * the record are located when the view is created, and decoded when they
+	 * are accessed for the first time.
+	 */
+	static abstract class BinaryTermedStatementDocument {
+		final ByteBuffer record;
+		final String[] dictionary;
+		final long number;
+		final long revisionId;
+		final int labelsStart;
+		final int descriptionsStart;
+		final int aliasesStart;
+		final int statementsStart;
+		/**
+		 * Position of the data that follows the statements.
+		 */
+		final int tailStart;
+
+		// The decoded sections are volatile since the view may be read by
+		// several threads (see PipelinedEntityDocumentProcessor). Two threads
+		// may decode the same section, which is harmless.
+		volatile Map<String, MonolingualTextValue> labels;
+		volatile Map<String, MonolingualTextValue> descriptions;
+		volatile Map<String, List<MonolingualTextValue>> aliases;
+		volatile List<StatementGroup> statementGroups;
+
+		BinaryTermedStatementDocument(ByteBuffer record, String[] dictionary) {
+			this.record = record;
+			this.dictionary = dictionary;
+			this.number = BinaryDumpFormat.readVarLong(record);
+			this.revisionId = BinaryDumpFormat.readVarLong(record);
+			this.labelsStart = skipSection(record);
+			this.descriptionsStart = skipSection(record);
+			this.aliasesStart = skipSection(record);
+			this.statementsStart = skipSection(record);
+			this.tailStart = record.position();
+		}
+
+		abstract EntityIdValue getSubject();
+
+		public long getRevisionId() {
+			return this.revisionId;
+		}
+
+		public Map<String, MonolingualTextValue> getLabels() {
+			if (this.labels == null) {
+				this.labels = BinaryDumpFormat.readTexts(
+						getSection(this.labelsStart), this.dictionary);
+			}
+			return this.labels;
+		}
+
+		public Map<String, MonolingualTextValue> getDescriptions() {
+			if (this.descriptions == null) {
+				this.descriptions = BinaryDumpFormat.readTexts(
+						getSection(this.descriptionsStart), this.dictionary);
+			}
+			return this.descriptions;
+		}
+
+		public Map<String, List<MonolingualTextValue>> getAliases() {
+			if (this.aliases == null) {
+				this.aliases = BinaryDumpFormat.readAliases(
+						getSection(this.aliasesStart), this.dictionary);
+			}
+			return this.aliases;
+		}
+
+		public List<StatementGroup> getStatementGroups() {
+			if (this.statementGroups == null) {
+				this.statementGroups = BinaryDumpFormat.readStatementGroups(
+						getSection(this.statementsStart), getSubject(),
+						this.dictionary);
+			}
+			return this.statementGroups;
+		}
+
+		/**
+		 * Returns the labels, descriptions, or aliases as a list, as
+		 * needed for creating a copy of this document.
+		 */
+		static List<MonolingualTextValue> toList(
+				Map<String, MonolingualTextValue> texts) {
+			return new ArrayList<>(texts.values());
+		}
+
+		static List<MonolingualTextValue> toAliasList(
+				Map<String, List<MonolingualTextValue>> aliases) {
+			List<MonolingualTextValue> result = new ArrayList<>();
+			for (List<MonolingualTextValue> languageAliases : aliases.values()) {
+				result.addAll(languageAliases);
+			}
+			return result;
+		}
+
+		ByteBuffer getSection(int start) {
+			ByteBuffer buffer = this.record.duplicate();
+			buffer.position(start);
+			return BinaryDumpFormat.readSection(buffer);
+		}
+
+		/**
+		 * Moves the buffer to the end of the section that starts at its
+		 * current position.
+		 *
+		 * @return the position of the section
+		 */
+		static int skipSection(ByteBuffer buffer) {
+			int start = buffer.position();
+			buffer.position(start + 4 + buffer.getInt(start));
+			return start;
+		}
+	}
+
+	/**
+	 * View on an item in a binary dump.
+	 */
+	static class BinaryItemDocument extends BinaryTermedStatementDocument
+			implements ItemDocument {
+		final ItemIdValue entityId;
+		volatile Map<String, SiteLink> siteLinks;
+
+		BinaryItemDocument(ByteBuffer record, String[] dictionary) {
+			super(record, dictionary);
+			this.entityId = Datamodel.makeWikidataItemIdValue("Q" + this.number);
+		}
+
+		@Override
+		EntityIdValue getSubject() {
+			return this.entityId;
+		}
+
+		@Override
+		public ItemIdValue getEntityId() {
+			return this.entityId;
+		}
+
+		@Override
+		public Map<String, SiteLink> getSiteLinks() {
+			if (this.siteLinks == null) {
+				this.siteLinks = BinaryDumpFormat.readSiteLinks(
+						getSection(this.tailStart), this.dictionary);
+			}
+			return this.siteLinks;
+		}
+
+		/**
+		 * Returns a copy of this item that is independent of the binary dump.
+		 */
+		ItemDocument toItemDocument() {
+			return Datamodel.makeItemDocument(this.entityId,
+					toList(getLabels()), toList(getDescriptions()),
+					toAliasList(getAliases()), getStatementGroups(),
+					getSiteLinks(), this.revisionId);
+		}
+
+		@Override
+		public ItemDocument withEntityId(ItemIdValue newEntityId) {
+			return toItemDocument().withEntityId(newEntityId);
+		}
+
+		@Override
+		public ItemDocument withRevisionId(long newRevisionId) {
+			return toItemDocument().withRevisionId(newRevisionId);
+		}
+
+		@Override
+		public ItemDocument withLabel(MonolingualTextValue newLabel) {
+			return toItemDocument().withLabel(newLabel);
+		}
+
+		@Override
+		public ItemDocument withDescription(MonolingualTextValue newDescription) {
+			return toItemDocument().withDescription(newDescription);
+		}
+
+		@Override
+		public ItemDocument withAliases(String language,
+				List<MonolingualTextValue> aliases) {
+			return toItemDocument().withAliases(language, aliases);
+		}
+
+		@Override
+		public ItemDocument withStatement(Statement statement) {
+			return toItemDocument().withStatement(statement);
+		}
+
+		@Override
+		public ItemDocument withoutStatementIds(Set<String> statementIds) {
+			return toItemDocument().withoutStatementIds(statementIds);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsItemDocument(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+
+	/**
+	 * View on a property in a binary dump.
+	 */
+	static class BinaryPropertyDocument extends BinaryTermedStatementDocument
+			implements PropertyDocument {
+		final PropertyIdValue entityId;
+		final DatatypeIdValue datatype;
+
+		BinaryPropertyDocument(ByteBuffer record, String[] dictionary) {
+			super(record, dictionary);
+			this.entityId = Datamodel.makeWikidataPropertyIdValue("P"
+					+ this.number);
+			record.position(this.tailStart);
+			this.datatype = Datamodel
+					.makeDatatypeIdValueFromJsonString(BinaryDumpFormat
+							.readInterned(record, dictionary));
+		}
+
+		@Override
+		EntityIdValue getSubject() {
+			return this.entityId;
+		}
+
+		@Override
+		public PropertyIdValue getEntityId() {
+			return this.entityId;
+		}
+
+		@Override
+		public DatatypeIdValue getDatatype() {
+			return this.datatype;
+		}
+
+		/**
+		 * Returns a copy of this property that is independent of the binary
+		 * dump.
+		 */
+		PropertyDocument toPropertyDocument() {
+			return Datamodel.makePropertyDocument(this.entityId,
+					toList(getLabels()), toList(getDescriptions()),
+					toAliasList(getAliases()), getStatementGroups(),
+					this.datatype, this.revisionId);
+		}
+
+		@Override
+		public PropertyDocument withEntityId(PropertyIdValue newEntityId) {
+			return toPropertyDocument().withEntityId(newEntityId);
+		}
+
+		@Override
+		public PropertyDocument withRevisionId(long newRevisionId) {
+			return toPropertyDocument().withRevisionId(newRevisionId);
+		}
+
+		@Override
+		public PropertyDocument withLabel(MonolingualTextValue newLabel) {
+			return toPropertyDocument().withLabel(newLabel);
+		}
+
+		@Override
+		public PropertyDocument withDescription(
+				MonolingualTextValue newDescription) {
+			return toPropertyDocument().withDescription(newDescription);
+		}
+
+		@Override
+		public PropertyDocument withAliases(String language,
+				List<MonolingualTextValue> aliases) {
+			return toPropertyDocument().withAliases(language, aliases);
+		}
+
+		@Override
+		public PropertyDocument withStatement(Statement statement) {
+			return toPropertyDocument().withStatement(statement);
+		}
+
+		@Override
+		public PropertyDocument withoutStatementIds(Set<String> statementIds) {
+			return toPropertyDocument().withoutStatementIds(statementIds);
+		}
+
+		@Override
+		public int hashCode() {
+			return Hash.hashCode(this);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return Equality.equalsPropertyDocument(this, obj);
+		}
+
+		@Override
+		public String toString() {
+			return ToString.toString(this);
+		}
+	}
+}
@@ -0,0 +1,643 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.NoValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+
+/**
+ * Binary encoding of entity documents used by {@link BinaryDumpWriter} and
+ * {@link BinaryDumpFile}. Numbers are stored as variable-length integers, and
+ * entity ids are stored by their number only. Strings that occur over and
+ * over again, like language codes, site keys, datatypes, calendar models, and
+ * globes, are interned: they are replaced by their position in a dictionary
+ * that is stored once at the end of the file.
+ * <p>
+ * Labels, descriptions, aliases, statements, and site links are written as
+ * separate sections that start with their length in bytes. A reader can
+ * therefore skip over sections that it does not need, and decode each
+ * section only when it is accessed.
+ */
+public class BinaryDumpFormat {
+
+	/**
+	 * Marker at the start of every binary dump ("WDTKBIN2"). Files of version
+	 * 1, which stored the datatypes of properties as IRIs and values of
+	 * lexemes and other entities that could not be read back, are not read.
+	 */
+	static final long FILE_MAGIC = 0x5744544b42494e32L;
+
+	static final byte RECORD_ITEM = 1;
+	static final byte RECORD_PROPERTY = 2;
+	/**
+	 * Record type for entities that cannot be encoded (e.g., lexemes). They
+	 * are stored as JSON and parsed when they are read.
+	 */
+	static final byte RECORD_JSON = 3;
+
+	static final byte SNAK_VALUE = 0;
+	static final byte SNAK_SOME_VALUE = 1;
+	static final byte SNAK_NO_VALUE = 2;
+
+	static final byte VALUE_ITEM = 1;
+	static final byte VALUE_PROPERTY = 2;
+	static final byte VALUE_STRING = 5;
+	static final byte VALUE_MONOLINGUAL_TEXT = 6;
+	static final byte VALUE_QUANTITY = 7;
+	static final byte VALUE_TIME = 8;
+	static final byte VALUE_GLOBE_COORDINATES = 9;
+
+	static final StatementRank[] RANKS = StatementRank.values();
+
+	/**
+	 * Writes documents into a growing byte array. The dictionary of interned
+	 * strings is shared by all documents of one file.
+	 */
+	static class Encoder {
+		final Map<String, Integer> dictionary = new HashMap<>();
+		final List<String> dictionaryEntries = new ArrayList<>();
+		byte[] data = new byte[64 * 1024];
+		int length = 0;
+
+		void reset() {
+			this.length = 0;
+		}
+
+		/**
+		 * Reserves space for the length of a section that is written
+		 * afterwards.
+		 *
+		 * @return the position of the reserved space
+		 */
+		int startSection() {
+			ensureCapacity(4);
+			int position = this.length;
+			this.length += 4;
+			return position;
+		}
+
+		void endSection(int position) {
+			int sectionLength = this.length - position - 4;
+			this.data[position] = (byte) (sectionLength >>> 24);
+			this.data[position + 1] = (byte) (sectionLength >>> 16);
+			this.data[position + 2] = (byte) (sectionLength >>> 8);
+			this.data[position + 3] = (byte) sectionLength;
+		}
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			this.data[this.length++] = (byte) value;
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7fL) != 0) {
+				this.data[this.length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			this.data[this.length++] = (byte) value;
+		}
+
+		void writeSignedVarLong(long value) {
+			writeVarLong((value << 1) ^ (value >> 63));
+		}
+
+		void writeDouble(double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			ensureCapacity(8);
+			for (int i = 56; i >= 0; i -= 8) {
+				this.data[this.length++] = (byte) (bits >>> i);
+			}
+		}
+
+		void writeString(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.data, this.length, bytes.length);
+			this.length += bytes.length;
+		}
+
+		void writeInterned(String value) {
+			Integer index = this.dictionary.get(value);
+			if (index == null) {
+				index = this.dictionaryEntries.size();
+				this.dictionary.put(value, index);
+				this.dictionaryEntries.add(value);
+			}
+			writeVarLong(index);
+		}
+
+		void writeBigDecimal(BigDecimal value) {
+			if (value == null) {
+				writeSignedVarLong(Integer.MIN_VALUE);
+				return;
+			}
+			writeSignedVarLong(value.scale());
+			BigInteger unscaled = value.unscaledValue();
+			if (unscaled.bitLength() < 63) {
+				writeByte(0);
+				writeSignedVarLong(unscaled.longValue());
+			} else {
+				writeByte(1);
+				writeString(unscaled.toString());
+			}
+		}
+
+		void writeTexts(Map<String, MonolingualTextValue> texts) {
+			int section = startSection();
+			writeVarLong(texts.size());
+			for (MonolingualTextValue text : texts.values()) {
+				writeInterned(text.getLanguageCode());
+				writeString(text.getText());
+			}
+			endSection(section);
+		}
+
+		void writeAliases(Map<String, List<MonolingualTextValue>> aliases) {
+			int section = startSection();
+			writeVarLong(aliases.size());
+			for (Map.Entry<String, List<MonolingualTextValue>> entry : aliases
+					.entrySet()) {
+				writeInterned(entry.getKey());
+				writeVarLong(entry.getValue().size());
+				for (MonolingualTextValue alias : entry.getValue()) {
+					writeString(alias.getText());
+				}
+			}
+			endSection(section);
+		}
+
+		void writeSiteLinks(Map<String, SiteLink> siteLinks) {
+			int section = startSection();
+			writeVarLong(siteLinks.size());
+			for (SiteLink siteLink : siteLinks.values()) {
+				writeInterned(siteLink.getSiteKey());
+				writeString(siteLink.getPageTitle());
+				writeVarLong(siteLink.getBadges().size());
+				for (ItemIdValue badge : siteLink.getBadges()) {
+					writeEntityNumber(badge);
+				}
+			}
+			endSection(section);
+		}
+
+		void writeStatementGroups(List<StatementGroup> statementGroups) {
+			int section = startSection();
+			writeVarLong(statementGroups.size());
+			for (StatementGroup statementGroup : statementGroups) {
+				writeEntityNumber(statementGroup.getProperty());
+				writeVarLong(statementGroup.size());
+				for (Statement statement : statementGroup) {
+					writeStatement(statement);
+				}
+			}
+			endSection(section);
+		}
+
+		void writeStatement(Statement statement) {
+			writeString(statement.getStatementId());
+			writeByte(statement.getRank().ordinal());
+			writeSnak(statement.getMainSnak());
+			writeSnakGroups(statement.getQualifiers());
+			writeVarLong(statement.getReferences().size());
+			for (Reference reference : statement.getReferences()) {
+				writeSnakGroups(reference.getSnakGroups());
+			}
+		}
+
+		void writeSnakGroups(List<SnakGroup> snakGroups) {
+			writeVarLong(snakGroups.size());
+			for (SnakGroup snakGroup : snakGroups) {
+				writeVarLong(snakGroup.size());
+				for (Snak snak : snakGroup) {
+					writeSnak(snak);
+				}
+			}
+		}
+
+		void writeSnak(Snak snak) {
+			if (snak instanceof ValueSnak) {
+				writeByte(SNAK_VALUE);
+				writeEntityNumber(snak.getPropertyId());
+				writeValue(((ValueSnak) snak).getValue());
+			} else if (snak instanceof SomeValueSnak) {
+				writeByte(SNAK_SOME_VALUE);
+				writeEntityNumber(snak.getPropertyId());
+			} else if (snak instanceof NoValueSnak) {
+				writeByte(SNAK_NO_VALUE);
+				writeEntityNumber(snak.getPropertyId());
+			} else {
+				throw new UnsupportedOperationException("Unknown snak type");
+			}
+		}
+
+		void writeValue(Value value) {
+			if (value instanceof EntityIdValue) {
+				EntityIdValue entityIdValue = (EntityIdValue) value;
+				String type = entityIdValue.getEntityType();
+				if (EntityIdValue.ET_ITEM.equals(type)) {
+					writeByte(VALUE_ITEM);
+					writeEntityNumber(entityIdValue);
+				} else if (EntityIdValue.ET_PROPERTY.equals(type)) {
+					writeByte(VALUE_PROPERTY);
+					writeEntityNumber(entityIdValue);
+				} else {
+					// The reader could not make value snaks for other ids,
+					// which are rare in items and properties:
+					throw new UnsupportedOperationException(
+							"Unsupported entity type " + type);
+				}
+			} else if (value instanceof StringValue) {
+				writeByte(VALUE_STRING);
+				writeString(((StringValue) value).getString());
+			} else if (value instanceof MonolingualTextValue) {
+				MonolingualTextValue text = (MonolingualTextValue) value;
+				writeByte(VALUE_MONOLINGUAL_TEXT);
+				writeInterned(text.getLanguageCode());
+				writeString(text.getText());
+			} else if (value instanceof QuantityValue) {
+				QuantityValue quantity = (QuantityValue) value;
+				writeByte(VALUE_QUANTITY);
+				writeBigDecimal(quantity.getNumericValue());
+				writeBigDecimal(quantity.getLowerBound());
+				writeBigDecimal(quantity.getUpperBound());
+				String unit = quantity.getUnit();
+				if (!"1".equals(unit)
+						&& !unit.startsWith(Datamodel.SITE_WIKIDATA + "Q")) {
+					throw new UnsupportedOperationException("Unsupported unit "
+							+ unit);
+				}
+				writeInterned(unit);
+			} else if (value instanceof TimeValue) {
+				TimeValue time = (TimeValue) value;
+				writeByte(VALUE_TIME);
+				writeSignedVarLong(time.getYear());
+				writeByte(time.getMonth());
+				writeByte(time.getDay());
+				writeByte(time.getHour());
+				writeByte(time.getMinute());
+				writeByte(time.getSecond());
+				writeByte(time.getPrecision());
+				writeSignedVarLong(time.getBeforeTolerance());
+				writeSignedVarLong(time.getAfterTolerance());
+				writeSignedVarLong(time.getTimezoneOffset());
+				writeInterned(time.getPreferredCalendarModel());
+			} else if (value instanceof GlobeCoordinatesValue) {
+				GlobeCoordinatesValue coordinates = (GlobeCoordinatesValue) value;
+				writeByte(VALUE_GLOBE_COORDINATES);
+				writeDouble(coordinates.getLatitude());
+				writeDouble(coordinates.getLongitude());
+				writeDouble(coordinates.getPrecision());
+				writeInterned(coordinates.getGlobe());
+			} else {
+				throw new UnsupportedOperationException("Unsupported value "
+						+ value);
+			}
+		}
+
+		/**
+		 * Writes the number of an item, property, or lexeme id. Ids of other
+		 * sites cannot be stored in this way.
+		 */
+		void writeEntityNumber(EntityIdValue entityIdValue) {
+			if (!Datamodel.SITE_WIKIDATA.equals(entityIdValue.getSiteIri())) {
+				throw new UnsupportedOperationException(
+						"Unsupported site IRI " + entityIdValue.getSiteIri());
+			}
+			writeVarLong(getEntityNumber(entityIdValue));
+		}
+
+		void ensureCapacity(int extra) {
+			if (this.length + extra > this.data.length) {
+				this.data = Arrays.copyOf(this.data,
+						Math.max(2 * this.data.length, this.length + extra));
+			}
+		}
+	}
+
+	/*
+	 * Methods for decoding. They read from the current position of the given
+	 * buffer and advance it.
+	 */
+
+	static long readVarLong(ByteBuffer buffer) {
+		long result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			result |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		return result;
+	}
+
+	static int readVarInt(ByteBuffer buffer) {
+		return (int) readVarLong(buffer);
+	}
+
+	static long readSignedVarLong(ByteBuffer buffer) {
+		long value = readVarLong(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	static String readString(ByteBuffer buffer) {
+		int length = readVarInt(buffer);
+		if (buffer.hasArray()) {
+			String result = new String(buffer.array(), buffer.arrayOffset()
+					+ buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return result;
+		} else {
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	static String readInterned(ByteBuffer buffer, String[] dictionary) {
+		return dictionary[readVarInt(buffer)];
+	}
+
+	static BigDecimal readBigDecimal(ByteBuffer buffer) {
+		long scale = readSignedVarLong(buffer);
+		if (scale == Integer.MIN_VALUE) {
+			return null;
+		}
+		if (buffer.get() == 0) {
+			return BigDecimal.valueOf(readSignedVarLong(buffer), (int) scale);
+		} else {
+			return new BigDecimal(new BigInteger(readString(buffer)),
+					(int) scale);
+		}
+	}
+
+	/**
+	 * Returns a buffer for the next section and moves the given buffer to
+	 * the position after it.
+	 */
+	static ByteBuffer readSection(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		ByteBuffer section = buffer.duplicate();
+		section.limit(buffer.position() + length);
+		buffer.position(buffer.position() + length);
+		return section.slice();
+	}
+
+	static Map<String, MonolingualTextValue> readTexts(ByteBuffer buffer,
+			String[] dictionary) {
+		int count = readVarInt(buffer);
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, MonolingualTextValue> result = new LinkedHashMap<>(
+				2 * count);
+		for (int i = 0; i < count; i++) {
+			String languageCode = readInterned(buffer, dictionary);
+			result.put(languageCode, Datamodel.makeMonolingualTextValue(
+					readString(buffer), languageCode));
+		}
+		return result;
+	}
+
+	static Map<String, List<MonolingualTextValue>> readAliases(
+			ByteBuffer buffer, String[] dictionary) {
+		int count = readVarInt(buffer);
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<MonolingualTextValue>> result = new LinkedHashMap<>(
+				2 * count);
+		for (int i = 0; i < count; i++) {
+			String languageCode = readInterned(buffer, dictionary);
+			int aliasCount = readVarInt(buffer);
+			List<MonolingualTextValue> aliases = new ArrayList<>(aliasCount);
+			for (int j = 0; j < aliasCount; j++) {
+				aliases.add(Datamodel.makeMonolingualTextValue(
+						readString(buffer), languageCode));
+			}
+			result.put(languageCode, aliases);
+		}
+		return result;
+	}
+
+	static Map<String, SiteLink> readSiteLinks(ByteBuffer buffer,
+			String[] dictionary) {
+		int count = readVarInt(buffer);
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, SiteLink> result = new LinkedHashMap<>(2 * count);
+		for (int i = 0; i < count; i++) {
+			String siteKey = readInterned(buffer, dictionary);
+			String title = readString(buffer);
+			int badgeCount = readVarInt(buffer);
+			List<ItemIdValue> badges = new ArrayList<>(badgeCount);
+			for (int j = 0; j < badgeCount; j++) {
+				badges.add(readItemId(buffer));
+			}
+			result.put(siteKey, Datamodel.makeSiteLink(title, siteKey, badges));
+		}
+		return result;
+	}
+
+	static List<StatementGroup> readStatementGroups(ByteBuffer buffer,
+			EntityIdValue subject, String[] dictionary) {
+		int count = readVarInt(buffer);
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<StatementGroup> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			PropertyIdValue property = readPropertyId(buffer);
+			int statementCount = readVarInt(buffer);
+			List<Statement> statements = new ArrayList<>(statementCount);
+			for (int j = 0; j < statementCount; j++) {
+				statements.add(readStatement(buffer, subject, property,
+						dictionary));
+			}
+			result.add(Datamodel.makeStatementGroup(statements));
+		}
+		return result;
+	}
+
+	static Statement readStatement(ByteBuffer buffer, EntityIdValue subject,
+			PropertyIdValue property, String[] dictionary) {
+		String statementId = readString(buffer);
+		StatementRank rank = RANKS[buffer.get()];
+		Snak mainSnak = readSnak(buffer, property, dictionary);
+		List<SnakGroup> qualifiers = readSnakGroups(buffer, dictionary);
+		int referenceCount = readVarInt(buffer);
+		List<Reference> references = referenceCount == 0 ? Collections
+				.emptyList() : new ArrayList<>(referenceCount);
+		for (int i = 0; i < referenceCount; i++) {
+			references.add(Datamodel.makeReference(readSnakGroups(buffer,
+					dictionary)));
+		}
+		return Datamodel.makeStatement(subject, mainSnak, qualifiers,
+				references, rank, statementId);
+	}
+
+	static List<SnakGroup> readSnakGroups(ByteBuffer buffer,
+			String[] dictionary) {
+		int count = readVarInt(buffer);
+		if (count == 0) {
+			return Collections.emptyList();
+		}
+		List<SnakGroup> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int snakCount = readVarInt(buffer);
+			List<Snak> snaks = new ArrayList<>(snakCount);
+			PropertyIdValue property = null;
+			for (int j = 0; j < snakCount; j++) {
+				Snak snak = readSnak(buffer, property, dictionary);
+				property = snak.getPropertyId();
+				snaks.add(snak);
+			}
+			result.add(Datamodel.makeSnakGroup(snaks));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a snak. If the property is already known (e.g., since all snaks
+	 * of a group have the same property), it is passed as a parameter to
+	 * avoid creating the same object again.
+	 */
+	static Snak readSnak(ByteBuffer buffer, PropertyIdValue property,
+			String[] dictionary) {
+		byte type = buffer.get();
+		long number = readVarLong(buffer);
+		if (property == null || getEntityNumber(property) != number) {
+			property = Datamodel.makeWikidataPropertyIdValue("P" + number);
+		}
+		switch (type) {
+		case SNAK_VALUE:
+			return Datamodel.makeValueSnak(property,
+					readValue(buffer, dictionary));
+		case SNAK_SOME_VALUE:
+			return Datamodel.makeSomeValueSnak(property);
+		case SNAK_NO_VALUE:
+			return Datamodel.makeNoValueSnak(property);
+		default:
+			throw new IllegalStateException("Unknown snak type " + type);
+		}
+	}
+
+	static Value readValue(ByteBuffer buffer, String[] dictionary) {
+		byte type = buffer.get();
+		switch (type) {
+		case VALUE_ITEM:
+			return readItemId(buffer);
+		case VALUE_PROPERTY:
+			return readPropertyId(buffer);
+		case VALUE_STRING:
+			return Datamodel.makeStringValue(readString(buffer));
+		case VALUE_MONOLINGUAL_TEXT:
+			String languageCode = readInterned(buffer, dictionary);
+			return Datamodel.makeMonolingualTextValue(readString(buffer),
+					languageCode);
+		case VALUE_QUANTITY:
+			BigDecimal numericValue = readBigDecimal(buffer);
+			BigDecimal lowerBound = readBigDecimal(buffer);
+			BigDecimal upperBound = readBigDecimal(buffer);
+			String unit = readInterned(buffer, dictionary);
+			return Datamodel.makeQuantityValue(numericValue, lowerBound,
+					upperBound, "1".equals(unit) ? null : Datamodel
+							.makeWikidataItemIdValue(unit.substring(unit
+									.lastIndexOf('/') + 1)));
+		case VALUE_TIME:
+			long year = readSignedVarLong(buffer);
+			byte month = buffer.get();
+			byte day = buffer.get();
+			byte hour = buffer.get();
+			byte minute = buffer.get();
+			byte second = buffer.get();
+			byte precision = buffer.get();
+			int before = (int) readSignedVarLong(buffer);
+			int after = (int) readSignedVarLong(buffer);
+			int timezone = (int) readSignedVarLong(buffer);
+			return Datamodel.makeTimeValue(year, month, day, hour, minute,
+					second, precision, before, after, timezone,
+					readInterned(buffer, dictionary));
+		case VALUE_GLOBE_COORDINATES:
+			double latitude = buffer.getDouble();
+			double longitude = buffer.getDouble();
+			double coordinatePrecision = buffer.getDouble();
+			return Datamodel.makeGlobeCoordinatesValue(latitude, longitude,
+					coordinatePrecision, readInterned(buffer, dictionary));
+		default:
+			throw new IllegalStateException("Unknown value type " + type);
+		}
+	}
+
+	static ItemIdValue readItemId(ByteBuffer buffer) {
+		return Datamodel.makeWikidataItemIdValue("Q" + readVarLong(buffer));
+	}
+
+	static PropertyIdValue readPropertyId(ByteBuffer buffer) {
+		return Datamodel.makeWikidataPropertyIdValue("P" + readVarLong(buffer));
+	}
+
+	/**
+	 * Returns the number of an item, property, or lexeme id, such as 42 for
+	 * "Q42".
+	 */
+	static long getEntityNumber(EntityIdValue entityIdValue) {
+		String id = entityIdValue.getId();
+		long number = 0;
+		for (int i = 1; i < id.length(); i++) {
+			number = 10 * number + (id.charAt(i) - '0');
+		}
+		return number;
+	}
+}
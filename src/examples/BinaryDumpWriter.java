@@ -0,0 +1,369 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.dumpfiles.DumpProcessingController;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+import examples.BinaryDumpFormat.Encoder;
+
+/**
+ * Entity processor that writes all documents it receives into a binary dump
+ * that can be read with {@link BinaryDumpFile}. Items and properties are
+ * stored in the format of {@link BinaryDumpFormat}; other entities, and the
+ * rare documents that use data that this format does not support, are stored
+ * as JSON.
+ * <p>
+ * The data is first written to a temporary file, which is only renamed to the
+ * target file in {@link #finish()}. An incomplete binary dump (e.g., if the
+ * processing of the JSON dump was aborted) is therefore never used by
+ * mistake.
+ */
+public class BinaryDumpWriter implements EntityDocumentProcessor {
+
+	/**
+	 * Size of the file header: magic number, position of the dictionary, and
+	 * number of records.
+	 */
+	static final int HEADER_SIZE = 24;
+
+	final Path targetFile;
+	final Path temporaryFile;
+	final DataOutputStream output;
+	final Encoder encoder = new Encoder();
+	long position = HEADER_SIZE;
+	long recordCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param targetFile
+	 *            the file to write the binary dump to
+	 * @throws IOException
+	 *             if the temporary file could not be created
+	 */
+	public BinaryDumpWriter(Path targetFile) throws IOException {
+		this.targetFile = targetFile;
+		this.temporaryFile = Paths.get(targetFile.toString() + ".tmp");
+		this.output = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(this.temporaryFile), 1024 * 1024));
+		// The header is completed in finish():
+		this.output.write(new byte[HEADER_SIZE]);
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		this.encoder.reset();
+		try {
+			this.encoder.writeEntityNumber(itemDocument.getEntityId());
+			this.encoder.writeVarLong(itemDocument.getRevisionId());
+			this.encoder.writeTexts(itemDocument.getLabels());
+			this.encoder.writeTexts(itemDocument.getDescriptions());
+			this.encoder.writeAliases(itemDocument.getAliases());
+			this.encoder.writeStatementGroups(itemDocument
+					.getStatementGroups());
+			this.encoder.writeSiteLinks(itemDocument.getSiteLinks());
+		} catch (UnsupportedOperationException e) {
+			writeJsonRecord(itemDocument);
+			return;
+		}
+		writeRecord(BinaryDumpFormat.RECORD_ITEM);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		this.encoder.reset();
+		try {
+			this.encoder.writeEntityNumber(propertyDocument.getEntityId());
+			this.encoder.writeVarLong(propertyDocument.getRevisionId());
+			this.encoder.writeTexts(propertyDocument.getLabels());
+			this.encoder.writeTexts(propertyDocument.getDescriptions());
+			this.encoder.writeAliases(propertyDocument.getAliases());
+			this.encoder.writeStatementGroups(propertyDocument
+					.getStatementGroups());
+			this.encoder.writeInterned(propertyDocument.getDatatype()
+					.getJsonString());
+		} catch (UnsupportedOperationException e) {
+			writeJsonRecord(propertyDocument);
+			return;
+		}
+		writeRecord(BinaryDumpFormat.RECORD_PROPERTY);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		writeJsonRecord(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		writeJsonRecord(mediaInfoDocument);
+	}
+
+	/**
+	 * Completes the binary dump and moves it to the target file.
+	 *
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public void finish() throws IOException {
+		this.output.writeInt(this.encoder.dictionaryEntries.size());
+		this.encoder.reset();
+		for (String entry : this.encoder.dictionaryEntries) {
+			this.encoder.writeString(entry);
+		}
+		this.output.write(this.encoder.data, 0, this.encoder.length);
+		this.output.close();
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putLong(BinaryDumpFormat.FILE_MAGIC);
+		header.putLong(this.position);
+		header.putLong(this.recordCount);
+		header.flip();
+		try (FileChannel channel = FileChannel.open(this.temporaryFile,
+				StandardOpenOption.WRITE)) {
+			channel.write(header, 0);
+		}
+		Files.move(this.temporaryFile, this.targetFile,
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Discards the data that has been written so far.
+	 */
+	public void abort() {
+		try {
+			this.output.close();
+			Files.deleteIfExists(this.temporaryFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the number of entities that have been written.
+	 *
+	 * @return number of entities
+	 */
+	public long getRecordCount() {
+		return this.recordCount;
+	}
+
+	void writeJsonRecord(EntityDocument entityDocument) {
+		this.encoder.reset();
+		try {
+			this.encoder.writeString(JsonSerializer
+					.getJsonString(entityDocument));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		writeRecord(BinaryDumpFormat.RECORD_JSON);
+	}
+
+	/**
+	 * Appends the document in the encoder to the file. Every record starts
+	 * with its length (including the type) and its type.
+	 */
+	void writeRecord(byte type) {
+		try {
+			this.output.writeInt(this.encoder.length + 1);
+			this.output.writeByte(type);
+			this.output.write(this.encoder.data, 0, this.encoder.length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.position += this.encoder.length + 5;
+		this.recordCount++;
+	}
+
+	/**
+	 * Converts the local JSON dump given as first argument into the binary
+	 * dump given as second argument. If the third argument is "check", the
+	 * binary dump is read again afterwards, and each of its entities is
+	 * compared with the entity of the JSON dump.
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		if (args.length != 2
+				&& !(args.length == 3 && "check".equals(args[2]))) {
+			System.out.println("Usage: BinaryDumpWriter "
+					+ "<json dump> <target file> [check]");
+			return;
+		}
+		BinaryDumpWriter writer = new BinaryDumpWriter(Paths.get(args[1]));
+		DumpProcessingController dumpProcessingController = new DumpProcessingController(
+				"wikidatawiki");
+		dumpProcessingController.registerEntityDocumentProcessor(writer, null,
+				true);
+		dumpProcessingController.processDump(new MwLocalDumpFile(args[0]));
+		writer.finish();
+		System.out.println("Wrote " + writer.getRecordCount()
+				+ " entities to " + args[1]);
+
+		if (args.length == 3) {
+			checkRoundTrip(args[0], Paths.get(args[1]));
+		}
+	}
+
+	/**
+	 * Reads the entities of a binary dump in a background thread, and
+	 * compares them with the entities of the JSON dump that it was written
+	 * from. Prints the number of entities that are not equal.
+	 *
+	 * @param jsonDumpFile
+	 *            the JSON dump
+	 * @param binaryDumpFile
+	 *            the binary dump written from it
+	 */
+	static void checkRoundTrip(String jsonDumpFile, Path binaryDumpFile)
+			throws IOException {
+		BlockingQueue<Object> binaryDocuments = new ArrayBlockingQueue<>(1024);
+		Object end = new Object();
+		Consumer<Object> put = document -> {
+			try {
+				binaryDocuments.put(document);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		};
+		Thread reader = new Thread(() -> {
+			try (BinaryDumpFile file = new BinaryDumpFile(binaryDumpFile)) {
+				file.processEntities(new EntityDocumentProcessor() {
+					@Override
+					public void processItemDocument(ItemDocument itemDocument) {
+						put.accept(itemDocument);
+					}
+
+					@Override
+					public void processPropertyDocument(
+							PropertyDocument propertyDocument) {
+						put.accept(propertyDocument);
+					}
+
+					@Override
+					public void processLexemeDocument(
+							LexemeDocument lexemeDocument) {
+						put.accept(lexemeDocument);
+					}
+
+					@Override
+					public void processMediaInfoDocument(
+							MediaInfoDocument mediaInfoDocument) {
+						put.accept(mediaInfoDocument);
+					}
+				});
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				put.accept(end);
+			}
+		});
+		reader.start();
+
+		long[] counts = new long[2]; // entities, differences
+		Consumer<EntityDocument> compare = jsonDocument -> {
+			Object binaryDocument;
+			try {
+				binaryDocument = binaryDocuments.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			counts[0]++;
+			if (binaryDocument == end) {
+				binaryDocuments.add(end);
+				counts[1]++;
+			} else if (!jsonDocument.equals(binaryDocument)) {
+				if (counts[1] < 10) {
+					System.out.println("Entity differs: "
+							+ jsonDocument.getEntityId().getId());
+				}
+				counts[1]++;
+			}
+		};
+		DumpProcessingController dumpProcessingController = new DumpProcessingController(
+				"wikidatawiki");
+		dumpProcessingController.registerEntityDocumentProcessor(
+				new EntityDocumentProcessor() {
+					@Override
+					public void processItemDocument(ItemDocument itemDocument) {
+						compare.accept(itemDocument);
+					}
+
+					@Override
+					public void processPropertyDocument(
+							PropertyDocument propertyDocument) {
+						compare.accept(propertyDocument);
+					}
+
+					@Override
+					public void processLexemeDocument(
+							LexemeDocument lexemeDocument) {
+						compare.accept(lexemeDocument);
+					}
+
+					@Override
+					public void processMediaInfoDocument(
+							MediaInfoDocument mediaInfoDocument) {
+						compare.accept(mediaInfoDocument);
+					}
+				}, null, true);
+		dumpProcessingController.processDump(new MwLocalDumpFile(jsonDumpFile));
+
+		// count the entities that are only in the binary dump:
+		try {
+			for (Object document = binaryDocuments.take(); document != end; document = binaryDocuments
+					.take()) {
+				counts[1]++;
+			}
+			reader.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		System.out.println("Compared " + counts[0] + " entities, "
+				+ counts[1] + " differ.");
+	}
+}
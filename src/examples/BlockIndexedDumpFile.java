@@ -0,0 +1,338 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+import examples.ParallelGzipInputStream.GzipMemberInputStream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reader for dumps that have been converted with
+ * {@link BlockIndexedDumpWriter}. Such a dump is a gzip file that consists of
+ * many small, independently compressed blocks, together with an index file
+ * that stores for each entity id the block and the position in the block where
+ * the entity can be found. This allows to read individual entities, lists of
+ * entities, or ranges of entity ids without decompressing the whole dump.
+ * <p>
+ * The index is a sorted list of pairs of longs. The first long encodes the
+ * entity id (see {@link #getEntityKey(String)}), the second long the position
+ * of the compressed block in the dump file (upper 40 bits) and the position of
+ * the entity in the uncompressed block (lower 24 bits). The index is mapped
+ * into memory, so that lookups only read the pages that are needed.
+ */
+public class BlockIndexedDumpFile implements Closeable {
+
+	/**
+	 * Marker at the start of every index file ("WDTKIDX1").
+	 */
+	static final long INDEX_MAGIC = 0x5744544b49445831L;
+	static final int INDEX_HEADER_SIZE = 16;
+	static final int INDEX_ENTRY_SIZE = 16;
+
+	/**
+	 * Number of index entries in one memory-mapped segment of the index.
+	 */
+	static final int ENTRIES_PER_SEGMENT = 1 << 26;
+
+	static final int OFFSET_BITS = 24;
+
+	/**
+	 * Number of locations that are sorted and read together when processing
+	 * a range of ids.
+	 */
+	static final int RANGE_BATCH_SIZE = 1024 * 1024;
+
+	static final String ENTITY_TYPE_LETTERS = "QPLM";
+
+	final Path dumpFile;
+	final FileChannel dumpChannel;
+	final FileChannel indexChannel;
+	final MappedByteBuffer[] indexSegments;
+	final long entryCount;
+	final ObjectReader documentReader;
+
+	/**
+	 * Opens the given dump file and its index.
+	 *
+	 * @param dumpFile
+	 *            the dump file written by {@link BlockIndexedDumpWriter}
+	 * @throws IOException
+	 *             if the files could not be opened
+	 */
+	public BlockIndexedDumpFile(Path dumpFile) throws IOException {
+		this.dumpFile = dumpFile;
+		this.dumpChannel = FileChannel.open(dumpFile, StandardOpenOption.READ);
+		this.indexChannel = FileChannel.open(getIndexPath(dumpFile),
+				StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+		ParallelGzipInputStream.readFully(this.indexChannel, header, 0);
+		header.flip();
+		if (header.getLong() != INDEX_MAGIC) {
+			throw new IOException("Not a valid index file for " + dumpFile);
+		}
+		this.entryCount = header.getLong();
+
+		int segmentCount = (int) ((this.entryCount + ENTRIES_PER_SEGMENT - 1)
+				/ ENTRIES_PER_SEGMENT);
+		this.indexSegments = new MappedByteBuffer[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long firstEntry = (long) i * ENTRIES_PER_SEGMENT;
+			long entries = Math.min(ENTRIES_PER_SEGMENT, this.entryCount
+					- firstEntry);
+			this.indexSegments[i] = this.indexChannel.map(MapMode.READ_ONLY,
+					INDEX_HEADER_SIZE + firstEntry * INDEX_ENTRY_SIZE, entries
+							* INDEX_ENTRY_SIZE);
+		}
+
+		this.documentReader = new DatamodelMapper(Datamodel.SITE_WIKIDATA)
+				.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+	}
+
+	/**
+	 * Returns the path of the index file that belongs to the given dump file.
+	 *
+	 * @param dumpFile
+	 *            the dump file
+	 * @return the path of the index
+	 */
+	public static Path getIndexPath(Path dumpFile) {
+		return Paths.get(dumpFile.toString() + ".idx");
+	}
+
+	/**
+	 * Returns the number of entities in the index.
+	 *
+	 * @return number of entities
+	 */
+	public long getEntityCount() {
+		return this.entryCount;
+	}
+
+	/**
+	 * Processes the entities with the given ids. Entities are read in the
+	 * order in which they appear in the dump, so that each block is only
+	 * decompressed once. Ids that are not found in the dump are ignored.
+	 *
+	 * @param entityIds
+	 *            the ids of the entities, such as "Q42" or "P31"
+	 * @param entityDocumentProcessor
+	 *            the processor for the entities
+	 * @throws IOException
+	 *             if the dump could not be read
+	 */
+	public void processEntities(Collection<String> entityIds,
+			EntityDocumentProcessor entityDocumentProcessor) throws IOException {
+		long[] locations = new long[entityIds.size()];
+		int count = 0;
+		for (String entityId : entityIds) {
+			long key = getEntityKey(entityId);
+			long index = key == -1 ? -1 : findEntry(key);
+			if (index != -1 && index < this.entryCount
+					&& getKey(index) == key) {
+				locations[count++] = getLocation(index);
+			}
+		}
+		processLocations(locations, count, entityDocumentProcessor);
+	}
+
+	/**
+	 * Processes all entities with ids between the given ids (inclusive). Both
+	 * ids must belong to the same type of entities.
+	 *
+	 * @param firstEntityId
+	 *            the first id of the range, such as "Q1"
+	 * @param lastEntityId
+	 *            the last id of the range, such as "Q1000"
+	 * @param entityDocumentProcessor
+	 *            the processor for the entities
+	 * @throws IOException
+	 *             if the dump could not be read
+	 */
+	public void processEntityRange(String firstEntityId, String lastEntityId,
+			EntityDocumentProcessor entityDocumentProcessor) throws IOException {
+		long firstKey = getEntityKey(firstEntityId);
+		long lastKey = getEntityKey(lastEntityId);
+		if (firstKey == -1 || lastKey == -1
+				|| firstEntityId.charAt(0) != lastEntityId.charAt(0)) {
+			throw new IllegalArgumentException(
+					"Range must be given by two ids of the same entity type");
+		}
+
+		long[] locations = new long[RANGE_BATCH_SIZE];
+		int count = 0;
+		for (long index = findEntry(firstKey); index < this.entryCount
+				&& getKey(index) <= lastKey; index++) {
+			locations[count++] = getLocation(index);
+			if (count == locations.length) {
+				processLocations(locations, count, entityDocumentProcessor);
+				count = 0;
+			}
+		}
+		processLocations(locations, count, entityDocumentProcessor);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.dumpChannel.close();
+		this.indexChannel.close();
+	}
+
+	/**
+	 * Converts an entity id into the key used in the index. The type of the
+	 * entity is stored in the upper bits, and the number in the lower 40 bits.
+	 *
+	 * @param entityId
+	 *            the entity id, such as "Q42"
+	 * @return the key, or -1 if the id cannot be stored in the index
+	 */
+	public static long getEntityKey(String entityId) {
+		if (entityId == null || entityId.length() < 2
+				|| entityId.length() > 14) {
+			return -1;
+		}
+		int type = ENTITY_TYPE_LETTERS.indexOf(entityId.charAt(0));
+		if (type == -1) {
+			return -1;
+		}
+		long number = 0;
+		for (int i = 1; i < entityId.length(); i++) {
+			char c = entityId.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			number = 10 * number + (c - '0');
+		}
+		if (number >= (1L << 40)) {
+			return -1;
+		}
+		return ((long) type << 40) | number;
+	}
+
+	/**
+	 * Converts a key of the index back into the entity id.
+	 *
+	 * @param key
+	 *            the key, as returned by {@link #getEntityKey(String)}
+	 * @return the entity id, such as "Q42"
+	 */
+	public static String getEntityId(long key) {
+		return ENTITY_TYPE_LETTERS.charAt((int) (key >>> 40))
+				+ Long.toString(key & ((1L << 40) - 1));
+	}
+
+	/**
+	 * Returns the index of the first entry whose key is not smaller than the
+	 * given key.
+	 */
+	long findEntry(long key) {
+		long low = 0;
+		long high = this.entryCount;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if (getKey(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	long getKey(long index) {
+		return this.indexSegments[(int) (index / ENTRIES_PER_SEGMENT)]
+				.getLong((int) (index % ENTRIES_PER_SEGMENT) * INDEX_ENTRY_SIZE);
+	}
+
+	long getLocation(long index) {
+		return this.indexSegments[(int) (index / ENTRIES_PER_SEGMENT)]
+				.getLong((int) (index % ENTRIES_PER_SEGMENT) * INDEX_ENTRY_SIZE
+						+ 8);
+	}
+
+	/**
+	 * Reads the entities at the given locations in the order of the dump.
+	 */
+	void processLocations(long[] locations, int count,
+			EntityDocumentProcessor entityDocumentProcessor) throws IOException {
+		Arrays.sort(locations, 0, count);
+
+		long currentBlock = -1;
+		byte[] blockData = null;
+		for (int i = 0; i < count; i++) {
+			if (i > 0 && locations[i] == locations[i - 1]) {
+				continue;
+			}
+			long block = locations[i] >>> OFFSET_BITS;
+			if (block != currentBlock) {
+				blockData = readBlock(block);
+				currentBlock = block;
+			}
+			int start = (int) (locations[i] & ((1 << OFFSET_BITS) - 1));
+			int end = ParallelJsonDumpProcessor.indexOf(blockData, start,
+					blockData.length, (byte) '\n');
+			if (end == -1) {
+				end = blockData.length;
+			}
+			while (end > start
+					&& ParallelJsonDumpProcessor
+							.isJsonLineSuffix(blockData[end - 1])) {
+				end--;
+			}
+
+			EntityDocument document = this.documentReader.readValue(blockData,
+					start, end - start);
+			ParallelJsonDumpProcessor.dispatchDocument(document,
+					entityDocumentProcessor);
+		}
+	}
+
+	/**
+	 * Decompresses the block that starts at the given position.
+	 */
+	byte[] readBlock(long position) throws IOException {
+		try (InputStream in = new GzipMemberInputStream(this.dumpChannel,
+				position)) {
+			return in.readAllBytes();
+		}
+	}
+}
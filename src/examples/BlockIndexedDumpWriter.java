@@ -0,0 +1,348 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Converts a JSON dump into a dump that can be read selectively with
+ * {@link BlockIndexedDumpFile}. The lines of the dump are grouped into blocks
+ * of about {@link #BLOCK_SIZE} bytes, and each block is compressed as a gzip
+ * member of its own (similar to the BGZF format used for genome data). The
+ * result is still a valid gzip-compressed JSON dump that can be processed
+ * like any other dump, e.g., with {@link MwLocalDumpFile}. In addition, an
+ * index file is written that stores the position of every entity.
+ * <p>
+ * The index entries are collected in sorted runs of {@link #RUN_SIZE} entries
+ * that are written to temporary files and merged in the end, so the
+ * conversion does not need to keep the index of the whole dump in memory.
+ */
+public class BlockIndexedDumpWriter {
+
+	/**
+	 * Size of the uncompressed data after which a new block is started.
+	 */
+	static final int BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Number of index entries that are sorted in memory at a time.
+	 */
+	static final int RUN_SIZE = 1 << 21;
+
+	static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+	final Path targetFile;
+
+	OutputStream output;
+	long outputPosition = 0;
+	final ByteArrayOutputStream compressedBlock = new ByteArrayOutputStream();
+	byte[] block = new byte[2 * BLOCK_SIZE];
+	int blockLength = 0;
+
+	final long[] runKeys = new long[RUN_SIZE];
+	final long[] runLocations = new long[RUN_SIZE];
+	int runLength = 0;
+	final List<Path> runFiles = new ArrayList<>();
+	long entryCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param targetFile
+	 *            the file to write the converted dump to; the index is written
+	 *            to the file returned by
+	 *            {@link BlockIndexedDumpFile#getIndexPath(Path)}
+	 */
+	public BlockIndexedDumpWriter(Path targetFile) {
+		this.targetFile = targetFile;
+	}
+
+	/**
+	 * Converts the given JSON dump.
+	 *
+	 * @param dumpFile
+	 *            the dump to convert
+	 * @throws IOException
+	 *             if the dump could not be read or the result could not be
+	 *             written
+	 */
+	public void convert(MwDumpFile dumpFile) throws IOException {
+		dumpFile.prepareDumpFile();
+		try (InputStream in = dumpFile.getDumpFileStream();
+				OutputStream out = new BufferedOutputStream(
+						Files.newOutputStream(this.targetFile), 1024 * 1024)) {
+			this.output = out;
+			readLines(in);
+			writeBlock();
+		}
+		writeIndex();
+	}
+
+	/**
+	 * Cuts the input into lines and adds them to the blocks.
+	 */
+	void readLines(InputStream in) throws IOException {
+		byte[] buffer = new byte[1024 * 1024];
+		int length = 0;
+		int read;
+		while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+			length += read;
+			int lineStart = 0;
+			int lineEnd;
+			while ((lineEnd = ParallelJsonDumpProcessor.indexOf(buffer,
+					lineStart, length, (byte) '\n')) != -1) {
+				addLine(buffer, lineStart, lineEnd + 1);
+				lineStart = lineEnd + 1;
+			}
+			length -= lineStart;
+			System.arraycopy(buffer, lineStart, buffer, 0, length);
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+			}
+		}
+		if (length > 0) {
+			addLine(buffer, 0, length);
+		}
+	}
+
+	/**
+	 * Adds one line of the dump (including the line break) to the current
+	 * block, and records the position of the entity on this line in the
+	 * index.
+	 */
+	void addLine(byte[] data, int start, int end) throws IOException {
+		if (this.blockLength >= BLOCK_SIZE) {
+			writeBlock();
+		}
+
+		long key = BlockIndexedDumpFile.getEntityKey(getEntityId(data, start,
+				end));
+		if (key != -1) {
+			addIndexEntry(key,
+					(this.outputPosition << BlockIndexedDumpFile.OFFSET_BITS)
+							| this.blockLength);
+		}
+
+		int length = end - start;
+		if (this.blockLength + length > this.block.length) {
+			this.block = Arrays.copyOf(this.block, Math.max(
+					2 * this.block.length, this.blockLength + length));
+		}
+		System.arraycopy(data, start, this.block, this.blockLength, length);
+		this.blockLength += length;
+	}
+
+	/**
+	 * Finds the id of the entity on the given line of the dump. Only the top
+	 * level of the JSON object is considered, since statements have ids, too.
+	 *
+	 * @return the id, or null if there is no entity on this line
+	 */
+	static String getEntityId(byte[] data, int start, int end)
+			throws IOException {
+		while (end > start && data[end - 1] <= ' ') {
+			end--;
+		}
+		if (end - start <= 1) { // "[", "]", or empty
+			return null;
+		}
+		try (JsonParser parser = JSON_FACTORY.createParser(data, start, end
+				- start)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.currentName();
+				parser.nextToken();
+				if ("id".equals(fieldName)) {
+					return parser.getText();
+				}
+				parser.skipChildren();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Compresses the current block and appends it to the output.
+	 */
+	void writeBlock() throws IOException {
+		if (this.blockLength == 0) {
+			return;
+		}
+		this.compressedBlock.reset();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(this.compressedBlock)) {
+			gzip.write(this.block, 0, this.blockLength);
+		}
+		this.compressedBlock.writeTo(this.output);
+		this.outputPosition += this.compressedBlock.size();
+		this.blockLength = 0;
+	}
+
+	void addIndexEntry(long key, long location) throws IOException {
+		if (this.runLength == RUN_SIZE) {
+			writeRun();
+		}
+		this.runKeys[this.runLength] = key;
+		this.runLocations[this.runLength] = location;
+		this.runLength++;
+		this.entryCount++;
+	}
+
+	/**
+	 * Sorts the collected index entries and writes them to a temporary file.
+	 */
+	void writeRun() throws IOException {
+		// Keys use at most 42 bits, so the position in the run can be sorted
+		// along with them:
+		long[] order = new long[this.runLength];
+		for (int i = 0; i < this.runLength; i++) {
+			order[i] = (this.runKeys[i] << 21) | i;
+		}
+		Arrays.sort(order);
+
+		Path runFile = Files.createTempFile(this.targetFile.toAbsolutePath()
+				.getParent(), "index-run-", ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(runFile),
+						1024 * 1024))) {
+			for (long entry : order) {
+				int i = (int) (entry & (RUN_SIZE - 1));
+				out.writeLong(this.runKeys[i]);
+				out.writeLong(this.runLocations[i]);
+			}
+		}
+		this.runFiles.add(runFile);
+		this.runLength = 0;
+	}
+
+	/**
+	 * Merges all sorted runs into the final index file.
+	 */
+	void writeIndex() throws IOException {
+		if (this.runLength > 0 || this.runFiles.isEmpty()) {
+			writeRun();
+		}
+
+		PriorityQueue<RunReader> queue = new PriorityQueue<>(
+				(a, b) -> Long.compare(a.key, b.key));
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(BlockIndexedDumpFile
+						.getIndexPath(this.targetFile)), 1024 * 1024))) {
+			out.writeLong(BlockIndexedDumpFile.INDEX_MAGIC);
+			out.writeLong(this.entryCount);
+			for (Path runFile : this.runFiles) {
+				RunReader reader = new RunReader(runFile);
+				if (reader.next()) {
+					queue.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+			while (!queue.isEmpty()) {
+				RunReader reader = queue.poll();
+				out.writeLong(reader.key);
+				out.writeLong(reader.location);
+				if (reader.next()) {
+					queue.add(reader);
+				} else {
+					reader.close();
+				}
+			}
+		} finally {
+			for (RunReader reader : queue) {
+				reader.close();
+			}
+			for (Path runFile : this.runFiles) {
+				Files.deleteIfExists(runFile);
+			}
+		}
+	}
+
+	/**
+	 * Reads the entries of one sorted run.
+	 */
+	static class RunReader {
+		final DataInputStream in;
+		long key;
+		long location;
+
+		RunReader(Path runFile) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					Files.newInputStream(runFile), 64 * 1024));
+		}
+
+		boolean next() throws IOException {
+			try {
+				this.key = this.in.readLong();
+				this.location = this.in.readLong();
+				return true;
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+
+		void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+	/**
+	 * Converts the local dump file given as first argument into the file
+	 * given as second argument.
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		if (args.length != 2) {
+			System.out.println("Usage: BlockIndexedDumpWriter "
+					+ "<json dump> <target file>");
+			return;
+		}
+		BlockIndexedDumpWriter writer = new BlockIndexedDumpWriter(
+				Paths.get(args[1]));
+		writer.convert(new MwLocalDumpFile(args[0]));
+		System.out.println("Wrote " + writer.entryCount + " entities to "
+				+ args[1]);
+	}
+}
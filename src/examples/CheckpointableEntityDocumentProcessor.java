@@ -0,0 +1,66 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Interface for {@link EntityDocumentProcessor} objects whose state can be
+ * stored in a {@link DumpCheckpoint}, so that a long scan through a dump can
+ * be resumed after a crash. {@link ParallelJsonDumpProcessor} stores the state
+ * periodically while no document is being processed, and restores it before
+ * continuing with the rest of the dump.
+ * <p>
+ * If the processor is also a {@link MergeableEntityDocumentProcessor} that is
+ * used with several threads, the state of all worker copies is merged into a
+ * fresh copy for writing the checkpoint. The worker copies are still used
+ * afterwards, so {@link MergeableEntityDocumentProcessor#merge} must not
+ * change them or take over their mutable objects.
+ */
+public interface CheckpointableEntityDocumentProcessor extends
+		EntityDocumentProcessor {
+
+	/**
+	 * Writes the data that has been collected so far.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	void writeCheckpoint(DataOutputStream out) throws IOException;
+
+	/**
+	 * Replaces the data of this processor by the data that was written with
+	 * {@link #writeCheckpoint(DataOutputStream)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	void readCheckpoint(DataInputStream in) throws IOException;
+
+}
@@ -20,20 +20,27 @@ package examples;
  * #L%
  */
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.implementation.EntityIdValueImpl;
 import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
@@ -64,11 +71,26 @@ import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
  * <p>
  * The code is somewhat complex and not always clean. It should be considered as
  * an advanced example, not as a first introduction.
+ * <p>
+ * The analyzer can be checkpointed (see
+ * {@link ExampleHelpers#CHECKPOINT_INTERVAL_SEC}), so that a long run can be
+ * resumed after an interruption.
+ * <p>
+ * The analyzer keeps the documents of all classes and properties, and the ids
+ * of many related classes and properties. These are interned with an
+ * {@link InterningDataObjectFactory}, so that each id is only stored once.
  *
  * @author Markus Kroetzsch
  *
  */
-public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
+public class ClassPropertyUsageAnalyzer implements
+		CheckpointableEntityDocumentProcessor {
+
+	/**
+	 * Number of rows of a CSV file that are sorted in memory at a time; see
+	 * {@link SortedReportWriter}.
+	 */
+	static final int REPORT_RUN_SIZE = 1 << 20;
 
 	/**
 	 * Set of top-level classes (without a superclass) that should be considered
@@ -128,6 +150,16 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		 * {@link UsageRecord#itemCount}).
 		 */
 		public HashMap<PropertyIdValue, Integer> propertyCoCounts = new HashMap<>();
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(this.itemCount);
+			DumpCheckpoint.writePropertyCounts(out, this.propertyCoCounts);
+		}
+
+		void read(DataInputStream in) throws IOException {
+			this.itemCount = in.readInt();
+			DumpCheckpoint.readPropertyCounts(in, this.propertyCoCounts);
+		}
 	}
 
 	/**
@@ -158,6 +190,27 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		 * {@link PropertyDocument} for this property.
 		 */
 		public PropertyDocument propertyDocument = null;
+
+		@Override
+		void write(DataOutputStream out) throws IOException {
+			super.write(out);
+			out.writeInt(this.statementCount);
+			out.writeInt(this.statementWithQualifierCount);
+			out.writeInt(this.qualifierCount);
+			out.writeInt(this.referenceCount);
+			DumpCheckpoint.writeDocument(out, this.propertyDocument);
+		}
+
+		@Override
+		void read(DataInputStream in) throws IOException {
+			super.read(in);
+			this.statementCount = in.readInt();
+			this.statementWithQualifierCount = in.readInt();
+			this.qualifierCount = in.readInt();
+			this.referenceCount = in.readInt();
+			this.propertyDocument = (PropertyDocument) DumpCheckpoint
+					.readDocument(in);
+		}
 	}
 
 	/**
@@ -179,44 +232,28 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		 * List of all super classes of this class.
 		 */
 		public ArrayList<EntityIdValue> superClasses = new ArrayList<>();
-	}
 
-	/**
-	 * Comparator to order class items by their number of instances and direct
-	 * subclasses.
-	 *
-	 * @author Markus Kroetzsch
-	 *
-	 */
-	private static class ClassUsageRecordComparator implements
-			Comparator<Entry<? extends EntityIdValue, ? extends ClassRecord>> {
 		@Override
-		public int compare(
-				Entry<? extends EntityIdValue, ? extends ClassRecord> o1,
-				Entry<? extends EntityIdValue, ? extends ClassRecord> o2) {
-			return o2.getValue().subclassCount + o2.getValue().itemCount
-					- (o1.getValue().subclassCount + o1.getValue().itemCount);
+		void write(DataOutputStream out) throws IOException {
+			super.write(out);
+			out.writeInt(this.subclassCount);
+			DumpCheckpoint.writeDocument(out, this.itemDocument);
+			out.writeInt(this.superClasses.size());
+			for (EntityIdValue superClass : this.superClasses) {
+				out.writeUTF(superClass.getId());
+			}
 		}
-	}
 
-	/**
-	 * Comparator to order class items by their number of instances and direct
-	 * subclasses.
-	 *
-	 * @author Markus Kroetzsch
-	 *
-	 */
-	private static class UsageRecordComparator
-			implements
-			Comparator<Entry<? extends EntityIdValue, ? extends PropertyRecord>> {
 		@Override
-		public int compare(
-				Entry<? extends EntityIdValue, ? extends PropertyRecord> o1,
-				Entry<? extends EntityIdValue, ? extends PropertyRecord> o2) {
-			return (o2.getValue().itemCount + o2.getValue().qualifierCount + o2
-					.getValue().referenceCount)
-					- (o1.getValue().itemCount + o1.getValue().qualifierCount + o1
-							.getValue().referenceCount);
+		void read(DataInputStream in) throws IOException {
+			super.read(in);
+			this.subclassCount = in.readInt();
+			this.itemDocument = (ItemDocument) DumpCheckpoint.readDocument(in);
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				this.superClasses.add(EntityIdValueImpl.fromId(in.readUTF(),
+						Datamodel.SITE_WIKIDATA));
+			}
 		}
 	}
 
@@ -246,13 +283,26 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	 */
 	final HashMap<EntityIdValue, ClassRecord> classRecords = new HashMap<>();
 
+	/**
+	 * Factory for the ids and documents that are kept in the records. The
+	 * analyzer is not a {@link MergeableEntityDocumentProcessor}, so it is
+	 * never copied for worker threads and this is the only factory it uses.
+	 */
+	final InterningDataObjectFactory dataObjectFactory = new InterningDataObjectFactory();
+	/**
+	 * Converter used to make interned copies of the documents that are kept.
+	 */
+	final DatamodelConverter datamodelConverter = new DatamodelConverter(
+			this.dataObjectFactory);
+
 	/**
 	 * Map used during serialization to ensure that every label is used only
 	 * once. The Map assigns an item to each label. If another item wants to use
 	 * a label that is already assigned, it will use a label with an added Q-ID
-	 * for disambiguation.
+	 * for disambiguation. Labels are assigned to the classes of the rows in
+	 * the order of the file first, while rows are formatted in parallel.
 	 */
-	final HashMap<String, EntityIdValue> labels = new HashMap<>();
+	final ConcurrentHashMap<String, EntityIdValue> labels = new ConcurrentHashMap<>();
 
 	/**
 	 * Main method. Processes the whole dump using this processor. To change
@@ -320,7 +370,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 									otherClassRecord, null);
 						} else {
 							otherClassRecord.subclassCount++;
-							classRecord.superClasses.add((EntityIdValue) value);
+							classRecord.superClasses.add(this.dataObjectFactory
+									.intern((EntityIdValue) value));
 						}
 					}
 				}
@@ -332,7 +383,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 
 		if (classRecord != null) {
 			this.countClasses++;
-			classRecord.itemDocument = itemDocument;
+			classRecord.itemDocument = this.datamodelConverter
+					.copy(itemDocument);
 		}
 
 		// print a report once in a while:
@@ -350,7 +402,52 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		this.countProperties++;
 
 		PropertyRecord propertyRecord = getPropertyRecord(propertyDocument.getEntityId());
-		propertyRecord.propertyDocument = propertyDocument;
+		propertyRecord.propertyDocument = this.datamodelConverter
+				.copy(propertyDocument);
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeLong(this.countItems);
+		out.writeLong(this.countPropertyItems);
+		out.writeLong(this.countProperties);
+		out.writeLong(this.countClasses);
+
+		out.writeInt(this.propertyRecords.size());
+		for (Entry<PropertyIdValue, PropertyRecord> entry : this.propertyRecords
+				.entrySet()) {
+			out.writeUTF(entry.getKey().getId());
+			entry.getValue().write(out);
+		}
+		out.writeInt(this.classRecords.size());
+		for (Entry<EntityIdValue, ClassRecord> entry : this.classRecords
+				.entrySet()) {
+			out.writeUTF(entry.getKey().getId());
+			entry.getValue().write(out);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		this.countItems = in.readLong();
+		this.countPropertyItems = in.readLong();
+		this.countProperties = in.readLong();
+		this.countClasses = in.readLong();
+
+		this.propertyRecords.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			PropertyIdValue property = Datamodel
+					.makeWikidataPropertyIdValue(in.readUTF());
+			getPropertyRecord(property).read(in);
+		}
+		this.classRecords.clear();
+		size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			EntityIdValue entityIdValue = EntityIdValueImpl.fromId(
+					in.readUTF(), Datamodel.SITE_WIKIDATA);
+			getClassRecord(entityIdValue).read(in);
+		}
 	}
 
 	/**
@@ -393,7 +490,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	private ClassRecord getClassRecord(EntityIdValue entityIdValue) {
 		if (!this.classRecords.containsKey(entityIdValue)) {
 			ClassRecord classRecord = new ClassRecord();
-			this.classRecords.put(entityIdValue, classRecord);
+			this.classRecords.put(this.dataObjectFactory.intern(entityIdValue),
+					classRecord);
 			return classRecord;
 		} else {
 			return this.classRecords.get(entityIdValue);
@@ -410,7 +508,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	private PropertyRecord getPropertyRecord(PropertyIdValue property) {
 		if (!this.propertyRecords.containsKey(property)) {
 			PropertyRecord propertyRecord = new PropertyRecord();
-			this.propertyRecords.put(property, propertyRecord);
+			this.propertyRecords.put(this.dataObjectFactory.intern(property),
+					propertyRecord);
 			return propertyRecord;
 		} else {
 			return this.propertyRecords.get(property);
@@ -422,7 +521,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		for (StatementGroup sg : itemDocument.getStatementGroups()) {
 			if (!sg.getProperty().equals(thisPropertyIdValue)) {
 				if (!usageRecord.propertyCoCounts.containsKey(sg.getProperty())) {
-					usageRecord.propertyCoCounts.put(sg.getProperty(), 1);
+					usageRecord.propertyCoCounts.put(
+							this.dataObjectFactory.intern(sg.getProperty()), 1);
 				} else {
 					usageRecord.propertyCoCounts
 							.put(sg.getProperty(), usageRecord.propertyCoCounts
@@ -477,7 +577,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	 */
 	private void writePropertyData() {
 		try (PrintStream out = new PrintStream(
-				ExampleHelpers.openExampleFileOuputStream("properties.csv"))) {
+				ExampleHelpers.openExampleFileOuputStream("properties.csv"));
+				SortedReportWriter reportWriter = createReportWriter()) {
 
 			out.println("Id" + ",Label" + ",Description" + ",URL" + ",Datatype"
 					+ ",Uses in statements" + ",Items with such statements"
@@ -485,12 +586,20 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 					+ ",Uses in qualifiers" + ",Uses in references"
 					+ ",Uses total" + ",Related properties");
 
-			List<Entry<PropertyIdValue, PropertyRecord>> list = new ArrayList<>(
-					this.propertyRecords.entrySet());
-			list.sort(new UsageRecordComparator());
-			for (Entry<PropertyIdValue, PropertyRecord> entry : list) {
-				printPropertyRecord(out, entry.getValue(), entry.getKey());
+			for (Entry<PropertyIdValue, PropertyRecord> entry : this.propertyRecords
+					.entrySet()) {
+				PropertyRecord propertyRecord = entry.getValue();
+				reportWriter.addRow((long) propertyRecord.itemCount
+						+ propertyRecord.qualifierCount
+						+ propertyRecord.referenceCount, entry.getKey().getId());
 			}
+			reportWriter.write(out, id -> {
+				PropertyIdValue propertyIdValue = Datamodel
+						.makeWikidataPropertyIdValue(id);
+				return formatRow(rowOut -> printPropertyRecord(rowOut,
+						this.propertyRecords.get(propertyIdValue),
+						propertyIdValue));
+			});
 
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -498,32 +607,93 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	}
 
 	/**
-	 * Writes the data collected about classes to a file.
+	 * Writes the data collected about classes to a file. The classes are
+	 * sorted with {@link SortedReportWriter}, so that there is no need for a
+	 * sorted copy of all class records in memory.
 	 */
 	private void writeClassData() {
 		try (PrintStream out = new PrintStream(
-				ExampleHelpers.openExampleFileOuputStream("classes.csv"))) {
+				ExampleHelpers.openExampleFileOuputStream("classes.csv"));
+				SortedReportWriter reportWriter = createReportWriter()) {
 
 			out.println("Id" + ",Label" + ",Description" + ",URL" + ",Image"
 					+ ",Number of direct instances"
 					+ ",Number of direct subclasses" + ",Direct superclasses"
 					+ ",All superclasses" + ",Related properties");
 
-			List<Entry<EntityIdValue, ClassRecord>> list = new ArrayList<>(
-					this.classRecords.entrySet());
-			list.sort(new ClassUsageRecordComparator());
-			for (Entry<EntityIdValue, ClassRecord> entry : list) {
-				if (entry.getValue().itemCount > 0
-						|| entry.getValue().subclassCount > 0) {
-					printClassRecord(out, entry.getValue(), entry.getKey());
+			for (Entry<EntityIdValue, ClassRecord> entry : this.classRecords
+					.entrySet()) {
+				ClassRecord classRecord = entry.getValue();
+				if (classRecord.itemCount > 0 || classRecord.subclassCount > 0) {
+					reportWriter.addRow((long) classRecord.subclassCount
+							+ classRecord.itemCount, entry.getKey().getId());
 				}
 			}
+			reportWriter.write(out, new SortedReportWriter.RowFormatter() {
+				@Override
+				public void prepareRow(String id) {
+					EntityIdValue entityIdValue = getClassId(id);
+					ClassRecord classRecord = classRecords.get(entityIdValue);
+					claimClassLabel(entityIdValue);
+					for (EntityIdValue superClass : classRecord.superClasses) {
+						claimClassLabel(superClass);
+					}
+					for (EntityIdValue superClass : getAllSuperClasses(classRecord)) {
+						claimClassLabel(superClass);
+					}
+				}
+
+				@Override
+				public String formatRow(String id) {
+					EntityIdValue entityIdValue = getClassId(id);
+					return ClassPropertyUsageAnalyzer.formatRow(rowOut -> printClassRecord(
+							rowOut, classRecords.get(entityIdValue),
+							entityIdValue));
+				}
+			});
 
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	/**
+	 * Creates the writer that sorts the rows of a CSV file.
+	 *
+	 * @return the writer
+	 */
+	private SortedReportWriter createReportWriter() {
+		return new SortedReportWriter(
+				Paths.get(ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY),
+				REPORT_RUN_SIZE, ExampleHelpers.PARALLEL_THREADS);
+	}
+
+	/**
+	 * Returns the id of a class as it is used in {@link #classRecords}.
+	 *
+	 * @param id
+	 *            the string id of the class
+	 * @return the entity id value
+	 */
+	private EntityIdValue getClassId(String id) {
+		return EntityIdValueImpl.fromId(id, Datamodel.SITE_WIKIDATA);
+	}
+
+	/**
+	 * Returns the text that the given code prints.
+	 *
+	 * @param printer
+	 *            the code that prints one row of a CSV file
+	 * @return the row
+	 */
+	private static String formatRow(Consumer<PrintStream> printer) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+		PrintStream out = new PrintStream(bytes);
+		printer.accept(out);
+		out.flush();
+		return bytes.toString();
+	}
+
 	/**
 	 * Prints the data for a single class to the given stream. This will be a
 	 * single line in CSV.
@@ -544,13 +714,7 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		out.print("," + classRecord.itemCount + "," + classRecord.subclassCount);
 
 		printClassList(out, classRecord.superClasses);
-
-		HashSet<EntityIdValue> superClasses = new HashSet<>();
-		for (EntityIdValue superClass : classRecord.superClasses) {
-			addSuperClasses(superClass, superClasses);
-		}
-
-		printClassList(out, superClasses);
+		printClassList(out, getAllSuperClasses(classRecord));
 
 		printRelatedProperties(out, classRecord);
 
@@ -583,6 +747,23 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		out.print("\"");
 	}
 
+	/**
+	 * Returns the direct and indirect superclasses of a class. The set is built
+	 * in the same way on every call, so that it is also iterated in the same
+	 * order.
+	 *
+	 * @param classRecord
+	 *            the class record to get the superclasses for
+	 * @return the set of superclasses
+	 */
+	private HashSet<EntityIdValue> getAllSuperClasses(ClassRecord classRecord) {
+		HashSet<EntityIdValue> superClasses = new HashSet<>();
+		for (EntityIdValue superClass : classRecord.superClasses) {
+			addSuperClasses(superClass, superClasses);
+		}
+		return superClasses;
+	}
+
 	private void addSuperClasses(EntityIdValue itemIdValue,
 			HashSet<EntityIdValue> superClasses) {
 		if (superClasses.contains(itemIdValue)) {
@@ -849,34 +1030,57 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	}
 
 	/**
-	 * Returns a string that should be used as a label for the given item. The
-	 * method also ensures that each label is used for only one class. Other
-	 * classes with the same label will have their QID added for disambiguation.
+	 * Returns a string that should be used as a label for the given item.
+	 * Classes whose label is owned by another class in {@link #labels} have
+	 * their QID added for disambiguation. The method only reads the map, so
+	 * that it can be used while rows are formatted in parallel; labels are
+	 * assigned with {@link #claimClassLabel(EntityIdValue)} before.
 	 *
 	 * @param entityIdValue
 	 *            the item to label
 	 * @return the label
 	 */
 	private String getClassLabel(EntityIdValue entityIdValue) {
-		ClassRecord classRecord = this.classRecords.get(entityIdValue);
-		String label;
-		if (classRecord == null || classRecord.itemDocument == null) {
-			label = entityIdValue.getId();
-		} else {
-			label = getLabel(entityIdValue, classRecord.itemDocument);
-		}
-
+		String label = getPlainClassLabel(entityIdValue);
 		EntityIdValue labelOwner = this.labels.get(label);
-		if (labelOwner == null) {
-			this.labels.put(label, entityIdValue);
-			return label;
-		} else if (labelOwner.equals(entityIdValue)) {
+		if (labelOwner == null || labelOwner.equals(entityIdValue)) {
 			return label;
 		} else {
 			return label + " (" + entityIdValue.getId() + ")";
 		}
 	}
 
+	/**
+	 * Assigns the label of the given item to it, unless another class has
+	 * claimed the same label before. This ensures that each label is used for
+	 * only one class. Classes must be claimed in the order in which they are
+	 * printed, so that the plain label goes to the class that is printed
+	 * first.
+	 *
+	 * @param entityIdValue
+	 *            the item to label
+	 */
+	private void claimClassLabel(EntityIdValue entityIdValue) {
+		this.labels.putIfAbsent(getPlainClassLabel(entityIdValue),
+				entityIdValue);
+	}
+
+	/**
+	 * Returns the label of the given item without disambiguation.
+	 *
+	 * @param entityIdValue
+	 *            the item to label
+	 * @return the label
+	 */
+	private String getPlainClassLabel(EntityIdValue entityIdValue) {
+		ClassRecord classRecord = this.classRecords.get(entityIdValue);
+		if (classRecord == null || classRecord.itemDocument == null) {
+			return entityIdValue.getId();
+		} else {
+			return getLabel(entityIdValue, classRecord.itemDocument);
+		}
+	}
+
 	/**
 	 * Returns the CSV-escaped label for the given entity based on the terms in
 	 * the given document. The returned string will have its quotes escaped, but
@@ -52,6 +52,7 @@ public class DataExtractionProcessor implements EntityDocumentProcessor {
 	int itemsWithPropertyCount = 0;
 	int itemCount = 0;
 	PrintStream out;
+	EntityFacts entityFacts = new EntityFacts();
 
 	/**
 	 * Main method. Processes the whole dump using this processor. To change
@@ -78,12 +79,32 @@ public class DataExtractionProcessor implements EntityDocumentProcessor {
 		out.println("ID,Label (en),Label (de),Value,Wikipedia (en),Wikipedia (de)");
 	}
 
+	/**
+	 * Sets the object that provides facts about the current item. This can be
+	 * used to share facts with other processors that see the same items.
+	 *
+	 * @param entityFacts
+	 *            the facts to use
+	 */
+	public void setEntityFacts(EntityFacts entityFacts) {
+		this.entityFacts = entityFacts;
+	}
+
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 		this.itemCount++;
 
 		// Check if the item matches our filter conditions:
-		if (!itemDocument.hasStatementValue(filterPropertyId, filterValue)) {
+		// (the check for humans is shared with other processors if possible)
+		boolean matches;
+		if ("P31".equals(filterPropertyId)
+				&& EntityFacts.HUMAN.equals(filterValue)) {
+			matches = this.entityFacts.isHuman(itemDocument);
+		} else {
+			matches = itemDocument.hasStatementValue(filterPropertyId,
+					filterValue);
+		}
+		if (!matches) {
 			return;
 		}
 
@@ -96,7 +117,7 @@ public class DataExtractionProcessor implements EntityDocumentProcessor {
 			this.itemsWithPropertyCount++;
 			out.print(itemDocument.getEntityId().getId());
 			out.print(",");
-			out.print(csvEscape(itemDocument.findLabel("en")));
+			out.print(csvEscape(this.entityFacts.getEnglishLabel(itemDocument)));
 			out.print(",");
 			out.print(csvEscape(itemDocument.findLabel("de")));
 			out.print(",");
@@ -0,0 +1,167 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts for small non-negative numbers, kept in an array that grows as
+ * needed. The numbers can be the numeric part of property ids (31 for P31),
+ * which are dense in Wikidata, or the numbers that a {@link KeyDictionary}
+ * assigns to strings. Counting creates no objects once the array is large
+ * enough.
+ * <p>
+ * Objects of this class must not be used by several threads at the same
+ * time.
+ */
+public class DenseCounts {
+
+	long[] counts;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialSize
+	 *            the number of counts that can be stored before the array
+	 *            grows
+	 */
+	public DenseCounts(int initialSize) {
+		this.counts = new long[initialSize];
+	}
+
+	/**
+	 * Adds a (possibly negative) number to the count of the given number.
+	 *
+	 * @param index
+	 *            the number whose count should be changed
+	 * @param count
+	 *            the number to add
+	 */
+	public void add(int index, long count) {
+		if (index >= this.counts.length) {
+			this.counts = Arrays.copyOf(this.counts,
+					Math.max(2 * this.counts.length, index + 1));
+		}
+		this.counts[index] += count;
+	}
+
+	/**
+	 * Returns the count of the given number.
+	 *
+	 * @param index
+	 *            the number
+	 * @return the count, which is 0 for numbers that have not been counted
+	 */
+	public long get(int index) {
+		return index < this.counts.length ? this.counts[index] : 0;
+	}
+
+	/**
+	 * Returns a number such that all larger numbers have a count of 0.
+	 *
+	 * @return the limit of the numbers with counts
+	 */
+	public int size() {
+		return this.counts.length;
+	}
+
+	/**
+	 * Adds all counts of another object to this object. If the numbers stand
+	 * for keys of dictionaries, the counts are added to the numbers of the
+	 * same keys in the dictionary of this object, which gets the keys that it
+	 * does not have yet.
+	 *
+	 * @param other
+	 *            the counts to add
+	 * @param keys
+	 *            the dictionary of this object, or null if the numbers have
+	 *            no dictionary
+	 * @param otherKeys
+	 *            the dictionary of the other object, or null if the numbers
+	 *            have no dictionary
+	 */
+	public void merge(DenseCounts other, KeyDictionary keys,
+			KeyDictionary otherKeys) {
+		for (int i = 0; i < other.counts.length; i++) {
+			if (other.counts[i] != 0) {
+				int index = keys == otherKeys ? i : keys.getIndex(otherKeys
+						.getKey(i));
+				add(index, other.counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Writes all counts that are not 0 for a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param keys
+	 *            the dictionary for the numbers, whose keys are written
+	 *            instead of the numbers, or null to write the numbers
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput out, KeyDictionary keys) throws IOException {
+		int size = 0;
+		for (long count : this.counts) {
+			if (count != 0) {
+				size++;
+			}
+		}
+		out.writeInt(size);
+		for (int i = 0; i < this.counts.length; i++) {
+			if (this.counts[i] != 0) {
+				if (keys == null) {
+					out.writeInt(i);
+				} else {
+					out.writeUTF(keys.getKey(i));
+				}
+				out.writeLong(this.counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads counts that were written with
+	 * {@link #write(DataOutput, KeyDictionary)} and adds them to this
+	 * object.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @param keys
+	 *            the dictionary that was used for writing the counts, or
+	 *            null if it was null then
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	public void read(DataInput in, KeyDictionary keys) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int index = keys == null ? in.readInt() : keys.getIndex(in
+					.readUTF());
+			add(index, in.readLong());
+		}
+	}
+}
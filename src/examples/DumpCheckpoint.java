@@ -0,0 +1,322 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * State of a scan through a JSON dump that was stored to resume the scan
+ * later. A checkpoint records how far the dump has been read, a position in
+ * the compressed file from which decompression can be restarted (see
+ * {@link RestartPoint}), and the serialized state of the processor (see
+ * {@link CheckpointableEntityDocumentProcessor}). The state of the processor
+ * is stored at the end of the file, so that it does not have to be kept in
+ * memory as a whole.
+ * <p>
+ * Checkpoints are written by {@link ParallelJsonDumpProcessor}. Each
+ * checkpoint file replaces the previous one atomically, so a crash while
+ * writing a checkpoint leaves the last complete checkpoint in place.
+ */
+public class DumpCheckpoint {
+
+	static final long FILE_MAGIC = 0x5744544b43484b31L;
+
+	static final ObjectReader DOCUMENT_READER = new DatamodelMapper(
+			Datamodel.SITE_WIKIDATA).readerFor(EntityDocumentImpl.class);
+
+	/**
+	 * Position from which the decompression of a dump can be restarted
+	 * without decompressing the data before it.
+	 */
+	public static class RestartPoint {
+		/**
+		 * Position in the compressed file, in a unit that depends on the
+		 * compression format (e.g., bits for bzip2).
+		 */
+		final long position;
+		/**
+		 * Offset in the decompressed data that the position corresponds to.
+		 */
+		final long offset;
+
+		RestartPoint(long position, long offset) {
+			this.position = position;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * Identifies the dump and the processor that the checkpoint belongs to.
+	 */
+	final String key;
+	/**
+	 * Offset in the decompressed dump of the first line that has not been
+	 * processed yet.
+	 */
+	final long lineOffset;
+	/**
+	 * Restart point at or before the line offset, or null if the dump has to
+	 * be decompressed from the start.
+	 */
+	final RestartPoint restartPoint;
+	final long entityCount;
+	final long errorCount;
+	final long skippedCount;
+
+	DumpCheckpoint(String key, long lineOffset, RestartPoint restartPoint,
+			long entityCount, long errorCount, long skippedCount) {
+		this.key = key;
+		this.lineOffset = lineOffset;
+		this.restartPoint = restartPoint;
+		this.entityCount = entityCount;
+		this.errorCount = errorCount;
+		this.skippedCount = skippedCount;
+	}
+
+	/**
+	 * Returns the key that identifies checkpoints of the given processor on
+	 * the given dump. Checkpoints with another key are not used for resuming.
+	 *
+	 * @param dumpFile
+	 *            the dump that is processed
+	 * @param processor
+	 *            the processor whose state is stored
+	 * @return the key
+	 */
+	static String getKey(MwDumpFile dumpFile, Object processor) {
+		return dumpFile.getProjectName() + "-" + dumpFile.getDateStamp() + "-"
+				+ dumpFile.getDumpContentType() + "-"
+				+ processor.getClass().getName();
+	}
+
+	/**
+	 * Reads the checkpoint from the given file, and restores the state of the
+	 * given processor from it.
+	 *
+	 * @param file
+	 *            the checkpoint file
+	 * @param key
+	 *            the expected key
+	 * @param processor
+	 *            the processor whose state is restored
+	 * @return the checkpoint, or null if there is no checkpoint with this key
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	static DumpCheckpoint read(Path file, String key,
+			CheckpointableEntityDocumentProcessor processor) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(file), 1024 * 1024))) {
+			if (in.readLong() != FILE_MAGIC || !key.equals(in.readUTF())) {
+				return null;
+			}
+			long lineOffset = in.readLong();
+			long restartPosition = in.readLong();
+			long restartOffset = in.readLong();
+			RestartPoint restartPoint = restartPosition < 0 ? null
+					: new RestartPoint(restartPosition, restartOffset);
+			long entityCount = in.readLong();
+			long errorCount = in.readLong();
+			long skippedCount = in.readLong();
+			processor.readCheckpoint(in);
+			return new DumpCheckpoint(key, lineOffset, restartPoint,
+					entityCount, errorCount, skippedCount);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the checkpoint and the state of the given processor to the given
+	 * file, replacing any previous checkpoint.
+	 *
+	 * @param file
+	 *            the checkpoint file
+	 * @param processor
+	 *            the processor whose state is stored
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	void write(Path file, CheckpointableEntityDocumentProcessor processor)
+			throws IOException {
+		Path parent = file.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temporaryFile = Paths.get(file.toString() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temporaryFile),
+						1024 * 1024))) {
+			out.writeLong(FILE_MAGIC);
+			out.writeUTF(this.key);
+			out.writeLong(this.lineOffset);
+			out.writeLong(this.restartPoint == null ? -1
+					: this.restartPoint.position);
+			out.writeLong(this.restartPoint == null ? 0
+					: this.restartPoint.offset);
+			out.writeLong(this.entityCount);
+			out.writeLong(this.errorCount);
+			out.writeLong(this.skippedCount);
+			processor.writeCheckpoint(out);
+		}
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Writes a map of counts for properties. Helper for processors that store
+	 * their state in a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param counts
+	 *            the counts to write
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void writePropertyCounts(DataOutput out,
+			Map<PropertyIdValue, Integer> counts) throws IOException {
+		out.writeInt(counts.size());
+		for (Entry<PropertyIdValue, Integer> entry : counts.entrySet()) {
+			out.writeUTF(entry.getKey().getId());
+			out.writeInt(entry.getValue());
+		}
+	}
+
+	/**
+	 * Reads a map of counts for Wikidata properties that was written with
+	 * {@link #writePropertyCounts(DataOutput, Map)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @param counts
+	 *            the map to which the counts are added
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	static void readPropertyCounts(DataInput in,
+			Map<PropertyIdValue, Integer> counts) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			PropertyIdValue property = Datamodel
+					.makeWikidataPropertyIdValue(in.readUTF());
+			counts.put(property, in.readInt());
+		}
+	}
+
+	/**
+	 * Writes an entity document as JSON, or null.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param document
+	 *            the document to write
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void writeDocument(DataOutput out, EntityDocument document)
+			throws IOException {
+		writeLongString(out, document == null ? null : JsonSerializer
+				.getJsonString(document));
+	}
+
+	/**
+	 * Reads an entity document of Wikidata that was written with
+	 * {@link #writeDocument(DataOutput, EntityDocument)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the document, or null
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	static EntityDocument readDocument(DataInput in) throws IOException {
+		String json = readLongString(in);
+		if (json == null) {
+			return null;
+		}
+		return DOCUMENT_READER.readValue(json);
+	}
+
+	/**
+	 * Writes a string that may be longer than the 64k bytes supported by
+	 * {@link DataOutput#writeUTF(String)}, or null.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param string
+	 *            the string to write
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void writeLongString(DataOutput out, String string)
+			throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string that was written with
+	 * {@link #writeLongString(DataOutput, String)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the string, or null
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	static String readLongString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
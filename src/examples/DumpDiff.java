@@ -0,0 +1,610 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.GZIPOutputStream;
+
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * Finds the entities that have been added, removed or modified between two
+ * JSON dumps, without parsing the entities. For each line of a dump, only the
+ * entity id is read, and a 64 bit fingerprint of the JSON is computed. The
+ * pairs of id and fingerprint are sorted by id, in runs of {@link #RUN_SIZE}
+ * entries that are written to temporary files if a dump has more entities,
+ * and the sorted streams of the two dumps are then joined like two sorted
+ * lists. The memory that is needed does therefore not depend on the size of
+ * the dumps.
+ * <p>
+ * Optionally, the JSON of the added and modified entities is written, too.
+ * This needs a second pass over the new dump, in which the lines of these
+ * entities are copied; their line numbers are sorted in the same way as the
+ * fingerprints.
+ * <p>
+ * Entities are compared by their JSON, so an entity whose JSON has changed in
+ * any way is reported as modified. Ids that cannot be stored as a key of
+ * {@link BlockIndexedDumpFile#getEntityKey(String)} are skipped.
+ */
+public class DumpDiff {
+
+	/**
+	 * Number of records that are sorted in memory at a time. The position
+	 * in the run is sorted along with the first long of a record, so this
+	 * must be a power of two.
+	 */
+	static final int RUN_SIZE = 1 << 20;
+	static final int RUN_BITS = 20;
+
+	static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(
+			long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	/**
+	 * Callback for the lines of a dump.
+	 */
+	@FunctionalInterface
+	interface LineConsumer {
+		/**
+		 * Processes one line, without the line break.
+		 *
+		 * @return false if no further lines are needed
+		 */
+		boolean processLine(byte[] data, int start, int end, long lineNumber)
+				throws IOException;
+	}
+
+	/**
+	 * Sequence of records of three longs, ordered by their first long.
+	 */
+	static abstract class RecordStream implements Closeable {
+		long first;
+		long second;
+		long third;
+
+		/**
+		 * Reads the next record.
+		 *
+		 * @return false if there are no more records
+		 */
+		abstract boolean next() throws IOException;
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+
+	/**
+	 * Reads the records of a sorted run from a temporary file.
+	 */
+	static class FileRecordStream extends RecordStream {
+		final DataInputStream in;
+
+		FileRecordStream(Path runFile) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					Files.newInputStream(runFile), 64 * 1024));
+		}
+
+		@Override
+		boolean next() throws IOException {
+			try {
+				this.first = this.in.readLong();
+				this.second = this.in.readLong();
+				this.third = this.in.readLong();
+				return true;
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+	/**
+	 * Reads the records of a sorted run that has been kept in memory.
+	 */
+	static class MemoryRecordStream extends RecordStream {
+		final long[] records;
+		final long[] order;
+		int position = 0;
+
+		MemoryRecordStream(long[] records, long[] order) {
+			this.records = records;
+			this.order = order;
+		}
+
+		@Override
+		boolean next() {
+			if (this.position == this.order.length) {
+				return false;
+			}
+			int i = 3 * (int) (this.order[this.position++] & (RUN_SIZE - 1));
+			this.first = this.records[i];
+			this.second = this.records[i + 1];
+			this.third = this.records[i + 2];
+			return true;
+		}
+	}
+
+	/**
+	 * Merges several sorted streams into one.
+	 */
+	static class MergedRecordStream extends RecordStream {
+		final List<RecordStream> streams;
+		final PriorityQueue<RecordStream> queue = new PriorityQueue<>(
+				(a, b) -> Long.compare(a.first, b.first));
+		boolean started = false;
+
+		MergedRecordStream(List<RecordStream> streams) {
+			this.streams = streams;
+		}
+
+		@Override
+		boolean next() throws IOException {
+			if (!this.started) {
+				for (RecordStream stream : this.streams) {
+					if (stream.next()) {
+						this.queue.add(stream);
+					}
+				}
+				this.started = true;
+			}
+			RecordStream stream = this.queue.poll();
+			if (stream == null) {
+				return false;
+			}
+			this.first = stream.first;
+			this.second = stream.second;
+			this.third = stream.third;
+			if (stream.next()) {
+				this.queue.add(stream);
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (RecordStream stream : this.streams) {
+				stream.close();
+			}
+		}
+	}
+
+	/**
+	 * Sorts records of three longs by their first long, which must be smaller
+	 * than 2<sup>43</sup>. Records are kept in memory until there are
+	 * {@link #RUN_SIZE} of them, and are then written to a sorted run in a
+	 * temporary file.
+	 */
+	static class RecordSorter implements Closeable {
+		final Path tempDirectory;
+		final String prefix;
+		final long[] records = new long[3 * RUN_SIZE];
+		int length = 0;
+		long count = 0;
+		final List<Path> runFiles = new ArrayList<>();
+		RecordStream result = null;
+
+		RecordSorter(Path tempDirectory, String prefix) {
+			this.tempDirectory = tempDirectory;
+			this.prefix = prefix;
+		}
+
+		void add(long first, long second, long third) throws IOException {
+			if (this.length == RUN_SIZE) {
+				writeRun();
+			}
+			int i = 3 * this.length;
+			this.records[i] = first;
+			this.records[i + 1] = second;
+			this.records[i + 2] = third;
+			this.length++;
+			this.count++;
+		}
+
+		/**
+		 * Returns the positions of the records in memory, sorted by their
+		 * first long, in the lower bits of each element.
+		 */
+		long[] sortRun() {
+			long[] order = new long[this.length];
+			for (int i = 0; i < this.length; i++) {
+				order[i] = (this.records[3 * i] << RUN_BITS) | i;
+			}
+			Arrays.sort(order);
+			return order;
+		}
+
+		/**
+		 * Sorts the records in memory and writes them to a temporary file.
+		 */
+		void writeRun() throws IOException {
+			long[] order = sortRun();
+			Path runFile = Files.createTempFile(this.tempDirectory,
+					this.prefix, ".tmp");
+			this.runFiles.add(runFile);
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(runFile),
+							1024 * 1024))) {
+				for (long entry : order) {
+					int i = 3 * (int) (entry & (RUN_SIZE - 1));
+					out.writeLong(this.records[i]);
+					out.writeLong(this.records[i + 1]);
+					out.writeLong(this.records[i + 2]);
+				}
+			}
+			this.length = 0;
+		}
+
+		/**
+		 * Returns all records that have been added, sorted. The records stay
+		 * in memory if no run has been written yet.
+		 */
+		RecordStream finish() throws IOException {
+			if (this.runFiles.isEmpty()) {
+				this.result = new MemoryRecordStream(this.records, sortRun());
+			} else {
+				if (this.length > 0) {
+					writeRun();
+				}
+				List<RecordStream> streams = new ArrayList<>();
+				this.result = new MergedRecordStream(streams);
+				for (Path runFile : this.runFiles) {
+					streams.add(new FileRecordStream(runFile));
+				}
+			}
+			return this.result;
+		}
+
+		/**
+		 * Deletes all temporary files.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (this.result != null) {
+				this.result.close();
+			}
+			for (Path runFile : this.runFiles) {
+				Files.deleteIfExists(runFile);
+			}
+		}
+	}
+
+	final Path tempDirectory;
+
+	long addedCount = 0;
+	long removedCount = 0;
+	long modifiedCount = 0;
+	long unchangedCount = 0;
+	long skippedCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param tempDirectory
+	 *            the directory for the temporary files of the sorted runs
+	 */
+	public DumpDiff(Path tempDirectory) {
+		this.tempDirectory = tempDirectory;
+	}
+
+	/**
+	 * Compares two JSON dumps. The changes are written as CSV lines with the
+	 * kind of change ("added", "removed" or "modified") and the entity id,
+	 * ordered by entity id.
+	 *
+	 * @param oldDumpFile
+	 *            the older dump
+	 * @param newDumpFile
+	 *            the newer dump
+	 * @param changesOut
+	 *            the stream to write the changes to
+	 * @param jsonOut
+	 *            the stream to write the JSON of added and modified entities
+	 *            to, one entity per line in the order of the new dump, or
+	 *            null if the JSON is not needed
+	 * @throws IOException
+	 *             if a dump or a temporary file could not be read or written
+	 */
+	public void diff(MwDumpFile oldDumpFile, MwDumpFile newDumpFile,
+			PrintStream changesOut, OutputStream jsonOut) throws IOException {
+		try (RecordSorter oldFingerprints = new RecordSorter(
+				this.tempDirectory, "old-fingerprints-");
+				RecordSorter newFingerprints = new RecordSorter(
+						this.tempDirectory, "new-fingerprints-");
+				RecordSorter changedLines = jsonOut == null ? null
+						: new RecordSorter(this.tempDirectory, "changed-lines-")) {
+			readFingerprints(oldDumpFile, oldFingerprints);
+			readFingerprints(newDumpFile, newFingerprints);
+
+			changesOut.println("Change,Entity");
+			joinFingerprints(oldFingerprints.finish(),
+					newFingerprints.finish(), changesOut, changedLines);
+
+			if (changedLines != null) {
+				copyLines(newDumpFile, changedLines.finish(), jsonOut);
+			}
+		}
+	}
+
+	/**
+	 * Adds the entity key, fingerprint and line number of every entity of the
+	 * dump to the given sorter.
+	 */
+	void readFingerprints(MwDumpFile dumpFile, RecordSorter fingerprints)
+			throws IOException {
+		System.out.println("Computing fingerprints of " + dumpFile + ".");
+		readLines(dumpFile, (data, start, end, lineNumber) -> {
+			end = trimLine(data, start, end);
+			if (end - start <= 1) { // "[", "]", or empty
+				return true;
+			}
+			long key = BlockIndexedDumpFile
+					.getEntityKey(BlockIndexedDumpWriter.getEntityId(data,
+							start, end));
+			if (key == -1) {
+				this.skippedCount++;
+			} else {
+				fingerprints.add(key, fingerprint(data, start, end),
+						lineNumber);
+			}
+			return true;
+		});
+		// the records in memory are the last run:
+		System.out.println("Found " + fingerprints.count + " entities in "
+				+ (fingerprints.runFiles.size() + (fingerprints.length > 0 ? 1
+						: 0)) + " sorted run(s).");
+	}
+
+	/**
+	 * Joins the fingerprints of both dumps, which are sorted by entity key,
+	 * writes the changes, and records the lines of the new dump that
+	 * contain added or modified entities.
+	 *
+	 * @param changedLines
+	 *            the sorter for the changed lines, or null if they are not
+	 *            needed
+	 */
+	void joinFingerprints(RecordStream oldFingerprints,
+			RecordStream newFingerprints, PrintStream changesOut,
+			RecordSorter changedLines) throws IOException {
+		boolean hasOld = oldFingerprints.next();
+		boolean hasNew = newFingerprints.next();
+		while (hasOld || hasNew) {
+			if (!hasNew || (hasOld && oldFingerprints.first < newFingerprints.first)) {
+				writeChange(changesOut, "removed", oldFingerprints.first);
+				this.removedCount++;
+				hasOld = oldFingerprints.next();
+				continue;
+			}
+
+			if (!hasOld || newFingerprints.first < oldFingerprints.first) {
+				writeChange(changesOut, "added", newFingerprints.first);
+				this.addedCount++;
+			} else if (newFingerprints.second != oldFingerprints.second) {
+				writeChange(changesOut, "modified", newFingerprints.first);
+				this.modifiedCount++;
+			} else {
+				this.unchangedCount++;
+				hasOld = oldFingerprints.next();
+				hasNew = newFingerprints.next();
+				continue;
+			}
+			if (changedLines != null) {
+				changedLines.add(newFingerprints.third, newFingerprints.first,
+						0);
+			}
+			if (hasOld && oldFingerprints.first == newFingerprints.first) {
+				hasOld = oldFingerprints.next();
+			}
+			hasNew = newFingerprints.next();
+		}
+	}
+
+	void writeChange(PrintStream changesOut, String change, long key) {
+		changesOut.print(change);
+		changesOut.print(',');
+		changesOut.println(BlockIndexedDumpFile.getEntityId(key));
+	}
+
+	/**
+	 * Copies the lines with the given line numbers from the dump, without
+	 * the commas at their ends.
+	 */
+	void copyLines(MwDumpFile dumpFile, RecordStream lineNumbers,
+			OutputStream out) throws IOException {
+		System.out.println("Copying changed entities from " + dumpFile + ".");
+		if (!lineNumbers.next()) {
+			return;
+		}
+		readLines(dumpFile, (data, start, end, lineNumber) -> {
+			if (lineNumber != lineNumbers.first) {
+				return true;
+			}
+			out.write(data, start, trimLine(data, start, end) - start);
+			out.write('\n');
+			return lineNumbers.next();
+		});
+	}
+
+	/**
+	 * Reads the decompressed dump and cuts it into lines.
+	 */
+	static void readLines(MwDumpFile dumpFile, LineConsumer lineConsumer)
+			throws IOException {
+		dumpFile.prepareDumpFile();
+		try (InputStream in = dumpFile.getDumpFileStream()) {
+			byte[] buffer = new byte[1024 * 1024];
+			int length = 0;
+			long lineNumber = 0;
+			int read;
+			while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+				length += read;
+				int lineStart = 0;
+				int lineEnd;
+				while ((lineEnd = ParallelJsonDumpProcessor.indexOf(buffer,
+						lineStart, length, (byte) '\n')) != -1) {
+					if (!lineConsumer.processLine(buffer, lineStart, lineEnd,
+							lineNumber++)) {
+						return;
+					}
+					lineStart = lineEnd + 1;
+				}
+				length -= lineStart;
+				System.arraycopy(buffer, lineStart, buffer, 0, length);
+				if (length == buffer.length) {
+					buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+				}
+			}
+			if (length > 0) {
+				lineConsumer.processLine(buffer, 0, length, lineNumber);
+			}
+		}
+	}
+
+	/**
+	 * Returns the end of the JSON object on the given line, without the comma
+	 * that separates the entities of the dump, so that the last entity of a
+	 * dump gets the same fingerprint as the others.
+	 */
+	static int trimLine(byte[] data, int start, int end) {
+		while (end > start
+				&& ParallelJsonDumpProcessor.isJsonLineSuffix(data[end - 1])) {
+			end--;
+		}
+		return end;
+	}
+
+	/**
+	 * Computes a 64 bit fingerprint of the given bytes. Eight bytes are
+	 * mixed in at a time, and the result is finalized like in MurmurHash3.
+	 */
+	static long fingerprint(byte[] data, int start, int end) {
+		long hash = 0x9e3779b97f4a7c15L ^ (end - start);
+		int i = start;
+		for (; i <= end - 8; i += 8) {
+			long value = (long) LONGS.get(data, i) * 0x87c37b91114253d5L;
+			hash = Long.rotateLeft(hash ^ value, 31) * 0x4cf5ad432745937fL;
+		}
+		for (; i < end; i++) {
+			hash = (hash ^ (data[i] & 0xff)) * 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * Compares the local JSON dumps given as first and second argument. The
+	 * changes are written to dump-diff.csv in the results directory of the
+	 * second dump. With "--json" as third argument, the JSON of the added and
+	 * modified entities is written to dump-diff-entities.json.gz, too.
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		DumpDiff.printDocumentation();
+		if (args.length < 2) {
+			System.out.println("Usage: DumpDiff <old json dump> "
+					+ "<new json dump> [--json]");
+			return;
+		}
+		MwLocalDumpFile oldDumpFile = new MwLocalDumpFile(args[0]);
+		MwLocalDumpFile newDumpFile = new MwLocalDumpFile(args[1]);
+		boolean writeJson = args.length > 2 && "--json".equals(args[2]);
+
+		Path tempDirectory = Paths.get(ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY);
+		Files.createDirectories(tempDirectory);
+		DumpDiff dumpDiff = new DumpDiff(tempDirectory);
+		ExampleHelpers.setLastDumpFile(newDumpFile);
+		long startTime = System.currentTimeMillis();
+		try (PrintStream changesOut = new PrintStream(
+				new BufferedOutputStream(
+						ExampleHelpers
+								.openExampleFileOuputStream("dump-diff.csv"),
+						1024 * 1024));
+				OutputStream jsonOut = writeJson ? new BufferedOutputStream(
+						new GZIPOutputStream(
+								ExampleHelpers
+										.openExampleFileOuputStream("dump-diff-entities.json.gz")),
+						1024 * 1024) : null) {
+			dumpDiff.diff(ExampleHelpers.getDecompressingDumpFile(oldDumpFile),
+					ExampleHelpers.getDecompressingDumpFile(newDumpFile),
+					changesOut, jsonOut);
+		}
+
+		System.out.println("Compared dumps in "
+				+ (System.currentTimeMillis() - startTime) / 1000
+				+ " seconds: " + dumpDiff.addedCount + " entities added, "
+				+ dumpDiff.removedCount + " removed, "
+				+ dumpDiff.modifiedCount + " modified, "
+				+ dumpDiff.unchangedCount + " unchanged.");
+		if (dumpDiff.skippedCount > 0) {
+			System.out.println("Skipped " + dumpDiff.skippedCount
+					+ " entities with unsupported ids.");
+		}
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: DumpDiff");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program will compare two local JSON dumps and write");
+		System.out
+				.println("*** the ids of all entities that have been added, removed or");
+		System.out
+				.println("*** modified to a file. The entities are not parsed; only");
+		System.out
+				.println("*** fingerprints of their JSON are compared.");
+		System.out.println("*** See source code for further details.");
+		System.out
+				.println("********************************************************************");
+	}
+}
@@ -0,0 +1,235 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Part of a dump that is processed on its own, e.g., by one of several
+ * processes (see {@link ShardedDumpProcessor}). There are two kinds of
+ * shards:
+ * <ul>
+ * <li>A byte range contains all lines of an uncompressed dump that start in
+ * the range. Only the range needs to be read, but this requires a
+ * {@link MappedDumpFile}.</li>
+ * <li>An id-hash shard contains all entities whose id has a certain hash
+ * value modulo the number of shards. This works for every dump, but each
+ * shard has to read (and decompress) the whole dump; only the parsing and
+ * the processing are split up.</li>
+ * </ul>
+ * In both cases, a set of shards that is created with
+ * {@link #byteRangeShards(long, int)} or {@link #idHashShards(int)} contains
+ * every entity of the dump exactly once.
+ * <p>
+ * Shards can be written as strings "range:START-END" or "hash:INDEX/COUNT",
+ * which are understood by {@link #parse(String)}.
+ */
+public class DumpShard {
+
+	static final byte[] ID_KEY = "\"id\":\"".getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * True for id-hash shards, false for byte ranges.
+	 */
+	final boolean idHash;
+	/**
+	 * Start offset of a byte range, or index of an id-hash shard.
+	 */
+	final long start;
+	/**
+	 * End offset of a byte range, or number of id-hash shards.
+	 */
+	final long end;
+
+	DumpShard(boolean idHash, long start, long end) {
+		this.idHash = idHash;
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * Creates the shard with the given index of a set of id-hash shards.
+	 *
+	 * @param index
+	 *            the index of the shard, between 0 and count - 1
+	 * @param count
+	 *            the number of shards
+	 * @return the shard
+	 */
+	public static DumpShard ofIdHash(int index, int count) {
+		if (count <= 0 || index < 0 || index >= count) {
+			throw new IllegalArgumentException("Invalid shard " + index
+					+ " of " + count);
+		}
+		return new DumpShard(true, index, count);
+	}
+
+	/**
+	 * Creates a shard for the lines that start in the given range of bytes.
+	 *
+	 * @param start
+	 *            offset of the first byte of the range
+	 * @param end
+	 *            offset after the last byte of the range
+	 * @return the shard
+	 */
+	public static DumpShard ofByteRange(long start, long end) {
+		if (start < 0 || end < start) {
+			throw new IllegalArgumentException("Invalid byte range " + start
+					+ "-" + end);
+		}
+		return new DumpShard(false, start, end);
+	}
+
+	/**
+	 * Returns a complete set of id-hash shards.
+	 *
+	 * @param count
+	 *            the number of shards
+	 * @return the shards
+	 */
+	public static List<DumpShard> idHashShards(int count) {
+		List<DumpShard> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(ofIdHash(i, count));
+		}
+		return result;
+	}
+
+	/**
+	 * Splits a file into byte ranges of about the same size.
+	 *
+	 * @param size
+	 *            the size of the file in bytes
+	 * @param count
+	 *            the number of shards
+	 * @return the shards
+	 */
+	public static List<DumpShard> byteRangeShards(long size, int count) {
+		List<DumpShard> result = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			result.add(ofByteRange(size * i / count, size * (i + 1) / count));
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a shard from its string form, as returned by
+	 * {@link #toString()}.
+	 *
+	 * @param string
+	 *            the string, "range:START-END" or "hash:INDEX/COUNT"
+	 * @return the shard
+	 */
+	public static DumpShard parse(String string) {
+		try {
+			if (string.startsWith("hash:")) {
+				int slash = string.indexOf('/');
+				return ofIdHash(Integer.parseInt(string.substring(5, slash)),
+						Integer.parseInt(string.substring(slash + 1)));
+			} else if (string.startsWith("range:")) {
+				int dash = string.indexOf('-');
+				return ofByteRange(Long.parseLong(string.substring(6, dash)),
+						Long.parseLong(string.substring(dash + 1)));
+			}
+		} catch (NumberFormatException | IndexOutOfBoundsException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("Invalid shard: " + string);
+	}
+
+	/**
+	 * Returns true if this shard is a range of bytes of the file.
+	 */
+	public boolean isByteRange() {
+		return !this.idHash;
+	}
+
+	/**
+	 * Returns true if the entity on the given line of the dump belongs to
+	 * this shard. This only checks the hash of the id; byte ranges contain
+	 * every entity that they are given.
+	 *
+	 * @param data
+	 *            array that contains the JSON of the entity
+	 * @param start
+	 *            index of the first byte of the JSON
+	 * @param end
+	 *            index after the last byte of the JSON
+	 * @return true if the entity belongs to the shard
+	 */
+	public boolean containsEntity(byte[] data, int start, int end) {
+		if (!this.idHash) {
+			return true;
+		}
+		return Math.floorMod(hashId(data, start, end), this.end) == this.start;
+	}
+
+	/**
+	 * Returns a hash of the id of the entity on the given line. The id is the
+	 * first string value of a key "id" on the line, which is the id of the
+	 * entity in the dumps of Wikidata, since the id comes before the
+	 * statements. If there is no id, the whole line is hashed, so that every
+	 * line still has a shard that is the same for every process.
+	 */
+	static long hashId(byte[] data, int start, int end) {
+		int idStart = indexOf(data, start, end, ID_KEY);
+		int idEnd = -1;
+		if (idStart != -1) {
+			idStart += ID_KEY.length;
+			idEnd = ParallelJsonDumpProcessor.indexOf(data, idStart, end,
+					(byte) '"');
+		}
+		if (idEnd == -1) {
+			idStart = start;
+			idEnd = end;
+		}
+		// FNV-1a, with a final mix so that the low bits are good, too
+		long hash = 0xcbf29ce484222325L;
+		for (int i = idStart; i < idEnd; i++) {
+			hash = (hash ^ (data[i] & 0xff)) * 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	static int indexOf(byte[] data, int from, int to, byte[] pattern) {
+		search: for (int i = from; i <= to - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue search;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return this.idHash ? "hash:" + this.start + "/" + this.end : "range:"
+				+ this.start + "-" + this.end;
+	}
+}
@@ -0,0 +1,118 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+/**
+ * Facts about an entity that several processors need, such as whether it is a
+ * human and what its English label is. Each fact is computed the first time it
+ * is requested for a document, and then reused until a document of another
+ * entity or another revision is passed. Documents are compared by entity id
+ * and revision id rather than by identity, so that the facts are also
+ * recomputed if a caller reuses one document object for several entities.
+ * Processors that use the same object (see {@link MultiAnalyzerRunner})
+ * therefore compute each fact only once per entity.
+ * <p>
+ * Objects of this class must not be used by several threads at the same time.
+ */
+public class EntityFacts {
+
+	/**
+	 * The class "human" (Q5).
+	 */
+	public static final ItemIdValue HUMAN = Datamodel
+			.makeWikidataItemIdValue("Q5");
+
+	EntityIdValue entityId;
+	long revisionId;
+	Boolean human;
+	boolean englishLabelFound;
+	String englishLabel;
+
+	/**
+	 * Returns true if the given document has an "instance of" (P31) statement
+	 * with value "human" (Q5).
+	 *
+	 * @param document
+	 *            the document to check
+	 * @return true if the entity is a human
+	 */
+	public boolean isHuman(StatementDocument document) {
+		setDocument(document);
+		if (this.human == null) {
+			this.human = document.hasStatementValue("P31", HUMAN);
+		}
+		return this.human;
+	}
+
+	/**
+	 * Returns the English label of the given document.
+	 *
+	 * @param document
+	 *            the document to get the label from
+	 * @return the label, or null if there is no English label
+	 */
+	public String getEnglishLabel(TermedDocument document) {
+		setDocument(document);
+		if (!this.englishLabelFound) {
+			this.englishLabel = document.findLabel("en");
+			this.englishLabelFound = true;
+		}
+		return this.englishLabel;
+	}
+
+	/**
+	 * Computes all facts for the given document right away.
+	 *
+	 * @param document
+	 *            the document to compute facts for
+	 */
+	public void computeAll(EntityDocument document) {
+		if (document instanceof StatementDocument) {
+			isHuman((StatementDocument) document);
+		}
+		if (document instanceof TermedDocument) {
+			getEnglishLabel((TermedDocument) document);
+		}
+	}
+
+	/**
+	 * Forgets the facts of the previous document if the given document is
+	 * about a different entity or revision.
+	 */
+	void setDocument(EntityDocument document) {
+		EntityIdValue entityId = document.getEntityId();
+		if (document.getRevisionId() != this.revisionId
+				|| !entityId.equals(this.entityId)) {
+			this.entityId = entityId;
+			this.revisionId = document.getRevisionId();
+			this.human = null;
+			this.englishLabelFound = false;
+			this.englishLabel = null;
+		}
+	}
+}
@@ -0,0 +1,441 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+
+/**
+ * Description of the parts of an entity that a processor needs: the
+ * properties of its statements, the languages of its terms (labels,
+ * descriptions, and aliases), and whether site links, qualifiers, and
+ * references are needed. When reading a JSON dump, all other parts are
+ * skipped in the token stream of the parser, so they are never turned into
+ * Java objects.
+ * <p>
+ * The documents that are built in this way only contain the projected data.
+ * For example, an item that is read with a projection to the property P31 has
+ * no statements for other properties, even if the item in the dump has them.
+ * Parts of the JSON that are not statements, terms, or site links (such as the
+ * id, the revision, the datatype of properties, and the lemmas, forms, and
+ * senses of lexemes) are always kept.
+ * <p>
+ * Projections are immutable. They are created from {@link #EMPTY} or
+ * {@link #ALL} and changed with the "with" methods, for example:
+ *
+ * <pre>
+ * EntityProjection.EMPTY.withProperties("P31").withLanguages("en")
+ * </pre>
+ *
+ * @see ProjectingEntityDocumentProcessor
+ */
+public class EntityProjection {
+
+	/**
+	 * Projection that only keeps the parts of the entity that are always
+	 * kept, such as its id.
+	 */
+	public static final EntityProjection EMPTY = new EntityProjection(
+			Collections.emptySet(), Collections.emptySet(), false, false,
+			false);
+
+	/**
+	 * Projection that keeps all data.
+	 */
+	public static final EntityProjection ALL = new EntityProjection(null,
+			null, true, true, true);
+
+	/**
+	 * Ids of the properties whose statements are kept, or null if all
+	 * statements are kept.
+	 */
+	final Set<String> properties;
+	/**
+	 * Language codes of the terms that are kept, or null if all terms are
+	 * kept.
+	 */
+	final Set<String> languages;
+	final boolean siteLinks;
+	final boolean qualifiers;
+	final boolean references;
+
+	/**
+	 * Token filter that implements this projection. It has no state of its
+	 * own and can be used by several parsers at the same time.
+	 */
+	final TokenFilter documentFilter;
+
+	EntityProjection(Set<String> properties, Set<String> languages,
+			boolean siteLinks, boolean qualifiers, boolean references) {
+		this.properties = properties;
+		this.languages = languages;
+		this.siteLinks = siteLinks;
+		this.qualifiers = qualifiers;
+		this.references = references;
+		this.documentFilter = new DocumentFilter();
+	}
+
+	/**
+	 * Returns a projection that also keeps the statements for the given
+	 * properties.
+	 *
+	 * @param propertyIds
+	 *            ids of the properties, such as "P31"
+	 * @return the new projection
+	 */
+	public EntityProjection withProperties(String... propertyIds) {
+		return new EntityProjection(
+				addAll(this.properties, propertyIds), this.languages,
+				this.siteLinks, this.qualifiers, this.references);
+	}
+
+	/**
+	 * Returns a projection that also keeps the statements for all
+	 * properties.
+	 *
+	 * @return the new projection
+	 */
+	public EntityProjection withAllProperties() {
+		return new EntityProjection(null, this.languages, this.siteLinks,
+				this.qualifiers, this.references);
+	}
+
+	/**
+	 * Returns a projection that also keeps the labels, descriptions, and
+	 * aliases in the given languages.
+	 *
+	 * @param languageCodes
+	 *            the language codes, such as "en"
+	 * @return the new projection
+	 */
+	public EntityProjection withLanguages(String... languageCodes) {
+		return new EntityProjection(this.properties, addAll(this.languages,
+				languageCodes), this.siteLinks, this.qualifiers,
+				this.references);
+	}
+
+	/**
+	 * Returns a projection that also keeps all site links.
+	 *
+	 * @return the new projection
+	 */
+	public EntityProjection withSiteLinks() {
+		return new EntityProjection(this.properties, this.languages, true,
+				this.qualifiers, this.references);
+	}
+
+	/**
+	 * Returns a projection that also keeps the qualifiers of the statements
+	 * that are kept.
+	 *
+	 * @return the new projection
+	 */
+	public EntityProjection withQualifiers() {
+		return new EntityProjection(this.properties, this.languages,
+				this.siteLinks, true, this.references);
+	}
+
+	/**
+	 * Returns a projection that also keeps the references of the statements
+	 * that are kept.
+	 *
+	 * @return the new projection
+	 */
+	public EntityProjection withReferences() {
+		return new EntityProjection(this.properties, this.languages,
+				this.siteLinks, this.qualifiers, true);
+	}
+
+	/**
+	 * Returns a projection that keeps all data that this projection or the
+	 * given projection keeps.
+	 *
+	 * @param other
+	 *            the other projection
+	 * @return the combined projection
+	 */
+	public EntityProjection union(EntityProjection other) {
+		return new EntityProjection(union(this.properties, other.properties),
+				union(this.languages, other.languages), this.siteLinks
+						|| other.siteLinks, this.qualifiers || other.qualifiers,
+				this.references || other.references);
+	}
+
+	/**
+	 * Wraps the given parser so that it only returns the tokens of the
+	 * projected data. All other values are skipped by the underlying parser
+	 * without building strings or numbers for them.
+	 *
+	 * @param parser
+	 *            the parser for the JSON of one entity
+	 * @return the filtering parser
+	 */
+	public JsonParser filter(JsonParser parser) {
+		return new ProjectingParser(parser, this.documentFilter);
+	}
+
+	static Set<String> addAll(Set<String> set, String... elements) {
+		if (set == null) {
+			return null;
+		}
+		Set<String> result = new HashSet<>(set);
+		result.addAll(Arrays.asList(elements));
+		return result;
+	}
+
+	static Set<String> union(Set<String> set1, Set<String> set2) {
+		if (set1 == null || set2 == null) {
+			return null;
+		}
+		Set<String> result = new HashSet<>(set1);
+		result.addAll(set2);
+		return result;
+	}
+
+	/**
+	 * Parser that skips the values that its filters exclude. Objects and
+	 * arrays whose contents are all skipped are still returned, so that the
+	 * documents always have (possibly empty) maps for their terms,
+	 * statements, and site links.
+	 * <p>
+	 * Jackson's FilteringParserDelegate is not used, since it returns the
+	 * name of an excluded property if it is the last one of a nested object,
+	 * such as the references at the end of a statement. The documents could
+	 * then not be read.
+	 */
+	static class ProjectingParser extends JsonParserDelegate {
+
+		final TokenFilter rootFilter;
+		/**
+		 * Filters of the objects and arrays that are open, the innermost one
+		 * first.
+		 */
+		final Deque<TokenFilter> filters = new ArrayDeque<>();
+		/**
+		 * Filter for the value of the current property.
+		 */
+		TokenFilter propertyFilter;
+
+		ProjectingParser(JsonParser parser, TokenFilter rootFilter) {
+			super(parser);
+			this.rootFilter = rootFilter;
+		}
+
+		@Override
+		public JsonToken nextToken() throws IOException {
+			JsonToken token;
+			while ((token = this.delegate.nextToken()) != null) {
+				switch (token) {
+				case END_OBJECT:
+				case END_ARRAY:
+					this.filters.pop();
+					return token;
+				case FIELD_NAME:
+					this.propertyFilter = this.filters.peek().includeProperty(
+							this.delegate.currentName());
+					if (this.propertyFilter != null) {
+						return token;
+					}
+					this.delegate.nextToken();
+					this.delegate.skipChildren();
+					break;
+				default:
+					TokenFilter filter = getValueFilter(token);
+					if (filter == null) {
+						this.delegate.skipChildren();
+						break;
+					}
+					if (token.isStructStart()) {
+						this.filters.push(filter);
+					}
+					return token;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public JsonToken nextValue() throws IOException {
+			JsonToken token = nextToken();
+			if (token == JsonToken.FIELD_NAME) {
+				token = nextToken();
+			}
+			return token;
+		}
+
+		@Override
+		public JsonParser skipChildren() throws IOException {
+			if (this.delegate.currentToken() != null
+					&& this.delegate.currentToken().isStructStart()) {
+				this.delegate.skipChildren();
+				this.filters.pop();
+			}
+			return this;
+		}
+
+		/**
+		 * Returns the filter for the value that starts with the given token,
+		 * or null if the value is skipped.
+		 *
+		 * @param token
+		 *            the current token, which is not a field name or the end
+		 *            of an object or array
+		 * @return the filter
+		 */
+		TokenFilter getValueFilter(JsonToken token) {
+			JsonStreamContext context = this.delegate.getParsingContext();
+			if (token.isStructStart()) {
+				context = context.getParent();
+			}
+			if (context.inObject()) {
+				return this.propertyFilter;
+			} else if (context.inArray()) {
+				return this.filters.peek().includeElement(
+						context.getCurrentIndex());
+			} else {
+				return this.rootFilter.includeRootValue(context
+						.getCurrentIndex());
+			}
+		}
+	}
+
+	/**
+	 * Base class for the filters of this projection, which exclude all
+	 * properties and elements that they do not include explicitly.
+	 */
+	static class ContainerFilter extends TokenFilter {
+
+		@Override
+		public TokenFilter includeProperty(String name) {
+			return null;
+		}
+
+		@Override
+		public TokenFilter includeElement(int index) {
+			return null;
+		}
+	}
+
+	/**
+	 * Filter for the top-level object of an entity.
+	 */
+	class DocumentFilter extends ContainerFilter {
+		final TokenFilter termsFilter = languages == null ? INCLUDE_ALL
+				: new TermsFilter();
+		final TokenFilter statementsFilter = properties == null
+				&& qualifiers && references ? INCLUDE_ALL
+						: new StatementsFilter();
+		final TokenFilter siteLinksFilter = siteLinks ? INCLUDE_ALL
+				: new ContainerFilter();
+
+		@Override
+		public TokenFilter includeRootValue(int index) {
+			return this;
+		}
+
+		@Override
+		public TokenFilter includeProperty(String name) {
+			switch (name) {
+			case "labels":
+			case "descriptions":
+			case "aliases":
+				return this.termsFilter;
+			case "claims":
+			case "statements": // used for MediaInfo
+				return this.statementsFilter;
+			case "sitelinks":
+				return this.siteLinksFilter;
+			default:
+				return INCLUDE_ALL;
+			}
+		}
+	}
+
+	/**
+	 * Filter for the map from language codes to labels, descriptions, or
+	 * lists of aliases.
+	 */
+	class TermsFilter extends ContainerFilter {
+		@Override
+		public TokenFilter includeProperty(String name) {
+			return languages.contains(name) ? INCLUDE_ALL : null;
+		}
+	}
+
+	/**
+	 * Filter for the map from property ids to lists of statements.
+	 */
+	class StatementsFilter extends ContainerFilter {
+		final TokenFilter statementListFilter = qualifiers && references
+				? INCLUDE_ALL : new StatementListFilter();
+
+		@Override
+		public TokenFilter includeProperty(String name) {
+			if (properties == null || properties.contains(name)) {
+				return this.statementListFilter;
+			} else {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Filter for the list of statements of one property.
+	 */
+	class StatementListFilter extends ContainerFilter {
+		final TokenFilter statementFilter = new StatementFilter();
+
+		@Override
+		public TokenFilter includeElement(int index) {
+			return this.statementFilter;
+		}
+	}
+
+	/**
+	 * Filter for a single statement, which may drop its qualifiers and
+	 * references.
+	 */
+	class StatementFilter extends ContainerFilter {
+		@Override
+		public TokenFilter includeProperty(String name) {
+			switch (name) {
+			case "qualifiers":
+			case "qualifiers-order":
+				return qualifiers ? INCLUDE_ALL : null;
+			case "references":
+				return references ? INCLUDE_ALL : null;
+			default:
+				return INCLUDE_ALL;
+			}
+		}
+	}
+}
@@ -20,24 +20,29 @@ package examples;
  * #L%
  */
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
-import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Reference;
 import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
 import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
 
 /**
  * A simple example class that processes EntityDocuments to compute basic
@@ -52,12 +57,53 @@ import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
  * <li>The number of labels, aliases, and descriptions per language is counted
  * and stored in CSV files item-term-counts.csv (for items) and
  * property-term-counts.csv (for properties).</li>
+ * <li>If enabled, the most common values of each property are stored in CSV
+ * files item-property-top-values.csv and property-property-top-values.csv,
+ * separately for statements, qualifiers, and references.</li>
  * </ul>
+ * The processor can be checkpointed (see
+ * {@link ExampleHelpers#CHECKPOINT_INTERVAL_SEC}), so that a long run can be
+ * resumed after an interruption. It can also update its results with the
+ * daily dumps (see {@link IncrementalEntityDocumentProcessor}); the
+ * contribution of an entity records the languages of its terms, the
+ * properties it uses, and the sites it links to.
+ * <p>
+ * All counters are kept in arrays ({@link DenseCounts}): the counts of
+ * properties are indexed by the number of the property id, and the counts of
+ * languages and sites by the number that a {@link KeyDictionary} assigns to
+ * the language code or site key. Counting therefore needs no boxed numbers
+ * and no hash maps of id objects.
+ * <p>
+ * The most common values are found with {@link HeavyHitters} summaries of a
+ * fixed size (see {@link PropertyTopValues}), so that the values of
+ * properties with millions of different values do not have to be stored. The
+ * counts in the results are upper bounds, and the true counts are at most
+ * the given error smaller. The summaries can be merged and checkpointed like
+ * all other counts, but they are not changed by the contributions of
+ * incremental updates, since a summary cannot forget the values of a changed
+ * entity. After incremental updates, they still describe the last full dump.
  *
  * @author Markus Kroetzsch
  *
  */
-class EntityStatisticsProcessor implements EntityDocumentProcessor {
+class EntityStatisticsProcessor implements
+		MergeableEntityDocumentProcessor<EntityStatisticsProcessor>,
+		IncrementalEntityDocumentProcessor {
+
+	static final byte CONTRIBUTION_ITEM = 1;
+	static final byte CONTRIBUTION_PROPERTY = 2;
+
+	/**
+	 * Initial size of the tables of property counts, which is a bit more than
+	 * the largest property number that is in use.
+	 */
+	static final int PROPERTY_TABLE_SIZE = 16 * 1024;
+
+	/**
+	 * Number of the most common values of each property that are found when
+	 * running this class as a program.
+	 */
+	static final int DEFAULT_TOP_VALUE_COUNT = 100;
 
 	/**
 	 * Simple record class to keep track of some usage numbers for one type of
@@ -74,20 +120,186 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		long countStatements = 0;
 		long countReferencedStatements = 0;
 
-		// Maps to store property usage data for each property:
-		final HashMap<PropertyIdValue, Integer> propertyCountsMain = new HashMap<>();
-		final HashMap<PropertyIdValue, Integer> propertyCountsQualifier = new HashMap<>();
-		final HashMap<PropertyIdValue, Integer> propertyCountsReferences = new HashMap<>();
-		final HashMap<String, Integer> labelCounts = new HashMap<>();
-		final HashMap<String, Integer> descriptionCounts = new HashMap<>();
-		final HashMap<String, Integer> aliasCounts = new HashMap<>();
+		// Property usage data, indexed by the number of the property:
+		final DenseCounts propertyCountsMain = new DenseCounts(
+				PROPERTY_TABLE_SIZE);
+		final DenseCounts propertyCountsQualifier = new DenseCounts(
+				PROPERTY_TABLE_SIZE);
+		final DenseCounts propertyCountsReferences = new DenseCounts(
+				PROPERTY_TABLE_SIZE);
+		// Term usage data, indexed by the number of the language code:
+		final KeyDictionary languages;
+		final DenseCounts labelCounts = new DenseCounts(512);
+		final DenseCounts descriptionCounts = new DenseCounts(512);
+		final DenseCounts aliasCounts = new DenseCounts(512);
+		// Most common values of properties, or null if they are not counted:
+		final PropertyTopValues topValuesMain;
+		final PropertyTopValues topValuesQualifier;
+		final PropertyTopValues topValuesReferences;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param languages
+		 *            the dictionary of language codes to use for the term
+		 *            counts
+		 * @param topValueCount
+		 *            the number of most common values to find for each
+		 *            property, or 0 if values should not be counted
+		 */
+		UsageStatistics(KeyDictionary languages, int topValueCount) {
+			this.languages = languages;
+			if (topValueCount > 0) {
+				this.topValuesMain = new PropertyTopValues(topValueCount);
+				this.topValuesQualifier = new PropertyTopValues(topValueCount);
+				this.topValuesReferences = new PropertyTopValues(topValueCount);
+			} else {
+				this.topValuesMain = null;
+				this.topValuesQualifier = null;
+				this.topValuesReferences = null;
+			}
+		}
+
+		/**
+		 * Returns a number such that all properties with larger numbers are
+		 * not used.
+		 *
+		 * @return the limit of the used property numbers
+		 */
+		int getPropertyLimit() {
+			return Math.max(this.propertyCountsMain.size(), Math.max(
+					this.propertyCountsQualifier.size(),
+					this.propertyCountsReferences.size()));
+		}
+
+		/**
+		 * Returns true if the property with the given number has been used
+		 * in any position.
+		 *
+		 * @param property
+		 *            the number of the property
+		 * @return true if the property is used
+		 */
+		boolean isPropertyUsed(int property) {
+			return this.propertyCountsMain.get(property) != 0
+					|| this.propertyCountsQualifier.get(property) != 0
+					|| this.propertyCountsReferences.get(property) != 0;
+		}
+
+		/**
+		 * Adds all counts of the given statistics to this object.
+		 *
+		 * @param other
+		 *            the statistics to add
+		 */
+		void merge(UsageStatistics other) {
+			this.count += other.count;
+			this.countLabels += other.countLabels;
+			this.countDescriptions += other.countDescriptions;
+			this.countAliases += other.countAliases;
+			this.countStatements += other.countStatements;
+			this.countReferencedStatements += other.countReferencedStatements;
+
+			this.propertyCountsMain.merge(other.propertyCountsMain, null,
+					null);
+			this.propertyCountsQualifier.merge(other.propertyCountsQualifier,
+					null, null);
+			this.propertyCountsReferences.merge(
+					other.propertyCountsReferences, null, null);
+			this.labelCounts.merge(other.labelCounts, this.languages,
+					other.languages);
+			this.descriptionCounts.merge(other.descriptionCounts,
+					this.languages, other.languages);
+			this.aliasCounts.merge(other.aliasCounts, this.languages,
+					other.languages);
+			if (this.topValuesMain != null) {
+				this.topValuesMain.merge(other.topValuesMain);
+				this.topValuesQualifier.merge(other.topValuesQualifier);
+				this.topValuesReferences.merge(other.topValuesReferences);
+			}
+		}
+
+		/**
+		 * Writes all counts of this object for a checkpoint.
+		 *
+		 * @param out
+		 *            the output to write to
+		 * @throws IOException
+		 *             if the data could not be written
+		 */
+		void write(DataOutputStream out) throws IOException {
+			out.writeLong(this.count);
+			out.writeLong(this.countLabels);
+			out.writeLong(this.countDescriptions);
+			out.writeLong(this.countAliases);
+			out.writeLong(this.countStatements);
+			out.writeLong(this.countReferencedStatements);
+
+			this.propertyCountsMain.write(out, null);
+			this.propertyCountsQualifier.write(out, null);
+			this.propertyCountsReferences.write(out, null);
+			this.labelCounts.write(out, this.languages);
+			this.descriptionCounts.write(out, this.languages);
+			this.aliasCounts.write(out, this.languages);
+			if (this.topValuesMain != null) {
+				this.topValuesMain.write(out);
+				this.topValuesQualifier.write(out);
+				this.topValuesReferences.write(out);
+			}
+		}
+
+		/**
+		 * Reads counts that were written with {@link #write(DataOutputStream)}
+		 * into this (empty) object.
+		 *
+		 * @param in
+		 *            the input to read from
+		 * @throws IOException
+		 *             if the data could not be read
+		 */
+		void read(DataInputStream in) throws IOException {
+			this.count = in.readLong();
+			this.countLabels = in.readLong();
+			this.countDescriptions = in.readLong();
+			this.countAliases = in.readLong();
+			this.countStatements = in.readLong();
+			this.countReferencedStatements = in.readLong();
+
+			this.propertyCountsMain.read(in, null);
+			this.propertyCountsQualifier.read(in, null);
+			this.propertyCountsReferences.read(in, null);
+			this.labelCounts.read(in, this.languages);
+			this.descriptionCounts.read(in, this.languages);
+			this.aliasCounts.read(in, this.languages);
+			if (this.topValuesMain != null) {
+				this.topValuesMain.read(in);
+				this.topValuesQualifier.read(in);
+				this.topValuesReferences.read(in);
+			}
+		}
 
 	}
 
-	UsageStatistics itemStatistics = new UsageStatistics();
-	UsageStatistics propertyStatistics = new UsageStatistics();
+	/**
+	 * Dictionary of the language codes of the terms of items and properties.
+	 */
+	final KeyDictionary languages = new KeyDictionary();
+	/**
+	 * Number of the most common values that are found for each property, or
+	 * 0 if values are not counted.
+	 */
+	final int topValueCount;
+	UsageStatistics itemStatistics;
+	UsageStatistics propertyStatistics;
 	long countSiteLinks = 0;
-	final HashMap<String, Integer> siteLinkStatistics = new HashMap<>();
+	final KeyDictionary siteKeys = new KeyDictionary();
+	DenseCounts siteLinkStatistics = new DenseCounts(1024);
+
+	/**
+	 * If false, no intermediate status reports are printed. Used for copies
+	 * that only see part of the data when processing in parallel.
+	 */
+	boolean reportProgress = true;
 
 	/**
 	 * Main method. Processes the whole dump using this processor and writes the
@@ -100,12 +312,35 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		ExampleHelpers.configureLogging();
 		EntityStatisticsProcessor.printDocumentation();
 
-		EntityStatisticsProcessor entityStatisticsProcessor = new EntityStatisticsProcessor();
+		EntityStatisticsProcessor entityStatisticsProcessor = new EntityStatisticsProcessor(
+				DEFAULT_TOP_VALUE_COUNT);
 		ExampleHelpers
 				.processEntitiesFromWikidataDump(entityStatisticsProcessor);
 		entityStatisticsProcessor.writeFinalResults();
 	}
 
+	/**
+	 * Constructor for a processor that does not count values.
+	 */
+	public EntityStatisticsProcessor() {
+		this(0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param topValueCount
+	 *            the number of most common values to find for each property
+	 *            in each position, or 0 if values should not be counted
+	 */
+	public EntityStatisticsProcessor(int topValueCount) {
+		this.topValueCount = topValueCount;
+		this.itemStatistics = new UsageStatistics(this.languages,
+				topValueCount);
+		this.propertyStatistics = new UsageStatistics(this.languages,
+				topValueCount);
+	}
+
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 		// Count items:
@@ -117,11 +352,12 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		// Count site links:
 		this.countSiteLinks += itemDocument.getSiteLinks().size();
 		for (SiteLink siteLink : itemDocument.getSiteLinks().values()) {
-			countKey(this.siteLinkStatistics, siteLink.getSiteKey(), 1);
+			this.siteLinkStatistics.add(
+					this.siteKeys.getIndex(siteLink.getSiteKey()), 1);
 		}
 
 		// Print a report every 10000 items:
-		if (this.itemStatistics.count % 10000 == 0) {
+		if (this.reportProgress && this.itemStatistics.count % 10000 == 0) {
 			printStatus();
 		}
 	}
@@ -135,6 +371,171 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		countStatements(this.propertyStatistics, propertyDocument);
 	}
 
+	@Override
+	public EntityStatisticsProcessor createWorkerCopy() {
+		EntityStatisticsProcessor copy = new EntityStatisticsProcessor(
+				this.topValueCount);
+		copy.reportProgress = false;
+		return copy;
+	}
+
+	@Override
+	public void merge(EntityStatisticsProcessor other) {
+		this.itemStatistics.merge(other.itemStatistics);
+		this.propertyStatistics.merge(other.propertyStatistics);
+		this.countSiteLinks += other.countSiteLinks;
+		this.siteLinkStatistics.merge(other.siteLinkStatistics, this.siteKeys,
+				other.siteKeys);
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		this.itemStatistics.write(out);
+		this.propertyStatistics.write(out);
+		out.writeLong(this.countSiteLinks);
+		this.siteLinkStatistics.write(out, this.siteKeys);
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		this.itemStatistics = new UsageStatistics(this.languages,
+				this.topValueCount);
+		this.itemStatistics.read(in);
+		this.propertyStatistics = new UsageStatistics(this.languages,
+				this.topValueCount);
+		this.propertyStatistics.read(in);
+		this.countSiteLinks = in.readLong();
+		this.siteLinkStatistics = new DenseCounts(1024);
+		this.siteLinkStatistics.read(in, this.siteKeys);
+	}
+
+	@Override
+	public void writeContribution(EntityDocument document,
+			DataOutputStream out) throws IOException {
+		if (document instanceof ItemDocument) {
+			out.writeByte(CONTRIBUTION_ITEM);
+		} else if (document instanceof PropertyDocument) {
+			out.writeByte(CONTRIBUTION_PROPERTY);
+		} else {
+			return;
+		}
+
+		TermedDocument termedDocument = (TermedDocument) document;
+		IncrementalAggregateStore.writeVarInt(out, termedDocument.getLabels()
+				.size());
+		for (String languageCode : termedDocument.getLabels().keySet()) {
+			out.writeUTF(languageCode);
+		}
+		IncrementalAggregateStore.writeVarInt(out, termedDocument
+				.getDescriptions().size());
+		for (String languageCode : termedDocument.getDescriptions().keySet()) {
+			out.writeUTF(languageCode);
+		}
+		IncrementalAggregateStore.writeVarInt(out, termedDocument.getAliases()
+				.size());
+		for (Entry<String, List<MonolingualTextValue>> entry : termedDocument
+				.getAliases().entrySet()) {
+			out.writeUTF(entry.getKey());
+			IncrementalAggregateStore.writeVarInt(out, entry.getValue().size());
+		}
+
+		// Property uses are summed up per entity:
+		StatementDocument statementDocument = (StatementDocument) document;
+		Map<String, Integer> mainCounts = new HashMap<>();
+		Map<String, Integer> qualifierCounts = new HashMap<>();
+		Map<String, Integer> referenceCounts = new HashMap<>();
+		int countReferences = 0;
+		for (StatementGroup sg : statementDocument.getStatementGroups()) {
+			countKey(mainCounts, sg.getProperty().getId(), sg.size());
+			for (Statement s : sg) {
+				for (SnakGroup q : s.getQualifiers()) {
+					countKey(qualifierCounts, q.getProperty().getId(), q.size());
+				}
+				for (Reference r : s.getReferences()) {
+					countReferences++;
+					for (SnakGroup snakGroup : r.getSnakGroups()) {
+						countKey(referenceCounts, snakGroup.getProperty()
+								.getId(), snakGroup.size());
+					}
+				}
+			}
+		}
+		IncrementalAggregateStore.writeCounts(out, mainCounts);
+		IncrementalAggregateStore.writeCounts(out, qualifierCounts);
+		IncrementalAggregateStore.writeVarInt(out, countReferences);
+		IncrementalAggregateStore.writeCounts(out, referenceCounts);
+
+		if (document instanceof ItemDocument) {
+			ItemDocument itemDocument = (ItemDocument) document;
+			IncrementalAggregateStore.writeVarInt(out, itemDocument
+					.getSiteLinks().size());
+			for (String siteKey : itemDocument.getSiteLinks().keySet()) {
+				out.writeUTF(siteKey);
+			}
+		}
+	}
+
+	@Override
+	public void addContribution(DataInputStream in, int sign)
+			throws IOException {
+		byte type = in.readByte();
+		UsageStatistics usageStatistics = type == CONTRIBUTION_ITEM
+				? this.itemStatistics : this.propertyStatistics;
+		usageStatistics.count += sign;
+
+		int size = IncrementalAggregateStore.readVarInt(in);
+		usageStatistics.countLabels += sign * size;
+		for (int i = 0; i < size; i++) {
+			countKey(usageStatistics.labelCounts, this.languages,
+					in.readUTF(), sign);
+		}
+		size = IncrementalAggregateStore.readVarInt(in);
+		usageStatistics.countDescriptions += sign * size;
+		for (int i = 0; i < size; i++) {
+			countKey(usageStatistics.descriptionCounts, this.languages,
+					in.readUTF(), sign);
+		}
+		size = IncrementalAggregateStore.readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			String languageCode = in.readUTF();
+			int count = sign * IncrementalAggregateStore.readVarInt(in);
+			usageStatistics.countAliases += count;
+			countKey(usageStatistics.aliasCounts, this.languages,
+					languageCode, count);
+		}
+
+		size = IncrementalAggregateStore.readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			int property = getPropertyNumber(in.readUTF());
+			int count = sign * IncrementalAggregateStore.readVarInt(in);
+			usageStatistics.countStatements += count;
+			usageStatistics.propertyCountsMain.add(property, count);
+		}
+		size = IncrementalAggregateStore.readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			int property = getPropertyNumber(in.readUTF());
+			usageStatistics.propertyCountsQualifier.add(property, sign
+					* IncrementalAggregateStore.readVarInt(in));
+		}
+		usageStatistics.countReferencedStatements += sign
+				* IncrementalAggregateStore.readVarInt(in);
+		size = IncrementalAggregateStore.readVarInt(in);
+		for (int i = 0; i < size; i++) {
+			int property = getPropertyNumber(in.readUTF());
+			usageStatistics.propertyCountsReferences.add(property, sign
+					* IncrementalAggregateStore.readVarInt(in));
+		}
+
+		if (type == CONTRIBUTION_ITEM) {
+			size = IncrementalAggregateStore.readVarInt(in);
+			this.countSiteLinks += sign * size;
+			for (int i = 0; i < size; i++) {
+				countKey(this.siteLinkStatistics, this.siteKeys, in.readUTF(),
+						sign);
+			}
+		}
+	}
+
 	/**
 	 * Count the terms (labels, descriptions, aliases) of an item or property
 	 * document.
@@ -148,21 +549,24 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 			TermedDocument termedDocument) {
 		usageStatistics.countLabels += termedDocument.getLabels().size();
 		for (MonolingualTextValue mtv : termedDocument.getLabels().values()) {
-			countKey(usageStatistics.labelCounts, mtv.getLanguageCode(), 1);
+			countKey(usageStatistics.labelCounts, this.languages,
+					mtv.getLanguageCode(), 1);
 		}
 
 		usageStatistics.countDescriptions += termedDocument.getDescriptions()
 				.size();
 		for (MonolingualTextValue mtv : termedDocument.getDescriptions()
 				.values()) {
-			countKey(usageStatistics.descriptionCounts, mtv.getLanguageCode(),
-					1);
+			countKey(usageStatistics.descriptionCounts, this.languages,
+					mtv.getLanguageCode(), 1);
 		}
 
-		for (String languageKey : termedDocument.getAliases().keySet()) {
-			int count = termedDocument.getAliases().get(languageKey).size();
+		for (Entry<String, List<MonolingualTextValue>> entry : termedDocument
+				.getAliases().entrySet()) {
+			int count = entry.getValue().size();
 			usageStatistics.countAliases += count;
-			countKey(usageStatistics.aliasCounts, languageKey, count);
+			countKey(usageStatistics.aliasCounts, this.languages,
+					entry.getKey(), count);
 		}
 	}
 
@@ -182,22 +586,61 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 			usageStatistics.countStatements += sg.size();
 
 			// Count uses of properties in Statements:
-			countPropertyMain(usageStatistics, sg.getProperty(), sg.size());
+			int property = getPropertyNumber(sg.getProperty().getId());
+			usageStatistics.propertyCountsMain.add(property, sg.size());
 			for (Statement s : sg) {
+				if (usageStatistics.topValuesMain != null) {
+					Value value = s.getValue();
+					if (value != null) {
+						usageStatistics.topValuesMain.add(property, value);
+					}
+				}
 				for (SnakGroup q : s.getQualifiers()) {
-					countPropertyQualifier(usageStatistics, q.getProperty(), q.size());
+					int qualifierProperty = getPropertyNumber(q.getProperty()
+							.getId());
+					usageStatistics.propertyCountsQualifier.add(
+							qualifierProperty, q.size());
+					countValues(usageStatistics.topValuesQualifier,
+							qualifierProperty, q);
 				}
 				for (Reference r : s.getReferences()) {
 					usageStatistics.countReferencedStatements++;
 					for (SnakGroup snakGroup : r.getSnakGroups()) {
-						countPropertyReference(usageStatistics,
-								snakGroup.getProperty(), snakGroup.size());
+						int referenceProperty = getPropertyNumber(snakGroup
+								.getProperty().getId());
+						usageStatistics.propertyCountsReferences.add(
+								referenceProperty, snakGroup.size());
+						countValues(usageStatistics.topValuesReferences,
+								referenceProperty, snakGroup);
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Counts the values of the given snaks, if values are counted.
+	 *
+	 * @param topValues
+	 *            the summaries to count the values in, or null if values are
+	 *            not counted
+	 * @param property
+	 *            the number of the property of the snaks
+	 * @param snakGroup
+	 *            the snaks
+	 */
+	private void countValues(PropertyTopValues topValues, int property,
+			SnakGroup snakGroup) {
+		if (topValues == null) {
+			return;
+		}
+		for (Snak snak : snakGroup) {
+			if (snak instanceof ValueSnak) {
+				topValues.add(property, ((ValueSnak) snak).getValue());
+			}
+		}
+	}
+
 	/**
 	 * Prints some basic documentation about this program.
 	 */
@@ -211,7 +654,9 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		System.out
 				.println("*** It will print progress information and some simple statistics.");
 		System.out
-				.println("*** Results about property usage will be stored in a CSV file.");
+				.println("*** Results about property usage, including the most common values");
+		System.out
+				.println("*** of each property, will be stored in CSV files.");
 		System.out.println("*** See source code for further details.");
 		System.out
 				.println("********************************************************************");
@@ -223,7 +668,7 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	 * gathered during processing and it will write a CSV file with usage counts
 	 * for every property.
 	 */
-	private void writeFinalResults() {
+	void writeFinalResults() {
 		// Print a final report:
 		printStatus();
 
@@ -232,6 +677,12 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 				"item-property-counts.csv");
 		writePropertyStatisticsToFile(this.propertyStatistics,
 				"property-property-counts.csv");
+		if (this.topValueCount > 0) {
+			writeTopValuesToFile(this.itemStatistics,
+					"item-property-top-values.csv");
+			writeTopValuesToFile(this.propertyStatistics,
+					"property-property-top-values.csv");
+		}
 
 		// Store site link statistics in file:
 		try (PrintStream out = new PrintStream(
@@ -239,9 +690,11 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 						.openExampleFileOuputStream("site-link-counts.csv"))) {
 
 			out.println("Site key,Site links");
-			for (Entry<String, Integer> entry : this.siteLinkStatistics
-					.entrySet()) {
-				out.println(entry.getKey() + "," + entry.getValue());
+			for (int i = 0; i < this.siteKeys.size(); i++) {
+				long count = this.siteLinkStatistics.get(i);
+				if (count != 0) {
+					out.println(this.siteKeys.getKey(i) + "," + count);
+				}
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -251,6 +704,41 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		writeTermStatisticsToFile(this.itemStatistics, "item-term-counts.csv");
 		writeTermStatisticsToFile(this.propertyStatistics,
 				"property-term-counts.csv");
+
+		// Store total counts in file:
+		try (PrintStream out = new PrintStream(
+				ExampleHelpers.openExampleFileOuputStream("entity-counts.csv"))) {
+
+			out.println("Entity type,Count,Labels,Descriptions,Aliases,"
+					+ "Statements,Referenced statements,Site links");
+			writeEntityCounts(out, this.itemStatistics, "item",
+					this.countSiteLinks);
+			writeEntityCounts(out, this.propertyStatistics, "property", 0);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes one line of total counts to the file entity-counts.csv.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param usageStatistics
+	 *            the statistics to write
+	 * @param entityType
+	 *            the name of the type of the entities
+	 * @param siteLinks
+	 *            the number of site links of these entities
+	 */
+	private void writeEntityCounts(PrintStream out,
+			UsageStatistics usageStatistics, String entityType, long siteLinks) {
+		out.println(entityType + "," + usageStatistics.count + ","
+				+ usageStatistics.countLabels + ","
+				+ usageStatistics.countDescriptions + ","
+				+ usageStatistics.countAliases + ","
+				+ usageStatistics.countStatements + ","
+				+ usageStatistics.countReferencedStatements + "," + siteLinks);
 	}
 
 	/**
@@ -268,15 +756,19 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 
 			out.println("Property id,in statements,in qualifiers,in references,total");
 
-			for (Entry<PropertyIdValue, Integer> entry : usageStatistics.propertyCountsMain
-					.entrySet()) {
-				int qCount = usageStatistics.propertyCountsQualifier.get(entry
-						.getKey());
-				int rCount = usageStatistics.propertyCountsReferences.get(entry
-						.getKey());
-				int total = entry.getValue() + qCount + rCount;
-				out.println(entry.getKey().getId() + "," + entry.getValue()
-						+ "," + qCount + "," + rCount + "," + total);
+			int limit = usageStatistics.getPropertyLimit();
+			for (int property = 0; property < limit; property++) {
+				if (!usageStatistics.isPropertyUsed(property)) {
+					continue;
+				}
+				long mCount = usageStatistics.propertyCountsMain.get(property);
+				long qCount = usageStatistics.propertyCountsQualifier
+						.get(property);
+				long rCount = usageStatistics.propertyCountsReferences
+						.get(property);
+				long total = mCount + qCount + rCount;
+				out.println("P" + property + "," + mCount + "," + qCount + ","
+						+ rCount + "," + total);
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -284,38 +776,92 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	}
 
 	/**
-	 * Stores the gathered usage statistics about term uses by language to a CSV
-	 * file.
+	 * Stores the most common values of each property to a CSV file. Each row
+	 * gives the count of a value, which is an upper bound, and the error of
+	 * the count, which is the largest possible difference to the true count,
+	 * together with the number of all values of the property in this
+	 * position. If a property has as many rows as values are counted, other
+	 * values are at most as common as the last row says.
 	 *
 	 * @param usageStatistics
 	 *            the statistics to store
 	 * @param fileName
 	 *            the name of the file to use
 	 */
-	private void writeTermStatisticsToFile(UsageStatistics usageStatistics,
+	private void writeTopValuesToFile(UsageStatistics usageStatistics,
 			String fileName) {
+		try (PrintStream out = new PrintStream(
+				ExampleHelpers.openExampleFileOuputStream(fileName))) {
+
+			out.println("Property id,Position,Values,Rank,Value,Count,Error");
+			int limit = Math.max(usageStatistics.topValuesMain.size(), Math
+					.max(usageStatistics.topValuesQualifier.size(),
+							usageStatistics.topValuesReferences.size()));
+			for (int property = 0; property < limit; property++) {
+				writeTopValues(out, property, "statement",
+						usageStatistics.topValuesMain.get(property));
+				writeTopValues(out, property, "qualifier",
+						usageStatistics.topValuesQualifier.get(property));
+				writeTopValues(out, property, "reference",
+						usageStatistics.topValuesReferences.get(property));
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
 
-		// Make sure all keys are present in label count map:
-		for (String key : usageStatistics.aliasCounts.keySet()) {
-			countKey(usageStatistics.labelCounts, key, 0);
+	/**
+	 * Writes the rows for the most common values of one property in one
+	 * position to the file of {@link #writeTopValuesToFile}.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param property
+	 *            the number of the property
+	 * @param position
+	 *            the name of the position of the property
+	 * @param summary
+	 *            the summary of the values, or null if there are none
+	 */
+	private void writeTopValues(PrintStream out, int property,
+			String position, HeavyHitters summary) {
+		if (summary == null) {
+			return;
 		}
-		for (String key : usageStatistics.descriptionCounts.keySet()) {
-			countKey(usageStatistics.labelCounts, key, 0);
+		String prefix = "P" + property + "," + position + ","
+				+ summary.getTotalCount() + ",";
+		int rank = 1;
+		for (HeavyHitters.Entry entry : summary.getEntries()) {
+			out.println(prefix + rank + ",\"" + entry.key.replace("\"", "\"\"")
+					+ "\"," + entry.count + "," + entry.error);
+			rank++;
 		}
+	}
 
+	/**
+	 * Stores the gathered usage statistics about term uses by language to a CSV
+	 * file.
+	 *
+	 * @param usageStatistics
+	 *            the statistics to store
+	 * @param fileName
+	 *            the name of the file to use
+	 */
+	private void writeTermStatisticsToFile(UsageStatistics usageStatistics,
+			String fileName) {
 		try (PrintStream out = new PrintStream(
 				ExampleHelpers.openExampleFileOuputStream(fileName))) {
 
 			out.println("Language,Labels,Descriptions,Aliases");
-			for (Entry<String, Integer> entry : usageStatistics.labelCounts
-					.entrySet()) {
-				countKey(usageStatistics.aliasCounts, entry.getKey(), 0);
-				int aCount = usageStatistics.aliasCounts.get(entry.getKey());
-				countKey(usageStatistics.descriptionCounts, entry.getKey(), 0);
-				int dCount = usageStatistics.descriptionCounts.get(entry
-						.getKey());
-				out.println(entry.getKey() + "," + entry.getValue() + ","
-						+ dCount + "," + aCount);
+			for (int i = 0; i < usageStatistics.languages.size(); i++) {
+				long lCount = usageStatistics.labelCounts.get(i);
+				long dCount = usageStatistics.descriptionCounts.get(i);
+				long aCount = usageStatistics.aliasCounts.get(i);
+				// the dictionary also has the languages of other entities:
+				if (lCount != 0 || dCount != 0 || aCount != 0) {
+					out.println(usageStatistics.languages.getKey(i) + ","
+							+ lCount + "," + dCount + "," + aCount);
+				}
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -355,73 +901,50 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	}
 
 	/**
-	 * Counts additional occurrences of a property as the main property of
-	 * statements.
-	 *
-	 * @param usageStatistics
-	 *            statistics object where count is stored
-	 * @param property
-	 *            the property to count
-	 * @param count
-	 *            the number of times to count the property
-	 */
-	private void countPropertyMain(UsageStatistics usageStatistics,
-			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsMain.put(property,
-				usageStatistics.propertyCountsMain.get(property) + count);
-	}
-
-	/**
-	 * Counts additional occurrences of a property as qualifier property of
-	 * statements.
+	 * Returns the number of a property id, such as 31 for "P31", without
+	 * creating any objects.
 	 *
-	 * @param usageStatistics
-	 *            statistics object where count is stored
-	 * @param property
-	 *            the property to count
-	 * @param count
-	 *            the number of times to count the property
+	 * @param propertyId
+	 *            the id of the property
+	 * @return the number of the property
+	 * @throws IllegalArgumentException
+	 *             if the id is not a property id
 	 */
-	private void countPropertyQualifier(UsageStatistics usageStatistics,
-			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsQualifier.put(property,
-				usageStatistics.propertyCountsQualifier.get(property) + count);
+	static int getPropertyNumber(String propertyId) {
+		int length = propertyId.length();
+		if (length < 2 || length > 10 || propertyId.charAt(0) != 'P') {
+			throw new IllegalArgumentException("Not a property id: "
+					+ propertyId);
+		}
+		int result = 0;
+		for (int i = 1; i < length; i++) {
+			char c = propertyId.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new IllegalArgumentException("Not a property id: "
+						+ propertyId);
+			}
+			result = 10 * result + (c - '0');
+		}
+		return result;
 	}
 
 	/**
-	 * Counts additional occurrences of a property as property in references.
+	 * Adds a (possibly negative) number to the count of a key, such as a
+	 * language code.
 	 *
-	 * @param usageStatistics
-	 *            statistics object where count is stored
-	 * @param property
-	 *            the property to count
+	 * @param counts
+	 *            the counts, indexed by the numbers of the dictionary
+	 * @param keys
+	 *            the dictionary for the keys
+	 * @param key
+	 *            the key to be counted
 	 * @param count
-	 *            the number of times to count the property
-	 */
-	private void countPropertyReference(UsageStatistics usageStatistics,
-			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsReferences.put(property,
-				usageStatistics.propertyCountsReferences.get(property) + count);
-	}
-
-	/**
-	 * Initializes the counters for a property to zero if not done yet.
-	 *
-	 * @param usageStatistics
-	 *            statistics object to initialize
-	 * @param property
-	 *            the property to count
+	 *            value by which the count should be changed; 1 is the usual
+	 *            case
 	 */
-	private void addPropertyCounters(UsageStatistics usageStatistics,
-			PropertyIdValue property) {
-		if (!usageStatistics.propertyCountsMain.containsKey(property)) {
-			usageStatistics.propertyCountsMain.put(property, 0);
-			usageStatistics.propertyCountsQualifier.put(property, 0);
-			usageStatistics.propertyCountsReferences.put(property, 0);
-		}
+	private void countKey(DenseCounts counts, KeyDictionary keys, String key,
+			long count) {
+		counts.add(keys.getIndex(key), count);
 	}
 
 	/**
@@ -22,21 +22,33 @@ package examples;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessorBroker;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.dumpfiles.DumpProcessingController;
 import org.wikidata.wdtk.dumpfiles.EntityTimerProcessor;
 import org.wikidata.wdtk.dumpfiles.EntityTimerProcessor.TimeoutException;
+import org.wikidata.wdtk.dumpfiles.JsonDumpFileProcessor;
 import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwRevisionDumpFileProcessor;
+import org.wikidata.wdtk.dumpfiles.MwRevisionProcessor;
+import org.wikidata.wdtk.dumpfiles.MwRevisionProcessorBroker;
+import org.wikidata.wdtk.dumpfiles.WikibaseRevisionProcessor;
 
 /**
  * Class for sharing code that is used in many examples. It contains several
@@ -56,10 +68,18 @@ public class ExampleHelpers {
 
 	/**
 	 * Enum to say which dumps should be downloaded and processed. Used as
-	 * possible values of {@link ExampleHelpers#DUMP_FILE_MODE}.
+	 * possible values of {@link ExampleHelpers#DUMP_FILE_MODE}. The mode
+	 * BINARY_CACHE processes the most recent JSON dump like JSON, but stores
+	 * the entities in a {@link BinaryDumpFile} while doing so; later runs on
+	 * the same dump read this file instead of parsing the JSON again. The mode
+	 * INCREMENTAL_DAILIES keeps the results of processors that implement
+	 * {@link IncrementalEntityDocumentProcessor} in an
+	 * {@link IncrementalAggregateStore}, and only processes the daily dumps
+	 * that are newer than the stored results (other processors are run as in
+	 * CURRENT_REVS_WITH_DAILIES).
 	 */
 	public enum DumpProcessingMode {
-		JSON, CURRENT_REVS, ALL_REVS, CURRENT_REVS_WITH_DAILIES, ALL_REVS_WITH_DAILIES, JUST_ONE_DAILY_FOR_TEST
+		JSON, CURRENT_REVS, ALL_REVS, CURRENT_REVS_WITH_DAILIES, ALL_REVS_WITH_DAILIES, JUST_ONE_DAILY_FOR_TEST, BINARY_CACHE, INCREMENTAL_DAILIES
 	}
 
 	/**
@@ -72,6 +92,13 @@ public class ExampleHelpers {
 	 */
 	public static final String EXAMPLE_OUTPUT_DIRECTORY = "results";
 
+	/**
+	 * The directory in {@link #EXAMPLE_OUTPUT_DIRECTORY} where the results of
+	 * processors are stored in mode INCREMENTAL_DAILIES. Each processor uses a
+	 * subdirectory with the name of its class.
+	 */
+	public static final String INCREMENTAL_DIRECTORY = "incremental";
+
 	/**
 	 * Timeout to abort processing after a short while or 0 to disable timeout.
 	 * If set, then the processing will cleanly exit after about this many
@@ -82,12 +109,75 @@ public class ExampleHelpers {
 	 */
 	public static final int TIMEOUT_SEC = 0;
 
+	/**
+	 * Time between two checkpoints in seconds, or 0 to disable checkpoints.
+	 * If set, processors that implement
+	 * {@link CheckpointableEntityDocumentProcessor} store their state in a
+	 * {@link DumpCheckpoint} file in the output directory of the dump this
+	 * often while processing a JSON dump. If a run is interrupted, the next
+	 * run on the same dump resumes from the last checkpoint.
+	 */
+	public static final int CHECKPOINT_INTERVAL_SEC = 0;
+
+	/**
+	 * Number of threads to use for parsing and processing JSON dumps. If set
+	 * to a value greater than 1, processors that implement
+	 * {@link MergeableEntityDocumentProcessor} are run on several copies in
+	 * parallel using {@link ParallelJsonDumpProcessor}; all other processors
+	 * and dump types are processed in a single thread as before. A good value
+	 * is the number of available CPU cores minus one (for reading the dump).
+	 */
+	public static final int PARALLEL_THREADS = 1;
+
+	/**
+	 * Number of threads to use for decompressing dump files, or 0 to use the
+	 * standard decompression of Wikidata Toolkit. If set, local gzip files are
+	 * read through a {@link ParallelGzipInputStream}, and the bzip2 files of
+	 * the XML revision dumps through a {@link ParallelBzip2InputStream}, which
+	 * decompresses all blocks of the file in parallel. Files that consist of
+	 * many gzip members are decompressed with this many threads. The single
+	 * member gzip files published by Wikimedia are not decompressed in
+	 * parallel; they are only read ahead in one background thread, which
+	 * takes this work off the parsing thread.
+	 */
+	public static final int DECOMPRESSION_THREADS = 0;
+
+	/**
+	 * Size of the buffer of each processor if processors are pipelined, or 0
+	 * to call all processors in the thread that parses the dump. If set, the
+	 * processor of an example and the timer each run in their own thread (see
+	 * {@link PipelinedEntityDocumentProcessor}), and the buffers hold this many
+	 * documents. This is only useful if several processors are registered and
+	 * there are enough CPU cores for them.
+	 */
+	public static final int PIPELINE_BUFFER_SIZE = 0;
+
+	/**
+	 * If true, the latency, throughput, and memory allocation of each
+	 * processor are measured (see {@link ProcessorMetrics}). The metrics can
+	 * be watched with JMX tools such as jconsole while the dump is processed,
+	 * and they are printed when processing has finished.
+	 */
+	public static final boolean PROCESSOR_METRICS = false;
+
 	/**
 	 * Identifier of the dump file that was processed last. This can be used to
 	 * name files generated while processing a dump file.
 	 */
 	private static String lastDumpFileName = "";
 
+	/**
+	 * Number of bytes read from dump files, if
+	 * {@link ExampleHelpers#PROCESSOR_METRICS} is set.
+	 */
+	private static final LongAdder inputByteCount = new LongAdder();
+
+	/**
+	 * Metrics of the processors of the current run that have not been printed
+	 * yet.
+	 */
+	private static final List<ProcessorMetrics> processorMetrics = new ArrayList<>();
+
 	/**
 	 * Defines how messages should be logged. This method can be modified to
 	 * restrict the logging messages that are shown on the console or to change
@@ -112,6 +202,12 @@ public class ExampleHelpers {
 	 * Processes all entities in a Wikidata dump using the given entity
 	 * processor. By default, the most recent JSON dump will be used. In offline
 	 * mode, only the most recent previously downloaded file is considered.
+	 * Processors that implement {@link PrefilteredEntityDocumentProcessor} only
+	 * receive the entities that pass their filter when a JSON dump is used.
+	 * Processors that implement {@link StreamingEntityDocumentProcessor} are
+	 * given flyweight documents when a JSON dump is used.
+	 * Processors that implement {@link CheckpointableEntityDocumentProcessor}
+	 * are checkpointed if {@link #CHECKPOINT_INTERVAL_SEC} is set.
 	 *
 	 * @param entityDocumentProcessor
 	 *            the object to use for processing entities in this dump
@@ -119,6 +215,25 @@ public class ExampleHelpers {
 	public static void processEntitiesFromWikidataDump(
 			EntityDocumentProcessor entityDocumentProcessor) {
 
+		if (DUMP_FILE_MODE == DumpProcessingMode.INCREMENTAL_DAILIES
+				&& entityDocumentProcessor instanceof IncrementalEntityDocumentProcessor) {
+			processIncrementalDumps((IncrementalEntityDocumentProcessor) entityDocumentProcessor);
+			return;
+		}
+
+		// Processors that only need some entities or some data of each entity
+		// can skip the rest before parsing it, processors can use flyweight
+		// documents, and processors can be checkpointed, but only when
+		// reading JSON line by line:
+		if (DUMP_FILE_MODE == DumpProcessingMode.JSON
+				&& (getRawEntityFilter(entityDocumentProcessor) != null
+						|| getEntityProjection(entityDocumentProcessor) != null
+						|| entityDocumentProcessor instanceof StreamingEntityDocumentProcessor
+						|| isCheckpointed(entityDocumentProcessor))) {
+			processJsonDump(entityDocumentProcessor, 1);
+			return;
+		}
+
 		// Controller object for processing dumps:
 		DumpProcessingController dumpProcessingController = new DumpProcessingController(
 				"wikidatawiki");
@@ -136,21 +251,45 @@ public class ExampleHelpers {
 			break;
 		case CURRENT_REVS:
 		case CURRENT_REVS_WITH_DAILIES:
+		case INCREMENTAL_DAILIES:
 		case JSON:
 		case JUST_ONE_DAILY_FOR_TEST:
 		default:
 			onlyCurrentRevisions = true;
 		}
 
-		// Subscribe to the most recent entity documents of type wikibase item:
-		dumpProcessingController.registerEntityDocumentProcessor(
-				entityDocumentProcessor, null, onlyCurrentRevisions);
-
 		// Also add a timer that reports some basic progress information:
 		EntityTimerProcessor entityTimerProcessor = new EntityTimerProcessor(
 				TIMEOUT_SEC);
-		dumpProcessingController.registerEntityDocumentProcessor(
-				entityTimerProcessor, null, onlyCurrentRevisions);
+
+		// Measure the processors if configured:
+		String processorName = entityDocumentProcessor.getClass()
+				.getSimpleName();
+		EntityDocumentProcessor exampleProcessor = instrument(processorName,
+				entityDocumentProcessor);
+		EntityDocumentProcessor timerProcessor = instrument(
+				"EntityTimerProcessor", entityTimerProcessor);
+
+		// Subscribe to the most recent entity documents of type wikibase item,
+		// either directly or through a pipeline with a thread per processor:
+		EntityDocumentProcessor[] processors;
+		PipelinedEntityDocumentProcessor pipelinedEntityDocumentProcessor = null;
+		if (PIPELINE_BUFFER_SIZE > 0) {
+			pipelinedEntityDocumentProcessor = new PipelinedEntityDocumentProcessor(
+					PIPELINE_BUFFER_SIZE);
+			pipelinedEntityDocumentProcessor.registerEntityDocumentProcessor(
+					exampleProcessor, processorName);
+			pipelinedEntityDocumentProcessor.registerEntityDocumentProcessor(
+					timerProcessor, "EntityTimerProcessor");
+			processors = new EntityDocumentProcessor[] { pipelinedEntityDocumentProcessor };
+		} else {
+			processors = new EntityDocumentProcessor[] { exampleProcessor,
+					timerProcessor };
+		}
+		for (EntityDocumentProcessor processor : processors) {
+			dumpProcessingController.registerEntityDocumentProcessor(
+					processor, null, onlyCurrentRevisions);
+		}
 
 		MwDumpFile dumpFile = null;
 		try {
@@ -163,6 +302,7 @@ public class ExampleHelpers {
 				break;
 			case ALL_REVS_WITH_DAILIES:
 			case CURRENT_REVS_WITH_DAILIES:
+			case INCREMENTAL_DAILIES:
 				MwDumpFile fullDumpFile = dumpProcessingController
 						.getMostRecentDump(DumpContentType.FULL);
 				MwDumpFile incrDumpFile = dumpProcessingController
@@ -170,7 +310,12 @@ public class ExampleHelpers {
 				lastDumpFileName = fullDumpFile.getProjectName() + "-"
 						+ incrDumpFile.getDateStamp() + "."
 						+ fullDumpFile.getDateStamp();
-				dumpProcessingController.processAllRecentRevisionDumps();
+				if (DECOMPRESSION_THREADS > 0) {
+					processRecentRevisionDumps(dumpProcessingController,
+							onlyCurrentRevisions, processors);
+				} else {
+					dumpProcessingController.processAllRecentRevisionDumps();
+				}
 				break;
 			case JSON:
 				dumpFile = dumpProcessingController
@@ -180,6 +325,15 @@ public class ExampleHelpers {
 				dumpFile = dumpProcessingController
 						.getMostRecentDump(DumpContentType.DAILY);
 				break;
+			case BINARY_CACHE:
+				MwDumpFile jsonDumpFile = dumpProcessingController
+						.getMostRecentDump(DumpContentType.JSON);
+				if (jsonDumpFile != null) {
+					lastDumpFileName = jsonDumpFile.getProjectName() + "-"
+							+ jsonDumpFile.getDateStamp();
+					processBinaryDumpCache(jsonDumpFile, processors);
+				}
+				break;
 			default:
 				throw new RuntimeException("Unsupported dump processing type "
 						+ DUMP_FILE_MODE);
@@ -188,7 +342,104 @@ public class ExampleHelpers {
 			if (dumpFile != null) {
 				lastDumpFileName = dumpFile.getProjectName() + "-"
 						+ dumpFile.getDateStamp();
-				dumpProcessingController.processDump(dumpFile);
+				dumpProcessingController.processDump(getMeteredDumpFile(
+						getDecompressingDumpFile(dumpFile)));
+			}
+			if (pipelinedEntityDocumentProcessor != null) {
+				pipelinedEntityDocumentProcessor.close();
+			}
+		} catch (TimeoutException e) {
+			// The timer caused a time out. Continue and finish normally.
+			if (pipelinedEntityDocumentProcessor != null) {
+				pipelinedEntityDocumentProcessor.close();
+			}
+		}
+
+		// Print final timer results:
+		entityTimerProcessor.close();
+		printProcessorMetrics();
+	}
+
+	/**
+	 * Processes all entities in a Wikidata dump using the given entity
+	 * processor, which can be split up for processing in several threads. If
+	 * {@link ExampleHelpers#PARALLEL_THREADS} is greater than 1 and a JSON dump
+	 * is used, the processor is copied once for each thread, and the results
+	 * of all copies are merged back into the given processor in the end.
+	 * Otherwise, this method behaves like
+	 * {@link #processEntitiesFromWikidataDump(EntityDocumentProcessor)}.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the object to use for processing entities in this dump
+	 */
+	public static <T extends MergeableEntityDocumentProcessor<T>> void processEntitiesFromWikidataDump(
+			T entityDocumentProcessor) {
+		if (PARALLEL_THREADS <= 1 || DUMP_FILE_MODE != DumpProcessingMode.JSON) {
+			processEntitiesFromWikidataDump((EntityDocumentProcessor) entityDocumentProcessor);
+			return;
+		}
+		processJsonDump(entityDocumentProcessor, PARALLEL_THREADS);
+	}
+
+	/**
+	 * Processes the most recent JSON dump with a
+	 * {@link ParallelJsonDumpProcessor}, using the filter of the processor if
+	 * it is a {@link PrefilteredEntityDocumentProcessor} and its projection if
+	 * it is a {@link ProjectingEntityDocumentProcessor}. A
+	 * {@link StreamingEntityDocumentProcessor} is given flyweight documents.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the object to use for processing entities in this dump; must
+	 *            be a {@link MergeableEntityDocumentProcessor} if more than one
+	 *            thread is used
+	 * @param threadCount
+	 *            the number of threads to use
+	 * @return true if the whole dump was processed, false if there was no
+	 *         dump or the processing was stopped by {@link #TIMEOUT_SEC}
+	 */
+	static boolean processJsonDump(
+			EntityDocumentProcessor entityDocumentProcessor, int threadCount) {
+		DumpProcessingController dumpProcessingController = new DumpProcessingController(
+				"wikidatawiki");
+		dumpProcessingController.setOfflineMode(OFFLINE_MODE);
+
+		ParallelJsonDumpProcessor parallelJsonDumpProcessor = new ParallelJsonDumpProcessor(
+				entityDocumentProcessor, threadCount);
+		parallelJsonDumpProcessor
+				.setRawEntityFilter(getRawEntityFilter(entityDocumentProcessor));
+		parallelJsonDumpProcessor
+				.setEntityProjection(getEntityProjection(entityDocumentProcessor));
+
+		parallelJsonDumpProcessor
+				.setProcessorMetrics(createProcessorMetrics(entityDocumentProcessor
+						.getClass().getSimpleName()));
+
+		// The timer sees all entities that pass the filter, no matter which
+		// thread parsed them (for processors with flyweight documents, it only
+		// gets the ids of the entities):
+		EntityTimerProcessor entityTimerProcessor = new EntityTimerProcessor(
+				TIMEOUT_SEC);
+		parallelJsonDumpProcessor.addSerialProcessor(instrument(
+				"EntityTimerProcessor", entityTimerProcessor));
+
+		boolean completed = false;
+		try {
+			MwDumpFile dumpFile = dumpProcessingController
+					.getMostRecentDump(DumpContentType.JSON);
+			if (dumpFile != null) {
+				lastDumpFileName = dumpFile.getProjectName() + "-"
+						+ dumpFile.getDateStamp();
+				if (isCheckpointed(entityDocumentProcessor)) {
+					parallelJsonDumpProcessor.setCheckpointFile(
+							Paths.get(EXAMPLE_OUTPUT_DIRECTORY,
+									lastDumpFileName, entityDocumentProcessor
+											.getClass().getSimpleName()
+											+ ".checkpoint"),
+							CHECKPOINT_INTERVAL_SEC);
+				}
+				parallelJsonDumpProcessor
+						.processDump(getDecompressingDumpFile(dumpFile));
+				completed = true;
 			}
 		} catch (TimeoutException e) {
 			// The timer caused a time out. Continue and finish normally.
@@ -196,6 +447,347 @@ public class ExampleHelpers {
 
 		// Print final timer results:
 		entityTimerProcessor.close();
+		printProcessorMetrics();
+		return completed;
+	}
+
+	/**
+	 * Returns the filter of the given processor if it is a
+	 * {@link PrefilteredEntityDocumentProcessor}.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor
+	 * @return the filter, or null if the processor needs all entities
+	 */
+	static RawEntityFilter getRawEntityFilter(
+			EntityDocumentProcessor entityDocumentProcessor) {
+		if (entityDocumentProcessor instanceof PrefilteredEntityDocumentProcessor) {
+			return ((PrefilteredEntityDocumentProcessor) entityDocumentProcessor)
+					.getRawEntityFilter();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if checkpoints should be written for the given processor.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor
+	 * @return true if checkpoints are enabled and supported by the processor
+	 */
+	static boolean isCheckpointed(
+			EntityDocumentProcessor entityDocumentProcessor) {
+		return CHECKPOINT_INTERVAL_SEC > 0
+				&& entityDocumentProcessor instanceof CheckpointableEntityDocumentProcessor;
+	}
+
+	/**
+	 * Returns the projection of the given processor if it is a
+	 * {@link ProjectingEntityDocumentProcessor}.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor
+	 * @return the projection, or null if all data is needed
+	 */
+	static EntityProjection getEntityProjection(
+			EntityDocumentProcessor entityDocumentProcessor) {
+		if (entityDocumentProcessor instanceof ProjectingEntityDocumentProcessor) {
+			return ((ProjectingEntityDocumentProcessor) entityDocumentProcessor)
+					.getEntityProjection();
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Processes all revision dumps that are needed to get the most recent
+	 * data, like {@link DumpProcessingController#processAllRecentRevisionDumps()}
+	 * does, but reads each dump through
+	 * {@link #getDecompressingDumpFile(MwDumpFile)}. The revision processors
+	 * are created here since they must be shared by all dumps: revisions that
+	 * have been seen in a more recent dump are skipped in older ones.
+	 *
+	 * @param dumpProcessingController
+	 *            the controller used to find the dumps
+	 * @param onlyCurrentRevisions
+	 *            if true, only the most recent revision of each page is
+	 *            processed
+	 * @param entityDocumentProcessors
+	 *            the processors for the entities in the dumps
+	 */
+	static void processRecentRevisionDumps(
+			DumpProcessingController dumpProcessingController,
+			boolean onlyCurrentRevisions,
+			EntityDocumentProcessor... entityDocumentProcessors) {
+		EntityDocumentProcessorBroker entityDocumentProcessorBroker = new EntityDocumentProcessorBroker();
+		for (EntityDocumentProcessor entityDocumentProcessor : entityDocumentProcessors) {
+			entityDocumentProcessorBroker
+					.registerEntityDocumentProcessor(entityDocumentProcessor);
+		}
+		processRevisionDumps(dumpProcessingController.getWmfDumpFileManager()
+				.findAllRelevantRevisionDumps(onlyCurrentRevisions),
+				onlyCurrentRevisions, new WikibaseRevisionProcessor(
+						entityDocumentProcessorBroker, Datamodel.SITE_WIKIDATA));
+	}
+
+	/**
+	 * Processes the given revision dumps, reading each dump through
+	 * {@link #getDecompressingDumpFile(MwDumpFile)}.
+	 *
+	 * @param dumpFiles
+	 *            the dumps to process, most recent first
+	 * @param onlyCurrentRevisions
+	 *            if true, only the most recent revision of each page is
+	 *            processed
+	 * @param mwRevisionProcessor
+	 *            the processor for the revisions in the dumps
+	 */
+	static void processRevisionDumps(List<MwDumpFile> dumpFiles,
+			boolean onlyCurrentRevisions, MwRevisionProcessor mwRevisionProcessor) {
+		MwRevisionProcessorBroker mwRevisionProcessorBroker = new MwRevisionProcessorBroker();
+		mwRevisionProcessorBroker.registerMwRevisionProcessor(
+				mwRevisionProcessor, null, onlyCurrentRevisions);
+		MwRevisionDumpFileProcessor mwRevisionDumpFileProcessor = new MwRevisionDumpFileProcessor(
+				mwRevisionProcessorBroker);
+
+		for (MwDumpFile dumpFile : dumpFiles) {
+			MwDumpFile decompressingDumpFile = getMeteredDumpFile(
+					getDecompressingDumpFile(dumpFile));
+			try (InputStream inputStream = decompressingDumpFile
+					.getDumpFileStream()) {
+				mwRevisionDumpFileProcessor.processDumpFileContents(
+						inputStream, decompressingDumpFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Updates the stored results of the given processor with the daily dumps
+	 * that are newer than the results, using an
+	 * {@link IncrementalAggregateStore}. If there are no stored results yet,
+	 * the most recent JSON dump is processed first; its results are only
+	 * stored if the whole dump was processed. Afterwards, the processor has
+	 * the updated results.
+	 *
+	 * @param processor
+	 *            the processor whose results are updated
+	 */
+	static void processIncrementalDumps(
+			IncrementalEntityDocumentProcessor processor) {
+		DumpProcessingController dumpProcessingController = new DumpProcessingController(
+				"wikidatawiki");
+		dumpProcessingController.setOfflineMode(OFFLINE_MODE);
+
+		IncrementalAggregateStore store = new IncrementalAggregateStore(
+				Paths.get(EXAMPLE_OUTPUT_DIRECTORY, INCREMENTAL_DIRECTORY,
+						processor.getClass().getSimpleName()), processor);
+		try {
+			String dumpDate = store.load();
+			if (dumpDate == null) {
+				MwDumpFile jsonDumpFile = dumpProcessingController
+						.getMostRecentDump(DumpContentType.JSON);
+				if (jsonDumpFile == null) {
+					return;
+				}
+				if (!processJsonDump(store, 1)) {
+					// Do not store the results of an incomplete run:
+					return;
+				}
+				dumpDate = jsonDumpFile.getDateStamp();
+				store.update(dumpDate);
+			}
+
+			List<MwDumpFile> dailyDumpFiles = new ArrayList<>();
+			for (MwDumpFile dumpFile : dumpProcessingController
+					.getWmfDumpFileManager().findAllDumps(DumpContentType.DAILY)) {
+				if (dumpFile.getDateStamp().compareTo(dumpDate) > 0
+						&& dumpFile.isAvailable()) {
+					dailyDumpFiles.add(dumpFile);
+				}
+			}
+			dailyDumpFiles.sort(Comparator.comparing(
+					MwDumpFile::getDateStamp).reversed());
+			if (!dailyDumpFiles.isEmpty()) {
+				processRevisionDumps(dailyDumpFiles, true,
+						store.getRevisionProcessor());
+				dumpDate = dailyDumpFiles.get(0).getDateStamp();
+				store.update(dumpDate);
+			}
+			lastDumpFileName = "wikidatawiki-" + dumpDate;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Processes a JSON dump using its binary version, which is created if it
+	 * does not exist yet. The binary version is stored in the directory
+	 * "binary" next to the downloaded dumps. It is only kept if the whole
+	 * dump could be processed without a timeout or error. A binary version
+	 * that cannot be opened, such as one of an older version of
+	 * {@link BinaryDumpFormat}, is created again.
+	 *
+	 * @param dumpFile
+	 *            the JSON dump
+	 * @param entityDocumentProcessors
+	 *            the processors for the entities in the dump
+	 */
+	static void processBinaryDumpCache(MwDumpFile dumpFile,
+			EntityDocumentProcessor... entityDocumentProcessors) {
+		EntityDocumentProcessorBroker entityDocumentProcessorBroker = new EntityDocumentProcessorBroker();
+		for (EntityDocumentProcessor entityDocumentProcessor : entityDocumentProcessors) {
+			entityDocumentProcessorBroker
+					.registerEntityDocumentProcessor(entityDocumentProcessor);
+		}
+
+		Path binaryFile = Paths.get(System.getProperty("user.dir"))
+				.resolve("dumpfiles").resolve(dumpFile.getProjectName())
+				.resolve("binary")
+				.resolve(dumpFile.getProjectName() + "-"
+						+ dumpFile.getDateStamp() + "-all.bin");
+		if (Files.isRegularFile(binaryFile)) {
+			BinaryDumpFile binaryDumpFile = null;
+			try {
+				binaryDumpFile = new BinaryDumpFile(binaryFile);
+			} catch (IOException e) {
+				// e.g., a file of an older version of the format:
+				System.out.println("Could not open " + binaryFile + " ("
+						+ e.getMessage() + "); it is created again.");
+			}
+			if (binaryDumpFile != null) {
+				try (BinaryDumpFile file = binaryDumpFile) {
+					file.processEntities(entityDocumentProcessorBroker);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+				return;
+			}
+		}
+
+		BinaryDumpWriter binaryDumpWriter = null;
+		try {
+			Files.createDirectories(binaryFile.getParent());
+			binaryDumpWriter = new BinaryDumpWriter(binaryFile);
+			// Register last, so that the writer only gets entities that have
+			// been processed without a timeout:
+			entityDocumentProcessorBroker
+					.registerEntityDocumentProcessor(binaryDumpWriter);
+			MwDumpFile decompressingDumpFile = getDecompressingDumpFile(dumpFile);
+			try (InputStream inputStream = decompressingDumpFile
+					.getDumpFileStream()) {
+				new JsonDumpFileProcessor(entityDocumentProcessorBroker,
+						Datamodel.SITE_WIKIDATA).processDumpFileContents(
+						inputStream, decompressingDumpFile);
+			}
+			binaryDumpWriter.finish();
+		} catch (IOException e) {
+			e.printStackTrace();
+			if (binaryDumpWriter != null) {
+				binaryDumpWriter.abort();
+			}
+		} catch (RuntimeException e) {
+			if (binaryDumpWriter != null) {
+				binaryDumpWriter.abort();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a dump file that uses parallel decompression as configured in
+	 * {@link ExampleHelpers#DECOMPRESSION_THREADS}.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read
+	 * @return the dump file to pass to the dump processor
+	 */
+	public static MwDumpFile getDecompressingDumpFile(MwDumpFile dumpFile) {
+		if (DECOMPRESSION_THREADS > 0) {
+			return new ParallelDecompressionDumpFile(dumpFile,
+					DECOMPRESSION_THREADS);
+		} else {
+			return dumpFile;
+		}
+	}
+
+	/**
+	 * Returns a dump file that counts the bytes read for the
+	 * {@link ProcessorMetrics} if {@link ExampleHelpers#PROCESSOR_METRICS} is
+	 * set.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read
+	 * @return the dump file to pass to the dump processor
+	 */
+	static MwDumpFile getMeteredDumpFile(MwDumpFile dumpFile) {
+		if (PROCESSOR_METRICS) {
+			return new MeteredDumpFile(dumpFile, inputByteCount);
+		} else {
+			return dumpFile;
+		}
+	}
+
+	/**
+	 * Returns the given processor, wrapped so that its calls are measured if
+	 * {@link ExampleHelpers#PROCESSOR_METRICS} is set. The metrics are
+	 * registered with JMX under the given name, and printed at the end of the
+	 * current run.
+	 *
+	 * @param name
+	 *            the name of the processor in the metrics
+	 * @param entityDocumentProcessor
+	 *            the processor to measure
+	 * @return the processor to use in place of the given one
+	 */
+	public static EntityDocumentProcessor instrument(String name,
+			EntityDocumentProcessor entityDocumentProcessor) {
+		ProcessorMetrics metrics = createProcessorMetrics(name);
+		if (metrics == null) {
+			return entityDocumentProcessor;
+		}
+		return InstrumentedEntityDocumentProcessor.create(entityDocumentProcessor,
+				metrics);
+	}
+
+	/**
+	 * Creates and registers metrics for a processor if
+	 * {@link ExampleHelpers#PROCESSOR_METRICS} is set.
+	 *
+	 * @param name
+	 *            the name of the processor
+	 * @return the metrics, or null if processors are not measured
+	 */
+	static ProcessorMetrics createProcessorMetrics(String name) {
+		if (!PROCESSOR_METRICS) {
+			return null;
+		}
+		ProcessorMetrics metrics = new ProcessorMetrics(name, inputByteCount);
+		metrics.register();
+		processorMetrics.add(metrics);
+		return metrics;
+	}
+
+	/**
+	 * Prints the metrics of all processors that have been measured in the
+	 * current run. They remain available through JMX until they are replaced
+	 * by the metrics of another run.
+	 */
+	static void printProcessorMetrics() {
+		if (processorMetrics.isEmpty()) {
+			return;
+		}
+		ProcessorMetrics first = processorMetrics.get(0);
+		System.out.println(String.format(
+				"*** Processor metrics (input: %.1f MB, %.1f MB/sec):",
+				first.getInputBytes() / 1e6,
+				first.getInputBytesPerSecond() / 1e6));
+		for (ProcessorMetrics metrics : processorMetrics) {
+			metrics.printSummary();
+		}
+		processorMetrics.clear();
 	}
 
 	/**
@@ -236,6 +828,18 @@ public class ExampleHelpers {
 		return lastDumpFileName;
 	}
 
+	/**
+	 * Sets the dump file whose name is used for the output directory, for
+	 * programs that process a dump without the methods of this class.
+	 *
+	 * @param dumpFile
+	 *            the dump file that is processed
+	 */
+	static void setLastDumpFile(MwDumpFile dumpFile) {
+		lastDumpFileName = dumpFile.getProjectName() + "-"
+				+ dumpFile.getDateStamp();
+	}
+
 	/**
 	 * Create a directory at the given path if it does not exist yet.
 	 *
@@ -0,0 +1,860 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Mutable view on the data of one entity that is read directly from the JSON
+ * of a dump, for processors that only look at a few values of each entity and
+ * never keep the entity (see {@link StreamingEntityDocumentProcessor}). Each
+ * worker thread of a {@link ParallelJsonDumpProcessor} has one object of this
+ * class, which is refilled for every entity. Once its arrays have grown to the
+ * size of the largest entity, filling the view creates no objects apart from
+ * the JSON parser itself, so the garbage collector has almost nothing to do.
+ * <p>
+ * The view holds the type and id of the entity, its labels in the languages of
+ * the {@link EntityProjection} of the processor, and, for the statements of
+ * the properties of the projection, their rank and the value of their main
+ * snak. Descriptions, aliases, site links, qualifiers, and references are
+ * always skipped. The statements are numbered from 0 to
+ * {@link #getStatementCount()} - 1 in the order of the dump, so the
+ * statements of one property have consecutive numbers.
+ * <p>
+ * Lifetime rules:
+ * <ul>
+ * <li>The view is only valid during the call of
+ * {@link StreamingEntityDocumentProcessor#processEntityView} that it is passed
+ * to. Afterwards, it is refilled with the data of another entity. Processors
+ * must not keep references to the view, and must not pass it to other
+ * threads.</li>
+ * <li>Statement numbers, such as the results of
+ * {@link #findStatement(String)}, are only valid for the current entity.</li>
+ * <li>Objects that are returned by the view, such as the strings of
+ * {@link #getId()} and {@link #getLabel(String)}, can be kept. Most of them
+ * are created on each call, so processors should only ask for them for the
+ * few entities whose data they keep.</li>
+ * </ul>
+ */
+public class FlyweightEntityDocument {
+
+	public static final String TYPE_ITEM = "item";
+	public static final String TYPE_PROPERTY = "property";
+	public static final String TYPE_LEXEME = "lexeme";
+	public static final String TYPE_MEDIA_INFO = "mediainfo";
+
+	static final String[] ENTITY_TYPES = { TYPE_ITEM, TYPE_PROPERTY,
+			TYPE_LEXEME, TYPE_MEDIA_INFO };
+
+	/**
+	 * Powers of ten that can be represented exactly as doubles.
+	 */
+	static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6,
+			1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+			1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Kinds of values of main snaks. The kind is recognized from the fields
+	 * of the JSON value, so all string-based datatypes (such as external ids
+	 * and media files) are {@link #STRING}, and all entity ids are
+	 * {@link #ENTITY_ID}.
+	 */
+	public enum ValueKind {
+		/**
+		 * The snak has no value ("some value" or "no value").
+		 */
+		NONE,
+		STRING,
+		ENTITY_ID,
+		TIME,
+		QUANTITY,
+		GLOBE_COORDINATES,
+		MONOLINGUAL_TEXT,
+		/**
+		 * A value of a kind that the view does not record.
+		 */
+		OTHER
+	}
+
+	String entityType;
+	char[] id = new char[16];
+	int idLength;
+
+	/**
+	 * Characters of all texts of the entity, such as labels and string
+	 * values, one after another.
+	 */
+	char[] text = new char[1024];
+	int textLength;
+
+	int labelCount;
+	String[] labelLanguages = new String[4];
+	int[] labelStarts = new int[4];
+	int[] labelLengths = new int[4];
+
+	int statementCount;
+	String[] propertyIds = new String[16];
+	StatementRank[] ranks = new StatementRank[16];
+	ValueKind[] valueKinds = new ValueKind[16];
+	/**
+	 * Start and length in {@link #text} of the main text of each value: the
+	 * string, the entity id, the time, the amount, or the monolingual text.
+	 */
+	int[] valueStarts = new int[16];
+	int[] valueLengths = new int[16];
+	/**
+	 * Start and length in {@link #text} of the unit of quantities and of the
+	 * language of monolingual texts.
+	 */
+	int[] extraStarts = new int[16];
+	int[] extraLengths = new int[16];
+	/**
+	 * The year of times and the numeric id of entity ids.
+	 */
+	long[] longValues = new long[16];
+	/**
+	 * The precision of times.
+	 */
+	int[] intValues = new int[16];
+	/**
+	 * The amount of quantities and the latitude of coordinates.
+	 */
+	double[] doubleValues = new double[16];
+	/**
+	 * The longitude of coordinates.
+	 */
+	double[] extraDoubleValues = new double[16];
+
+	/**
+	 * Returns the type of the entity.
+	 *
+	 * @return one of the TYPE constants of this class, or null if the JSON
+	 *         has no type
+	 */
+	public String getEntityType() {
+		return this.entityType;
+	}
+
+	/**
+	 * Returns true if the entity is an item.
+	 *
+	 * @return true for items
+	 */
+	public boolean isItem() {
+		return this.entityType == TYPE_ITEM;
+	}
+
+	/**
+	 * Returns the id of the entity, such as "Q42". A new string is created
+	 * on each call.
+	 *
+	 * @return the id
+	 */
+	public String getId() {
+		return new String(this.id, 0, this.idLength);
+	}
+
+	/**
+	 * Returns the number in the id of the entity, such as 42 for "Q42".
+	 *
+	 * @return the number, or 0 if the id has none
+	 */
+	public long getNumericId() {
+		return parseNumericId(this.id, 0, this.idLength);
+	}
+
+	/**
+	 * Returns the label of the entity in the given language. Only the labels
+	 * in the languages of the projection of the processor are available. A
+	 * new string is created on each call.
+	 *
+	 * @param languageCode
+	 *            the language code, such as "en"
+	 * @return the label, or null if there is none
+	 */
+	public String getLabel(String languageCode) {
+		for (int i = 0; i < this.labelCount; i++) {
+			if (this.labelLanguages[i].equals(languageCode)) {
+				return new String(this.text, this.labelStarts[i],
+						this.labelLengths[i]);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of statements of the entity that are in the view.
+	 *
+	 * @return the number of statements
+	 */
+	public int getStatementCount() {
+		return this.statementCount;
+	}
+
+	/**
+	 * Returns the number of the only statement for the given property, like
+	 * {@link StatementDocument#findStatement(String)} does.
+	 *
+	 * @param propertyId
+	 *            the id of the property, such as "P31"
+	 * @return the number of the statement, or -1 if the entity has no
+	 *         statement or several statements for this property
+	 */
+	public int findStatement(String propertyId) {
+		int result = -1;
+		for (int i = 0; i < this.statementCount; i++) {
+			if (this.propertyIds[i].equals(propertyId)) {
+				if (result != -1) {
+					return -1;
+				}
+				result = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the id of the property of the given statement. The strings are
+	 * shared by all entities.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the property id
+	 */
+	public String getPropertyId(int statement) {
+		return this.propertyIds[statement];
+	}
+
+	/**
+	 * Returns the rank of the given statement.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the rank
+	 */
+	public StatementRank getRank(int statement) {
+		return this.ranks[statement];
+	}
+
+	/**
+	 * Returns the kind of the value of the main snak of the given statement.
+	 * The methods for the data of the value may only be used for values of
+	 * the matching kind.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the kind of value
+	 */
+	public ValueKind getValueKind(int statement) {
+		return this.valueKinds[statement];
+	}
+
+	/**
+	 * Returns the year of a time value.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the year, negative for years BCE
+	 */
+	public long getTimeYear(int statement) {
+		return this.longValues[statement];
+	}
+
+	/**
+	 * Returns the precision of a time value, as in
+	 * {@link org.wikidata.wdtk.datamodel.interfaces.TimeValue#getPrecision()}.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the precision
+	 */
+	public int getTimePrecision(int statement) {
+		return this.intValues[statement];
+	}
+
+	/**
+	 * Returns the amount of a quantity value as a double, which may be
+	 * rounded.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the amount
+	 */
+	public double getQuantityAmount(int statement) {
+		return this.doubleValues[statement];
+	}
+
+	/**
+	 * Returns the exact amount of a quantity value. A new object is created
+	 * on each call.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the amount
+	 */
+	public BigDecimal getQuantityAmountDecimal(int statement) {
+		return new BigDecimal(this.text, this.valueStarts[statement],
+				this.valueLengths[statement]);
+	}
+
+	/**
+	 * Returns the unit of a quantity value, such as "1" for quantities
+	 * without unit or the IRI of the item of the unit. A new string is
+	 * created on each call.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the unit
+	 */
+	public String getQuantityUnit(int statement) {
+		return new String(this.text, this.extraStarts[statement],
+				this.extraLengths[statement]);
+	}
+
+	/**
+	 * Returns true if the unit of a quantity value (see
+	 * {@link #getQuantityUnit(int)}) is equal to the given string. No objects
+	 * are created.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @param unit
+	 *            the unit to compare with
+	 * @return true if the units are equal
+	 */
+	public boolean quantityUnitEquals(int statement, String unit) {
+		return textEquals(this.extraStarts[statement],
+				this.extraLengths[statement], unit);
+	}
+
+	/**
+	 * Returns the number in the id of an entity id value, such as 5 for
+	 * "Q5".
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the number
+	 */
+	public long getEntityIdNumeric(int statement) {
+		return this.longValues[statement];
+	}
+
+	/**
+	 * Returns the latitude of a globe coordinates value.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the latitude
+	 */
+	public double getLatitude(int statement) {
+		return this.doubleValues[statement];
+	}
+
+	/**
+	 * Returns the longitude of a globe coordinates value.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the longitude
+	 */
+	public double getLongitude(int statement) {
+		return this.extraDoubleValues[statement];
+	}
+
+	/**
+	 * Returns the text of a value: the string of string values, the id of
+	 * entity id values (if the JSON contains it), the time of time values in
+	 * the format of the JSON, the amount of quantity values, and the text of
+	 * monolingual text values. A new string is created on each call.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @return the text, or an empty string for other values
+	 */
+	public String getValueText(int statement) {
+		return new String(this.text, this.valueStarts[statement],
+				this.valueLengths[statement]);
+	}
+
+	/**
+	 * Returns true if the text of the value of the given statement (see
+	 * {@link #getValueText(int)}) is equal to the given string. No objects
+	 * are created.
+	 *
+	 * @param statement
+	 *            the number of the statement
+	 * @param string
+	 *            the string to compare with
+	 * @return true if the texts are equal
+	 */
+	public boolean valueTextEquals(int statement, String string) {
+		return textEquals(this.valueStarts[statement],
+				this.valueLengths[statement], string);
+	}
+
+	/**
+	 * Returns true if the given part of the text buffer is equal to the
+	 * given string.
+	 */
+	boolean textEquals(int start, int length, String string) {
+		if (string.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.text[start + i] != string.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fills the view with the data of the entity that the given parser
+	 * reads.
+	 *
+	 * @param parser
+	 *            the parser for the JSON of one entity
+	 * @param projection
+	 *            the statements and labels that should be recorded, or null
+	 *            to record all of them
+	 * @throws IOException
+	 *             if the JSON could not be parsed
+	 */
+	void fill(JsonParser parser, EntityProjection projection)
+			throws IOException {
+		this.entityType = null;
+		this.idLength = 0;
+		this.textLength = 0;
+		this.labelCount = 0;
+		this.statementCount = 0;
+
+		Set<String> properties = projection == null ? null
+				: projection.properties;
+		Set<String> languages = projection == null ? null
+				: projection.languages;
+
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new JsonParseException(parser, "Entity is not a JSON object");
+		}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+			switch (name) {
+			case "type":
+				this.entityType = getEntityType(parser);
+				break;
+			case "id":
+				this.idLength = parser.getTextLength();
+				if (this.idLength > this.id.length) {
+					this.id = new char[Math.max(2 * this.id.length,
+							this.idLength)];
+				}
+				System.arraycopy(parser.getTextCharacters(),
+						parser.getTextOffset(), this.id, 0, this.idLength);
+				break;
+			case "labels":
+				if (token == JsonToken.START_OBJECT) {
+					readLabels(parser, languages);
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			case "claims":
+			case "statements": // used for MediaInfo
+				if (token == JsonToken.START_OBJECT) {
+					readStatements(parser, properties);
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Returns the constant for the entity type that the parser is at.
+	 */
+	static String getEntityType(JsonParser parser) throws IOException {
+		for (String entityType : ENTITY_TYPES) {
+			if (textEquals(parser, entityType)) {
+				return entityType;
+			}
+		}
+		return parser.getText();
+	}
+
+	/**
+	 * Reads the map from language codes to labels.
+	 */
+	void readLabels(JsonParser parser, Set<String> languages)
+			throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String language = parser.currentName();
+			if (parser.nextToken() != JsonToken.START_OBJECT
+					|| (languages != null && !languages.contains(language))) {
+				parser.skipChildren();
+				continue;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				boolean isValue = "value".equals(parser.currentName());
+				parser.nextToken();
+				if (isValue) {
+					if (this.labelCount == this.labelLanguages.length) {
+						int capacity = 2 * this.labelCount;
+						this.labelLanguages = Arrays.copyOf(
+								this.labelLanguages, capacity);
+						this.labelStarts = Arrays.copyOf(this.labelStarts,
+								capacity);
+						this.labelLengths = Arrays.copyOf(this.labelLengths,
+								capacity);
+					}
+					this.labelLanguages[this.labelCount] = language;
+					this.labelLengths[this.labelCount] = parser
+							.getTextLength();
+					this.labelStarts[this.labelCount] = appendText(parser);
+					this.labelCount++;
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the map from property ids to lists of statements.
+	 */
+	void readStatements(JsonParser parser, Set<String> properties)
+			throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			// field names are canonicalized by the parser, so this string is
+			// shared by all entities:
+			String propertyId = parser.currentName();
+			if (parser.nextToken() != JsonToken.START_ARRAY
+					|| (properties != null && !properties.contains(propertyId))) {
+				parser.skipChildren();
+				continue;
+			}
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				if (token == JsonToken.START_OBJECT) {
+					readStatement(parser, addStatement(propertyId));
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the rank and the main snak of one statement.
+	 */
+	void readStatement(JsonParser parser, int statement) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+			if ("mainsnak".equals(name) && token == JsonToken.START_OBJECT) {
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					boolean isDataValue = "datavalue".equals(parser
+							.currentName());
+					if (parser.nextToken() == JsonToken.START_OBJECT
+							&& isDataValue) {
+						readDataValue(parser, statement);
+					} else {
+						parser.skipChildren();
+					}
+				}
+			} else if ("rank".equals(name)) {
+				if (textEquals(parser, "preferred")) {
+					this.ranks[statement] = StatementRank.PREFERRED;
+				} else if (textEquals(parser, "deprecated")) {
+					this.ranks[statement] = StatementRank.DEPRECATED;
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Reads the data value of a main snak. The kind of the value is
+	 * recognized from its fields, since its type is given after the value in
+	 * the dumps.
+	 */
+	void readDataValue(JsonParser parser, int statement) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			boolean isValue = "value".equals(parser.currentName());
+			JsonToken token = parser.nextToken();
+			if (isValue && token == JsonToken.VALUE_STRING) {
+				this.valueKinds[statement] = ValueKind.STRING;
+				setValueText(parser, statement);
+			} else if (isValue && token == JsonToken.START_OBJECT) {
+				this.valueKinds[statement] = ValueKind.OTHER;
+				readValueObject(parser, statement);
+			} else {
+				parser.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Reads the fields of a value that is a JSON object.
+	 */
+	void readValueObject(JsonParser parser, int statement) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.currentName();
+			JsonToken token = parser.nextToken();
+			switch (name) {
+			case "time":
+				this.valueKinds[statement] = ValueKind.TIME;
+				setValueText(parser, statement);
+				this.longValues[statement] = parseYear(this.text,
+						this.valueStarts[statement],
+						this.valueLengths[statement]);
+				break;
+			case "precision":
+				// globe coordinates have a precision in degrees instead:
+				if (token == JsonToken.VALUE_NUMBER_INT) {
+					this.intValues[statement] = parser.getIntValue();
+				}
+				break;
+			case "amount":
+				this.valueKinds[statement] = ValueKind.QUANTITY;
+				setValueText(parser, statement);
+				this.doubleValues[statement] = parseDecimal(this.text,
+						this.valueStarts[statement],
+						this.valueLengths[statement]);
+				break;
+			case "unit":
+			case "language":
+				this.extraLengths[statement] = parser.getTextLength();
+				this.extraStarts[statement] = appendText(parser);
+				break;
+			case "numeric-id":
+				this.valueKinds[statement] = ValueKind.ENTITY_ID;
+				this.longValues[statement] = parser.getLongValue();
+				break;
+			case "id":
+				this.valueKinds[statement] = ValueKind.ENTITY_ID;
+				setValueText(parser, statement);
+				this.longValues[statement] = parseNumericId(this.text,
+						this.valueStarts[statement],
+						this.valueLengths[statement]);
+				break;
+			case "latitude":
+				this.valueKinds[statement] = ValueKind.GLOBE_COORDINATES;
+				this.doubleValues[statement] = parseDecimal(
+						parser.getTextCharacters(), parser.getTextOffset(),
+						parser.getTextLength());
+				break;
+			case "longitude":
+				this.extraDoubleValues[statement] = parseDecimal(
+						parser.getTextCharacters(), parser.getTextOffset(),
+						parser.getTextLength());
+				break;
+			case "text":
+				this.valueKinds[statement] = ValueKind.MONOLINGUAL_TEXT;
+				setValueText(parser, statement);
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * Adds a statement without value for the given property.
+	 *
+	 * @return the number of the new statement
+	 */
+	int addStatement(String propertyId) {
+		if (this.statementCount == this.propertyIds.length) {
+			int capacity = 2 * this.statementCount;
+			this.propertyIds = Arrays.copyOf(this.propertyIds, capacity);
+			this.ranks = Arrays.copyOf(this.ranks, capacity);
+			this.valueKinds = Arrays.copyOf(this.valueKinds, capacity);
+			this.valueStarts = Arrays.copyOf(this.valueStarts, capacity);
+			this.valueLengths = Arrays.copyOf(this.valueLengths, capacity);
+			this.extraStarts = Arrays.copyOf(this.extraStarts, capacity);
+			this.extraLengths = Arrays.copyOf(this.extraLengths, capacity);
+			this.longValues = Arrays.copyOf(this.longValues, capacity);
+			this.intValues = Arrays.copyOf(this.intValues, capacity);
+			this.doubleValues = Arrays.copyOf(this.doubleValues, capacity);
+			this.extraDoubleValues = Arrays.copyOf(this.extraDoubleValues,
+					capacity);
+		}
+		int statement = this.statementCount++;
+		this.propertyIds[statement] = propertyId;
+		this.ranks[statement] = StatementRank.NORMAL;
+		this.valueKinds[statement] = ValueKind.NONE;
+		this.valueStarts[statement] = 0;
+		this.valueLengths[statement] = 0;
+		this.extraStarts[statement] = 0;
+		this.extraLengths[statement] = 0;
+		this.longValues[statement] = 0;
+		this.intValues[statement] = 0;
+		this.doubleValues[statement] = 0;
+		this.extraDoubleValues[statement] = 0;
+		return statement;
+	}
+
+	/**
+	 * Stores the current text of the parser as the main text of the value
+	 * of the given statement.
+	 */
+	void setValueText(JsonParser parser, int statement) throws IOException {
+		this.valueLengths[statement] = parser.getTextLength();
+		this.valueStarts[statement] = appendText(parser);
+	}
+
+	/**
+	 * Appends the current text of the parser to {@link #text}.
+	 *
+	 * @return the start of the text
+	 */
+	int appendText(JsonParser parser) throws IOException {
+		int length = parser.getTextLength();
+		if (this.textLength + length > this.text.length) {
+			this.text = Arrays.copyOf(this.text, Math.max(2 * this.text.length,
+					this.textLength + length));
+		}
+		int start = this.textLength;
+		System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(),
+				this.text, start, length);
+		this.textLength += length;
+		return start;
+	}
+
+	/**
+	 * Returns true if the current text of the parser is equal to the given
+	 * string, without creating a string for it.
+	 */
+	static boolean textEquals(JsonParser parser, String string)
+			throws IOException {
+		int length = parser.getTextLength();
+		if (length != string.length()) {
+			return false;
+		}
+		char[] chars = parser.getTextCharacters();
+		int offset = parser.getTextOffset();
+		for (int i = 0; i < length; i++) {
+			if (chars[offset + i] != string.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the year of a time in the format of the JSON, such as
+	 * "+1952-03-11T00:00:00Z".
+	 */
+	static long parseYear(char[] chars, int start, int length) {
+		int end = start + length;
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		long year = 0;
+		for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			year = 10 * year + (chars[i] - '0');
+		}
+		return negative ? -year : year;
+	}
+
+	/**
+	 * Returns the number in an entity id, such as 42 for "Q42" or 1 for
+	 * "L1-F2".
+	 */
+	static long parseNumericId(char[] chars, int start, int length) {
+		int end = start + length;
+		long result = 0;
+		for (int i = start + 1; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+			result = 10 * result + (chars[i] - '0');
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a decimal number, such as "+1234.5". Numbers with at most 15
+	 * significant digits and 22 decimal places, which includes almost all
+	 * numbers in Wikidata, are converted without creating objects; the result
+	 * is the correctly rounded double, as computed by
+	 * {@link Double#parseDouble(String)}, which is used for all other
+	 * numbers.
+	 *
+	 * @return the number, or NaN if it is not a valid decimal number
+	 */
+	static double parseDecimal(char[] chars, int start, int length) {
+		int end = start + length;
+		int i = start;
+		boolean negative = false;
+		if (i < end && (chars[i] == '+' || chars[i] == '-')) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digitCount = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean simple = i < end;
+		for (; i < end && simple; i++) {
+			char c = chars[i];
+			if (c >= '0' && c <= '9') {
+				mantissa = 10 * mantissa + (c - '0');
+				if (mantissa != 0) {
+					digitCount++;
+				}
+				if (point) {
+					scale++;
+				}
+				simple = digitCount <= 15 && scale < POWERS_OF_TEN.length;
+			} else if (c == '.' && !point) {
+				point = true;
+			} else {
+				simple = false;
+			}
+		}
+		if (simple) {
+			// both numbers are exact, so the quotient is correctly rounded:
+			double result = mantissa / POWERS_OF_TEN[scale];
+			return negative ? -result : result;
+		}
+		try {
+			return Double.parseDouble(new String(chars, start, length));
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+}
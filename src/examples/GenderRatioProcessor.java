@@ -20,21 +20,24 @@ package examples;
  * #L%
  */
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map.Entry;
 
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.implementation.EntityIdValueImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
-import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
-import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.Value;
@@ -64,15 +67,47 @@ import org.wikidata.wdtk.datamodel.interfaces.Value;
  * The program could also be used to compare the amount of other articles by
  * language. For this, the value of {@link GenderRatioProcessor#filterClass} can
  * be changed.
+ * <p>
+ * When processing in parallel, the labels of gender items are only found if
+ * the same thread has seen the gender being used before, so a few more genders
+ * may end up being shown by their id only.
+ * <p>
+ * The processor only uses a small part of each item (see
+ * {@link #PROJECTION}), so the rest is not parsed when reading a JSON dump.
+ * <p>
+ * The counts can be updated with the daily dumps (see
+ * {@link IncrementalEntityDocumentProcessor}). The contribution of an item
+ * records whether it is a human, its genders, and its sites. Genders that are
+ * no longer used keep their column, and labels are only updated when the
+ * gender item itself changes.
  *
  * @author Markus Kroetzsch
  *
  */
-public class GenderRatioProcessor implements EntityDocumentProcessor {
+public class GenderRatioProcessor implements
+		MergeableEntityDocumentProcessor<GenderRatioProcessor>,
+		ProjectingEntityDocumentProcessor, IncrementalEntityDocumentProcessor {
 	int itemCount = 0;
 	int genderItemCount = 0;
 	boolean printedStatus = true;
 
+	/**
+	 * If false, no intermediate status reports are printed. Used for copies
+	 * that only see part of the data when processing in parallel.
+	 */
+	boolean reportProgress = true;
+
+	/**
+	 * Facts about the current item, which may be shared with other processors.
+	 */
+	EntityFacts entityFacts = new EntityFacts();
+
+	/**
+	 * Factory used to intern the genders and site keys that are kept, which
+	 * is shared by all copies of the processor.
+	 */
+	InterningDataObjectFactory dataObjectFactory = new InterningDataObjectFactory();
+
 	/**
 	 * Class to store basic information for each site in a simple format.
 	 *
@@ -89,6 +124,23 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 		public SiteRecord(String siteKey) {
 			this.siteKey = siteKey;
 		}
+
+		/**
+		 * Adds all counts of the given record to this record.
+		 *
+		 * @param other
+		 *            the record of the same site to add
+		 */
+		public void merge(SiteRecord other) {
+			this.pageCount += other.pageCount;
+			this.humanGenderPageCount += other.humanGenderPageCount;
+			this.humanPageCount += other.humanPageCount;
+			for (Entry<EntityIdValue, Integer> entry : other.genderCounts
+					.entrySet()) {
+				this.genderCounts.merge(entry.getKey(), entry.getValue(),
+						Integer::sum);
+			}
+		}
 	}
 
 	/**
@@ -119,6 +171,14 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 	static final ItemIdValue filterClass = Datamodel
 			.makeWikidataItemIdValue("Q5");
 
+	/**
+	 * The data of each item that this processor uses: the statements for
+	 * "instance of" (P31) and "sex or gender" (P21), the English label, and
+	 * the site links.
+	 */
+	static final EntityProjection PROJECTION = EntityProjection.EMPTY
+			.withProperties("P31", "P21").withLanguages("en").withSiteLinks();
+
 	/**
 	 * Main method. Processes the whole dump using this processor and writes the
 	 * results to a file. To change which dump file to use and whether to run in
@@ -176,26 +236,48 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
-		this.itemCount++;
+		countItem(isHuman(itemDocument), getGenderValues(itemDocument),
+				itemDocument.getSiteLinks().keySet(), 1);
 
-		List<EntityIdValue> genderValues = Collections.emptyList();
-		boolean isHumanWithGender = false;
-		boolean isHuman = false;
-
-		for (StatementGroup statementGroup : itemDocument.getStatementGroups()) {
-			switch (statementGroup.getProperty().getId()) {
-			case "P21": // P21 is "sex or gender"
-				genderValues = getItemIdValueList(statementGroup);
-				break;
-			case "P31": // P31 is "instance of"
-				isHuman = containsValue(statementGroup, filterClass);
-				break;
+		// Also collect labels of items used as genders.
+		// Only works if the gender is used before the item is processed, but
+		// better than nothing.
+		if (this.genderNames.containsKey(itemDocument.getEntityId())) {
+			String label = this.entityFacts.getEnglishLabel(itemDocument);
+			if (label != null) {
+				this.genderNames.put(itemDocument.getEntityId(), label);
 			}
 		}
 
+		// Print status once in a while
+		if (this.reportProgress && !this.printedStatus
+				&& this.genderItemCount % 100000 == 0) {
+			printStatus();
+			this.printedStatus = true;
+		}
+
+	}
+
+	/**
+	 * Adds or subtracts the counts for one item.
+	 *
+	 * @param isHuman
+	 *            true if the item is in the {@link #filterClass}
+	 * @param genderValues
+	 *            the values of the item for "sex or gender"
+	 * @param siteKeys
+	 *            the keys of the sites that the item links to
+	 * @param sign
+	 *            1 to count the item, or -1 to subtract it
+	 */
+	void countItem(boolean isHuman, List<EntityIdValue> genderValues,
+			Collection<String> siteKeys, int sign) {
+		this.itemCount += sign;
+
+		boolean isHumanWithGender = false;
 		if (isHuman && genderValues.size() > 0) {
 			isHumanWithGender = true;
-			this.genderItemCount++;
+			this.genderItemCount += sign;
 			this.printedStatus = false;
 
 			for (EntityIdValue gender : genderValues) {
@@ -206,37 +288,200 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 		}
 
 		// Record site data
-		for (SiteLink siteLink : itemDocument.getSiteLinks().values()) {
-			SiteRecord siteRecord = getSiteRecord(siteLink.getSiteKey());
-			siteRecord.pageCount++;
+		for (String siteKey : siteKeys) {
+			SiteRecord siteRecord = getSiteRecord(siteKey);
+			siteRecord.pageCount += sign;
 			if (isHumanWithGender) {
-				siteRecord.humanGenderPageCount++;
+				siteRecord.humanGenderPageCount += sign;
 			}
 			if (isHuman) {
-				siteRecord.humanPageCount++;
+				siteRecord.humanPageCount += sign;
 			}
 			for (EntityIdValue gender : genderValues) {
-				countGender(gender, siteRecord);
+				countGender(gender, siteRecord, sign);
+			}
+			if (siteRecord.pageCount == 0) {
+				this.siteRecords.remove(siteKey);
 			}
 		}
+	}
 
-		// Also collect labels of items used as genders.
-		// Only works if the gender is used before the item is processed, but
-		// better than nothing.
+	/**
+	 * Returns true if the given item is in the {@link #filterClass}.
+	 */
+	boolean isHuman(ItemDocument itemDocument) {
+		if (EntityFacts.HUMAN.equals(filterClass)) {
+			return this.entityFacts.isHuman(itemDocument);
+		} else { // P31 is "instance of"
+			return itemDocument.hasStatementValue("P31", filterClass);
+		}
+	}
+
+	/**
+	 * Returns the values of the given item for "sex or gender" (P21).
+	 */
+	List<EntityIdValue> getGenderValues(ItemDocument itemDocument) {
+		List<EntityIdValue> genderValues = Collections.emptyList();
+		for (StatementGroup statementGroup : itemDocument.getStatementGroups()) {
+			if ("P21".equals(statementGroup.getProperty().getId())) {
+				// P21 is "sex or gender"
+				genderValues = getItemIdValueList(statementGroup);
+			}
+		}
+		return genderValues;
+	}
+
+	@Override
+	public EntityProjection getEntityProjection() {
+		return PROJECTION;
+	}
+
+	@Override
+	public void writeContribution(EntityDocument document,
+			DataOutputStream out) throws IOException {
+		if (!(document instanceof ItemDocument)) {
+			return;
+		}
+		ItemDocument itemDocument = (ItemDocument) document;
+		out.writeBoolean(isHuman(itemDocument));
+		List<EntityIdValue> genderValues = getGenderValues(itemDocument);
+		IncrementalAggregateStore.writeVarInt(out, genderValues.size());
+		for (EntityIdValue gender : genderValues) {
+			out.writeUTF(gender.getId());
+		}
+		IncrementalAggregateStore.writeVarInt(out, itemDocument.getSiteLinks()
+				.size());
+		for (String siteKey : itemDocument.getSiteLinks().keySet()) {
+			out.writeUTF(siteKey);
+		}
+
+		// Labels of genders are not counted, but are taken over when the
+		// contribution is added:
+		String label = null;
 		if (this.genderNames.containsKey(itemDocument.getEntityId())) {
-			MonolingualTextValue label = itemDocument.getLabels().get("en");
-			if (label != null) {
-				this.genderNames.put(itemDocument.getEntityId(),
-						label.getText());
+			label = this.entityFacts.getEnglishLabel(itemDocument);
+		}
+		out.writeBoolean(label != null);
+		if (label != null) {
+			out.writeUTF(itemDocument.getEntityId().getId());
+			out.writeUTF(label);
+		}
+	}
+
+	@Override
+	public void addContribution(DataInputStream in, int sign)
+			throws IOException {
+		boolean isHuman = in.readBoolean();
+		int size = IncrementalAggregateStore.readVarInt(in);
+		List<EntityIdValue> genderValues = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			genderValues.add(EntityIdValueImpl.fromId(in.readUTF(),
+					Datamodel.SITE_WIKIDATA));
+		}
+		size = IncrementalAggregateStore.readVarInt(in);
+		List<String> siteKeys = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			siteKeys.add(in.readUTF());
+		}
+		countItem(isHuman, genderValues, siteKeys, sign);
+		if (in.readBoolean()) {
+			EntityIdValue gender = EntityIdValueImpl.fromId(in.readUTF(),
+					Datamodel.SITE_WIKIDATA);
+			String label = in.readUTF();
+			if (sign > 0 && this.genderNames.containsKey(gender)) {
+				this.genderNames.put(gender, label);
 			}
 		}
+	}
 
-		// Print status once in a while
-		if (!this.printedStatus && this.genderItemCount % 100000 == 0) {
-			printStatus();
-			this.printedStatus = true;
+	/**
+	 * Sets the object that provides facts about the current item. This can be
+	 * used to share facts with other processors that see the same items.
+	 *
+	 * @param entityFacts
+	 *            the facts to use
+	 */
+	public void setEntityFacts(EntityFacts entityFacts) {
+		this.entityFacts = entityFacts;
+	}
+
+	@Override
+	public GenderRatioProcessor createWorkerCopy() {
+		GenderRatioProcessor copy = new GenderRatioProcessor();
+		copy.reportProgress = false;
+		copy.dataObjectFactory = this.dataObjectFactory;
+		return copy;
+	}
+
+	@Override
+	public void merge(GenderRatioProcessor other) {
+		this.itemCount += other.itemCount;
+		this.genderItemCount += other.genderItemCount;
+
+		// Take over genders and labels that the other processor has found:
+		for (EntityIdValue gender : other.genderNamesList) {
+			String otherName = other.genderNames.get(gender);
+			if (!this.genderNames.containsKey(gender)) {
+				addNewGenderName(gender, otherName);
+			} else if (gender.getId().equals(this.genderNames.get(gender))) {
+				this.genderNames.put(gender, otherName);
+			}
 		}
 
+		for (SiteRecord otherSiteRecord : other.siteRecords.values()) {
+			getSiteRecord(otherSiteRecord.siteKey).merge(otherSiteRecord);
+		}
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeInt(this.itemCount);
+		out.writeInt(this.genderItemCount);
+		out.writeInt(this.genderNamesList.size());
+		for (EntityIdValue gender : this.genderNamesList) {
+			out.writeUTF(gender.getId());
+			out.writeUTF(this.genderNames.get(gender));
+		}
+		out.writeInt(this.siteRecords.size());
+		for (SiteRecord siteRecord : this.siteRecords.values()) {
+			out.writeUTF(siteRecord.siteKey);
+			out.writeInt(siteRecord.pageCount);
+			out.writeInt(siteRecord.humanGenderPageCount);
+			out.writeInt(siteRecord.humanPageCount);
+			out.writeInt(siteRecord.genderCounts.size());
+			for (Entry<EntityIdValue, Integer> entry : siteRecord.genderCounts
+					.entrySet()) {
+				out.writeUTF(entry.getKey().getId());
+				out.writeInt(entry.getValue());
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		this.itemCount = in.readInt();
+		this.genderItemCount = in.readInt();
+		this.genderNames.clear();
+		this.genderNamesList.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			EntityIdValue gender = EntityIdValueImpl.fromId(in.readUTF(),
+					Datamodel.SITE_WIKIDATA);
+			addNewGenderName(gender, in.readUTF());
+		}
+		this.siteRecords.clear();
+		size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			SiteRecord siteRecord = getSiteRecord(in.readUTF());
+			siteRecord.pageCount = in.readInt();
+			siteRecord.humanGenderPageCount = in.readInt();
+			siteRecord.humanPageCount = in.readInt();
+			int genderCount = in.readInt();
+			for (int j = 0; j < genderCount; j++) {
+				siteRecord.genderCounts.put(EntityIdValueImpl.fromId(
+						in.readUTF(), Datamodel.SITE_WIKIDATA), in.readInt());
+			}
+		}
 	}
 
 	/**
@@ -380,26 +625,6 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 		return result;
 	}
 
-	/**
-	 * Checks if the given group of statements contains the given value as the
-	 * value of a main snak of some statement.
-	 *
-	 * @param statementGroup
-	 *            the statement group to scan
-	 * @param value
-	 *            the value to scan for
-	 * @return true if value was found
-	 */
-	private boolean containsValue(StatementGroup statementGroup, Value value) {
-		for (Statement s : statementGroup) {
-			if (value.equals(s.getValue())) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	/**
 	 * Adds a new gender item and an initial name.
 	 *
@@ -409,6 +634,7 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 	 *            the label to use for representing the gender
 	 */
 	private void addNewGenderName(EntityIdValue entityIdValue, String name) {
+		entityIdValue = this.dataObjectFactory.intern(entityIdValue);
 		this.genderNames.put(entityIdValue, name);
 		this.genderNamesList.add(entityIdValue);
 	}
@@ -424,6 +650,7 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 	private SiteRecord getSiteRecord(String siteKey) {
 		SiteRecord siteRecord = this.siteRecords.get(siteKey);
 		if (siteRecord == null) {
+			siteKey = this.dataObjectFactory.internString(siteKey);
 			siteRecord = new SiteRecord(siteKey);
 			this.siteRecords.put(siteKey, siteRecord);
 		}
@@ -433,15 +660,24 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 	/**
 	 * Counts a single page of the specified gender. If this is the first page
 	 * of that gender on this site, a suitable key is added to the list of the
-	 * site's genders.
+	 * site's genders. If the last page of the gender is subtracted, the key is
+	 * removed again.
 	 *
 	 * @param gender
 	 *            the gender to count
 	 * @param siteRecord
 	 *            the site record to count it for
+	 * @param sign
+	 *            1 to count the page, or -1 to subtract it
 	 */
-	private void countGender(EntityIdValue gender, SiteRecord siteRecord) {
-		siteRecord.genderCounts.merge(gender, 1, Integer::sum);
+	private void countGender(EntityIdValue gender, SiteRecord siteRecord,
+			int sign) {
+		if (!siteRecord.genderCounts.containsKey(gender)) {
+			gender = this.dataObjectFactory.intern(gender);
+		}
+		if (siteRecord.genderCounts.merge(gender, sign, Integer::sum) == 0) {
+			siteRecord.genderCounts.remove(gender);
+		}
 	}
 
 }
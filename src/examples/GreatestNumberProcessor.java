@@ -21,35 +21,191 @@ package examples;
  */
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
-import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
 import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
 
 /**
- * This simple {@link EntityDocumentProcessor} finds the greatest number
- * assigned to a certain property. The property can be modified by changing the
- * value for {@link GreatestNumberProcessor#numberPropertyId}.
+ * This simple {@link EntityDocumentProcessor} finds the items with the
+ * greatest and the smallest numbers for several properties in one pass. The
+ * properties and the number of items that are found for each of them can be
+ * given to the constructor; by default, the ten greatest and smallest values
+ * of the properties in {@link #DEFAULT_PROPERTY_IDS} are found. Units of
+ * quantities are ignored, so the properties should have numbers without a
+ * unit.
+ * <p>
+ * The best items so far are kept in two bounded heaps for each property,
+ * whose roots are the thresholds that a new value must beat. Each value is
+ * first compared to the thresholds as a double, which is cheap, and only
+ * values that could enter a heap are compared exactly as BigDecimal. The id
+ * and English label of an item are only stored when it enters a heap.
+ * <p>
+ * When reading a JSON dump, the processor looks at the values through a
+ * {@link FlyweightEntityDocument}, where the amounts are already parsed into
+ * doubles, so no objects are created for values that do not enter a heap.
  *
  * @author Markus Kroetzsch
  *
  */
-public class GreatestNumberProcessor implements EntityDocumentProcessor {
-
-	static final String numberPropertyId = "P1113"; // "series length"
-	// P1090 is "redshift"
-	// P1351 is "number of points/goals scored"
-	// P1350 is "number of matches played"
-	// P1128 is "employees", P1101 is "floors above ground"
-	// P1174 is "visitors per year", P1183 is "seat capacity"
-
-	ItemIdValue largestNumberItem;
-	String largestNumberItemLabel;
-	BigDecimal largestNumberValue;
-	int itemsWithPropertyCount = 0;
+public class GreatestNumberProcessor implements
+		StreamingEntityDocumentProcessor {
+
+	/**
+	 * The properties that are used by default.
+	 */
+	static final String[] DEFAULT_PROPERTY_IDS = { "P1113", // "series length"
+			"P1090", // "redshift"
+			"P1351", // "number of points/goals scored"
+			"P1350", // "number of matches played"
+			"P1128", // "employees"
+			"P1101", // "floors above ground"
+			"P1174", // "visitors per year"
+			"P1183" // "seat capacity"
+	};
+
+	/**
+	 * The number of greatest and smallest values that are found by default.
+	 */
+	static final int DEFAULT_COUNT = 10;
+
+	/**
+	 * An item that has one of the greatest or smallest values of a property.
+	 */
+	static class Candidate {
+		final BigDecimal value;
+		final String itemId;
+		final String label;
+
+		Candidate(BigDecimal value, String itemId, String label) {
+			this.value = value;
+			this.itemId = itemId;
+			this.label = label;
+		}
+	}
+
+	static final Comparator<Candidate> ASCENDING = (candidate1, candidate2) -> candidate1.value
+			.compareTo(candidate2.value);
+
+	/**
+	 * The items with the greatest and the smallest values of one property.
+	 */
+	static class Extremes {
+		final String propertyId;
+		final int count;
+		/**
+		 * Heap of the greatest values, with the smallest of them at the root.
+		 */
+		final PriorityQueue<Candidate> greatest = new PriorityQueue<>(
+				ASCENDING);
+		/**
+		 * Heap of the smallest values, with the greatest of them at the root.
+		 */
+		final PriorityQueue<Candidate> smallest = new PriorityQueue<>(
+				ASCENDING.reversed());
+		/**
+		 * A double that is at most the root of {@link #greatest}, or
+		 * negative infinity while the heap is not full.
+		 */
+		double greatestThreshold = Double.NEGATIVE_INFINITY;
+		/**
+		 * A double that is at least the root of {@link #smallest}, or
+		 * positive infinity while the heap is not full.
+		 */
+		double smallestThreshold = Double.POSITIVE_INFINITY;
+		int itemsWithPropertyCount = 0;
+
+		Extremes(String propertyId, int count) {
+			this.propertyId = propertyId;
+			this.count = count;
+		}
+
+		/**
+		 * Returns true if a value with the given (possibly rounded) amount
+		 * might be one of the greatest values.
+		 */
+		boolean mightBeGreatest(double amount) {
+			return amount >= this.greatestThreshold;
+		}
+
+		/**
+		 * Returns true if a value with the given (possibly rounded) amount
+		 * might be one of the smallest values.
+		 */
+		boolean mightBeSmallest(double amount) {
+			return amount <= this.smallestThreshold;
+		}
+
+		/**
+		 * Returns true if the given value is one of the greatest values so
+		 * far, and thus would enter the heap.
+		 */
+		boolean isGreatest(BigDecimal value) {
+			return this.greatest.size() < this.count
+					|| value.compareTo(this.greatest.peek().value) > 0;
+		}
+
+		/**
+		 * Returns true if the given value is one of the smallest values so
+		 * far, and thus would enter the heap.
+		 */
+		boolean isSmallest(BigDecimal value) {
+			return this.smallest.size() < this.count
+					|| value.compareTo(this.smallest.peek().value) < 0;
+		}
+
+		void addGreatest(Candidate candidate) {
+			this.greatest.add(candidate);
+			if (this.greatest.size() > this.count) {
+				this.greatest.poll();
+			}
+			if (this.greatest.size() == this.count) {
+				// the double of the root might be rounded up:
+				this.greatestThreshold = Math.nextDown(this.greatest.peek().value
+						.doubleValue());
+			}
+		}
+
+		void addSmallest(Candidate candidate) {
+			this.smallest.add(candidate);
+			if (this.smallest.size() > this.count) {
+				this.smallest.poll();
+			}
+			if (this.smallest.size() == this.count) {
+				// the double of the root might be rounded down:
+				this.smallestThreshold = Math.nextUp(this.smallest.peek().value
+						.doubleValue());
+			}
+		}
+
+		/**
+		 * Returns the greatest values, starting with the greatest one.
+		 */
+		List<Candidate> getGreatest() {
+			List<Candidate> result = new ArrayList<>(this.greatest);
+			result.sort(Collections.reverseOrder(ASCENDING));
+			return result;
+		}
+
+		/**
+		 * Returns the smallest values, starting with the smallest one.
+		 */
+		List<Candidate> getSmallest() {
+			List<Candidate> result = new ArrayList<>(this.smallest);
+			result.sort(ASCENDING);
+			return result;
+		}
+	}
+
+	final Extremes[] extremes;
 	int itemCount = 0;
 
 	/**
@@ -66,33 +222,111 @@ public class GreatestNumberProcessor implements EntityDocumentProcessor {
 
 		GreatestNumberProcessor processor = new GreatestNumberProcessor();
 		ExampleHelpers.processEntitiesFromWikidataDump(processor);
-		processor.printStatus();
+		processor.writeFinalResults();
+	}
+
+	/**
+	 * Constructor for finding the ten greatest and smallest values of the
+	 * default properties.
+	 */
+	public GreatestNumberProcessor() {
+		this(DEFAULT_COUNT, DEFAULT_PROPERTY_IDS);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param count
+	 *            the number of greatest and smallest values to find for each
+	 *            property, at least 1
+	 * @param propertyIds
+	 *            the ids of the properties, such as "P1113"
+	 */
+	public GreatestNumberProcessor(int count, String... propertyIds) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be at least 1");
+		}
+		this.extremes = new Extremes[propertyIds.length];
+		for (int i = 0; i < propertyIds.length; i++) {
+			this.extremes[i] = new Extremes(propertyIds[i], count);
+		}
 	}
 
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 		this.itemCount++;
 
-		// Find the first quantity value for this property, if any:
-		QuantityValue quantityValue = itemDocument
-				.findStatementQuantityValue(numberPropertyId);
-
-		// If a value was found, compare it to the current maximum:
-		if (quantityValue != null) {
-			this.itemsWithPropertyCount++;
+		for (Extremes propertyExtremes : this.extremes) {
+			// Find the first quantity value for this property, if any:
+			QuantityValue quantityValue = itemDocument
+					.findStatementQuantityValue(propertyExtremes.propertyId);
+			if (quantityValue == null) {
+				continue;
+			}
+			propertyExtremes.itemsWithPropertyCount++;
 
 			BigDecimal numericValue = quantityValue.getNumericValue();
-			if (this.largestNumberValue == null
-					|| numericValue.compareTo(this.largestNumberValue) > 0) {
-				this.largestNumberValue = numericValue;
-				this.largestNumberItem = itemDocument.getEntityId();
+			double amount = numericValue.doubleValue();
+			boolean greatest = propertyExtremes.mightBeGreatest(amount)
+					&& propertyExtremes.isGreatest(numericValue);
+			boolean smallest = propertyExtremes.mightBeSmallest(amount)
+					&& propertyExtremes.isSmallest(numericValue);
+			if (greatest || smallest) {
 				MonolingualTextValue label = itemDocument.getLabels().get("en");
-				if (label != null) {
-					this.largestNumberItemLabel = label.getText();
-				} else {
-					this.largestNumberItemLabel = this.largestNumberItem
-							.getId();
+				Candidate candidate = new Candidate(numericValue, itemDocument
+						.getEntityId().getId(), label != null ? label.getText()
+						: null);
+				addCandidate(propertyExtremes, candidate, greatest, smallest);
+			}
+		}
+
+		// Print progress every 100,000 items:
+		if (this.itemCount % 100000 == 0) {
+			printStatus();
+		}
+	}
+
+	@Override
+	public void processEntityView(FlyweightEntityDocument entityView) {
+		if (!entityView.isItem()) {
+			return;
+		}
+		this.itemCount++;
+
+		// The id and label are only created once the item enters a heap:
+		String itemId = null;
+		String label = null;
+		for (Extremes propertyExtremes : this.extremes) {
+			// Find the quantity value for this property, if any:
+			int statement = entityView
+					.findStatement(propertyExtremes.propertyId);
+			if (statement == -1
+					|| entityView.getValueKind(statement) != FlyweightEntityDocument.ValueKind.QUANTITY) {
+				continue;
+			}
+			propertyExtremes.itemsWithPropertyCount++;
+
+			// The double is only rounded, so values that are close to the
+			// thresholds are compared exactly:
+			double amount = entityView.getQuantityAmount(statement);
+			boolean mightBeGreatest = propertyExtremes.mightBeGreatest(amount);
+			boolean mightBeSmallest = propertyExtremes.mightBeSmallest(amount);
+			if (!mightBeGreatest && !mightBeSmallest) {
+				continue;
+			}
+			BigDecimal numericValue = entityView
+					.getQuantityAmountDecimal(statement);
+			boolean greatest = mightBeGreatest
+					&& propertyExtremes.isGreatest(numericValue);
+			boolean smallest = mightBeSmallest
+					&& propertyExtremes.isSmallest(numericValue);
+			if (greatest || smallest) {
+				if (itemId == null) {
+					itemId = entityView.getId();
+					label = entityView.getLabel("en");
 				}
+				addCandidate(propertyExtremes, new Candidate(numericValue,
+						itemId, label), greatest, smallest);
 			}
 		}
 
@@ -102,20 +336,100 @@ public class GreatestNumberProcessor implements EntityDocumentProcessor {
 		}
 	}
 
+	@Override
+	public EntityProjection getEntityProjection() {
+		String[] propertyIds = new String[this.extremes.length];
+		for (int i = 0; i < this.extremes.length; i++) {
+			propertyIds[i] = this.extremes[i].propertyId;
+		}
+		return EntityProjection.EMPTY.withProperties(propertyIds)
+				.withLanguages("en");
+	}
+
+	/**
+	 * Adds an item to the heaps of a property.
+	 *
+	 * @param propertyExtremes
+	 *            the heaps of the property
+	 * @param candidate
+	 *            the item with its value
+	 * @param greatest
+	 *            true if the value is one of the greatest values
+	 * @param smallest
+	 *            true if the value is one of the smallest values
+	 */
+	void addCandidate(Extremes propertyExtremes, Candidate candidate,
+			boolean greatest, boolean smallest) {
+		if (greatest) {
+			propertyExtremes.addGreatest(candidate);
+		}
+		if (smallest) {
+			propertyExtremes.addSmallest(candidate);
+		}
+	}
+
+	/**
+	 * Prints the final status and writes the greatest and smallest values of
+	 * all properties to the CSV file greatest-numbers.csv.
+	 */
+	public void writeFinalResults() {
+		printStatus();
+
+		try (PrintStream out = new PrintStream(
+				ExampleHelpers.openExampleFileOuputStream("greatest-numbers.csv"))) {
+			out.println("Property id,Order,Rank,Item id,Label,Value");
+			for (Extremes propertyExtremes : this.extremes) {
+				writeCandidates(out, propertyExtremes.propertyId, "greatest",
+						propertyExtremes.getGreatest());
+				writeCandidates(out, propertyExtremes.propertyId, "smallest",
+						propertyExtremes.getSmallest());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes one row for each of the given items.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param propertyId
+	 *            the id of the property of the values
+	 * @param order
+	 *            "greatest" or "smallest"
+	 * @param candidates
+	 *            the items in the order of their rank
+	 */
+	private void writeCandidates(PrintStream out, String propertyId,
+			String order, List<Candidate> candidates) {
+		int rank = 1;
+		for (Candidate candidate : candidates) {
+			String label = candidate.label != null ? candidate.label : "";
+			out.println(propertyId + "," + order + "," + rank + ","
+					+ candidate.itemId + ",\"" + label.replace("\"", "\"\"")
+					+ "\"," + candidate.value.toPlainString());
+			rank++;
+		}
+	}
+
 	/**
 	 * Prints the current status, time and entity count.
 	 */
 	public void printStatus() {
-		System.out.println("Found " + this.itemsWithPropertyCount
-				+ " matching items after scanning " + this.itemCount
-				+ " items.");
-		if (this.largestNumberValue != null) {
-			System.out.println("The item with the greatest number is: "
-					+ this.largestNumberItemLabel + " ("
-					+ this.largestNumberItem.getId() + ") with number "
-					+ this.largestNumberValue);
-		} else {
-			System.out.println("No number with a specified value found yet.");
+		System.out.println("Scanned " + this.itemCount + " items.");
+		for (Extremes propertyExtremes : this.extremes) {
+			System.out.print("* " + propertyExtremes.propertyId + ": "
+					+ propertyExtremes.itemsWithPropertyCount
+					+ " matching items");
+			if (!propertyExtremes.greatest.isEmpty()) {
+				Candidate candidate = propertyExtremes.getGreatest().get(0);
+				System.out.print(", the item with the greatest number is "
+						+ (candidate.label != null ? candidate.label
+								: candidate.itemId) + " (" + candidate.itemId
+						+ ") with number " + candidate.value);
+			}
+			System.out.println();
 		}
 	}
 
@@ -130,8 +444,12 @@ public class GreatestNumberProcessor implements EntityDocumentProcessor {
 		System.out
 				.println("*** This program will download and process dumps from Wikidata.");
 		System.out
-				.println("*** It will scan the dump to find the item with the greatest value");
-		System.out.println("*** for property " + numberPropertyId + ".");
+				.println("*** It will scan the dump to find the items with the greatest and");
+		System.out
+				.println("*** smallest values for properties "
+						+ String.join(", ", DEFAULT_PROPERTY_IDS) + ".");
+		System.out
+				.println("*** The results will be stored in a CSV file.");
 		System.out.println("*** See source code for further details.");
 		System.out
 				.println("********************************************************************");
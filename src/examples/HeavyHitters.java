@@ -0,0 +1,394 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Summary of the most common keys in a stream, computed with the Space-Saving
+ * algorithm of Metwally et al. The summary has a fixed number of counters. A
+ * key that has no counter when it is added takes over the counter with the
+ * smallest count, and remembers that count as its possible error. Hence, the
+ * count of a key is never smaller than its true number of occurrences, and at
+ * most its error larger. Every key that occurs more often than the total
+ * number of added keys divided by the number of counters is guaranteed to
+ * have a counter, and keys without a counter occur at most
+ * {@link #getMinCount()} times.
+ * <p>
+ * The counters are kept in a min-heap, with a hash table from keys to heap
+ * positions, so adding a key takes logarithmic time in the number of counters
+ * and creates no objects. Summaries with the same number of counters can be
+ * merged as described by Cafaro et al. ("Parallel space saving on multi- and
+ * many-core processors"), which keeps all of the above guarantees. Objects of
+ * this class must not be used by several threads at the same time.
+ */
+public class HeavyHitters {
+
+	/**
+	 * One key of the summary with its count, as returned by
+	 * {@link HeavyHitters#getEntries()}.
+	 */
+	public static class Entry {
+		public final String key;
+		/**
+		 * Upper bound for the number of occurrences of the key.
+		 */
+		public final long count;
+		/**
+		 * Maximal difference between the count and the true number of
+		 * occurrences of the key.
+		 */
+		public final long error;
+
+		Entry(String key, long count, long error) {
+			this.key = key;
+			this.count = count;
+			this.error = error;
+		}
+	}
+
+	final int capacity;
+
+	/**
+	 * The keys of the counters by their slot in a hash table with open
+	 * addressing, where null marks a free slot.
+	 */
+	final String[] tableKeys;
+	/**
+	 * The position in the heap of the counter of the key in each slot.
+	 */
+	final int[] tableHeapIndexes;
+
+	/**
+	 * The table slot of the key of each counter, in heap order.
+	 */
+	final int[] heapSlots;
+	final long[] counts;
+	final long[] errors;
+	int size = 0;
+
+	/**
+	 * The sum of the counts of all keys that have been added.
+	 */
+	long totalCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            the number of counters, i.e., the number of keys that the
+	 *            summary keeps
+	 */
+	public HeavyHitters(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"A summary needs at least one counter");
+		}
+		this.capacity = capacity;
+		int tableSize = Integer.highestOneBit(2 * capacity - 1) << 1;
+		this.tableKeys = new String[tableSize];
+		this.tableHeapIndexes = new int[tableSize];
+		this.heapSlots = new int[capacity];
+		this.counts = new long[capacity];
+		this.errors = new long[capacity];
+	}
+
+	/**
+	 * Adds one occurrence of the given key.
+	 *
+	 * @param key
+	 *            the key
+	 */
+	public void add(String key) {
+		add(key, 1, 0);
+	}
+
+	/**
+	 * Adds occurrences of the given key with a possible error.
+	 *
+	 * @param key
+	 *            the key
+	 * @param count
+	 *            the number of occurrences
+	 * @param error
+	 *            the amount by which the count may be too large
+	 */
+	void add(String key, long count, long error) {
+		this.totalCount += count;
+		int slot = findSlot(key);
+		if (this.tableKeys[slot] != null) {
+			int index = this.tableHeapIndexes[slot];
+			this.counts[index] += count;
+			this.errors[index] += error;
+			siftDown(index);
+		} else if (this.size < this.capacity) {
+			int index = this.size++;
+			this.tableKeys[slot] = key;
+			this.tableHeapIndexes[slot] = index;
+			this.heapSlots[index] = slot;
+			this.counts[index] = count;
+			this.errors[index] = error;
+			siftUp(index);
+		} else {
+			// replace the key with the smallest count:
+			removeFromTable(this.heapSlots[0]);
+			slot = findSlot(key);
+			this.tableKeys[slot] = key;
+			this.tableHeapIndexes[slot] = 0;
+			this.heapSlots[0] = slot;
+			this.errors[0] = this.counts[0] + error;
+			this.counts[0] += count;
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Adds all keys of another summary to this summary. Keys that only one of
+	 * the summaries has may have occurred up to {@link #getMinCount()} times
+	 * in the other summary, which is added to their count and error. Only the
+	 * keys with the largest counts are kept.
+	 *
+	 * @param other
+	 *            a summary with the same number of counters
+	 */
+	public void merge(HeavyHitters other) {
+		if (other.capacity != this.capacity) {
+			throw new IllegalArgumentException(
+					"Summaries of different sizes cannot be merged");
+		}
+		long minCount = getMinCount();
+		long otherMinCount = other.getMinCount();
+		Entry[] entries = new Entry[this.size + other.size];
+		int entryCount = 0;
+		for (int i = 0; i < this.size; i++) {
+			String key = this.tableKeys[this.heapSlots[i]];
+			int otherSlot = other.findSlot(key);
+			if (other.tableKeys[otherSlot] != null) {
+				int otherIndex = other.tableHeapIndexes[otherSlot];
+				entries[entryCount++] = new Entry(key, this.counts[i]
+						+ other.counts[otherIndex], this.errors[i]
+						+ other.errors[otherIndex]);
+			} else {
+				entries[entryCount++] = new Entry(key, this.counts[i]
+						+ otherMinCount, this.errors[i] + otherMinCount);
+			}
+		}
+		for (int i = 0; i < other.size; i++) {
+			String key = other.tableKeys[other.heapSlots[i]];
+			if (this.tableKeys[findSlot(key)] == null) {
+				entries[entryCount++] = new Entry(key, other.counts[i]
+						+ minCount, other.errors[i] + minCount);
+			}
+		}
+		Arrays.sort(entries, 0, entryCount, ENTRY_ORDER);
+
+		long totalCount = this.totalCount + other.totalCount;
+		clear();
+		for (int i = 0; i < Math.min(entryCount, this.capacity); i++) {
+			add(entries[i].key, entries[i].count, entries[i].error);
+		}
+		this.totalCount = totalCount;
+	}
+
+	/**
+	 * Returns the keys of the summary, ordered by decreasing count.
+	 *
+	 * @return the entries of the keys
+	 */
+	public Entry[] getEntries() {
+		Entry[] entries = new Entry[this.size];
+		for (int i = 0; i < this.size; i++) {
+			entries[i] = new Entry(this.tableKeys[this.heapSlots[i]],
+					this.counts[i], this.errors[i]);
+		}
+		Arrays.sort(entries, ENTRY_ORDER);
+		return entries;
+	}
+
+	/**
+	 * Returns the largest number of times that a key without a counter may
+	 * have occurred. This is 0 as long as not all counters are used.
+	 *
+	 * @return the smallest count, if all counters are used
+	 */
+	public long getMinCount() {
+		return this.size < this.capacity ? 0 : this.counts[0];
+	}
+
+	/**
+	 * Returns the sum of the counts of all keys that have been added.
+	 *
+	 * @return the total count
+	 */
+	public long getTotalCount() {
+		return this.totalCount;
+	}
+
+	/**
+	 * Returns the number of keys that the summary can keep.
+	 *
+	 * @return the number of counters
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Writes the summary for a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.capacity);
+		out.writeLong(this.totalCount);
+		out.writeInt(this.size);
+		for (int i = 0; i < this.size; i++) {
+			out.writeUTF(this.tableKeys[this.heapSlots[i]]);
+			out.writeLong(this.counts[i]);
+			out.writeLong(this.errors[i]);
+		}
+	}
+
+	/**
+	 * Reads a summary that was written with {@link #write(DataOutput)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the summary
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	public static HeavyHitters read(DataInput in) throws IOException {
+		HeavyHitters result = new HeavyHitters(in.readInt());
+		long totalCount = in.readLong();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			result.add(in.readUTF(), in.readLong(), in.readLong());
+		}
+		result.totalCount = totalCount;
+		return result;
+	}
+
+	/**
+	 * Orders entries by decreasing count.
+	 */
+	static final Comparator<Entry> ENTRY_ORDER = (entry1, entry2) -> Long
+			.compare(entry2.count, entry1.count);
+
+	/**
+	 * Returns the slot of the given key in the hash table, or the free slot
+	 * where it would be inserted.
+	 */
+	int findSlot(String key) {
+		int mask = this.tableKeys.length - 1;
+		int slot = KeyDictionary.spread(key.hashCode()) & mask;
+		String existing;
+		while ((existing = this.tableKeys[slot]) != null) {
+			if (existing == key || existing.equals(key)) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the key in the given slot from the hash table. Later keys of
+	 * the same probe sequence are moved back, so that no markers for removed
+	 * keys are needed.
+	 */
+	void removeFromTable(int slot) {
+		int mask = this.tableKeys.length - 1;
+		int free = slot;
+		int next = (free + 1) & mask;
+		String key;
+		while ((key = this.tableKeys[next]) != null) {
+			int home = KeyDictionary.spread(key.hashCode()) & mask;
+			// move the key if its home slot is not between the free slot and
+			// its current slot (cyclically):
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				this.tableKeys[free] = key;
+				this.tableHeapIndexes[free] = this.tableHeapIndexes[next];
+				this.heapSlots[this.tableHeapIndexes[next]] = free;
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+		this.tableKeys[free] = null;
+	}
+
+	void clear() {
+		Arrays.fill(this.tableKeys, null);
+		this.size = 0;
+		this.totalCount = 0;
+	}
+
+	void siftUp(int index) {
+		while (index > 0) {
+			int parent = (index - 1) / 2;
+			if (this.counts[parent] <= this.counts[index]) {
+				return;
+			}
+			swap(index, parent);
+			index = parent;
+		}
+	}
+
+	void siftDown(int index) {
+		while (true) {
+			int child = 2 * index + 1;
+			if (child >= this.size) {
+				return;
+			}
+			if (child + 1 < this.size
+					&& this.counts[child + 1] < this.counts[child]) {
+				child++;
+			}
+			if (this.counts[index] <= this.counts[child]) {
+				return;
+			}
+			swap(index, child);
+			index = child;
+		}
+	}
+
+	void swap(int index1, int index2) {
+		int slot1 = this.heapSlots[index1];
+		int slot2 = this.heapSlots[index2];
+		this.heapSlots[index1] = slot2;
+		this.heapSlots[index2] = slot1;
+		this.tableHeapIndexes[slot1] = index2;
+		this.tableHeapIndexes[slot2] = index1;
+		long count = this.counts[index1];
+		this.counts[index1] = this.counts[index2];
+		this.counts[index2] = count;
+		long error = this.errors[index1];
+		this.errors[index1] = this.errors[index2];
+		this.errors[index2] = error;
+	}
+}
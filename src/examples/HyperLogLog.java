@@ -0,0 +1,328 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog sketch that estimates the number of distinct values in a stream
+ * of 64-bit hashes with a fixed amount of memory. A sketch with precision p
+ * has 2^p registers of one byte each, and its estimates have a relative
+ * standard error of about 1.04 / sqrt(2^p), e.g., 1.6% for the default
+ * precision of 12 (4 KB).
+ * <p>
+ * As long as only few distinct hashes have been added, they are kept in a
+ * small hash set instead of the registers. The count is exact then, and
+ * sketches for rare values need much less memory. The set is replaced by the
+ * registers once it would need more memory than them.
+ * <p>
+ * Sketches with the same precision can be merged, which gives the same
+ * result as adding all hashes to one sketch. The hashes must be well mixed,
+ * for example by {@link #hash(CharSequence)} or {@link #mix(long)}. Objects of
+ * this class must not be used by several threads at the same time.
+ */
+public class HyperLogLog {
+
+	public static final int DEFAULT_PRECISION = 12;
+
+	static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	static final long FNV_PRIME = 0x100000001b3L;
+
+	final int precision;
+	/**
+	 * The registers, or null while the sketch keeps the hashes.
+	 */
+	byte[] registers;
+	/**
+	 * Hash set of the distinct hashes with open addressing, where 0 marks a
+	 * free slot, or null once the sketch uses registers.
+	 */
+	long[] hashes = new long[8];
+	int hashCount = 0;
+
+	/**
+	 * Creates a sketch with the default precision.
+	 */
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Creates a sketch with the given precision.
+	 *
+	 * @param precision
+	 *            the number of bits of the hash that select the register,
+	 *            between 4 and 18
+	 */
+	public HyperLogLog(int precision) {
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException(
+					"The precision must be between 4 and 18");
+		}
+		this.precision = precision;
+	}
+
+	/**
+	 * Adds a value to the sketch.
+	 *
+	 * @param hash
+	 *            the 64-bit hash of the value
+	 */
+	public void add(long hash) {
+		if (this.registers != null) {
+			addToRegisters(hash);
+			return;
+		}
+		if (hash == 0) {
+			hash = 1; // 0 marks free slots
+		}
+		int mask = this.hashes.length - 1;
+		int slot = (int) hash & mask;
+		long existing;
+		while ((existing = this.hashes[slot]) != 0) {
+			if (existing == hash) {
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		this.hashes[slot] = hash;
+		this.hashCount++;
+		// keep the set at most 3/4 full:
+		if (4 * this.hashCount > 3 * this.hashes.length) {
+			// a set of longs of this size needs more memory than the
+			// registers:
+			if (8 * 2 * this.hashes.length > (1 << this.precision)) {
+				convertToRegisters();
+			} else {
+				rehash(2 * this.hashes.length);
+			}
+		}
+	}
+
+	/**
+	 * Adds all values of another sketch to this sketch.
+	 *
+	 * @param other
+	 *            a sketch with the same precision
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.precision != this.precision) {
+			throw new IllegalArgumentException(
+					"Sketches with different precisions cannot be merged");
+		}
+		if (other.registers == null) {
+			for (long hash : other.hashes) {
+				if (hash != 0) {
+					add(hash);
+				}
+			}
+			return;
+		}
+		if (this.registers == null) {
+			convertToRegisters();
+		}
+		for (int i = 0; i < this.registers.length; i++) {
+			if (other.registers[i] > this.registers[i]) {
+				this.registers[i] = other.registers[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the estimated number of distinct values that have been added.
+	 *
+	 * @return the estimate
+	 */
+	public long estimate() {
+		if (this.registers == null) {
+			return this.hashCount;
+		}
+		int m = this.registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : this.registers) {
+			sum += Double.longBitsToDouble((1023L - register) << 52); // 2^-r
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double alpha = 0.7213 / (1 + 1.079 / m);
+		double estimate = alpha * m * m / sum;
+		// use linear counting for small numbers, where it is more accurate:
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Returns true if the estimate is the exact number of distinct hashes,
+	 * since the sketch still keeps all of them.
+	 *
+	 * @return true if the estimate is exact
+	 */
+	public boolean isExact() {
+		return this.registers == null;
+	}
+
+	/**
+	 * Returns the relative standard error of the estimates of sketches with
+	 * the precision of this sketch, once they are not exact.
+	 *
+	 * @return the relative standard error, such as 0.016
+	 */
+	public double getRelativeStandardError() {
+		return 1.04 / Math.sqrt(1 << this.precision);
+	}
+
+	/**
+	 * Writes the sketch for a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeByte(this.precision);
+		if (this.registers == null) {
+			out.writeInt(this.hashCount);
+			for (long hash : this.hashes) {
+				if (hash != 0) {
+					out.writeLong(hash);
+				}
+			}
+		} else {
+			out.writeInt(-1);
+			out.write(this.registers);
+		}
+	}
+
+	/**
+	 * Reads a sketch that was written with {@link #write(DataOutput)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the sketch
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	public static HyperLogLog read(DataInput in) throws IOException {
+		HyperLogLog result = new HyperLogLog(in.readByte());
+		int hashCount = in.readInt();
+		if (hashCount < 0) {
+			result.registers = new byte[1 << result.precision];
+			result.hashes = null;
+			in.readFully(result.registers);
+		} else {
+			for (int i = 0; i < hashCount; i++) {
+				result.add(in.readLong());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a well-mixed 64-bit hash of the characters of a string,
+	 * without creating any objects.
+	 *
+	 * @param string
+	 *            the string
+	 * @return the hash
+	 */
+	public static long hash(CharSequence string) {
+		long hash = FNV_OFFSET_BASIS;
+		for (int i = 0; i < string.length(); i++) {
+			hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * Combines two hashes into a well-mixed hash, for values that consist of
+	 * several parts.
+	 *
+	 * @param hash1
+	 *            the first hash
+	 * @param hash2
+	 *            the second hash
+	 * @return the combined hash
+	 */
+	public static long combine(long hash1, long hash2) {
+		return mix(hash1 * 31 + hash2);
+	}
+
+	/**
+	 * Mixes the bits of a number, so that similar numbers get very different
+	 * hashes (the finalizer of MurmurHash3).
+	 *
+	 * @param value
+	 *            the number
+	 * @return the hash
+	 */
+	public static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+
+	void addToRegisters(long hash) {
+		int index = (int) (hash >>> (64 - this.precision));
+		// position of the first 1 bit in the remaining bits, at most
+		// 64 - precision + 1:
+		int rank = Long.numberOfLeadingZeros((hash << this.precision)
+				| (1L << (this.precision - 1))) + 1;
+		if (rank > this.registers[index]) {
+			this.registers[index] = (byte) rank;
+		}
+	}
+
+	void convertToRegisters() {
+		this.registers = new byte[1 << this.precision];
+		for (long hash : this.hashes) {
+			if (hash != 0) {
+				addToRegisters(hash);
+			}
+		}
+		this.hashes = null;
+		this.hashCount = 0;
+	}
+
+	void rehash(int size) {
+		long[] oldHashes = this.hashes;
+		this.hashes = new long[size];
+		int mask = size - 1;
+		for (long hash : oldHashes) {
+			if (hash != 0) {
+				int slot = (int) hash & mask;
+				while (this.hashes[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				this.hashes[slot] = hash;
+			}
+		}
+	}
+}
@@ -0,0 +1,596 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.dumpfiles.MwRevision;
+import org.wikidata.wdtk.dumpfiles.MwRevisionProcessor;
+import org.wikidata.wdtk.dumpfiles.WikibaseRevisionProcessor;
+
+/**
+ * Persistent results of an {@link IncrementalEntityDocumentProcessor},
+ * together with the contribution of each entity to these results. The store
+ * is first filled from a full dump. Later, the entities of daily dumps are
+ * passed to it: for each entity that has changed, the contribution of its
+ * old revision is subtracted and the contribution of its new revision is
+ * added. The results are then the same as if the full dump of that day had
+ * been processed, but only the changed entities have to be parsed.
+ * <p>
+ * The store is a directory with two files:
+ * <ul>
+ * <li>aggregates.bin holds the data of the processor (as written by
+ * {@link CheckpointableEntityDocumentProcessor#writeCheckpoint}) and the date
+ * of the last dump that was added.</li>
+ * <li>contributions-N.bin holds one record for each entity: its id, its
+ * revision, and its contribution. The records are sorted by id and
+ * compressed.</li>
+ * </ul>
+ * The store is used as an {@link EntityDocumentProcessor} for the documents of
+ * a dump, which only records their contributions. Calling
+ * {@link #update(String)} then merges the sorted changes with the sorted
+ * records of the store in one sequential pass, so the changes of a daily dump
+ * can be applied without random access to the (large) store. Changes that do
+ * not fit into memory are written to temporary sorted runs first. The new
+ * records are written to a new file, and the aggregates file is replaced
+ * atomically in the end, so the store is unchanged if the update fails.
+ * <p>
+ * Entities are only replaced by revisions with an equal or higher revision
+ * number, so adding a dump a second time does not change the results.
+ * Redirects remove the contribution of the entity. Deleted entities are not
+ * contained in the daily dumps, so their contribution is only removed when
+ * the store is built again from a full dump.
+ */
+public class IncrementalAggregateStore implements EntityDocumentProcessor,
+		ProjectingEntityDocumentProcessor {
+
+	static final long FILE_MAGIC = 0x5744544b494e4331L;
+
+	static final String AGGREGATES_FILE_NAME = "aggregates.bin";
+
+	/**
+	 * Approximate size in bytes of the changes that are kept in memory before
+	 * they are written to a sorted run.
+	 */
+	static final long MAX_CHANGE_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * Approximate memory in bytes that is needed for a change besides its
+	 * contribution.
+	 */
+	static final int CHANGE_OVERHEAD = 120;
+
+	static final byte[] EMPTY_CONTRIBUTION = new byte[0];
+
+	/**
+	 * The contribution of one revision of an entity.
+	 */
+	static class Record {
+		final String id;
+		final long revisionId;
+		final byte[] contribution;
+
+		Record(String id, long revisionId, byte[] contribution) {
+			this.id = id;
+			this.revisionId = revisionId;
+			this.contribution = contribution;
+		}
+
+		/**
+		 * Returns true if this record replaces the given record of the same
+		 * entity.
+		 */
+		boolean replaces(Record other) {
+			return this.revisionId >= other.revisionId;
+		}
+
+		void write(DataOutput out) throws IOException {
+			out.writeBoolean(true);
+			out.writeUTF(this.id);
+			out.writeLong(this.revisionId);
+			writeVarInt(out, this.contribution.length);
+			out.write(this.contribution);
+		}
+	}
+
+	/**
+	 * Reads the records of a file of the store or of a sorted run. Readers
+	 * are ordered by the id of their current record, and by their source
+	 * number for records of the same entity.
+	 */
+	static class RecordReader implements Comparable<RecordReader> {
+		final DataInputStream in;
+		final int source;
+		Record record;
+
+		RecordReader(InputStream inputStream, int source) {
+			this.in = new DataInputStream(new BufferedInputStream(inputStream,
+					1024 * 1024));
+			this.source = source;
+		}
+
+		/**
+		 * Reads the next record.
+		 *
+		 * @return false if there are no more records
+		 */
+		boolean next() throws IOException {
+			if (!this.in.readBoolean()) {
+				this.record = null;
+				return false;
+			}
+			String id = this.in.readUTF();
+			long revisionId = this.in.readLong();
+			byte[] contribution = new byte[readVarInt(this.in)];
+			this.in.readFully(contribution);
+			this.record = new Record(id, revisionId, contribution);
+			return true;
+		}
+
+		@Override
+		public int compareTo(RecordReader other) {
+			int result = this.record.id.compareTo(other.record.id);
+			return result != 0 ? result : Integer.compare(this.source,
+					other.source);
+		}
+	}
+
+	final Path directory;
+	final IncrementalEntityDocumentProcessor processor;
+
+	/**
+	 * Date stamp of the last dump that has been added, or null if the store
+	 * is empty.
+	 */
+	String dumpDate = null;
+	/**
+	 * Number of the current file of contributions, or 0 if there is none.
+	 */
+	long generation = 0;
+
+	/**
+	 * Changes that have not been written to a run yet, by entity id.
+	 */
+	final TreeMap<String, Record> changes = new TreeMap<>();
+	long changeBytes = 0;
+	final List<Path> runFiles = new ArrayList<>();
+	final ByteArrayOutputStream contributionBuffer = new ByteArrayOutputStream();
+
+	/**
+	 * Revision of the document that is currently being processed if it comes
+	 * from a revision dump (see {@link #getRevisionProcessor()}), since the
+	 * documents in the revision dumps do not always know their revision.
+	 */
+	long currentRevisionId = 0;
+
+	long addedCount = 0;
+	long replacedCount = 0;
+	long removedCount = 0;
+	long unchangedCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory
+	 *            the directory of the store, which is created if needed
+	 * @param processor
+	 *            the processor whose results are stored
+	 */
+	public IncrementalAggregateStore(Path directory,
+			IncrementalEntityDocumentProcessor processor) {
+		this.directory = directory;
+		this.processor = processor;
+	}
+
+	/**
+	 * Loads the stored data into the processor.
+	 *
+	 * @return the date stamp of the last dump that has been added, or null if
+	 *         there is no stored data yet
+	 * @throws IOException
+	 *             if the data could not be read, or belongs to another
+	 *             processor
+	 */
+	public String load() throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(this.directory
+						.resolve(AGGREGATES_FILE_NAME)), 1024 * 1024))) {
+			if (in.readLong() != FILE_MAGIC
+					|| !this.processor.getClass().getName()
+							.equals(in.readUTF())) {
+				throw new IOException("The store in " + this.directory
+						+ " does not belong to this processor.");
+			}
+			this.dumpDate = in.readUTF();
+			this.generation = in.readLong();
+			this.processor.readCheckpoint(in);
+		} catch (NoSuchFileException e) {
+			this.dumpDate = null;
+			this.generation = 0;
+		}
+		return this.dumpDate;
+	}
+
+	/**
+	 * Returns a processor for revision dumps that passes the documents to this
+	 * store, and that remembers the revision of each document.
+	 *
+	 * @return the revision processor
+	 */
+	public MwRevisionProcessor getRevisionProcessor() {
+		return new WikibaseRevisionProcessor(this, Datamodel.SITE_WIKIDATA) {
+			@Override
+			public void processRevision(MwRevision mwRevision) {
+				currentRevisionId = mwRevision.getRevisionId();
+				super.processRevision(mwRevision);
+			}
+		};
+	}
+
+	@Override
+	public EntityProjection getEntityProjection() {
+		return ExampleHelpers.getEntityProjection(this.processor);
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		recordDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		recordDocument(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		recordDocument(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		recordDocument(mediaInfoDocument);
+	}
+
+	@Override
+	public void processEntityRedirectDocument(
+			EntityRedirectDocument entityRedirectDocument) {
+		recordChange(new Record(entityRedirectDocument.getEntityId().getId(),
+				getRevisionId(entityRedirectDocument), EMPTY_CONTRIBUTION));
+	}
+
+	/**
+	 * Records the contribution of the given document as a change.
+	 */
+	void recordDocument(EntityDocument document) {
+		this.contributionBuffer.reset();
+		try {
+			DataOutputStream out = new DataOutputStream(
+					this.contributionBuffer);
+			this.processor.writeContribution(document, out);
+			out.flush();
+			recordChange(new Record(document.getEntityId().getId(),
+					getRevisionId(document),
+					this.contributionBuffer.toByteArray()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	long getRevisionId(EntityDocument document) {
+		return document.getRevisionId() > 0 ? document.getRevisionId()
+				: this.currentRevisionId;
+	}
+
+	/**
+	 * Records a change, unless a change to a newer revision of the entity has
+	 * been recorded already. Writes the changes to a sorted run if they use
+	 * too much memory.
+	 */
+	void recordChange(Record record) {
+		Record previous = this.changes.get(record.id);
+		if (previous != null && !record.replaces(previous)) {
+			return;
+		}
+		this.changes.put(record.id, record);
+		this.changeBytes += record.contribution.length + CHANGE_OVERHEAD;
+		if (this.changeBytes > MAX_CHANGE_BYTES) {
+			try {
+				writeRun();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the changes in memory to a new sorted run.
+	 */
+	void writeRun() throws IOException {
+		Files.createDirectories(this.directory);
+		Path runFile = this.directory.resolve("changes-"
+				+ this.runFiles.size() + ".tmp");
+		this.runFiles.add(runFile);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(runFile),
+						1024 * 1024))) {
+			for (Record record : this.changes.values()) {
+				record.write(out);
+			}
+			out.writeBoolean(false);
+		}
+		this.changes.clear();
+		this.changeBytes = 0;
+	}
+
+	/**
+	 * Applies all recorded changes to the processor and to the stored
+	 * contributions, and stores the new data. For each changed entity, the
+	 * contribution of the stored revision is subtracted and the contribution
+	 * of the new revision is added.
+	 *
+	 * @param dumpDate
+	 *            the date stamp of the last dump whose changes have been
+	 *            recorded
+	 * @throws IOException
+	 *             if the store could not be read or written; the stored data
+	 *             is unchanged in this case, but the data of the processor is
+	 *             not
+	 */
+	public void update(String dumpDate) throws IOException {
+		writeRun();
+		this.addedCount = 0;
+		this.replacedCount = 0;
+		this.removedCount = 0;
+		this.unchangedCount = 0;
+
+		PriorityQueue<RecordReader> readers = new PriorityQueue<>();
+		List<RecordReader> openReaders = new ArrayList<>();
+		long newGeneration = this.generation + 1;
+		Path newContributionsFile = getContributionsFile(newGeneration);
+		try {
+			if (this.generation > 0) {
+				InputStream storeIn = Files
+						.newInputStream(getContributionsFile(this.generation));
+				openReaders.add(new RecordReader(new InflaterInputStream(
+						storeIn, new Inflater(), 64 * 1024), 0));
+			}
+			for (Path runFile : this.runFiles) {
+				openReaders.add(new RecordReader(Files.newInputStream(runFile),
+						openReaders.size() + 1));
+			}
+			for (RecordReader reader : openReaders) {
+				if (reader.next()) {
+					readers.add(reader);
+				}
+			}
+
+			try (OutputStream fileOut = Files
+					.newOutputStream(newContributionsFile);
+					DataOutputStream out = new DataOutputStream(
+							new BufferedOutputStream(new DeflaterOutputStream(
+									fileOut, new Deflater(
+											Deflater.BEST_SPEED), 64 * 1024),
+									1024 * 1024))) {
+				mergeRecords(readers, out);
+				out.writeBoolean(false);
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(newContributionsFile);
+			throw e;
+		} finally {
+			for (RecordReader reader : openReaders) {
+				reader.in.close();
+			}
+		}
+
+		writeAggregates(dumpDate, newGeneration);
+
+		if (this.generation > 0) {
+			Files.deleteIfExists(getContributionsFile(this.generation));
+		}
+		for (Path runFile : this.runFiles) {
+			Files.deleteIfExists(runFile);
+		}
+		this.runFiles.clear();
+		this.generation = newGeneration;
+		this.dumpDate = dumpDate;
+
+		System.out.println("*** Updated aggregates in " + this.directory
+				+ " to dump " + dumpDate + ": " + this.addedCount
+				+ " entities added, " + this.replacedCount + " replaced, "
+				+ this.removedCount + " removed, " + this.unchangedCount
+				+ " unchanged.");
+	}
+
+	/**
+	 * Merges the records of the given readers by entity id, applies the
+	 * changes to the processor, and writes the resulting records.
+	 */
+	void mergeRecords(PriorityQueue<RecordReader> readers, DataOutput out)
+			throws IOException {
+		while (!readers.isEmpty()) {
+			String id = readers.peek().record.id;
+			Record storedRecord = null;
+			Record newRecord = null;
+			while (!readers.isEmpty() && readers.peek().record.id.equals(id)) {
+				RecordReader reader = readers.poll();
+				if (reader.source == 0) {
+					storedRecord = reader.record;
+				} else if (newRecord == null
+						|| reader.record.replaces(newRecord)) {
+					newRecord = reader.record;
+				}
+				if (reader.next()) {
+					readers.add(reader);
+				}
+			}
+
+			if (newRecord == null
+					|| (storedRecord != null && !newRecord
+							.replaces(storedRecord))) {
+				this.unchangedCount++;
+				storedRecord.write(out);
+				continue;
+			}
+
+			if (storedRecord != null) {
+				addContribution(storedRecord.contribution, -1);
+			}
+			addContribution(newRecord.contribution, 1);
+			newRecord.write(out);
+
+			if (storedRecord == null) {
+				this.addedCount++;
+			} else if (newRecord.contribution.length == 0) {
+				this.removedCount++;
+			} else {
+				this.replacedCount++;
+			}
+		}
+	}
+
+	void addContribution(byte[] contribution, int sign) throws IOException {
+		if (contribution.length > 0) {
+			this.processor.addContribution(new DataInputStream(
+					new ByteArrayInputStream(contribution)), sign);
+		}
+	}
+
+	/**
+	 * Replaces the aggregates file by one with the current data of the
+	 * processor.
+	 */
+	void writeAggregates(String dumpDate, long generation) throws IOException {
+		Path file = this.directory.resolve(AGGREGATES_FILE_NAME);
+		Path temporaryFile = this.directory.resolve(AGGREGATES_FILE_NAME
+				+ ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temporaryFile),
+						1024 * 1024))) {
+			out.writeLong(FILE_MAGIC);
+			out.writeUTF(this.processor.getClass().getName());
+			out.writeUTF(dumpDate);
+			out.writeLong(generation);
+			this.processor.writeCheckpoint(out);
+		}
+		Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	Path getContributionsFile(long generation) {
+		return this.directory.resolve("contributions-" + generation + ".bin");
+	}
+
+	/**
+	 * Writes a non-negative number in as few bytes as possible. Helper for
+	 * processors that write contributions.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param value
+	 *            the number to write
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads a number that was written with
+	 * {@link #writeVarInt(DataOutput, int)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the number
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readByte();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Writes a map of counts for a contribution, using
+	 * {@link #writeVarInt(DataOutput, int)} for the counts.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @param counts
+	 *            the counts to write
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void writeCounts(DataOutput out, Map<String, Integer> counts)
+			throws IOException {
+		writeVarInt(out, counts.size());
+		for (Entry<String, Integer> entry : counts.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeVarInt(out, entry.getValue());
+		}
+	}
+}
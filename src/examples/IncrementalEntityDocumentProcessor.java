@@ -0,0 +1,74 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+
+/**
+ * Interface for processors whose results are sums of independent
+ * contributions of the single entities. The contribution of an entity can be
+ * written to a compact record, and can later be subtracted again when a newer
+ * revision of the entity replaces it. This is used by
+ * {@link IncrementalAggregateStore} to update the results with the daily dumps
+ * instead of processing all entities again.
+ * <p>
+ * The aggregated data is stored and restored with the methods of
+ * {@link CheckpointableEntityDocumentProcessor}. Implementations must make sure
+ * that writing the contribution of a document and adding it has the same
+ * effect as processing the document, and that subtracting it again restores
+ * the previous data.
+ */
+public interface IncrementalEntityDocumentProcessor extends
+		CheckpointableEntityDocumentProcessor {
+
+	/**
+	 * Writes the contribution of the given document to the data of this
+	 * processor, without adding it. Nothing needs to be written for documents
+	 * that do not contribute anything.
+	 *
+	 * @param document
+	 *            the document
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	void writeContribution(EntityDocument document, DataOutputStream out)
+			throws IOException;
+
+	/**
+	 * Adds or subtracts a contribution that was written with
+	 * {@link #writeContribution(EntityDocument, DataOutputStream)}.
+	 *
+	 * @param in
+	 *            the input to read the (non-empty) contribution from
+	 * @param sign
+	 *            1 to add the contribution, or -1 to subtract it
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	void addContribution(DataInputStream in, int sign) throws IOException;
+
+}
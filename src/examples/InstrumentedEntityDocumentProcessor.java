@@ -0,0 +1,164 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+/**
+ * Passes all documents to another processor, and records the time and the
+ * heap memory that each call takes in a {@link ProcessorMetrics} object.
+ * Several instances may share the same metrics, e.g., one for each worker
+ * copy of a processor that is run in parallel.
+ * <p>
+ * Calls that throw an exception are not recorded. The measurement itself
+ * takes less than a microsecond per call, which is small compared to the
+ * time needed to parse an entity.
+ */
+public class InstrumentedEntityDocumentProcessor implements
+		EntityDocumentProcessor {
+
+	final EntityDocumentProcessor entityDocumentProcessor;
+	final ProcessorMetrics processorMetrics;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor to measure
+	 * @param processorMetrics
+	 *            the object to record the measurements in
+	 */
+	public InstrumentedEntityDocumentProcessor(
+			EntityDocumentProcessor entityDocumentProcessor,
+			ProcessorMetrics processorMetrics) {
+		this.entityDocumentProcessor = entityDocumentProcessor;
+		this.processorMetrics = processorMetrics;
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+		long startTime = System.nanoTime();
+		this.entityDocumentProcessor.processItemDocument(itemDocument);
+		record(startTime, allocated);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+		long startTime = System.nanoTime();
+		this.entityDocumentProcessor.processPropertyDocument(propertyDocument);
+		record(startTime, allocated);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+		long startTime = System.nanoTime();
+		this.entityDocumentProcessor.processLexemeDocument(lexemeDocument);
+		record(startTime, allocated);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+		long startTime = System.nanoTime();
+		this.entityDocumentProcessor
+				.processMediaInfoDocument(mediaInfoDocument);
+		record(startTime, allocated);
+	}
+
+	@Override
+	public void processEntityRedirectDocument(
+			EntityRedirectDocument entityRedirectDocument) {
+		long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+		long startTime = System.nanoTime();
+		this.entityDocumentProcessor
+				.processEntityRedirectDocument(entityRedirectDocument);
+		record(startTime, allocated);
+	}
+
+	/**
+	 * Returns a processor that measures the calls of the given processor. If
+	 * it is a {@link StreamingEntityDocumentProcessor}, the result is one as
+	 * well, and the calls with flyweight documents are measured too.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor to measure
+	 * @param processorMetrics
+	 *            the object to record the measurements in
+	 * @return the measuring processor
+	 */
+	public static InstrumentedEntityDocumentProcessor create(
+			EntityDocumentProcessor entityDocumentProcessor,
+			ProcessorMetrics processorMetrics) {
+		if (entityDocumentProcessor instanceof StreamingEntityDocumentProcessor) {
+			return new Streaming(
+					(StreamingEntityDocumentProcessor) entityDocumentProcessor,
+					processorMetrics);
+		}
+		return new InstrumentedEntityDocumentProcessor(entityDocumentProcessor,
+				processorMetrics);
+	}
+
+	/**
+	 * Records a call that started at the given time and allocated bytes
+	 * after the given value.
+	 */
+	void record(long startTime, long allocated) {
+		long endTime = System.nanoTime();
+		this.processorMetrics.record(endTime - startTime,
+				ProcessorMetrics.getThreadAllocatedBytes() - allocated);
+	}
+
+	/**
+	 * Variant for processors that also process flyweight documents.
+	 */
+	static class Streaming extends InstrumentedEntityDocumentProcessor
+			implements StreamingEntityDocumentProcessor {
+
+		final StreamingEntityDocumentProcessor streamingProcessor;
+
+		Streaming(StreamingEntityDocumentProcessor streamingProcessor,
+				ProcessorMetrics processorMetrics) {
+			super(streamingProcessor, processorMetrics);
+			this.streamingProcessor = streamingProcessor;
+		}
+
+		@Override
+		public EntityProjection getEntityProjection() {
+			return this.streamingProcessor.getEntityProjection();
+		}
+
+		@Override
+		public void processEntityView(FlyweightEntityDocument entityView) {
+			long allocated = ProcessorMetrics.getThreadAllocatedBytes();
+			long startTime = System.nanoTime();
+			this.streamingProcessor.processEntityView(entityView);
+			record(startTime, allocated);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelFilter;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.FormIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.SenseIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+
+/**
+ * Factory for data objects that returns the same object for equal entity ids
+ * and datatypes, and the same string for equal language codes, site keys and
+ * site IRIs. Processors that keep many documents or ids, such as
+ * {@link ClassPropertyUsageAnalyzer}, hold millions of copies of the same few
+ * values otherwise, since the JSON parser creates new objects for each value
+ * of each document.
+ * <p>
+ * The factory can be given to a {@link DatamodelConverter} to make interned
+ * copies of documents, to a {@link DatamodelFilter}, or to
+ * {@link ParallelJsonDumpProcessor#setDataObjectFactory}. Values that are
+ * obtained elsewhere can be interned with {@link #intern(EntityIdValue)}.
+ * <p>
+ * All methods can be called by several threads at the same time. Objects
+ * are never removed from the pools, so the factory should only be used for
+ * values that are kept anyway, and it should be dropped together with them.
+ */
+public class InterningDataObjectFactory extends DataObjectFactoryImpl {
+
+	final ConcurrentHashMap<String, EntityIdValue> entityIds = new ConcurrentHashMap<>();
+	final ConcurrentHashMap<String, DatatypeIdValue> datatypes = new ConcurrentHashMap<>();
+	final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+	@Override
+	public ItemIdValue getItemIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, ItemIdValue.class,
+				super::getItemIdValue);
+	}
+
+	@Override
+	public PropertyIdValue getPropertyIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, PropertyIdValue.class,
+				super::getPropertyIdValue);
+	}
+
+	@Override
+	public LexemeIdValue getLexemeIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, LexemeIdValue.class,
+				super::getLexemeIdValue);
+	}
+
+	@Override
+	public FormIdValue getFormIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, FormIdValue.class,
+				super::getFormIdValue);
+	}
+
+	@Override
+	public SenseIdValue getSenseIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, SenseIdValue.class,
+				super::getSenseIdValue);
+	}
+
+	@Override
+	public MediaInfoIdValue getMediaInfoIdValue(String id, String siteIri) {
+		return internEntityId(id, siteIri, MediaInfoIdValue.class,
+				super::getMediaInfoIdValue);
+	}
+
+	@Override
+	public DatatypeIdValue getDatatypeIdValueFromJsonId(String jsonId) {
+		DatatypeIdValue datatype = this.datatypes.get(jsonId);
+		if (datatype == null) {
+			datatype = super.getDatatypeIdValueFromJsonId(jsonId);
+			DatatypeIdValue existing = this.datatypes.putIfAbsent(jsonId,
+					datatype);
+			if (existing != null) {
+				datatype = existing;
+			}
+		}
+		return datatype;
+	}
+
+	@Override
+	public MonolingualTextValue getMonolingualTextValue(String text,
+			String languageCode) {
+		return super.getMonolingualTextValue(text, internString(languageCode));
+	}
+
+	@Override
+	public SiteLink getSiteLink(String title, String siteKey,
+			List<ItemIdValue> badges) {
+		return super.getSiteLink(title, internString(siteKey), badges);
+	}
+
+	/**
+	 * Returns the pooled object that is equal to the given entity id. If
+	 * there is none yet, the given object is added to the pool.
+	 *
+	 * @param entityIdValue
+	 *            the entity id
+	 * @return an equal entity id of the same type
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends EntityIdValue> T intern(T entityIdValue) {
+		EntityIdValue existing = this.entityIds.putIfAbsent(
+				entityIdValue.getId(), entityIdValue);
+		if (existing != null && entityIdValue.getClass().isInstance(existing)
+				&& existing.equals(entityIdValue)) {
+			return (T) existing;
+		}
+		return entityIdValue;
+	}
+
+	/**
+	 * Returns the pooled string that is equal to the given string, such as a
+	 * language code or a site key.
+	 *
+	 * @param string
+	 *            the string, or null
+	 * @return an equal string, or null
+	 */
+	public String internString(String string) {
+		if (string == null) {
+			return null;
+		}
+		String existing = this.strings.putIfAbsent(string, string);
+		return existing != null ? existing : string;
+	}
+
+	/**
+	 * Returns the number of objects in the pools.
+	 *
+	 * @return the number of objects
+	 */
+	public int getPoolSize() {
+		return this.entityIds.size() + this.datatypes.size()
+				+ this.strings.size();
+	}
+
+	/**
+	 * Returns the pooled entity id of the given type, creating and adding it
+	 * if the pool has no equal one. The pool is keyed by the id only; an id
+	 * with a different site IRI is created but not pooled.
+	 */
+	<T extends EntityIdValue> T internEntityId(String id, String siteIri,
+			Class<T> type, BiFunction<String, String, T> constructor) {
+		EntityIdValue value = this.entityIds.get(id);
+		if (type.isInstance(value) && value.getSiteIri().equals(siteIri)) {
+			return type.cast(value);
+		}
+		T newValue = constructor.apply(id, internString(siteIri));
+		if (value == null) {
+			value = this.entityIds.putIfAbsent(id, newValue);
+			if (type.isInstance(value) && value.getSiteIri().equals(siteIri)) {
+				return type.cast(value);
+			}
+		}
+		return newValue;
+	}
+}
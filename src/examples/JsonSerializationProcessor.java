@@ -45,7 +45,8 @@ import org.wikidata.wdtk.datamodel.interfaces.*;
  * @author Markus Kroetzsch
  *
  */
-public class JsonSerializationProcessor implements EntityDocumentProcessor {
+public class JsonSerializationProcessor implements
+		PrefilteredEntityDocumentProcessor {
 
 	static final String OUTPUT_FILE_NAME = "json-serialization-example.json.gz";
 
@@ -108,6 +109,12 @@ public class JsonSerializationProcessor implements EntityDocumentProcessor {
 		this.jsonSerializer.open();
 	}
 
+	@Override
+	public RawEntityFilter getRawEntityFilter() {
+		// Must accept all documents that are accepted by includeDocument():
+		return RawEntityFilter.requirePropertyValue("P19", "Q1731");
+	}
+
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 		if (includeDocument(itemDocument)) {
@@ -0,0 +1,139 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Dictionary that assigns consecutive numbers to strings, such as language
+ * codes or site keys, so that counts for them can be kept in arrays (see
+ * {@link DenseCounts}). The first string object that is seen for a key is
+ * kept and returned by {@link #getKey(int)}.
+ * <p>
+ * Looking up a key uses its (cached) hash code and open addressing, so it
+ * creates no objects. Objects of this class must not be used by several
+ * threads at the same time.
+ */
+public class KeyDictionary {
+
+	/**
+	 * Hash table of the keys, with free slots set to null. The size is a
+	 * power of two.
+	 */
+	String[] table = new String[64];
+	/**
+	 * Number of the key in each slot of {@link #table}.
+	 */
+	int[] tableIndexes = new int[64];
+	/**
+	 * The keys in the order of their numbers.
+	 */
+	String[] keys = new String[32];
+	int size = 0;
+
+	/**
+	 * Returns the number of the given key, assigning the next free number if
+	 * the key is new.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the number of the key
+	 */
+	public int getIndex(String key) {
+		int mask = this.table.length - 1;
+		int slot = spread(key.hashCode()) & mask;
+		String existing;
+		while ((existing = this.table[slot]) != null) {
+			if (existing == key || existing.equals(key)) {
+				return this.tableIndexes[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return add(key, slot);
+	}
+
+	/**
+	 * Returns the key with the given number.
+	 *
+	 * @param index
+	 *            the number of the key
+	 * @return the key
+	 */
+	public String getKey(int index) {
+		return this.keys[index];
+	}
+
+	/**
+	 * Returns the number of keys. The keys are numbered from 0 to this number
+	 * minus 1.
+	 *
+	 * @return the number of keys
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Adds a new key in the given free slot of the table.
+	 *
+	 * @return the number of the key
+	 */
+	int add(String key, int slot) {
+		int index = this.size++;
+		if (index == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, 2 * index);
+		}
+		this.keys[index] = key;
+		this.table[slot] = key;
+		this.tableIndexes[slot] = index;
+		// keep the table at most half full:
+		if (2 * this.size > this.table.length) {
+			rehash(2 * this.table.length);
+		}
+		return index;
+	}
+
+	/**
+	 * Creates a new table of the given size with all keys.
+	 */
+	void rehash(int tableSize) {
+		this.table = new String[tableSize];
+		this.tableIndexes = new int[tableSize];
+		int mask = tableSize - 1;
+		for (int index = 0; index < this.size; index++) {
+			int slot = spread(this.keys[index].hashCode()) & mask;
+			while (this.table[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			this.table[slot] = this.keys[index];
+			this.tableIndexes[slot] = index;
+		}
+	}
+
+	/**
+	 * Mixes the high bits of a hash code into the low bits that select the
+	 * slot.
+	 */
+	static int spread(int hashCode) {
+		int h = hashCode * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
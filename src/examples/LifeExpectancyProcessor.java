@@ -20,11 +20,12 @@ package examples;
  * #L%
  */
 
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 
@@ -36,15 +37,28 @@ import java.io.PrintStream;
  * Note that the computation of life expectancies based on the life spans of
  * people who have died already has some systematic bias, since none of the
  * sampled person is expected to die in the future.
+ * <p>
+ * When reading a JSON dump, the processor only looks at the dates of birth
+ * and death through a {@link FlyweightEntityDocument}, so no documents are
+ * built for it.
  *
  * @author Markus Kroetzsch
  *
  */
-public class LifeExpectancyProcessor implements EntityDocumentProcessor {
+public class LifeExpectancyProcessor implements
+		MergeableEntityDocumentProcessor<LifeExpectancyProcessor>,
+		CheckpointableEntityDocumentProcessor,
+		StreamingEntityDocumentProcessor {
 	long totalPeopleCount = 0;
 	long totalLifeSpan = 0;
 	boolean printedStatus = true;
 
+	/**
+	 * If false, no intermediate status reports are printed. Used for copies
+	 * that only see part of the data when processing in parallel.
+	 */
+	boolean reportProgress = true;
+
 	// Simply store data indexed by year of birth, in a range from 0 to 2100:
 	final long[] lifeSpans = new long[2100];
 	final long[] peopleCount = new long[2100];
@@ -66,9 +80,33 @@ public class LifeExpectancyProcessor implements EntityDocumentProcessor {
 
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
-		int birthYear = getYearIfAny(itemDocument, "P569");
-		int deathYear = getYearIfAny(itemDocument, "P570");
+		countLifeSpan(getYearIfAny(itemDocument, "P569"),
+				getYearIfAny(itemDocument, "P570"));
+	}
 
+	@Override
+	public void processEntityView(FlyweightEntityDocument entityView) {
+		if (entityView.isItem()) {
+			countLifeSpan(getYearIfAny(entityView, "P569"),
+					getYearIfAny(entityView, "P570"));
+		}
+	}
+
+	@Override
+	public EntityProjection getEntityProjection() {
+		return EntityProjection.EMPTY.withProperties("P569", "P570");
+	}
+
+	/**
+	 * Counts the life span of one person, if both years are known and
+	 * plausible.
+	 *
+	 * @param birthYear
+	 *            the year of birth, or Integer.MIN_VALUE if unknown
+	 * @param deathYear
+	 *            the year of death, or Integer.MIN_VALUE if unknown
+	 */
+	void countLifeSpan(int birthYear, int deathYear) {
 		if (birthYear != Integer.MIN_VALUE && deathYear != Integer.MIN_VALUE
 				&& birthYear >= 1200) {
 			// Do some more sanity checks to filter strange values:
@@ -82,12 +120,53 @@ public class LifeExpectancyProcessor implements EntityDocumentProcessor {
 		}
 
 		// Print the status once in a while:
-		if (!printedStatus && totalPeopleCount % 10000 == 0) {
+		if (reportProgress && !printedStatus && totalPeopleCount % 10000 == 0) {
 			printStatus();
 			printedStatus = true;
 		}
 	}
 
+	@Override
+	public LifeExpectancyProcessor createWorkerCopy() {
+		LifeExpectancyProcessor copy = new LifeExpectancyProcessor();
+		copy.reportProgress = false;
+		return copy;
+	}
+
+	@Override
+	public void merge(LifeExpectancyProcessor other) {
+		for (int i = 0; i < lifeSpans.length; i++) {
+			lifeSpans[i] += other.lifeSpans[i];
+			peopleCount[i] += other.peopleCount[i];
+		}
+		totalLifeSpan += other.totalLifeSpan;
+		totalPeopleCount += other.totalPeopleCount;
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeLong(totalPeopleCount);
+		out.writeLong(totalLifeSpan);
+		out.writeInt(lifeSpans.length);
+		for (int i = 0; i < lifeSpans.length; i++) {
+			out.writeLong(lifeSpans[i]);
+			out.writeLong(peopleCount[i]);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		totalPeopleCount = in.readLong();
+		totalLifeSpan = in.readLong();
+		if (in.readInt() != lifeSpans.length) {
+			throw new IOException("Checkpoint has a different range of years");
+		}
+		for (int i = 0; i < lifeSpans.length; i++) {
+			lifeSpans[i] = in.readLong();
+			peopleCount[i] = in.readLong();
+		}
+	}
+
 	/**
 	 * Writes the results of the processing to a file.
 	 */
@@ -161,4 +240,26 @@ public class LifeExpectancyProcessor implements EntityDocumentProcessor {
 		}
 	}
 
+	/**
+	 * Variant of {@link #getYearIfAny(StatementDocument, String)} for
+	 * flyweight documents.
+	 *
+	 * @param entityView
+	 *            the view to extract the data from
+	 * @param propertyId
+	 *            the string id of the property to look for
+	 * @return the year, or Integer.MIN_VALUE if none was found
+	 */
+	private int getYearIfAny(FlyweightEntityDocument entityView,
+			String propertyId) {
+		int statement = entityView.findStatement(propertyId);
+		if (statement != -1
+				&& entityView.getValueKind(statement) == FlyweightEntityDocument.ValueKind.TIME
+				&& entityView.getTimePrecision(statement) >= TimeValue.PREC_YEAR) {
+			return (int) entityView.getTimeYear(statement);
+		} else {
+			return Integer.MIN_VALUE;
+		}
+	}
+
 }
@@ -20,6 +20,19 @@
 
 package examples;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.dumpfiles.DumpProcessingController;
 import org.wikidata.wdtk.dumpfiles.EntityTimerProcessor;
@@ -27,7 +40,10 @@ import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
 
 /**
  * This class illustrates how to process local dumpfiles. It uses
- * {@link EntityTimerProcessor} to process a dump.
+ * {@link EntityTimerProcessor} to process a dump, also from an uncompressed
+ * copy that is read with {@link MappedDumpFile}. Finally, it converts the
+ * dump with {@link BlockIndexedDumpWriter} and reads selected entities from
+ * the result with {@link BlockIndexedDumpFile}.
  *
  * @author Markus Damm
  *
@@ -37,7 +53,7 @@ public class LocalDumpFileExample {
 	/**
 	 * Path to the dump that should be processed
 	 */
-	private final static String DUMP_FILE = "./src/resources/sample-dump-20150815.json.gz";
+	private final static String DUMP_FILE = "./resources/sample-dump-20150815.json.gz";
 
 	public static void main(String[] args) {
 		ExampleHelpers.configureLogging();
@@ -69,7 +85,83 @@ public class LocalDumpFileExample {
 				"20150815", "wikidatawiki");
 		dumpProcessingController.processDump(mwDumpFile);
 
+		// Decompress the file in a separate thread:
+		System.out.println();
+		System.out
+				.println("Processing a local dump file with parallel decompression:");
+		dumpProcessingController.processDump(new ParallelDecompressionDumpFile(
+				mwDumpFile, 2));
+
+		// Map an uncompressed copy of the file into memory:
+		System.out.println();
+		System.out
+				.println("Processing an uncompressed copy of the dump file with memory mapping:");
+		Path uncompressedDumpFile = Paths.get(
+				ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY,
+				"sample-dump-20150815.json");
+		try (InputStream inputStream = mwDumpFile.getDumpFileStream()) {
+			Files.createDirectories(uncompressedDumpFile.getParent());
+			Files.copy(inputStream, uncompressedDumpFile,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		new ParallelJsonDumpProcessor(entityTimerProcessor, 1)
+				.processDump(new MappedDumpFile(uncompressedDumpFile));
+
 		entityTimerProcessor.close();
+
+		// Convert the file so that individual entities can be read quickly:
+		System.out.println();
+		System.out
+				.println("Converting the dump file into independently compressed blocks:");
+		Path blockIndexedDumpFile = Paths.get(
+				ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY,
+				"sample-dump-20150815-blocks.json.gz");
+		try {
+			Files.createDirectories(blockIndexedDumpFile.getParent());
+			new BlockIndexedDumpWriter(blockIndexedDumpFile)
+					.convert(new MwLocalDumpFile(DUMP_FILE));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		EntityDocumentProcessor printingProcessor = new EntityDocumentProcessor() {
+			@Override
+			public void processItemDocument(ItemDocument itemDocument) {
+				printEntity(itemDocument);
+			}
+
+			@Override
+			public void processPropertyDocument(
+					PropertyDocument propertyDocument) {
+				printEntity(propertyDocument);
+			}
+		};
+		try (BlockIndexedDumpFile dumpFile = new BlockIndexedDumpFile(
+				blockIndexedDumpFile)) {
+			System.out.println("Reading a list of entities:");
+			dumpFile.processEntities(Arrays.asList("Q42", "P31", "Q1"),
+					printingProcessor);
+			System.out.println("Reading all properties from P100 to P150:");
+			dumpFile.processEntityRange("P100", "P150", printingProcessor);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Prints the id and English label of an entity.
+	 *
+	 * @param termedDocument
+	 *            the entity to print
+	 */
+	static void printEntity(TermedDocument termedDocument) {
+		MonolingualTextValue label = termedDocument.getLabels().get("en");
+		System.out.println("  " + termedDocument.getEntityId().getId()
+				+ (label == null ? "" : " (" + label.getText() + ")"));
 	}
 
 	/**
@@ -84,7 +176,8 @@ public class LocalDumpFileExample {
 				.println("*** This program illustrates how to process local dumps.");
 		System.out
 				.println("*** It uses an EntityTimerProcesses which counts processed items");
-		System.out.println("*** and elapsed time.");
+		System.out.println("*** and elapsed time. It also shows how to convert a dump");
+		System.out.println("*** for reading selected entities quickly.");
 		System.out.println("*** ");
 		System.out.println("*** See source code for further details.");
 		System.out
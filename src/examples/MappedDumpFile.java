@@ -0,0 +1,328 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.wikidata.wdtk.dumpfiles.DumpContentType;
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
+import org.wikidata.wdtk.util.CompressionType;
+
+/**
+ * Wrapper for a local, uncompressed JSON dump that reads the file through
+ * memory-mapped windows instead of copying it into heap buffers with
+ * streams. The file can be split into regions that are read by several
+ * threads independently (see {@link #processLines(long, long, LineProcessor)});
+ * {@link ParallelJsonDumpProcessor} does this for dump files of this type,
+ * so that each worker thread finds and parses the lines of its own regions
+ * and no reader thread is needed.
+ * <p>
+ * Everything else is delegated to the wrapped dump file, and
+ * {@link #getDumpFileStream()} reads the mapped file sequentially, so the
+ * wrapper can also be passed to
+ * {@link org.wikidata.wdtk.dumpfiles.DumpProcessingController#processDump(MwDumpFile)}
+ * in place of the original file.
+ */
+public class MappedDumpFile implements MwDumpFile {
+
+	/**
+	 * Size of the windows of the file that are mapped at once. Windows are
+	 * made larger when a single line does not fit.
+	 */
+	static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Callback for the lines of a dump.
+	 */
+	@FunctionalInterface
+	public interface LineProcessor {
+		/**
+		 * Processes one line, without the line break. The array is reused
+		 * for the next line, so it must not be kept.
+		 *
+		 * @param data
+		 *            array that contains the line
+		 * @param start
+		 *            index of the first byte of the line
+		 * @param end
+		 *            index after the last byte of the line
+		 */
+		void processLine(byte[] data, int start, int end);
+	}
+
+	/**
+	 * Stream that reads the file sequentially through mapped windows.
+	 */
+	static class MappedInputStream extends InputStream {
+		final FileChannel channel;
+		final long size;
+		long windowStart = 0;
+		MappedByteBuffer window;
+
+		MappedInputStream(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+			this.window = map(channel, 0, (int) Math.min(WINDOW_SIZE,
+					this.size));
+		}
+
+		/**
+		 * Maps the next window if the current one has been read completely.
+		 *
+		 * @return false if the end of the file has been reached
+		 */
+		boolean ensureData() throws IOException {
+			if (this.window.hasRemaining()) {
+				return true;
+			}
+			this.windowStart += this.window.limit();
+			if (this.windowStart >= this.size) {
+				return false;
+			}
+			this.window = map(this.channel, this.windowStart,
+					(int) Math.min(WINDOW_SIZE, this.size - this.windowStart));
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return ensureData() ? this.window.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!ensureData()) {
+				return -1;
+			}
+			int count = Math.min(len, this.window.remaining());
+			this.window.get(b, off, count);
+			return count;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long position = this.windowStart + this.window.position();
+			long target = Math.min(this.size, position + Math.max(n, 0));
+			if (target - this.windowStart <= this.window.limit()) {
+				this.window.position((int) (target - this.windowStart));
+			} else {
+				this.windowStart = target;
+				this.window = map(this.channel, target,
+						(int) Math.min(WINDOW_SIZE, this.size - target));
+			}
+			return target - position;
+		}
+
+		@Override
+		public int available() {
+			return this.window.remaining();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	final MwLocalDumpFile dumpFile;
+	final Path path;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read, which must not be compressed
+	 */
+	public MappedDumpFile(MwLocalDumpFile dumpFile) {
+		if (WmfDumpFile.getDumpFileCompressionType(dumpFile.getPath()
+				.getFileName().toString()) != CompressionType.NONE) {
+			throw new IllegalArgumentException(
+					"Only uncompressed dump files can be mapped: "
+							+ dumpFile.getPath());
+		}
+		this.dumpFile = dumpFile;
+		this.path = dumpFile.getPath();
+	}
+
+	/**
+	 * Constructor. The meta-data of the dump is guessed from the file name,
+	 * as in {@link MwLocalDumpFile#MwLocalDumpFile(String)}.
+	 *
+	 * @param path
+	 *            the path of the dump file, which must not be compressed
+	 */
+	public MappedDumpFile(Path path) {
+		this(new MwLocalDumpFile(path.toString()));
+	}
+
+	/**
+	 * Returns the size of the file.
+	 *
+	 * @return the size in bytes
+	 * @throws IOException
+	 *             if the size could not be read
+	 */
+	public long size() throws IOException {
+		try (FileChannel channel = FileChannel.open(this.path,
+				StandardOpenOption.READ)) {
+			return channel.size();
+		}
+	}
+
+	/**
+	 * Passes all lines that start in the given region of the file to the
+	 * given processor. A line that starts in the region is read to its end,
+	 * even if this is after the end of the region, and a line that starts
+	 * before the region is skipped. Processing all regions of a partition of
+	 * the file thus processes every line exactly once.
+	 * <p>
+	 * The lines are found directly in the mapped file; each line is copied
+	 * once into an array that is reused for all lines of the region.
+	 *
+	 * @param start
+	 *            offset of the first byte of the region
+	 * @param end
+	 *            offset after the last byte of the region
+	 * @param lineProcessor
+	 *            the processor for the lines
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	public void processLines(long start, long end, LineProcessor lineProcessor)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(this.path,
+				StandardOpenOption.READ)) {
+			long size = channel.size();
+			end = Math.min(end, size);
+			long position = start;
+			if (start > 0 && start < end) {
+				// the line that contains the start belongs to the region before
+				MappedByteBuffer window = map(channel, start - 1,
+						(int) Math.min(Integer.MAX_VALUE, end - start + 1));
+				int lineEnd = indexOf(window, 0, (byte) '\n');
+				position = lineEnd == -1 ? end : start + lineEnd;
+			}
+
+			byte[] line = new byte[64 * 1024];
+			int windowSize = WINDOW_SIZE;
+			while (position < end) {
+				MappedByteBuffer window = map(channel, position,
+						(int) Math.min(windowSize, size - position));
+				boolean lastWindow = position + window.limit() == size;
+				int lineStart = 0;
+				while (position + lineStart < end) {
+					int lineEnd = indexOf(window, lineStart, (byte) '\n');
+					if (lineEnd == -1) {
+						if (lastWindow) {
+							lineEnd = window.limit();
+						} else {
+							break; // continue in the next window
+						}
+					}
+					int length = lineEnd - lineStart;
+					if (length > line.length) {
+						line = new byte[Math.max(length, 2 * line.length)];
+					}
+					window.position(lineStart);
+					window.get(line, 0, length);
+					lineProcessor.processLine(line, 0, length);
+					lineStart = lineEnd + 1;
+				}
+				if (lineStart == 0 && !lastWindow) {
+					// the line is longer than the window:
+					windowSize = (int) Math.min(2L * windowSize,
+							Integer.MAX_VALUE);
+				}
+				position += Math.min(lineStart, window.limit());
+			}
+		}
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return this.dumpFile.isAvailable();
+	}
+
+	@Override
+	public String getProjectName() {
+		return this.dumpFile.getProjectName();
+	}
+
+	@Override
+	public String getDateStamp() {
+		return this.dumpFile.getDateStamp();
+	}
+
+	@Override
+	public DumpContentType getDumpContentType() {
+		return this.dumpFile.getDumpContentType();
+	}
+
+	@Override
+	public InputStream getDumpFileStream() throws IOException {
+		return new MappedInputStream(FileChannel.open(this.path,
+				StandardOpenOption.READ));
+	}
+
+	@Override
+	public BufferedReader getDumpFileReader() throws IOException {
+		return new BufferedReader(new InputStreamReader(getDumpFileStream(),
+				StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void prepareDumpFile() throws IOException {
+		this.dumpFile.prepareDumpFile();
+	}
+
+	@Override
+	public String toString() {
+		return this.dumpFile.toString();
+	}
+
+	static MappedByteBuffer map(FileChannel channel, long position, int size)
+			throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	static int indexOf(MappedByteBuffer buffer, int from, byte b) {
+		int limit = buffer.limit();
+		for (int i = from; i < limit; i++) {
+			if (buffer.get(i) == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
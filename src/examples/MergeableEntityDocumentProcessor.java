@@ -0,0 +1,61 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Interface for {@link EntityDocumentProcessor} objects whose results can be
+ * computed in independent parts that are combined in the end. This is used by
+ * {@link ParallelJsonDumpProcessor} to process a dump with several threads:
+ * each thread feeds its own copy of the processor, and all copies are merged
+ * into the original processor once the dump has been read completely.
+ * <p>
+ * Implementations should make sure that the result of processing a sequence of
+ * documents in one processor is the same as processing parts of the sequence in
+ * several copies and merging them afterwards. Copies must not write any output
+ * files on their own, since several of them are active at the same time.
+ *
+ * @param <T>
+ *            the type of the implementing processor
+ */
+public interface MergeableEntityDocumentProcessor<T extends MergeableEntityDocumentProcessor<T>>
+		extends EntityDocumentProcessor {
+
+	/**
+	 * Creates a new processor that has the same configuration as this one, but
+	 * that has not collected any data yet. The copy will be used in a separate
+	 * thread, so it must not share any mutable state with this processor.
+	 *
+	 * @return new processor of the same kind
+	 */
+	T createWorkerCopy();
+
+	/**
+	 * Adds all data collected by the given processor to the data of this
+	 * processor. The given processor is not used anymore afterwards.
+	 *
+	 * @param other
+	 *            a processor that was created with {@link #createWorkerCopy()}
+	 */
+	void merge(T other);
+
+}
@@ -0,0 +1,136 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wikidata.wdtk.dumpfiles.DumpContentType;
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+
+/**
+ * Wrapper for a {@link MwDumpFile} that counts the bytes read from the
+ * (decompressed) dump, so that the throughput of the input can be reported
+ * by {@link ProcessorMetrics}. Everything else is delegated to the wrapped
+ * dump file.
+ */
+public class MeteredDumpFile implements MwDumpFile {
+
+	/**
+	 * Stream that adds the number of bytes read to a counter.
+	 */
+	static class CountingInputStream extends FilterInputStream {
+		final LongAdder byteCount;
+
+		CountingInputStream(InputStream in, LongAdder byteCount) {
+			super(in);
+			this.byteCount = byteCount;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int result = super.read();
+			if (result != -1) {
+				this.byteCount.increment();
+			}
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int result = super.read(b, off, len);
+			if (result > 0) {
+				this.byteCount.add(result);
+			}
+			return result;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long result = super.skip(n);
+			this.byteCount.add(result);
+			return result;
+		}
+	}
+
+	final MwDumpFile dumpFile;
+	final LongAdder byteCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read
+	 * @param byteCount
+	 *            the counter to add the bytes read to
+	 */
+	public MeteredDumpFile(MwDumpFile dumpFile, LongAdder byteCount) {
+		this.dumpFile = dumpFile;
+		this.byteCount = byteCount;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return this.dumpFile.isAvailable();
+	}
+
+	@Override
+	public String getProjectName() {
+		return this.dumpFile.getProjectName();
+	}
+
+	@Override
+	public String getDateStamp() {
+		return this.dumpFile.getDateStamp();
+	}
+
+	@Override
+	public DumpContentType getDumpContentType() {
+		return this.dumpFile.getDumpContentType();
+	}
+
+	@Override
+	public InputStream getDumpFileStream() throws IOException {
+		return new CountingInputStream(this.dumpFile.getDumpFileStream(),
+				this.byteCount);
+	}
+
+	@Override
+	public BufferedReader getDumpFileReader() throws IOException {
+		return new BufferedReader(new InputStreamReader(getDumpFileStream(),
+				StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void prepareDumpFile() throws IOException {
+		this.dumpFile.prepareDumpFile();
+	}
+
+	@Override
+	public String toString() {
+		return this.dumpFile.toString();
+	}
+}
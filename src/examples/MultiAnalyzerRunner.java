@@ -0,0 +1,267 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+/**
+ * Runs several analyzers in one pass over a dump, so that the dump is only
+ * downloaded, decompressed, and parsed once. Facts that several analyzers
+ * need (see {@link EntityFacts}) are computed once for each entity before the
+ * entity is passed to the analyzers. The runner measures how much time each
+ * analyzer spends on the entities, and prints a report of this in the end.
+ * <p>
+ * The main method runs the analyzers of EntityStatisticsProcessor,
+ * ClassPropertyUsageAnalyzer, GenderRatioProcessor, LifeExpectancyProcessor,
+ * WorldMapProcessor, and DataExtractionProcessor together. Their results are
+ * the same as if each of them had been run on its own.
+ * <p>
+ * If all analyzers are {@link PrefilteredEntityDocumentProcessor} objects,
+ * entities are skipped before parsing when none of the filters accepts them.
+ * Likewise, if all analyzers are {@link ProjectingEntityDocumentProcessor}
+ * objects, only the data that one of them needs is parsed.
+ */
+public class MultiAnalyzerRunner implements
+		PrefilteredEntityDocumentProcessor, ProjectingEntityDocumentProcessor {
+
+	final EntityFacts entityFacts = new EntityFacts();
+	final List<String> analyzerNames = new ArrayList<>();
+	final List<EntityDocumentProcessor> analyzers = new ArrayList<>();
+	/**
+	 * The analyzers as they are called, which are wrapped for measuring them
+	 * if {@link ExampleHelpers#PROCESSOR_METRICS} is set.
+	 */
+	final List<EntityDocumentProcessor> analyzerProcessors = new ArrayList<>();
+	/**
+	 * Time in nanoseconds that each analyzer has used.
+	 */
+	long[] analyzerTimes = new long[0];
+	/**
+	 * Time in nanoseconds that was used to compute the shared facts.
+	 */
+	long entityFactsTime = 0;
+	long entityCount = 0;
+
+	/**
+	 * Main method. Processes the whole dump using all analyzers and writes
+	 * their results. To change which dump file to use and whether to run in
+	 * offline mode, modify the settings in {@link ExampleHelpers}.
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		MultiAnalyzerRunner.printDocumentation();
+
+		MultiAnalyzerRunner runner = new MultiAnalyzerRunner();
+
+		EntityStatisticsProcessor entityStatisticsProcessor = new EntityStatisticsProcessor(
+				EntityStatisticsProcessor.DEFAULT_TOP_VALUE_COUNT);
+		runner.addAnalyzer("EntityStatisticsProcessor",
+				entityStatisticsProcessor);
+
+		ClassPropertyUsageAnalyzer classPropertyUsageAnalyzer = new ClassPropertyUsageAnalyzer();
+		runner.addAnalyzer("ClassPropertyUsageAnalyzer",
+				classPropertyUsageAnalyzer);
+
+		GenderRatioProcessor genderRatioProcessor = new GenderRatioProcessor();
+		genderRatioProcessor.setEntityFacts(runner.getEntityFacts());
+		runner.addAnalyzer("GenderRatioProcessor", genderRatioProcessor);
+
+		LifeExpectancyProcessor lifeExpectancyProcessor = new LifeExpectancyProcessor();
+		runner.addAnalyzer("LifeExpectancyProcessor", lifeExpectancyProcessor);
+
+		WorldMapProcessor worldMapProcessor = new WorldMapProcessor(8 * 360,
+				1.0);
+		worldMapProcessor.addSite(null); // all data, no filter
+		// See WorldMapProcessor.main() for more sites:
+		worldMapProcessor.addSite("enwiki");
+		worldMapProcessor.addSite("dewiki");
+		worldMapProcessor.addSite("frwiki");
+		runner.addAnalyzer("WorldMapProcessor", worldMapProcessor);
+
+		DataExtractionProcessor dataExtractionProcessor = new DataExtractionProcessor();
+		dataExtractionProcessor.setEntityFacts(runner.getEntityFacts());
+		runner.addAnalyzer("DataExtractionProcessor", dataExtractionProcessor);
+
+		ExampleHelpers.processEntitiesFromWikidataDump(runner);
+
+		entityStatisticsProcessor.writeFinalResults();
+		classPropertyUsageAnalyzer.writeFinalReports();
+		genderRatioProcessor.writeFinalResults();
+		lifeExpectancyProcessor.writeFinalResults();
+		worldMapProcessor.writeFinalData();
+		dataExtractionProcessor.close();
+
+		runner.printTimes();
+	}
+
+	/**
+	 * Returns the facts that are computed once for every entity. Analyzers
+	 * that use these facts should be configured to use this object.
+	 *
+	 * @return the shared facts
+	 */
+	public EntityFacts getEntityFacts() {
+		return this.entityFacts;
+	}
+
+	/**
+	 * Adds an analyzer. Analyzers are called in the order in which they have
+	 * been added.
+	 *
+	 * @param name
+	 *            the name of the analyzer used in the report
+	 * @param analyzer
+	 *            the processor for the entities
+	 */
+	public void addAnalyzer(String name, EntityDocumentProcessor analyzer) {
+		this.analyzerNames.add(name);
+		this.analyzers.add(analyzer);
+		this.analyzerProcessors.add(ExampleHelpers.instrument(name, analyzer));
+		this.analyzerTimes = Arrays.copyOf(this.analyzerTimes,
+				this.analyzers.size());
+	}
+
+	@Override
+	public RawEntityFilter getRawEntityFilter() {
+		RawEntityFilter result = null;
+		for (EntityDocumentProcessor analyzer : this.analyzers) {
+			RawEntityFilter filter = ExampleHelpers.getRawEntityFilter(analyzer);
+			if (filter == null) {
+				return null;
+			}
+			result = result == null ? filter : result.or(filter);
+		}
+		return result;
+	}
+
+	@Override
+	public EntityProjection getEntityProjection() {
+		EntityProjection result = null;
+		for (EntityDocumentProcessor analyzer : this.analyzers) {
+			EntityProjection projection = ExampleHelpers
+					.getEntityProjection(analyzer);
+			if (projection == null) {
+				return null;
+			}
+			result = result == null ? projection : result.union(projection);
+		}
+		return result;
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		processDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		processDocument(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		processDocument(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		processDocument(mediaInfoDocument);
+	}
+
+	/**
+	 * Computes the shared facts and passes the document to all analyzers,
+	 * measuring the time of each step.
+	 */
+	void processDocument(EntityDocument document) {
+		this.entityCount++;
+		long startTime = System.nanoTime();
+		this.entityFacts.computeAll(document);
+		long endTime = System.nanoTime();
+		this.entityFactsTime += endTime - startTime;
+
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			startTime = endTime;
+			ParallelJsonDumpProcessor.dispatchDocument(document,
+					this.analyzerProcessors.get(i));
+			endTime = System.nanoTime();
+			this.analyzerTimes[i] += endTime - startTime;
+		}
+	}
+
+	/**
+	 * Prints how much time each analyzer has used, in total, per entity, and
+	 * as a share of the time used by all analyzers together.
+	 */
+	public void printTimes() {
+		long totalTime = this.entityFactsTime;
+		for (long analyzerTime : this.analyzerTimes) {
+			totalTime += analyzerTime;
+		}
+
+		System.out.println("*** Time used by analyzers for " + this.entityCount
+				+ " entities:");
+		printTime("shared facts", this.entityFactsTime, totalTime);
+		for (int i = 0; i < this.analyzers.size(); i++) {
+			printTime(this.analyzerNames.get(i), this.analyzerTimes[i],
+					totalTime);
+		}
+	}
+
+	void printTime(String name, long time, long totalTime) {
+		double perEntity = this.entityCount == 0 ? 0 : time / 1000.0
+				/ this.entityCount;
+		double share = totalTime == 0 ? 0 : 100.0 * time / totalTime;
+		System.out.println(String.format(
+				"*** %-28s %10.1f sec %8.2f usec/entity %5.1f%%", name,
+				time / 1000000000.0, perEntity, share));
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: MultiAnalyzerRunner");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program will download and process dumps from Wikidata.");
+		System.out
+				.println("*** It runs several example analyzers in a single pass over the");
+		System.out
+				.println("*** dump and writes the results of each of them. In the end, it");
+		System.out
+				.println("*** prints how much of the processing time each analyzer used.");
+		System.out.println("*** See source code for further details.");
+		System.out
+				.println("********************************************************************");
+	}
+}
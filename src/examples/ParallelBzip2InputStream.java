@@ -0,0 +1,508 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import examples.DumpCheckpoint.RestartPoint;
+
+/**
+ * Input stream that decompresses a bzip2 file using several threads. The
+ * decompressed data is returned in the original order, so the stream can be
+ * used like a {@link BZip2CompressorInputStream}.
+ * <p>
+ * A bzip2 file is a sequence of blocks of at most 900k of uncompressed data,
+ * each of which is compressed independently. Blocks start with a fixed 48 bit
+ * magic number, but they are not aligned to byte boundaries. A background
+ * thread therefore scans the file bit by bit for these magic numbers, and cuts
+ * it into blocks. Every block is then turned into a small bzip2 file of its
+ * own, which is decompressed by a pool of threads. The block checksum is
+ * checked for every block.
+ * <p>
+ * The magic number could also occur by chance inside the compressed data. In
+ * this case, the two parts of the block fail to decompress, and they are
+ * joined again and decompressed in the reading thread.
+ * <p>
+ * The stream remembers where the last few blocks start in the file, so that
+ * reading can be restarted at a block boundary after an interruption (see
+ * {@link DumpCheckpoint}).
+ */
+public class ParallelBzip2InputStream extends InputStream {
+
+	static final long BLOCK_MAGIC = 0x314159265359L;
+	static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+	static final long MAGIC_MASK = 0xffffffffffffL;
+
+	/**
+	 * Number of blocks that are joined at most when trying to recover from a
+	 * block magic number that occurred by chance.
+	 */
+	static final int MAX_JOINED_BLOCKS = 4;
+
+	/**
+	 * Bits of one compressed block, starting with the block magic number and
+	 * ending before the next magic number.
+	 */
+	static class Block {
+		final byte[] data;
+		final int startBit;
+		final long bitLength;
+		/**
+		 * Position of the first bit of the block in the file.
+		 */
+		final long fileStartBit;
+		final Future<byte[]> result;
+
+		Block(byte[] data, int startBit, long bitLength, long fileStartBit,
+				Future<byte[]> result) {
+			this.data = data;
+			this.startBit = startBit;
+			this.bitLength = bitLength;
+			this.fileStartBit = fileStartBit;
+			this.result = result;
+		}
+	}
+
+	/**
+	 * Marks the end of the list of blocks.
+	 */
+	static final Block END_OF_BLOCKS = new Block(null, 0, 0, 0, null);
+
+	/**
+	 * Number of recent block starts that are remembered as restart points.
+	 */
+	static final int MAX_RESTART_POINTS = 64;
+
+	final ExecutorService executor;
+	final BlockingQueue<Block> blocks;
+	final Thread scannerThread;
+	volatile IOException scannerException;
+
+	byte[] currentData;
+	int currentPosition;
+	boolean finished = false;
+
+	/**
+	 * Number of decompressed bytes before the current block, counted from
+	 * the start of the file.
+	 */
+	long currentDataOffset;
+	final ArrayDeque<RestartPoint> restartPoints = new ArrayDeque<>();
+
+	/**
+	 * Opens the given bzip2 file for reading.
+	 *
+	 * @param path
+	 *            the bzip2 file
+	 * @param threadCount
+	 *            the number of decompression threads to use
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	public ParallelBzip2InputStream(Path path, int threadCount)
+			throws IOException {
+		this(path, threadCount, null);
+	}
+
+	/**
+	 * Opens the given bzip2 file for reading from a restart point that was
+	 * returned by {@link #getRestartPoint(long)}. The first byte that is read
+	 * is the byte at the offset of the restart point.
+	 *
+	 * @param path
+	 *            the bzip2 file
+	 * @param threadCount
+	 *            the number of decompression threads to use
+	 * @param restartPoint
+	 *            the block where reading starts, or null to read the whole
+	 *            file
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	public ParallelBzip2InputStream(Path path, int threadCount,
+			RestartPoint restartPoint) throws IOException {
+		long startBit = restartPoint == null ? 0 : restartPoint.position;
+		this.currentDataOffset = restartPoint == null ? 0
+				: restartPoint.offset;
+		SeekableByteChannel channel = Files.newByteChannel(path);
+		channel.position(startBit / 8);
+		InputStream in = new BufferedInputStream(
+				Channels.newInputStream(channel), 1024 * 1024);
+		int threads = Math.max(1, threadCount);
+		this.blocks = new ArrayBlockingQueue<>(2 * threads);
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "bzip2-decompression");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scannerThread = new Thread(() -> scanBlocks(in, startBit),
+				"bzip2-scanner");
+		this.scannerThread.setDaemon(true);
+		this.scannerThread.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = read(b, 0, 1);
+		return read == -1 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (this.currentData == null
+				|| this.currentPosition == this.currentData.length) {
+			if (this.currentData != null) {
+				this.currentDataOffset += this.currentData.length;
+				this.currentData = null;
+			}
+			if (this.finished || !nextBlock()) {
+				this.finished = true;
+				return -1;
+			}
+		}
+		int count = Math.min(len, this.currentData.length
+				- this.currentPosition);
+		System.arraycopy(this.currentData, this.currentPosition, b, off, count);
+		this.currentPosition += count;
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.finished = true;
+		this.scannerThread.interrupt();
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the most recent block start at or before the given offset in
+	 * the decompressed data. Only the last few blocks are remembered, so the
+	 * offset should be close to the current position of the stream.
+	 *
+	 * @param offset
+	 *            the offset in the decompressed data
+	 * @return the restart point, or null if no suitable block is known
+	 */
+	public RestartPoint getRestartPoint(long offset) {
+		Iterator<RestartPoint> iterator = this.restartPoints
+				.descendingIterator();
+		while (iterator.hasNext()) {
+			RestartPoint restartPoint = iterator.next();
+			if (restartPoint.offset <= offset) {
+				return restartPoint;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Fetches the decompressed data of the next block.
+	 *
+	 * @return false if there are no more blocks
+	 */
+	boolean nextBlock() throws IOException {
+		Block block = takeBlock();
+		if (block == END_OF_BLOCKS) {
+			if (this.scannerException != null) {
+				throw this.scannerException;
+			}
+			return false;
+		}
+
+		this.restartPoints.add(new RestartPoint(block.fileStartBit,
+				this.currentDataOffset));
+		if (this.restartPoints.size() > MAX_RESTART_POINTS) {
+			this.restartPoints.removeFirst();
+		}
+		try {
+			this.currentData = block.result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for data", e);
+		} catch (ExecutionException e) {
+			this.currentData = decodeJoinedBlocks(block, e.getCause());
+		}
+		this.currentPosition = 0;
+		return true;
+	}
+
+	/**
+	 * Tries to decode a block that failed to decompress together with the
+	 * blocks that follow it. This repairs blocks that were split at a
+	 * position that only looked like a block magic number.
+	 *
+	 * @param block
+	 *            the block that failed
+	 * @param cause
+	 *            the reason why the block failed
+	 * @return the decompressed data
+	 * @throws IOException
+	 *             if the data could not be decompressed
+	 */
+	byte[] decodeJoinedBlocks(Block block, Throwable cause) throws IOException {
+		BitWriter joined = new BitWriter();
+		joined.writeBits(block.data, block.startBit, block.bitLength);
+		for (int i = 1; i < MAX_JOINED_BLOCKS; i++) {
+			Block next = takeBlock();
+			if (next == END_OF_BLOCKS) {
+				break;
+			}
+			next.result.cancel(true);
+			joined.writeBits(next.data, next.startBit, next.bitLength);
+			try {
+				return decodeBlock(joined.toByteArray(), 0, joined.bitLength);
+			} catch (IOException e) {
+				// try again with one more block
+			}
+		}
+		throw new IOException("Invalid bzip2 block: " + cause.getMessage(),
+				cause);
+	}
+
+	Block takeBlock() throws IOException {
+		Block block = this.blocks.peek();
+		if (block != null) {
+			return block == END_OF_BLOCKS ? block : this.blocks.poll();
+		}
+		try {
+			block = this.blocks.take();
+			if (block == END_OF_BLOCKS) {
+				// leave the marker in place for further calls
+				this.blocks.offer(END_OF_BLOCKS);
+			}
+			return block;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for data", e);
+		}
+	}
+
+	/**
+	 * Reads the compressed file and cuts it into blocks, which are submitted
+	 * for decompression. Runs in its own thread.
+	 *
+	 * @param in
+	 *            the compressed data, starting with the byte that contains
+	 *            the start bit
+	 * @param startBit
+	 *            the position in the file where the first block starts, or 0
+	 *            to start at the beginning
+	 */
+	void scanBlocks(InputStream in, long startBit) {
+		try (InputStream stream = in) {
+			// Bytes of the current block, starting with the byte that contains
+			// the first bit of the block magic number:
+			byte[] buffer = new byte[1024 * 1024];
+			int length = 0;
+			long bufferStartBit = startBit / 8 * 8;
+			long blockStartBit = -1;
+
+			long window = 0;
+			long bitPosition = bufferStartBit;
+			byte[] input = new byte[64 * 1024];
+			int read;
+			while ((read = stream.read(input)) != -1) {
+				for (int k = 0; k < read; k++) {
+					int b = input[k] & 0xff;
+					if (length == buffer.length) {
+						if (blockStartBit == -1) {
+							// not in a block; keep only the last bytes
+							System.arraycopy(buffer, length - 8, buffer, 0, 8);
+							bufferStartBit += (long) (length - 8) * 8;
+							length = 8;
+						} else {
+							buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+						}
+					}
+					buffer[length++] = (byte) b;
+	
+					for (int i = 7; i >= 0; i--) {
+						window = ((window << 1) | ((b >> i) & 1)) & MAGIC_MASK;
+						bitPosition++;
+						if (window != BLOCK_MAGIC
+								&& window != END_OF_STREAM_MAGIC
+								|| bitPosition - 48 < startBit) {
+							continue;
+						}
+	
+						long magicStartBit = bitPosition - 48;
+						if (blockStartBit != -1) {
+							submitBlock(buffer, bufferStartBit, blockStartBit,
+									magicStartBit);
+						}
+						// Keep the bytes from the start of the magic number:
+						int keepFrom = (int) (magicStartBit - bufferStartBit) / 8;
+						byte[] newBuffer = new byte[Math.max(1024 * 1024,
+								length - keepFrom)];
+						System.arraycopy(buffer, keepFrom, newBuffer, 0, length
+								- keepFrom);
+						buffer = newBuffer;
+						length -= keepFrom;
+						bufferStartBit += (long) keepFrom * 8;
+						blockStartBit = window == BLOCK_MAGIC ? magicStartBit
+								: -1;
+					}
+				}
+			}
+			if (blockStartBit != -1) {
+				throw new IOException("Unexpected end of bzip2 data");
+			}
+		} catch (IOException e) {
+			this.scannerException = e;
+		} catch (InterruptedException e) {
+			return;
+		}
+		try {
+			this.blocks.put(END_OF_BLOCKS);
+		} catch (InterruptedException e) {
+			// closed while finishing
+		}
+	}
+
+	void submitBlock(byte[] buffer, long bufferStartBit, long blockStartBit,
+			long blockEndBit) throws InterruptedException {
+		int startByte = (int) ((blockStartBit - bufferStartBit) / 8);
+		int endByte = (int) ((blockEndBit - bufferStartBit + 7) / 8);
+		byte[] data = Arrays.copyOfRange(buffer, startByte, endByte);
+		int startBit = (int) ((blockStartBit - bufferStartBit) % 8);
+		long bitLength = blockEndBit - blockStartBit;
+		Future<byte[]> result = this.executor.submit(() -> decodeBlock(data,
+				startBit, bitLength));
+		this.blocks.put(new Block(data, startBit, bitLength, blockStartBit,
+				result));
+	}
+
+	/**
+	 * Decompresses a single block by putting it into a bzip2 stream of its
+	 * own. Since the stream contains only one block, its combined checksum is
+	 * the checksum of the block.
+	 *
+	 * @param data
+	 *            the bytes that contain the block
+	 * @param startBit
+	 *            the bit in the first byte where the block starts
+	 * @param bitLength
+	 *            the length of the block in bits
+	 * @return the decompressed data
+	 * @throws IOException
+	 *             if the block is not valid
+	 */
+	static byte[] decodeBlock(byte[] data, int startBit, long bitLength)
+			throws IOException {
+		BitWriter writer = new BitWriter();
+		writer.writeBits('B', 8);
+		writer.writeBits('Z', 8);
+		writer.writeBits('h', 8);
+		writer.writeBits('9', 8);
+		writer.writeBits(data, startBit, bitLength);
+		writer.writeBits(END_OF_STREAM_MAGIC, 48);
+		// block checksum, which directly follows the block magic number:
+		writer.writeBits(data, startBit + 48, 32);
+		byte[] stream = writer.toByteArray();
+
+		try (InputStream in = new BZip2CompressorInputStream(
+				new ByteArrayInputStream(stream))) {
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * Writes a sequence of bits into a growing byte array.
+	 */
+	static class BitWriter {
+		byte[] data = new byte[1024 * 1024];
+		long bitLength = 0;
+		long pending = 0;
+		int pendingBits = 0;
+		int length = 0;
+
+		void writeBits(long value, int count) {
+			this.pending = (this.pending << count)
+					| (value & ((1L << count) - 1));
+			this.pendingBits += count;
+			this.bitLength += count;
+			while (this.pendingBits >= 8) {
+				this.pendingBits -= 8;
+				writeByte((int) (this.pending >>> this.pendingBits));
+			}
+			this.pending &= (1L << this.pendingBits) - 1;
+		}
+
+		void writeBits(byte[] source, long fromBit, long count) {
+			long bit = fromBit;
+			long end = fromBit + count;
+			while (end - bit >= 8) {
+				int index = (int) (bit >>> 3);
+				int shift = (int) (bit & 7);
+				int value = (source[index] & 0xff) << shift;
+				if (shift > 0) {
+					value |= (source[index + 1] & 0xff) >>> (8 - shift);
+				}
+				writeBits(value, 8);
+				bit += 8;
+			}
+			while (bit < end) {
+				int index = (int) (bit >>> 3);
+				writeBits((source[index] >> (7 - (int) (bit & 7))) & 1, 1);
+				bit++;
+			}
+		}
+
+		void writeByte(int value) {
+			if (this.length == this.data.length) {
+				this.data = Arrays.copyOf(this.data, 2 * this.data.length);
+			}
+			this.data[this.length++] = (byte) value;
+		}
+
+		byte[] toByteArray() {
+			int pendingBits = this.pendingBits;
+			byte[] result = Arrays.copyOf(this.data, this.length
+					+ (pendingBits > 0 ? 1 : 0));
+			if (pendingBits > 0) {
+				result[this.length] = (byte) (this.pending << (8 - pendingBits));
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.wikidata.wdtk.dumpfiles.DumpContentType;
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
+import org.wikidata.wdtk.util.CompressionType;
+
+import examples.DumpCheckpoint.RestartPoint;
+
+/**
+ * Wrapper for a {@link MwDumpFile} that decompresses the dump with several
+ * threads (see {@link ParallelGzipInputStream} and
+ * {@link ParallelBzip2InputStream}). Everything else is delegated to the
+ * wrapped dump file, so the wrapper can be passed to
+ * {@link org.wikidata.wdtk.dumpfiles.DumpProcessingController#processDump(MwDumpFile)}
+ * in place of the original file. If the dump is not available as a local gzip
+ * or bzip2 file (after preparing it, which may trigger a download), the
+ * wrapped file's own stream is used.
+ */
+public class ParallelDecompressionDumpFile implements MwDumpFile {
+
+	final MwDumpFile dumpFile;
+	final int threadCount;
+	final Path downloadDirectory;
+
+	/**
+	 * Constructor. Dump files downloaded from Wikimedia are expected in the
+	 * default download directory of Wikidata Toolkit.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read
+	 * @param threadCount
+	 *            the number of decompression threads to use
+	 */
+	public ParallelDecompressionDumpFile(MwDumpFile dumpFile, int threadCount) {
+		this(dumpFile, threadCount, Paths.get(System.getProperty("user.dir")));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dumpFile
+	 *            the dump file to read
+	 * @param threadCount
+	 *            the number of decompression threads to use
+	 * @param downloadDirectory
+	 *            the download directory used for dump files from Wikimedia
+	 */
+	public ParallelDecompressionDumpFile(MwDumpFile dumpFile, int threadCount,
+			Path downloadDirectory) {
+		this.dumpFile = dumpFile;
+		this.threadCount = threadCount;
+		this.downloadDirectory = downloadDirectory;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return this.dumpFile.isAvailable();
+	}
+
+	@Override
+	public String getProjectName() {
+		return this.dumpFile.getProjectName();
+	}
+
+	@Override
+	public String getDateStamp() {
+		return this.dumpFile.getDateStamp();
+	}
+
+	@Override
+	public DumpContentType getDumpContentType() {
+		return this.dumpFile.getDumpContentType();
+	}
+
+	@Override
+	public InputStream getDumpFileStream() throws IOException {
+		// make sure that the file has been downloaded before looking for it:
+		prepareDumpFile();
+		Path path = getLocalPath();
+		if (path == null || !Files.isRegularFile(path)) {
+			return this.dumpFile.getDumpFileStream();
+		}
+
+		CompressionType compressionType = WmfDumpFile
+				.getDumpFileCompressionType(path.getFileName().toString());
+		if (compressionType == CompressionType.GZIP) {
+			return new BufferedInputStream(new ParallelGzipInputStream(path,
+					this.threadCount));
+		} else if (compressionType == CompressionType.BZ2) {
+			return new BufferedInputStream(new ParallelBzip2InputStream(path,
+					this.threadCount));
+		} else {
+			return this.dumpFile.getDumpFileStream();
+		}
+	}
+
+	/**
+	 * Opens the decompressed dump at the given offset, e.g., to resume
+	 * processing from a {@link DumpCheckpoint}. If the dump is a local bzip2
+	 * file, decompression starts at the given restart point, and the stream
+	 * is a {@link ParallelBzip2InputStream} that provides further restart
+	 * points. Otherwise, the data before the offset is decompressed and
+	 * skipped.
+	 *
+	 * @param offset
+	 *            the offset of the first byte to read in the decompressed
+	 *            dump
+	 * @param restartPoint
+	 *            a restart point at or before the offset, or null if none is
+	 *            known
+	 * @return the stream
+	 * @throws IOException
+	 *             if the dump could not be opened
+	 */
+	public InputStream getDumpFileStream(long offset, RestartPoint restartPoint)
+			throws IOException {
+		prepareDumpFile();
+		Path path = getLocalPath();
+		InputStream in;
+		long position = 0;
+		if (path != null && Files.isRegularFile(path)
+				&& WmfDumpFile.getDumpFileCompressionType(path.getFileName()
+						.toString()) == CompressionType.BZ2) {
+			if (restartPoint != null && restartPoint.offset <= offset) {
+				position = restartPoint.offset;
+			} else {
+				restartPoint = null;
+			}
+			in = new ParallelBzip2InputStream(path, this.threadCount,
+					restartPoint);
+		} else {
+			in = getDumpFileStream();
+		}
+
+		skipFully(in, offset - position);
+		return in;
+	}
+
+	/**
+	 * Skips the given number of bytes of the stream.
+	 *
+	 * @param in
+	 *            the stream
+	 * @param count
+	 *            the number of bytes to skip
+	 * @throws IOException
+	 *             if the stream ends before
+	 */
+	static void skipFully(InputStream in, long count) throws IOException {
+		while (count > 0) {
+			long skipped = in.skip(count);
+			if (skipped <= 0) {
+				if (in.read() == -1) {
+					in.close();
+					throw new IOException("Stream ended " + count
+							+ " bytes before the expected position");
+				}
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
+	@Override
+	public BufferedReader getDumpFileReader() throws IOException {
+		return new BufferedReader(new InputStreamReader(getDumpFileStream(),
+				StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void prepareDumpFile() throws IOException {
+		this.dumpFile.prepareDumpFile();
+	}
+
+	@Override
+	public String toString() {
+		return this.dumpFile.toString();
+	}
+
+	/**
+	 * Returns the location of the dump file on disk, or null if it is not
+	 * known.
+	 */
+	Path getLocalPath() {
+		if (this.dumpFile instanceof MwLocalDumpFile) {
+			return ((MwLocalDumpFile) this.dumpFile).getPath();
+		} else if (this.dumpFile instanceof WmfDumpFile) {
+			DumpContentType dumpContentType = getDumpContentType();
+			String dateStamp = getDateStamp();
+			String projectName = getProjectName();
+			return this.downloadDirectory
+					.resolve("dumpfiles")
+					.resolve(projectName)
+					.resolve(
+							WmfDumpFile.getDumpFileDirectoryName(
+									dumpContentType, dateStamp))
+					.resolve(
+							WmfDumpFile.getDumpFileName(dumpContentType,
+									projectName, dateStamp));
+		} else {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,679 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Input stream that decompresses a gzip file using several threads. The
+ * decompressed data is returned in the original order, so the stream can be
+ * used like a {@link GZIPInputStream}.
+ * <p>
+ * A gzip file may consist of several independently compressed "members" that
+ * are simply concatenated (this is what bgzip or concatenating gzip files
+ * produces, and how {@link BlockIndexedDumpWriter} writes its files). For such
+ * files, the compressed file is cut into chunks of equal size, and each thread
+ * looks for the first member that starts in its chunk. Since the gzip header
+ * is only a short byte pattern, this search is speculative: every candidate is
+ * decoded, and only accepted if it decodes without errors and matches the CRC
+ * checksum. The results are then stitched together in order, checking that
+ * the members found by one thread end exactly where the members of the next
+ * thread start. Any gaps, e.g., due to very large members, are decoded
+ * sequentially.
+ * <p>
+ * A file that consists of a single member (which is how Wikimedia creates its
+ * dumps) cannot be split in this way, since deflate blocks depend on the data
+ * that came before them. Such files are not decompressed in parallel at all:
+ * the stream only inflates them in one background thread that reads ahead of
+ * the code that consumes the data, and the number of threads has no effect.
+ * <p>
+ * The stream therefore always starts by inflating the first member in the
+ * background thread. Only when this member has ended, and the exact position
+ * of the next member is known, the rest of the file is decompressed in
+ * parallel as described above. No guess about the layout of the file is
+ * needed, but a large first member is always decompressed by one thread.
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+	/**
+	 * Size of the compressed chunks that are processed by one task.
+	 */
+	static final int CHUNK_SIZE = 2 * 1024 * 1024;
+
+	/**
+	 * Maximal size of decompressed data that a single task may produce. Larger
+	 * members are decompressed sequentially when they are read.
+	 */
+	static final int MAX_TASK_OUTPUT = 64 * 1024 * 1024;
+
+	/**
+	 * Size of the chunks handed over by the background thread if the file has
+	 * only one member.
+	 */
+	static final int PIPELINE_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Result of decompressing one chunk of the compressed file.
+	 */
+	static class ChunkResult {
+		/**
+		 * File position of the first member decoded for this chunk, or -1 if
+		 * no member starts in the chunk.
+		 */
+		final long start;
+		/**
+		 * File position after the last member that was decoded.
+		 */
+		final long end;
+		final byte[] data;
+		final int length;
+
+		ChunkResult(long start, long end, byte[] data, int length) {
+			this.start = start;
+			this.end = end;
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+	final FileChannel channel;
+	final long fileSize;
+	final int threadCount;
+
+	// State for multi-member files:
+	ExecutorService executor;
+	final ArrayDeque<Future<ChunkResult>> pendingChunks = new ArrayDeque<>();
+	long nextChunkStart = 0;
+	long expectedPosition = 0;
+	byte[] currentData;
+	int currentPosition;
+	int currentLength;
+	GzipMemberInputStream currentMember;
+
+	// State for the first member:
+	Thread pipelineThread;
+	BlockingQueue<byte[]> pipelineQueue;
+	volatile IOException pipelineException;
+	/**
+	 * File position after the first member, or -1 if it has not been read
+	 * completely.
+	 */
+	volatile long firstMemberEnd = -1;
+	volatile boolean closed = false;
+	boolean pipelineFinished = false;
+
+	/**
+	 * Opens the given gzip file for reading.
+	 *
+	 * @param path
+	 *            the gzip file
+	 * @param threadCount
+	 *            the number of decompression threads to use
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	public ParallelGzipInputStream(Path path, int threadCount)
+			throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.fileSize = this.channel.size();
+		this.threadCount = Math.max(1, threadCount);
+
+		startPipeline();
+	}
+
+	/**
+	 * Starts to decompress the members from the given position on in
+	 * parallel.
+	 *
+	 * @param position
+	 *            the start of the second member of the file
+	 */
+	void startParallelDecoding(long position) {
+		this.executor = Executors.newFixedThreadPool(this.threadCount, r -> {
+			Thread thread = new Thread(r, "gzip-decompression");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.nextChunkStart = position;
+		this.expectedPosition = position;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		int read = read(b, 0, 1);
+		return read == -1 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (true) {
+			if (this.currentData != null
+					&& this.currentPosition < this.currentLength) {
+				int count = Math.min(len, this.currentLength
+						- this.currentPosition);
+				System.arraycopy(this.currentData, this.currentPosition, b,
+						off, count);
+				this.currentPosition += count;
+				return count;
+			}
+			if (this.currentMember != null) {
+				int count = this.currentMember.read(b, off, len);
+				if (count > 0) {
+					return count;
+				}
+				this.expectedPosition = this.currentMember.getEnd();
+				this.currentMember.close();
+				this.currentMember = null;
+			}
+			boolean hasMore;
+			if (this.executor != null) {
+				hasMore = advanceChunks();
+			} else {
+				hasMore = advancePipeline();
+			}
+			if (!hasMore) {
+				return -1;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.closed = true;
+		if (this.executor != null) {
+			for (Future<ChunkResult> future : this.pendingChunks) {
+				future.cancel(true);
+			}
+			this.executor.shutdownNow();
+		}
+		if (this.pipelineThread != null) {
+			this.pipelineThread.interrupt();
+		}
+		if (this.currentMember != null) {
+			this.currentMember.close();
+		}
+		this.channel.close();
+	}
+
+	/**
+	 * Finds the next piece of decompressed data of a multi-member file. This
+	 * is either the result of a chunk that starts exactly where the previous
+	 * data ended, or a member that is decoded sequentially to fill a gap.
+	 *
+	 * @return false if there is no more data
+	 */
+	boolean advanceChunks() throws IOException {
+		while (true) {
+			fillChunkQueue();
+			if (this.pendingChunks.isEmpty()) {
+				if (this.expectedPosition < this.fileSize) {
+					return startMember(this.expectedPosition);
+				}
+				return false;
+			}
+
+			ChunkResult next = getResult(this.pendingChunks.peek());
+			if (next.start < this.expectedPosition) {
+				// no member or already covered by the previous chunk
+				this.pendingChunks.poll();
+			} else if (next.start > this.expectedPosition) {
+				if (!startMember(this.expectedPosition)) {
+					// skip data that is not a valid member
+					this.expectedPosition = next.start;
+					continue;
+				}
+				return true;
+			} else {
+				this.pendingChunks.poll();
+				this.currentData = next.data;
+				this.currentPosition = 0;
+				this.currentLength = next.length;
+				this.expectedPosition = next.end;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Starts decoding the member at the given position sequentially.
+	 *
+	 * @param position
+	 *            start of the member
+	 * @return false if there is no valid member at this position
+	 */
+	boolean startMember(long position) {
+		try {
+			this.currentMember = new GzipMemberInputStream(this.channel,
+					position);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Submits further decompression tasks, so that there are always a few more
+	 * than threads.
+	 */
+	void fillChunkQueue() {
+		while (this.pendingChunks.size() < 2 * this.threadCount
+				&& this.nextChunkStart < this.fileSize) {
+			long chunkStart = this.nextChunkStart;
+			long chunkEnd = Math.min(this.fileSize, chunkStart + CHUNK_SIZE);
+			this.pendingChunks.add(this.executor.submit(() -> decodeChunk(
+					chunkStart, chunkEnd)));
+			this.nextChunkStart = chunkEnd;
+		}
+	}
+
+	ChunkResult getResult(Future<ChunkResult> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for data", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Decompression failed: "
+					+ e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Decodes all members that start in the given range of the file. The
+	 * first member is found by trying all positions that look like a gzip
+	 * header.
+	 *
+	 * @param chunkStart
+	 *            first byte of the chunk
+	 * @param chunkEnd
+	 *            position after the last byte of the chunk
+	 * @return the decompressed data
+	 */
+	ChunkResult decodeChunk(long chunkStart, long chunkEnd) throws IOException {
+		byte[] compressed = new byte[(int) Math.min(chunkEnd - chunkStart + 3,
+				this.fileSize - chunkStart)];
+		readFully(this.channel, ByteBuffer.wrap(compressed), chunkStart);
+
+		OutputBuffer output = new OutputBuffer();
+		for (int i = 0; i < chunkEnd - chunkStart; i++) {
+			if (!isHeaderCandidate(compressed, i)) {
+				continue;
+			}
+			long start = chunkStart + i;
+			long position = start;
+			while (position < chunkEnd) {
+				int sizeBefore = output.length;
+				long memberEnd = decodeMember(position, output);
+				if (memberEnd == -1) {
+					output.length = sizeBefore;
+					break;
+				}
+				position = memberEnd;
+			}
+			if (position > start) {
+				return new ChunkResult(start, position, output.data,
+						output.length);
+			}
+		}
+		return new ChunkResult(-1, -1, null, 0);
+	}
+
+	/**
+	 * Decodes one member into the output buffer.
+	 *
+	 * @return the position after the member, or -1 if no valid member could be
+	 *         decoded with the available space
+	 */
+	long decodeMember(long position, OutputBuffer output) {
+		try (GzipMemberInputStream member = new GzipMemberInputStream(
+				this.channel, position)) {
+			while (true) {
+				if (output.length == output.data.length) {
+					if (output.length >= MAX_TASK_OUTPUT) {
+						return -1;
+					}
+					output.grow();
+				}
+				int read = member.read(output.data, output.length,
+						output.data.length - output.length);
+				if (read == -1) {
+					return member.getEnd();
+				}
+				output.length += read;
+			}
+		} catch (IOException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks if the data at the given position could be the start of a gzip
+	 * member.
+	 */
+	static boolean isHeaderCandidate(byte[] data, int i) {
+		return i + 3 < data.length && data[i] == (byte) 0x1f
+				&& data[i + 1] == (byte) 0x8b && data[i + 2] == 8
+				&& (data[i + 3] & 0xe0) == 0;
+	}
+
+	/**
+	 * Starts the background thread that decompresses the first member of the
+	 * file.
+	 */
+	void startPipeline() {
+		this.pipelineQueue = new ArrayBlockingQueue<>(8);
+		this.pipelineThread = new Thread(() -> {
+			try (GzipMemberInputStream in = new GzipMemberInputStream(
+					this.channel, 0)) {
+				while (!this.closed) {
+					byte[] buffer = new byte[PIPELINE_BUFFER_SIZE];
+					int length = 0;
+					int read = 0;
+					while (length < buffer.length
+							&& (read = in.read(buffer, length, buffer.length
+									- length)) != -1) {
+						length += read;
+					}
+					if (length > 0) {
+						offerToPipeline(length < buffer.length ? Arrays
+								.copyOf(buffer, length) : buffer);
+					}
+					if (read == -1) {
+						this.firstMemberEnd = in.getEnd();
+						break;
+					}
+				}
+			} catch (IOException e) {
+				this.pipelineException = e;
+			} catch (InterruptedException e) {
+				return;
+			}
+			try {
+				offerToPipeline(new byte[0]);
+			} catch (InterruptedException e) {
+				// closed while finishing
+			}
+		}, "gzip-decompression");
+		this.pipelineThread.setDaemon(true);
+		this.pipelineThread.start();
+	}
+
+	void offerToPipeline(byte[] buffer) throws InterruptedException {
+		while (!this.closed) {
+			if (this.pipelineQueue.offer(buffer, 100, TimeUnit.MILLISECONDS)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Takes the next buffer from the background thread. After the first
+	 * member, the remaining members are decompressed in parallel.
+	 *
+	 * @return false if there is no more data
+	 */
+	boolean advancePipeline() throws IOException {
+		if (this.pipelineFinished) {
+			return false;
+		}
+		byte[] buffer;
+		try {
+			buffer = this.pipelineQueue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for data", e);
+		}
+		if (buffer.length == 0) {
+			this.pipelineFinished = true;
+			if (this.pipelineException != null) {
+				throw this.pipelineException;
+			}
+			if (this.firstMemberEnd != -1
+					&& this.firstMemberEnd < this.fileSize) {
+				startParallelDecoding(this.firstMemberEnd);
+				return advanceChunks();
+			}
+			return false;
+		}
+		this.currentData = buffer;
+		this.currentPosition = 0;
+		this.currentLength = buffer.length;
+		return true;
+	}
+
+	static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read == -1) {
+				throw new EOFException();
+			}
+			position += read;
+		}
+	}
+
+	/**
+	 * Simple growable byte array.
+	 */
+	static class OutputBuffer {
+		byte[] data = new byte[4 * CHUNK_SIZE];
+		int length = 0;
+
+		void grow() {
+			this.data = Arrays.copyOf(this.data,
+					Math.min(MAX_TASK_OUTPUT, 2 * this.data.length));
+		}
+	}
+
+	/**
+	 * Input stream for the uncompressed data of a single gzip member that
+	 * starts at a given position of a file. The header and the CRC checksum of
+	 * the member are checked, and the position after the member is known once
+	 * all data has been read.
+	 */
+	static class GzipMemberInputStream extends InputStream {
+
+		static final int FHCRC = 2;
+		static final int FEXTRA = 4;
+		static final int FNAME = 8;
+		static final int FCOMMENT = 16;
+
+		final FileChannel channel;
+		final Inflater inflater = new Inflater(true);
+		final CRC32 crc = new CRC32();
+		final byte[] buffer = new byte[64 * 1024];
+		long bufferOffset;
+		int bufferPosition = 0;
+		int bufferLength = 0;
+
+		long uncompressedSize = 0;
+		long end = -1;
+
+		/**
+		 * Opens the member at the given file position and reads its header.
+		 *
+		 * @throws IOException
+		 *             if there is no valid gzip header at this position
+		 */
+		GzipMemberInputStream(FileChannel channel, long position)
+				throws IOException {
+			this.channel = channel;
+			this.bufferOffset = position;
+			readHeader();
+		}
+
+		/**
+		 * Returns the file position after this member. Only available after
+		 * all data has been read.
+		 */
+		long getEnd() {
+			return this.end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			int read = read(b, 0, 1);
+			return read == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (this.end != -1) {
+				return -1;
+			}
+			if (len == 0) {
+				return 0;
+			}
+			while (true) {
+				int count;
+				try {
+					count = this.inflater.inflate(b, off, len);
+				} catch (DataFormatException e) {
+					throw new IOException("Invalid compressed data: "
+							+ e.getMessage(), e);
+				}
+				if (count > 0) {
+					this.crc.update(b, off, count);
+					this.uncompressedSize += count;
+					return count;
+				}
+				if (this.inflater.finished()) {
+					this.bufferPosition = this.bufferLength
+							- this.inflater.getRemaining();
+					readTrailer();
+					return -1;
+				}
+				if (this.inflater.needsDictionary()) {
+					throw new IOException("Invalid compressed data");
+				}
+				if (this.inflater.needsInput()) {
+					if (this.bufferPosition == this.bufferLength) {
+						fillBuffer();
+					}
+					this.inflater.setInput(this.buffer, this.bufferPosition,
+							this.bufferLength - this.bufferPosition);
+					this.bufferPosition = this.bufferLength;
+				}
+			}
+		}
+
+		@Override
+		public void close() {
+			this.inflater.end();
+		}
+
+		void readHeader() throws IOException {
+			if (readByte() != 0x1f || readByte() != 0x8b || readByte() != 8) {
+				throw new IOException("Not a gzip header");
+			}
+			int flags = readByte();
+			if ((flags & 0xe0) != 0) {
+				throw new IOException("Invalid gzip flags");
+			}
+			skipBytes(6); // modification time, extra flags, OS
+			if ((flags & FEXTRA) != 0) {
+				skipBytes(readByte() | (readByte() << 8));
+			}
+			if ((flags & FNAME) != 0) {
+				skipZeroTerminated();
+			}
+			if ((flags & FCOMMENT) != 0) {
+				skipZeroTerminated();
+			}
+			if ((flags & FHCRC) != 0) {
+				skipBytes(2);
+			}
+		}
+
+		void readTrailer() throws IOException {
+			long crcValue = readIntLE();
+			long size = readIntLE();
+			if (crcValue != this.crc.getValue()
+					|| size != (this.uncompressedSize & 0xffffffffL)) {
+				throw new IOException("Gzip checksum mismatch");
+			}
+			this.end = this.bufferOffset + this.bufferPosition;
+		}
+
+		long readIntLE() throws IOException {
+			return readByte() | (readByte() << 8) | (readByte() << 16)
+					| ((long) readByte() << 24);
+		}
+
+		void skipBytes(int count) throws IOException {
+			for (int i = 0; i < count; i++) {
+				readByte();
+			}
+		}
+
+		void skipZeroTerminated() throws IOException {
+			for (int i = 0; i < 1024; i++) {
+				if (readByte() == 0) {
+					return;
+				}
+			}
+			throw new IOException("Gzip header field too long");
+		}
+
+		int readByte() throws IOException {
+			if (this.bufferPosition == this.bufferLength) {
+				fillBuffer();
+			}
+			return this.buffer[this.bufferPosition++] & 0xff;
+		}
+
+		void fillBuffer() throws IOException {
+			this.bufferOffset += this.bufferLength;
+			this.bufferPosition = 0;
+			this.bufferLength = 0;
+			int read = this.channel.read(ByteBuffer.wrap(this.buffer),
+					this.bufferOffset);
+			if (read <= 0) {
+				throw new EOFException("Unexpected end of gzip data");
+			}
+			this.bufferLength = read;
+		}
+	}
+}
@@ -0,0 +1,1109 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DataObjectFactory;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwDumpFileProcessor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import examples.DumpCheckpoint.RestartPoint;
+
+/**
+ * Processor for JSON dump files that parses and processes entities with
+ * several threads. One thread reads the (decompressed) dump and cuts it into
+ * batches of complete lines. A number of worker threads take these batches,
+ * deserialize the entity documents in them, and pass them on to their own copy
+ * of the {@link EntityDocumentProcessor}. When the dump has been read, the
+ * copies are merged into the processor that was given in the constructor.
+ * <p>
+ * Using more than one thread requires a processor that implements
+ * {@link MergeableEntityDocumentProcessor}. With a single thread, any
+ * processor can be used, and it will be called from the worker thread
+ * directly.
+ * <p>
+ * Additional "serial" processors can be registered for tasks that need to see
+ * every entity but that cannot be split up, such as the
+ * {@link org.wikidata.wdtk.dumpfiles.EntityTimerProcessor}. They are called
+ * by all worker threads, one at a time, so they should be very cheap.
+ * <p>
+ * Processors that implement {@link CheckpointableEntityDocumentProcessor} can
+ * be checkpointed periodically (see
+ * {@link #setCheckpointFile(Path, int)}), so that a scan that was interrupted
+ * can be resumed from the last checkpoint.
+ * <p>
+ * An uncompressed dump can be given as a {@link MappedDumpFile}. Then there
+ * is no reader thread; each worker reads and parses the lines of its own
+ * regions of the memory-mapped file (unless checkpoints are written).
+ * <p>
+ * The processor can be restricted to one {@link DumpShard} of the dump (see
+ * {@link #setShard(DumpShard)}), so that several processes can share the
+ * work.
+ * <p>
+ * If the processor is a {@link StreamingEntityDocumentProcessor}, no documents
+ * are built for it. Instead, each worker thread fills one
+ * {@link FlyweightEntityDocument} with the data of each entity and passes it
+ * to the processor.
+ * <p>
+ * The class implements {@link MwDumpFileProcessor}, so it can also be used
+ * anywhere where Wikidata Toolkit expects a processor for dump file contents.
+ */
+public class ParallelJsonDumpProcessor implements MwDumpFileProcessor {
+
+	/**
+	 * Size of the byte buffers used to pass lines to the worker threads. Each
+	 * batch contains all complete lines that fit into one buffer. Lines that
+	 * are longer than this get a buffer of their own.
+	 */
+	static final int BATCH_SIZE = 1024 * 1024;
+
+	/**
+	 * Number of batches that may be waiting in the queue for each worker
+	 * thread. This bounds the memory needed for read-ahead.
+	 */
+	static final int BATCHES_PER_THREAD = 4;
+
+	/**
+	 * Batch object used to tell the workers that there is no more input.
+	 */
+	static final LineBatch END_OF_INPUT = new LineBatch(new byte[0], 0);
+
+	/**
+	 * Batch object used to tell the workers to wait while a checkpoint is
+	 * written.
+	 */
+	static final LineBatch CHECKPOINT = new LineBatch(new byte[0], 0);
+
+	/**
+	 * Simple holder for a chunk of the dump that contains only complete lines.
+	 */
+	static class LineBatch {
+		final byte[] data;
+		final int length;
+
+		LineBatch(byte[] data, int length) {
+			this.data = data;
+			this.length = length;
+		}
+	}
+
+	final EntityDocumentProcessor entityDocumentProcessor;
+	final int threadCount;
+	final ObjectReader documentReader;
+	final List<EntityDocumentProcessor> serialProcessors = new ArrayList<>();
+
+	/**
+	 * Set to true if processing should stop early, e.g., due to an error in
+	 * one of the worker threads.
+	 */
+	volatile boolean stopped = false;
+
+	/**
+	 * The first exception that was thrown in a worker thread, if any.
+	 */
+	final AtomicReference<RuntimeException> workerFailure = new AtomicReference<>();
+
+	final LongAdder entityCount = new LongAdder();
+	final LongAdder skippedCount = new LongAdder();
+	long errorCount = 0;
+
+	/**
+	 * Filter for lines that should be parsed, or null if all lines are
+	 * parsed.
+	 */
+	RawEntityFilter rawEntityFilter = null;
+
+	/**
+	 * The part of the dump that should be processed, or null if the whole
+	 * dump is processed.
+	 */
+	DumpShard shard = null;
+
+	/**
+	 * Projection to the data that should be parsed, or null if all data is
+	 * parsed.
+	 */
+	EntityProjection entityProjection = null;
+
+	/**
+	 * Converter that copies parsed items and properties with another
+	 * {@link DataObjectFactory}, or null if the parsed documents are used.
+	 */
+	DatamodelConverter datamodelConverter = null;
+
+	/**
+	 * The flyweight document of each worker thread, which is only used for a
+	 * {@link StreamingEntityDocumentProcessor}.
+	 */
+	final ThreadLocal<FlyweightEntityDocument> flyweightDocuments = ThreadLocal
+			.withInitial(FlyweightEntityDocument::new);
+
+	/**
+	 * True if one of the serial processors is not a
+	 * {@link StreamingEntityDocumentProcessor}, so that documents must be
+	 * parsed for it when the main processor uses flyweight documents.
+	 */
+	boolean serialProcessorsNeedDocuments = false;
+
+	/**
+	 * Metrics of the main processor, or null if it is not measured.
+	 */
+	ProcessorMetrics processorMetrics = null;
+
+	/**
+	 * File for checkpoints, or null if no checkpoints are written.
+	 */
+	Path checkpointFile = null;
+	long checkpointIntervalMillis;
+	long nextCheckpointTime;
+	String checkpointKey;
+	/**
+	 * Barrier where the reader and all workers meet before and after a
+	 * checkpoint is written.
+	 */
+	CyclicBarrier checkpointBarrier;
+	List<EntityDocumentProcessor> workerProcessors;
+
+	/**
+	 * Offset in the decompressed dump of the first line that has not been
+	 * passed to the workers yet.
+	 */
+	long inputOffset = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor that should receive all entities; if more than
+	 *            one thread is used, this processor must implement
+	 *            {@link MergeableEntityDocumentProcessor}
+	 * @param threadCount
+	 *            the number of worker threads to use for parsing and
+	 *            processing
+	 */
+	public ParallelJsonDumpProcessor(
+			EntityDocumentProcessor entityDocumentProcessor, int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException(
+					"At least one worker thread is needed");
+		}
+		if (threadCount > 1
+				&& !(entityDocumentProcessor instanceof MergeableEntityDocumentProcessor)) {
+			throw new IllegalArgumentException(
+					"Processing with several threads requires a MergeableEntityDocumentProcessor");
+		}
+		this.entityDocumentProcessor = entityDocumentProcessor;
+		this.threadCount = threadCount;
+		this.documentReader = new DatamodelMapper(Datamodel.SITE_WIKIDATA)
+				.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+	}
+
+	/**
+	 * Registers a processor that should receive every entity, but that is not
+	 * split up between threads. The processor is called while holding a lock,
+	 * so it should only do very little work.
+	 * <p>
+	 * If the main processor uses flyweight documents (see
+	 * {@link StreamingEntityDocumentProcessor}), serial processors that do not
+	 * use them receive documents that only contain the parts of
+	 * {@link EntityProjection#EMPTY}, such as the id. This is enough for
+	 * processors that count entities, like the timer of the examples.
+	 *
+	 * @param serialProcessor
+	 *            the processor to register
+	 */
+	public void addSerialProcessor(EntityDocumentProcessor serialProcessor) {
+		this.serialProcessors.add(serialProcessor);
+		if (!(serialProcessor instanceof StreamingEntityDocumentProcessor)) {
+			this.serialProcessorsNeedDocuments = true;
+		}
+	}
+
+	/**
+	 * Sets a filter that is applied to the JSON of each entity before it is
+	 * parsed. Entities that do not pass the filter are not passed to any
+	 * processor, including the serial processors.
+	 *
+	 * @param rawEntityFilter
+	 *            the filter, or null to parse all entities
+	 */
+	public void setRawEntityFilter(RawEntityFilter rawEntityFilter) {
+		this.rawEntityFilter = rawEntityFilter;
+	}
+
+	/**
+	 * Restricts processing to one shard of the dump. Entities of other shards
+	 * are not passed to any processor and are not counted. Byte ranges can
+	 * only be used with a {@link MappedDumpFile} and without checkpoints.
+	 *
+	 * @param shard
+	 *            the shard, or null to process the whole dump
+	 */
+	public void setShard(DumpShard shard) {
+		this.shard = shard;
+	}
+
+	/**
+	 * Sets a projection to the data that should be parsed. All other data is
+	 * skipped by the parser, so the documents passed to all processors,
+	 * including the serial processors, only contain the projected data.
+	 *
+	 * @param entityProjection
+	 *            the projection, or null to parse all data
+	 */
+	public void setEntityProjection(EntityProjection entityProjection) {
+		this.entityProjection = entityProjection;
+	}
+
+	/**
+	 * Sets a factory that is used to copy all parsed items and properties
+	 * before they are passed to the processors, such as an
+	 * {@link InterningDataObjectFactory} for processors that keep many
+	 * documents. Copying costs time, so this should only be used if the
+	 * processors need objects of this factory.
+	 *
+	 * @param dataObjectFactory
+	 *            the factory, or null to use the parsed documents
+	 */
+	public void setDataObjectFactory(DataObjectFactory dataObjectFactory) {
+		this.datamodelConverter = dataObjectFactory == null ? null
+				: new DatamodelConverter(dataObjectFactory);
+	}
+
+	/**
+	 * Sets metrics in which the latency of each call of the main processor
+	 * (or of its worker copies) and the number of bytes read from the dump are
+	 * recorded.
+	 *
+	 * @param processorMetrics
+	 *            the metrics, or null to measure nothing
+	 */
+	public void setProcessorMetrics(ProcessorMetrics processorMetrics) {
+		this.processorMetrics = processorMetrics;
+	}
+
+	/**
+	 * Makes the processor write checkpoints to the given file periodically.
+	 * If the file contains a checkpoint for the same dump and processor when
+	 * {@link #processDump(MwDumpFile)} is called, processing resumes from
+	 * there. The file is deleted once the dump has been processed completely.
+	 *
+	 * @param checkpointFile
+	 *            the file to write checkpoints to
+	 * @param intervalSec
+	 *            the time between two checkpoints in seconds
+	 */
+	public void setCheckpointFile(Path checkpointFile, int intervalSec) {
+		if (!(this.entityDocumentProcessor instanceof CheckpointableEntityDocumentProcessor)) {
+			throw new IllegalArgumentException(
+					"Checkpoints require a CheckpointableEntityDocumentProcessor");
+		}
+		this.checkpointFile = checkpointFile;
+		this.checkpointIntervalMillis = 1000L * intervalSec;
+	}
+
+	/**
+	 * Processes the given dump file. The file is downloaded first if needed.
+	 * If a checkpoint file has been set, processing resumes from the last
+	 * checkpoint for this dump, if any.
+	 *
+	 * @param dumpFile
+	 *            the JSON dump to process
+	 */
+	public void processDump(MwDumpFile dumpFile) {
+		try {
+			dumpFile.prepareDumpFile();
+			if (this.shard != null && this.shard.isByteRange()
+					&& (!(dumpFile instanceof MappedDumpFile)
+							|| this.checkpointFile != null)) {
+				throw new IllegalArgumentException(
+						"Byte ranges require a MappedDumpFile and no checkpoints");
+			}
+			DumpCheckpoint checkpoint = null;
+			if (this.checkpointFile != null) {
+				checkpoint = DumpCheckpoint.read(this.checkpointFile,
+						DumpCheckpoint.getKey(dumpFile,
+								this.entityDocumentProcessor),
+						(CheckpointableEntityDocumentProcessor) this.entityDocumentProcessor);
+			}
+			if (checkpoint != null) {
+				System.out.println("Resuming from checkpoint after "
+						+ checkpoint.entityCount + " entities.");
+				this.entityCount.add(checkpoint.entityCount);
+				this.errorCount += checkpoint.errorCount;
+				this.skippedCount.add(checkpoint.skippedCount);
+			}
+
+			if (dumpFile instanceof MappedDumpFile
+					&& this.checkpointFile == null) {
+				processMappedDump((MappedDumpFile) dumpFile);
+			} else {
+				try (InputStream inputStream = openDumpFileStream(dumpFile,
+						checkpoint)) {
+					processDumpFileContents(inputStream, dumpFile);
+				}
+			}
+			if (this.checkpointFile != null) {
+				// The dump is complete, so the checkpoint is not needed:
+				Files.deleteIfExists(this.checkpointFile);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Could not read dump file " + dumpFile
+					+ ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Opens the decompressed dump at the line where the given checkpoint
+	 * continues.
+	 *
+	 * @param dumpFile
+	 *            the dump to open
+	 * @param checkpoint
+	 *            the checkpoint, or null to start at the beginning
+	 * @return the stream
+	 * @throws IOException
+	 *             if the dump could not be opened
+	 */
+	InputStream openDumpFileStream(MwDumpFile dumpFile,
+			DumpCheckpoint checkpoint) throws IOException {
+		this.inputOffset = checkpoint == null ? 0 : checkpoint.lineOffset;
+		if (this.checkpointFile != null
+				&& dumpFile instanceof ParallelDecompressionDumpFile) {
+			// this stream may provide restart points for later checkpoints
+			return ((ParallelDecompressionDumpFile) dumpFile)
+					.getDumpFileStream(this.inputOffset,
+							checkpoint == null ? null : checkpoint.restartPoint);
+		}
+		InputStream inputStream = dumpFile.getDumpFileStream();
+		ParallelDecompressionDumpFile.skipFully(inputStream, this.inputOffset);
+		return inputStream;
+	}
+
+	@Override
+	public void processDumpFileContents(InputStream inputStream,
+			MwDumpFile dumpFile) {
+		System.out.println("Processing JSON dump file " + dumpFile + " with "
+				+ this.threadCount + " thread(s).");
+
+		List<EntityDocumentProcessor> workerProcessors = createWorkerProcessors();
+		this.workerProcessors = workerProcessors;
+		if (this.checkpointFile != null) {
+			this.checkpointKey = DumpCheckpoint.getKey(dumpFile,
+					this.entityDocumentProcessor);
+			this.checkpointBarrier = new CyclicBarrier(this.threadCount + 1);
+			this.nextCheckpointTime = System.currentTimeMillis()
+					+ this.checkpointIntervalMillis;
+		}
+		BlockingQueue<LineBatch> queue = new ArrayBlockingQueue<>(
+				BATCHES_PER_THREAD * this.threadCount);
+		ExecutorService executor = Executors
+				.newFixedThreadPool(this.threadCount);
+		List<Future<?>> futures = new ArrayList<>();
+		for (EntityDocumentProcessor workerProcessor : workerProcessors) {
+			EntityDocumentProcessor processor = getMeasuredProcessor(workerProcessor);
+			futures.add(executor.submit(() -> runWorker(queue, processor)));
+		}
+
+		try {
+			readBatches(inputStream, queue);
+		} catch (IOException e) {
+			recordFailure(new RuntimeException(
+					"Error when reading dump file: " + e.getMessage(), e));
+		} finally {
+			for (int i = 0; i < this.threadCount; i++) {
+				putUninterruptibly(queue, END_OF_INPUT);
+			}
+			executor.shutdown();
+		}
+
+		finishProcessing(futures, workerProcessors);
+	}
+
+	/**
+	 * Processes a dump file that is read through memory mapping. The file, or
+	 * the byte range of the shard, is split into regions of
+	 * {@link MappedDumpFile#WINDOW_SIZE} bytes. Each
+	 * worker thread takes the next region that has not been processed yet and
+	 * reads its lines from the mapped file directly, so no reader thread and
+	 * no queue are needed.
+	 *
+	 * @param dumpFile
+	 *            the dump to process
+	 * @throws IOException
+	 *             if the size of the file could not be read
+	 */
+	void processMappedDump(MappedDumpFile dumpFile) throws IOException {
+		System.out.println("Processing memory-mapped JSON dump file "
+				+ dumpFile + " with " + this.threadCount + " thread(s).");
+
+		long start = 0;
+		long end = dumpFile.size();
+		if (this.shard != null && this.shard.isByteRange()) {
+			start = Math.min(this.shard.start, end);
+			end = Math.min(this.shard.end, end);
+		}
+		long rangeEnd = end;
+		AtomicLong nextRegion = new AtomicLong(start);
+		List<EntityDocumentProcessor> workerProcessors = createWorkerProcessors();
+		this.workerProcessors = workerProcessors;
+		ExecutorService executor = Executors
+				.newFixedThreadPool(this.threadCount);
+		List<Future<?>> futures = new ArrayList<>();
+		for (EntityDocumentProcessor workerProcessor : workerProcessors) {
+			EntityDocumentProcessor processor = getMeasuredProcessor(workerProcessor);
+			futures.add(executor.submit(() -> runMappedWorker(dumpFile,
+					rangeEnd, nextRegion, processor)));
+		}
+		executor.shutdown();
+
+		finishProcessing(futures, workerProcessors);
+	}
+
+	/**
+	 * Main loop of a worker thread for a memory-mapped dump. Processes the
+	 * next region of the file until all regions have been taken.
+	 *
+	 * @param dumpFile
+	 *            the dump to process
+	 * @param end
+	 *            the offset after the last byte that should be processed
+	 * @param nextRegion
+	 *            the offset of the next region that has not been taken yet
+	 * @param processor
+	 *            the processor used by this thread
+	 */
+	void runMappedWorker(MappedDumpFile dumpFile, long end,
+			AtomicLong nextRegion, EntityDocumentProcessor processor) {
+		long regionSize = MappedDumpFile.WINDOW_SIZE;
+		long start;
+		while (!this.stopped
+				&& (start = nextRegion.getAndAdd(regionSize)) < end) {
+			try {
+				dumpFile.processLines(start, Math.min(start + regionSize, end),
+						(data, lineStart, lineEnd) -> processLine(data,
+								lineStart, lineEnd, processor));
+			} catch (IOException e) {
+				recordFailure(new RuntimeException(
+						"Error when reading dump file: " + e.getMessage(), e));
+			} catch (RuntimeException e) {
+				recordFailure(e);
+			} catch (Error e) {
+				recordFailure(new RuntimeException(e));
+			}
+			if (this.processorMetrics != null) {
+				this.processorMetrics.addInputBytes(Math.min(regionSize, end
+						- start));
+			}
+		}
+	}
+
+	/**
+	 * Returns the given worker processor, wrapped so that its calls are
+	 * measured if metrics have been set.
+	 */
+	EntityDocumentProcessor getMeasuredProcessor(
+			EntityDocumentProcessor workerProcessor) {
+		return this.processorMetrics == null ? workerProcessor
+				: InstrumentedEntityDocumentProcessor.create(workerProcessor,
+						this.processorMetrics);
+	}
+
+	/**
+	 * Waits for the worker threads, merges their processors, and reports the
+	 * result.
+	 *
+	 * @param futures
+	 *            the tasks of the worker threads
+	 * @param workerProcessors
+	 *            the processors used by the workers
+	 */
+	void finishProcessing(List<Future<?>> futures,
+			List<EntityDocumentProcessor> workerProcessors) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				recordFailure(new RuntimeException(e.getCause()));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+
+		mergeWorkerProcessors(workerProcessors);
+
+		System.out.println("Finished processing " + this.entityCount.sum()
+				+ " entities (" + this.errorCount + " could not be parsed, "
+				+ this.skippedCount.sum() + " skipped by filter).");
+
+		RuntimeException failure = this.workerFailure.get();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Records an exception that should be reported once processing has
+	 * finished, and stops processing. Only the first exception is kept.
+	 *
+	 * @param e
+	 *            the exception
+	 */
+	void recordFailure(RuntimeException e) {
+		this.workerFailure.compareAndSet(null, e);
+		this.stopped = true;
+	}
+
+	/**
+	 * Reads the input and puts batches of complete lines into the queue.
+	 *
+	 * @param inputStream
+	 *            the decompressed dump
+	 * @param queue
+	 *            the queue to fill
+	 * @throws IOException
+	 *             if the input could not be read
+	 */
+	void readBatches(InputStream inputStream, BlockingQueue<LineBatch> queue)
+			throws IOException {
+		byte[] buffer = new byte[BATCH_SIZE];
+		int filled = 0;
+		while (!this.stopped) {
+			int read = inputStream.read(buffer, filled, buffer.length - filled);
+			if (read == -1) {
+				break;
+			}
+			filled += read;
+			if (filled < buffer.length) {
+				continue;
+			}
+
+			int lineEnd = lastIndexOf(buffer, filled, (byte) '\n');
+			if (lineEnd == -1) { // line longer than buffer
+				byte[] largerBuffer = new byte[2 * buffer.length];
+				System.arraycopy(buffer, 0, largerBuffer, 0, filled);
+				buffer = largerBuffer;
+				continue;
+			}
+
+			byte[] nextBuffer = new byte[Math.max(BATCH_SIZE, filled
+					- lineEnd - 1)];
+			System.arraycopy(buffer, lineEnd + 1, nextBuffer, 0, filled
+					- lineEnd - 1);
+			putUninterruptibly(queue, new LineBatch(buffer, lineEnd + 1));
+			advanceInput(lineEnd + 1);
+			filled = filled - lineEnd - 1;
+			buffer = nextBuffer;
+
+			if (this.checkpointFile != null
+					&& System.currentTimeMillis() >= this.nextCheckpointTime) {
+				writeCheckpoint(queue, inputStream);
+				this.nextCheckpointTime = System.currentTimeMillis()
+						+ this.checkpointIntervalMillis;
+			}
+		}
+		if (filled > 0 && !this.stopped) {
+			putUninterruptibly(queue, new LineBatch(buffer, filled));
+			advanceInput(filled);
+		}
+	}
+
+	/**
+	 * Records that the given number of bytes has been passed to the workers.
+	 *
+	 * @param count
+	 *            the number of bytes
+	 */
+	void advanceInput(long count) {
+		this.inputOffset += count;
+		if (this.processorMetrics != null) {
+			this.processorMetrics.addInputBytes(count);
+		}
+	}
+
+	/**
+	 * Writes a checkpoint after all batches that have been put into the queue
+	 * so far. The workers are stopped while the checkpoint is written, so
+	 * that the state of the processors fits the position in the dump.
+	 *
+	 * @param queue
+	 *            the queue of the workers
+	 * @param inputStream
+	 *            the decompressed dump, which may provide a restart point
+	 */
+	void writeCheckpoint(BlockingQueue<LineBatch> queue,
+			InputStream inputStream) {
+		for (int i = 0; i < this.threadCount; i++) {
+			putUninterruptibly(queue, CHECKPOINT);
+		}
+		if (!awaitCheckpointBarrier()) {
+			return;
+		}
+		try {
+			if (!this.stopped) {
+				RestartPoint restartPoint = null;
+				if (inputStream instanceof ParallelBzip2InputStream) {
+					restartPoint = ((ParallelBzip2InputStream) inputStream)
+							.getRestartPoint(this.inputOffset);
+				}
+				DumpCheckpoint checkpoint = new DumpCheckpoint(
+						this.checkpointKey, this.inputOffset, restartPoint,
+						this.entityCount.sum(), this.errorCount,
+						this.skippedCount.sum());
+				checkpoint.write(this.checkpointFile, getCheckpointProcessor());
+			}
+		} catch (IOException e) {
+			System.err.println("Could not write checkpoint: " + e.getMessage());
+		} finally {
+			// let the workers continue:
+			awaitCheckpointBarrier();
+		}
+	}
+
+	/**
+	 * Returns a processor that has the state of all worker processors
+	 * together. With a single thread, this is the worker processor itself.
+	 *
+	 * @return the processor whose state should be stored
+	 */
+	CheckpointableEntityDocumentProcessor getCheckpointProcessor() {
+		if (this.threadCount == 1) {
+			return (CheckpointableEntityDocumentProcessor) this.entityDocumentProcessor;
+		}
+		MergeableEntityDocumentProcessor<?> mergeableProcessor = (MergeableEntityDocumentProcessor<?>) this.entityDocumentProcessor;
+		EntityDocumentProcessor result = mergeableProcessor.createWorkerCopy();
+		// the main processor has the state of an earlier checkpoint, if any:
+		mergeInto(result, this.entityDocumentProcessor);
+		for (EntityDocumentProcessor workerProcessor : this.workerProcessors) {
+			mergeInto(result, workerProcessor);
+		}
+		return (CheckpointableEntityDocumentProcessor) result;
+	}
+
+	/**
+	 * Waits until the reader and all workers have arrived at the checkpoint
+	 * barrier.
+	 *
+	 * @return false if the checkpoint was aborted
+	 */
+	boolean awaitCheckpointBarrier() {
+		try {
+			this.checkpointBarrier.await();
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			recordFailure(new RuntimeException(e));
+		} catch (BrokenBarrierException e) {
+			recordFailure(new RuntimeException(
+					"Checkpoint could not be completed", e));
+		}
+		return false;
+	}
+
+	/**
+	 * Main loop of a worker thread. Takes batches from the queue until the end
+	 * of the input is reached. If processing was stopped early, the remaining
+	 * batches are just dropped, so that the reader is never blocked.
+	 *
+	 * @param queue
+	 *            the queue to take batches from
+	 * @param processor
+	 *            the processor used by this thread
+	 */
+	void runWorker(BlockingQueue<LineBatch> queue,
+			EntityDocumentProcessor processor) {
+		while (true) {
+			LineBatch batch = takeUninterruptibly(queue);
+			if (batch == END_OF_INPUT) {
+				return;
+			}
+			if (batch == CHECKPOINT) {
+				// wait while the checkpoint is written:
+				if (awaitCheckpointBarrier()) {
+					awaitCheckpointBarrier();
+				}
+				continue;
+			}
+			if (this.stopped) {
+				continue;
+			}
+			try {
+				processBatch(batch, processor);
+			} catch (RuntimeException e) {
+				recordFailure(e);
+			} catch (Error e) {
+				recordFailure(new RuntimeException(e));
+			}
+		}
+	}
+
+	/**
+	 * Processes all lines in the given batch.
+	 *
+	 * @param batch
+	 *            the lines to process
+	 * @param processor
+	 *            the processor to use
+	 */
+	void processBatch(LineBatch batch, EntityDocumentProcessor processor) {
+		int lineStart = 0;
+		while (lineStart < batch.length) {
+			int lineEnd = indexOf(batch.data, lineStart, batch.length,
+					(byte) '\n');
+			if (lineEnd == -1) {
+				lineEnd = batch.length;
+			}
+			processLine(batch.data, lineStart, lineEnd, processor);
+			lineStart = lineEnd + 1;
+		}
+	}
+
+	/**
+	 * Processes a single line of the dump. Lines are expected to contain one
+	 * JSON entity each, possibly followed by a comma. The lines that open and
+	 * close the JSON array of the dump are ignored.
+	 *
+	 * @param data
+	 *            array that contains the line
+	 * @param start
+	 *            index of the first byte of the line
+	 * @param end
+	 *            index after the last byte of the line
+	 * @param processor
+	 *            the processor to use
+	 */
+	void processLine(byte[] data, int start, int end,
+			EntityDocumentProcessor processor) {
+		while (end > start && isJsonLineSuffix(data[end - 1])) {
+			end--;
+		}
+		while (start < end && data[start] <= ' ') {
+			start++;
+		}
+		if (end - start <= 1) { // "[", "]", or empty
+			return;
+		}
+		if (this.shard != null && !this.shard.containsEntity(data, start, end)) {
+			return;
+		}
+		if (this.rawEntityFilter != null
+				&& !this.rawEntityFilter.mayMatch(data, start, end)) {
+			this.skippedCount.increment();
+			return;
+		}
+		if (processor instanceof StreamingEntityDocumentProcessor) {
+			processEntityView(data, start, end,
+					(StreamingEntityDocumentProcessor) processor);
+			return;
+		}
+
+		EntityDocument document;
+		try {
+			document = readDocument(data, start, end);
+		} catch (JsonProcessingException e) {
+			logParseError(e);
+			return;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		dispatchDocument(document, processor);
+		if (!this.serialProcessors.isEmpty()) {
+			synchronized (this.serialProcessors) {
+				for (EntityDocumentProcessor serialProcessor : this.serialProcessors) {
+					dispatchDocument(document, serialProcessor);
+				}
+			}
+		}
+		this.entityCount.increment();
+	}
+
+	/**
+	 * Processes the JSON of one entity with a processor that uses flyweight
+	 * documents. The flyweight document of the current thread is filled with
+	 * the projected data and passed to the processor and to all serial
+	 * processors.
+	 *
+	 * @param data
+	 *            array that contains the JSON
+	 * @param start
+	 *            index of the first byte of the JSON
+	 * @param end
+	 *            index after the last byte of the JSON
+	 * @param processor
+	 *            the processor to use
+	 */
+	void processEntityView(byte[] data, int start, int end,
+			StreamingEntityDocumentProcessor processor) {
+		FlyweightEntityDocument entityView = this.flyweightDocuments.get();
+		EntityDocument document = null;
+		try {
+			try (JsonParser parser = this.documentReader.createParser(data,
+					start, end - start)) {
+				entityView.fill(parser, this.entityProjection);
+			}
+			if (this.serialProcessorsNeedDocuments) {
+				try (JsonParser parser = EntityProjection.EMPTY
+						.filter(this.documentReader.createParser(data, start,
+								end - start))) {
+					document = this.documentReader.readValue(parser);
+				}
+			}
+		} catch (JsonProcessingException e) {
+			logParseError(e);
+			return;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		processor.processEntityView(entityView);
+		if (!this.serialProcessors.isEmpty()) {
+			synchronized (this.serialProcessors) {
+				for (EntityDocumentProcessor serialProcessor : this.serialProcessors) {
+					if (serialProcessor instanceof StreamingEntityDocumentProcessor) {
+						((StreamingEntityDocumentProcessor) serialProcessor)
+								.processEntityView(entityView);
+					} else {
+						dispatchDocument(document, serialProcessor);
+					}
+				}
+			}
+		}
+		this.entityCount.increment();
+	}
+
+	/**
+	 * Parses the JSON of one entity, using the projection if there is one,
+	 * and copies it with the data object factory if there is one.
+	 *
+	 * @param data
+	 *            array that contains the JSON
+	 * @param start
+	 *            index of the first byte of the JSON
+	 * @param end
+	 *            index after the last byte of the JSON
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON could not be parsed
+	 */
+	EntityDocument readDocument(byte[] data, int start, int end)
+			throws IOException {
+		EntityDocument document;
+		if (this.entityProjection == null) {
+			document = this.documentReader.readValue(data, start, end - start);
+		} else {
+			try (JsonParser parser = this.entityProjection
+					.filter(this.documentReader.createParser(data, start, end
+							- start))) {
+				document = this.documentReader.readValue(parser);
+			}
+		}
+		if (this.datamodelConverter != null) {
+			if (document instanceof ItemDocument) {
+				document = this.datamodelConverter.copy((ItemDocument) document);
+			} else if (document instanceof PropertyDocument) {
+				document = this.datamodelConverter
+						.copy((PropertyDocument) document);
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * Passes the document to the processing method of the processor that fits
+	 * its type.
+	 *
+	 * @param document
+	 *            the document to process
+	 * @param processor
+	 *            the processor to call
+	 */
+	static void dispatchDocument(EntityDocument document,
+			EntityDocumentProcessor processor) {
+		if (document instanceof ItemDocument) {
+			processor.processItemDocument((ItemDocument) document);
+		} else if (document instanceof PropertyDocument) {
+			processor.processPropertyDocument((PropertyDocument) document);
+		} else if (document instanceof LexemeDocument) {
+			processor.processLexemeDocument((LexemeDocument) document);
+		} else if (document instanceof MediaInfoDocument) {
+			processor.processMediaInfoDocument((MediaInfoDocument) document);
+		} else if (document instanceof EntityRedirectDocument) {
+			processor
+					.processEntityRedirectDocument((EntityRedirectDocument) document);
+		}
+	}
+
+	/**
+	 * Creates the processors used by the worker threads.
+	 *
+	 * @return list with one processor per thread
+	 */
+	List<EntityDocumentProcessor> createWorkerProcessors() {
+		List<EntityDocumentProcessor> result = new ArrayList<>(
+				this.threadCount);
+		if (this.threadCount == 1) {
+			result.add(this.entityDocumentProcessor);
+		} else {
+			MergeableEntityDocumentProcessor<?> mergeableProcessor = (MergeableEntityDocumentProcessor<?>) this.entityDocumentProcessor;
+			for (int i = 0; i < this.threadCount; i++) {
+				result.add(mergeableProcessor.createWorkerCopy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Merges the data of all worker processors into the main processor.
+	 *
+	 * @param workerProcessors
+	 *            the processors used by the workers
+	 */
+	void mergeWorkerProcessors(List<EntityDocumentProcessor> workerProcessors) {
+		if (this.threadCount == 1) {
+			return;
+		}
+		for (EntityDocumentProcessor workerProcessor : workerProcessors) {
+			mergeInto(this.entityDocumentProcessor, workerProcessor);
+		}
+	}
+
+	/**
+	 * Merges one processor into another. Both objects must have been created
+	 * from the same {@link MergeableEntityDocumentProcessor}.
+	 *
+	 * @param target
+	 *            the processor to merge into
+	 * @param other
+	 *            the processor whose data should be added
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends MergeableEntityDocumentProcessor<T>> void mergeInto(
+			EntityDocumentProcessor target, EntityDocumentProcessor other) {
+		((T) target).merge((T) other);
+	}
+
+	/**
+	 * Reports a line that could not be parsed.
+	 *
+	 * @param e
+	 *            the exception that occurred
+	 */
+	synchronized void logParseError(JsonProcessingException e) {
+		this.errorCount++;
+		System.err.println("Could not parse JSON entity: "
+				+ e.getOriginalMessage());
+	}
+
+	/**
+	 * Returns true for bytes that may occur after the JSON object on one line
+	 * of the dump.
+	 */
+	static boolean isJsonLineSuffix(byte b) {
+		return b == ',' || b == '\r' || b == ' ' || b == '\t';
+	}
+
+	static int indexOf(byte[] data, int from, int to, byte b) {
+		for (int i = from; i < to; i++) {
+			if (data[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static int lastIndexOf(byte[] data, int to, byte b) {
+		for (int i = to - 1; i >= 0; i--) {
+			if (data[i] == b) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	static <E> void putUninterruptibly(BlockingQueue<E> queue, E element) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(element);
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	static <E> E takeUninterruptibly(BlockingQueue<E> queue) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return queue.take();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,409 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.FormDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SenseDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+
+/**
+ * Passes each document to several processors that run in their own threads,
+ * instead of calling them one after another in the thread that parses the
+ * dump. Each processor has a bounded ring buffer of documents that it takes
+ * its work from, so the time per entity is that of the slowest processor
+ * rather than the sum of all of them.
+ * <p>
+ * The ring buffers are lock-free: there is only one thread that puts
+ * documents into a buffer and one thread that takes them out, so the two
+ * positions in the buffer are simply published with ordered writes. A thread
+ * that finds its buffer full (or empty) spins for a short while and then
+ * sleeps for some microseconds before it checks again. If a processor is too
+ * slow, its buffer fills up and the parsing thread has to wait. This time is
+ * measured for each processor and printed by {@link #close()}, together with
+ * the time that each processor was busy.
+ * <p>
+ * The processors see the documents in the order of the dump, but at different
+ * times, so they must not share any mutable state (such as
+ * {@link EntityFacts}). The documents themselves are shared, although the
+ * document classes of Wikidata Toolkit compute the groups of statements,
+ * qualifiers, and reference snaks lazily and without synchronization. These
+ * groups are therefore computed in the parsing thread before a document is
+ * passed on (see {@link #computeLazyGroups(EntityDocument)}). Exceptions of
+ * a processor, such as the
+ * {@link org.wikidata.wdtk.dumpfiles.EntityTimerProcessor.TimeoutException}
+ * of the timer, are thrown in the parsing thread when the next document is
+ * passed, or by {@link #close()}.
+ */
+public class PipelinedEntityDocumentProcessor implements
+		EntityDocumentProcessor, AutoCloseable {
+
+	/**
+	 * Marks the end of the documents in a buffer.
+	 */
+	static final Object END = new Object();
+
+	/**
+	 * Number of times that a thread spins before it starts to sleep while
+	 * waiting for its buffer.
+	 */
+	static final int SPIN_COUNT = 100;
+
+	static final long SLEEP_NANOS = 20000;
+
+	/**
+	 * A processor with its own thread and ring buffer.
+	 */
+	static class Stage implements Runnable {
+		final String name;
+		final EntityDocumentProcessor processor;
+		final Object[] buffer;
+		final int mask;
+		/**
+		 * Number of documents that have been taken from the buffer. Only
+		 * written by the thread of the stage.
+		 */
+		final AtomicLong head = new AtomicLong();
+		/**
+		 * Number of documents that have been put into the buffer. Only
+		 * written by the parsing thread.
+		 */
+		final AtomicLong tail = new AtomicLong();
+		/**
+		 * Last value of {@link #head} seen by the parsing thread, so that it
+		 * does not have to read the shared value for every document.
+		 */
+		long knownHead = 0;
+
+		final Thread thread;
+		volatile Throwable failure;
+
+		/**
+		 * Time in nanoseconds that the parsing thread waited for free space
+		 * in the buffer, and how often it had to wait.
+		 */
+		long waitTime = 0;
+		long waitCount = 0;
+		/**
+		 * Time in nanoseconds that the processor was busy, written by the
+		 * thread of the stage.
+		 */
+		long busyTime = 0;
+
+		Stage(EntityDocumentProcessor processor, String name, int bufferSize) {
+			this.name = name;
+			this.processor = processor;
+			int capacity = Integer
+					.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+			this.buffer = new Object[capacity];
+			this.mask = capacity - 1;
+			this.thread = new Thread(this, "pipeline-" + this.name);
+			this.thread.setDaemon(true);
+		}
+
+		/**
+		 * Puts a document into the buffer, waiting while it is full. Called
+		 * by the parsing thread only.
+		 */
+		void put(Object document) {
+			long tail = this.tail.get();
+			if (tail - this.knownHead >= this.buffer.length) {
+				this.knownHead = this.head.get();
+				if (tail - this.knownHead >= this.buffer.length) {
+					long startTime = System.nanoTime();
+					int idleCount = 0;
+					do {
+						idle(idleCount++);
+						this.knownHead = this.head.get();
+					} while (tail - this.knownHead >= this.buffer.length);
+					this.waitTime += System.nanoTime() - startTime;
+					this.waitCount++;
+				}
+			}
+			this.buffer[(int) tail & this.mask] = document;
+			this.tail.lazySet(tail + 1);
+		}
+
+		@Override
+		public void run() {
+			long head = this.head.get();
+			while (true) {
+				int idleCount = 0;
+				while (head >= this.tail.get()) {
+					idle(idleCount++);
+				}
+				int index = (int) head & this.mask;
+				Object document = this.buffer[index];
+				this.buffer[index] = null;
+				this.head.lazySet(++head);
+				if (document == END) {
+					return;
+				}
+				// After a failure, documents are only discarded, so that the
+				// parsing thread does not wait for the buffer forever:
+				if (this.failure == null) {
+					long startTime = System.nanoTime();
+					try {
+						ParallelJsonDumpProcessor.dispatchDocument(
+								(EntityDocument) document, this.processor);
+					} catch (Throwable e) {
+						this.failure = e;
+					}
+					this.busyTime += System.nanoTime() - startTime;
+				}
+			}
+		}
+	}
+
+	final List<Stage> stages = new ArrayList<>();
+	final int bufferSize;
+	boolean started = false;
+	boolean closed = false;
+	long documentCount = 0;
+	long startTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param bufferSize
+	 *            the number of documents that each buffer can hold; rounded
+	 *            up to a power of two
+	 */
+	public PipelinedEntityDocumentProcessor(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Registers a processor that will be run in its own thread. All
+	 * processors must be registered before the first document is processed.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor
+	 */
+	public void registerEntityDocumentProcessor(
+			EntityDocumentProcessor entityDocumentProcessor) {
+		Class<?> processorClass = entityDocumentProcessor.getClass();
+		registerEntityDocumentProcessor(entityDocumentProcessor,
+				processorClass.getSimpleName().isEmpty() ? processorClass
+						.getName() : processorClass.getSimpleName());
+	}
+
+	/**
+	 * Registers a processor that will be run in its own thread, using the
+	 * given name for the thread and in the printed times.
+	 *
+	 * @param entityDocumentProcessor
+	 *            the processor
+	 * @param name
+	 *            the name of the processor
+	 */
+	public void registerEntityDocumentProcessor(
+			EntityDocumentProcessor entityDocumentProcessor, String name) {
+		if (this.started) {
+			throw new IllegalStateException(
+					"Processors cannot be added after processing has started.");
+		}
+		this.stages.add(new Stage(entityDocumentProcessor, name,
+				this.bufferSize));
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		putDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		putDocument(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		putDocument(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		putDocument(mediaInfoDocument);
+	}
+
+	@Override
+	public void processEntityRedirectDocument(
+			EntityRedirectDocument entityRedirectDocument) {
+		putDocument(entityRedirectDocument);
+	}
+
+	/**
+	 * Passes the document to the buffers of all processors, starting their
+	 * threads first if needed.
+	 */
+	void putDocument(EntityDocument document) {
+		if (this.closed) {
+			throw new IllegalStateException("The processor has been closed.");
+		}
+		if (!this.started) {
+			start();
+		}
+		this.documentCount++;
+		computeLazyGroups(document);
+		for (Stage stage : this.stages) {
+			stage.put(document);
+			if (stage.failure != null) {
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Computes the lazily created groups of the statements, qualifiers, and
+	 * references of the given document. Wikidata Toolkit stores the list of
+	 * such groups in the document before it has been filled, so processors
+	 * that ask for them at the same time in different threads could see an
+	 * incomplete list. Once the groups are complete, the ring buffers publish
+	 * them safely together with the document.
+	 *
+	 * @param document
+	 *            the document that is passed to several threads
+	 */
+	static void computeLazyGroups(EntityDocument document) {
+		if (document instanceof StatementDocument) {
+			computeLazyGroups((StatementDocument) document);
+		}
+		if (document instanceof LexemeDocument) {
+			for (FormDocument form : ((LexemeDocument) document).getForms()) {
+				computeLazyGroups(form);
+			}
+			for (SenseDocument sense : ((LexemeDocument) document)
+					.getSenses()) {
+				computeLazyGroups(sense);
+			}
+		}
+	}
+
+	static void computeLazyGroups(StatementDocument document) {
+		for (StatementGroup statementGroup : document.getStatementGroups()) {
+			for (Statement statement : statementGroup) {
+				statement.getQualifiers();
+				for (Reference reference : statement.getReferences()) {
+					reference.getSnakGroups();
+				}
+			}
+		}
+	}
+
+	void start() {
+		this.started = true;
+		this.startTime = System.nanoTime();
+		for (Stage stage : this.stages) {
+			stage.thread.start();
+		}
+	}
+
+	/**
+	 * Waits until all processors have processed all documents, stops their
+	 * threads, and prints how much time each processor was busy and how long
+	 * the parsing thread had to wait for it. If a processor has thrown an
+	 * exception, it is thrown again here. Calling this method again has no
+	 * effect.
+	 */
+	@Override
+	public void close() {
+		if (this.closed || !this.started) {
+			this.closed = true;
+			return;
+		}
+		this.closed = true;
+
+		boolean interrupted = false;
+		for (Stage stage : this.stages) {
+			stage.put(END);
+			while (stage.thread.isAlive()) {
+				try {
+					stage.thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		printTimes();
+
+		for (Stage stage : this.stages) {
+			Throwable failure = stage.failure;
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			} else if (failure != null) {
+				throw new RuntimeException(failure);
+			}
+		}
+	}
+
+	/**
+	 * Prints the times of all processors.
+	 */
+	void printTimes() {
+		long totalTime = System.nanoTime() - this.startTime;
+		System.out.println("*** Pipelined processing of " + this.documentCount
+				+ " entities in " + String.format("%.1f", totalTime / 1e9)
+				+ " sec:");
+		for (Stage stage : this.stages) {
+			System.out.println(String.format(
+					"*** %-28s busy %10.1f sec %5.1f%%, parser waited %8.1f sec"
+							+ " (%d times)", stage.name, stage.busyTime / 1e9,
+					totalTime == 0 ? 0 : 100.0 * stage.busyTime / totalTime,
+					stage.waitTime / 1e9, stage.waitCount));
+		}
+	}
+
+	/**
+	 * Waits a little while a buffer is full or empty: first by spinning, and
+	 * then by sleeping, so that idle threads do not take away the CPU from
+	 * the busy ones.
+	 *
+	 * @param idleCount
+	 *            how often the thread has waited for this buffer before
+	 */
+	static void idle(int idleCount) {
+		if (idleCount < SPIN_COUNT) {
+			Thread.onSpinWait();
+		} else {
+			LockSupport.parkNanos(SLEEP_NANOS);
+		}
+	}
+}
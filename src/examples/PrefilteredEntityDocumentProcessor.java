@@ -0,0 +1,46 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Interface for {@link EntityDocumentProcessor} objects that only need a small
+ * part of the entities in a dump and can say so with a
+ * {@link RawEntityFilter}. When reading a JSON dump with
+ * {@link ParallelJsonDumpProcessor}, entities that do not pass the filter are
+ * dropped before they are parsed, which saves most of the processing time for
+ * such processors.
+ * <p>
+ * Entities that are dropped are not passed to any processor, so the filter
+ * must accept every entity that the processor needs.
+ */
+public interface PrefilteredEntityDocumentProcessor extends
+		EntityDocumentProcessor {
+
+	/**
+	 * Returns the filter for entities that this processor may need.
+	 *
+	 * @return the filter, or null if all entities are needed
+	 */
+	RawEntityFilter getRawEntityFilter();
+
+}
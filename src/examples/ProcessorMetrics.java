@@ -0,0 +1,377 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects the performance data of one processor while a dump is processed:
+ * the latency of each call in a histogram, the number of entities and bytes
+ * of input per second, and the bytes allocated per entity. The data is
+ * recorded by {@link InstrumentedEntityDocumentProcessor} and can be watched
+ * with JMX while the program runs (see {@link ProcessorMetricsMXBean}).
+ * <p>
+ * The histogram uses buckets like HdrHistogram: each power of two is split
+ * into {@link #SUB_BUCKET_COUNT} buckets of equal width, so that the error of
+ * each percentile is less than 7%, from nanoseconds up to hours, with less
+ * than a thousand counters. All counters can be updated by several threads.
+ */
+public class ProcessorMetrics implements ProcessorMetricsMXBean {
+
+	/**
+	 * Number of buckets for each power of two; must be a power of two.
+	 */
+	static final int SUB_BUCKET_COUNT = 16;
+
+	static final int SUB_BUCKET_BITS = Integer
+			.numberOfTrailingZeros(SUB_BUCKET_COUNT);
+
+	static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	/**
+	 * Domain of the names of the MXBeans.
+	 */
+	static final String JMX_DOMAIN = "examples";
+
+	/**
+	 * Thread bean that can measure the allocated bytes of a thread, or null
+	 * if the JVM does not support this.
+	 */
+	static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getAllocationThreadMXBean();
+
+	final String name;
+	/**
+	 * Counter of the input bytes that is shared by all processors of a run.
+	 */
+	final LongAdder inputBytes;
+
+	final AtomicLongArray latencyCounts = new AtomicLongArray(BUCKET_COUNT);
+	final LongAdder entityCount = new LongAdder();
+	final LongAdder latencySum = new LongAdder();
+	final LongAccumulator latencyMax = new LongAccumulator(Math::max, 0);
+	final LongAdder allocatedBytes = new LongAdder();
+
+	/**
+	 * Time of the first call that was recorded after the creation of this
+	 * object or the last reset, or 0 if there was no call yet.
+	 */
+	volatile long startTime;
+	volatile long startInputBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name
+	 *            the name of the processor
+	 * @param inputBytes
+	 *            the counter of the bytes of input, which is updated by the
+	 *            code that reads the dump
+	 */
+	public ProcessorMetrics(String name, LongAdder inputBytes) {
+		this.name = name;
+		this.inputBytes = inputBytes;
+		reset();
+	}
+
+	/**
+	 * Records one call of the processor.
+	 *
+	 * @param latency
+	 *            the time that the call took, in nanoseconds
+	 * @param allocated
+	 *            the number of bytes that the call allocated
+	 */
+	public void record(long latency, long allocated) {
+		if (this.startTime == 0) {
+			this.startTime = System.nanoTime() - latency;
+		}
+		this.latencyCounts.incrementAndGet(getBucketIndex(latency));
+		this.entityCount.increment();
+		this.latencySum.add(latency);
+		this.latencyMax.accumulate(latency);
+		this.allocatedBytes.add(allocated);
+	}
+
+	/**
+	 * Adds bytes that have been read from the dump.
+	 *
+	 * @param count
+	 *            the number of bytes
+	 */
+	public void addInputBytes(long count) {
+		this.inputBytes.add(count);
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server under the name
+	 * "examples:type=ProcessorMetrics,name=...". Metrics that have been
+	 * registered with the same name before are replaced.
+	 */
+	public void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName objectName = new ObjectName(JMX_DOMAIN
+					+ ":type=ProcessorMetrics,name="
+					+ ObjectName.quote(this.name));
+			try {
+				server.registerMBean(this, objectName);
+			} catch (InstanceAlreadyExistsException e) {
+				server.unregisterMBean(objectName);
+				server.registerMBean(this, objectName);
+			}
+		} catch (JMException e) {
+			System.err.println("Could not register metrics of " + this.name
+					+ " with JMX: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Prints a summary of the metrics.
+	 */
+	public void printSummary() {
+		System.out.println(String.format(
+				"*** %-28s %10d entities %10.1f/sec %5.1f%% busy",
+				this.name, getEntityCount(), getEntitiesPerSecond(),
+				getBusyPercent()));
+		System.out.println(String.format(
+				"*** %-28s latency usec: mean %.2f, p50 %.2f, p90 %.2f,"
+						+ " p99 %.2f, p99.9 %.2f, max %.1f", "",
+				getMeanLatencyMicros(), getMedianLatencyMicros(),
+				getP90LatencyMicros(), getP99LatencyMicros(),
+				getP999LatencyMicros(), getMaxLatencyMicros()));
+		if (THREAD_MX_BEAN != null) {
+			System.out.println(String.format(
+					"*** %-28s allocated %.0f bytes/entity", "",
+					getAllocatedBytesPerEntity()));
+		}
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public long getEntityCount() {
+		return this.entityCount.sum();
+	}
+
+	@Override
+	public double getEntitiesPerSecond() {
+		return perSecond(getEntityCount());
+	}
+
+	@Override
+	public long getInputBytes() {
+		return this.inputBytes.sum() - this.startInputBytes;
+	}
+
+	@Override
+	public double getInputBytesPerSecond() {
+		return perSecond(getInputBytes());
+	}
+
+	@Override
+	public double getBusyPercent() {
+		long time = getElapsedTime();
+		return time <= 0 ? 0 : 100.0 * this.latencySum.sum() / time;
+	}
+
+	@Override
+	public double getMeanLatencyMicros() {
+		long count = getEntityCount();
+		return count == 0 ? 0 : this.latencySum.sum() / 1000.0 / count;
+	}
+
+	@Override
+	public double getMedianLatencyMicros() {
+		return getLatencyPercentile(50) / 1000.0;
+	}
+
+	@Override
+	public double getP90LatencyMicros() {
+		return getLatencyPercentile(90) / 1000.0;
+	}
+
+	@Override
+	public double getP99LatencyMicros() {
+		return getLatencyPercentile(99) / 1000.0;
+	}
+
+	@Override
+	public double getP999LatencyMicros() {
+		return getLatencyPercentile(99.9) / 1000.0;
+	}
+
+	@Override
+	public double getMaxLatencyMicros() {
+		return this.latencyMax.get() / 1000.0;
+	}
+
+	@Override
+	public Map<Double, Long> getLatencyHistogramMicros() {
+		Map<Double, Long> result = new TreeMap<>();
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long count = this.latencyCounts.get(i);
+			if (count > 0) {
+				result.put(getBucketUpperBound(i) / 1000.0, count);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double getAllocatedBytesPerEntity() {
+		if (THREAD_MX_BEAN == null) {
+			return -1;
+		}
+		long count = getEntityCount();
+		return count == 0 ? 0 : (double) this.allocatedBytes.sum() / count;
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.latencyCounts.set(i, 0);
+		}
+		this.entityCount.reset();
+		this.latencySum.reset();
+		this.latencyMax.reset();
+		this.allocatedBytes.reset();
+		this.startInputBytes = this.inputBytes.sum();
+		this.startTime = 0;
+	}
+
+	/**
+	 * Returns the latency below which the given percentage of the calls took,
+	 * as the upper bound of the histogram bucket that contains it.
+	 *
+	 * @param percent
+	 *            the percentage, between 0 and 100
+	 * @return the latency in nanoseconds
+	 */
+	long getLatencyPercentile(double percent) {
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = this.latencyCounts.get(i);
+			total += counts[i];
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percent / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(i), this.latencyMax.get());
+			}
+		}
+		return 0;
+	}
+
+	double perSecond(long count) {
+		long time = getElapsedTime();
+		return time <= 0 ? 0 : count * 1e9 / time;
+	}
+
+	/**
+	 * Returns the time since the first recorded call in nanoseconds, or 0.
+	 */
+	long getElapsedTime() {
+		long startTime = this.startTime;
+		return startTime == 0 ? 0 : System.nanoTime() - startTime;
+	}
+
+	/**
+	 * Returns the index of the histogram bucket for the given value. Values
+	 * below 2 * {@link #SUB_BUCKET_COUNT} have a bucket of their own; larger
+	 * values are grouped by their highest {@link #SUB_BUCKET_BITS} + 1 bits.
+	 *
+	 * @param value
+	 *            the value, at least 0
+	 * @return the index
+	 */
+	static int getBucketIndex(long value) {
+		if (value < 2 * SUB_BUCKET_COUNT) {
+			return (int) Math.max(value, 0);
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >>> shift)
+				- SUB_BUCKET_COUNT;
+	}
+
+	/**
+	 * Returns the largest value that belongs to the histogram bucket of the
+	 * given index.
+	 *
+	 * @param index
+	 *            the index
+	 * @return the largest value
+	 */
+	static long getBucketUpperBound(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Returns the number of bytes that the current thread has allocated so
+	 * far, or 0 if this cannot be measured.
+	 *
+	 * @return the number of bytes
+	 */
+	static long getThreadAllocatedBytes() {
+		if (THREAD_MX_BEAN == null) {
+			return 0;
+		}
+		return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread()
+				.getId());
+	}
+
+	static com.sun.management.ThreadMXBean getAllocationThreadMXBean() {
+		try {
+			java.lang.management.ThreadMXBean threadMXBean = ManagementFactory
+					.getThreadMXBean();
+			if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) threadMXBean;
+				if (result.isThreadAllocatedMemorySupported()) {
+					result.setThreadAllocatedMemoryEnabled(true);
+					return result;
+				}
+			}
+		} catch (UnsupportedOperationException | SecurityException e) {
+			// allocations are not measured then
+		}
+		return null;
+	}
+}
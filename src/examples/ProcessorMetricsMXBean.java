@@ -0,0 +1,113 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link ProcessorMetrics}, so that the metrics of a
+ * running program can be watched with JMX tools such as jconsole or
+ * VisualVM. All rates and distributions refer to the time since the metrics
+ * were created or last reset.
+ */
+public interface ProcessorMetricsMXBean {
+
+	/**
+	 * Returns the name of the processor.
+	 *
+	 * @return the name
+	 */
+	String getName();
+
+	/**
+	 * Returns the number of entities that the processor has processed.
+	 *
+	 * @return the number of entities
+	 */
+	long getEntityCount();
+
+	/**
+	 * Returns the number of entities processed per second of wall-clock time.
+	 *
+	 * @return the rate
+	 */
+	double getEntitiesPerSecond();
+
+	/**
+	 * Returns the number of bytes of the (decompressed) dump that have been
+	 * read. The input is shared by all processors of a run.
+	 *
+	 * @return the number of bytes
+	 */
+	long getInputBytes();
+
+	/**
+	 * Returns the number of bytes of the dump read per second of wall-clock
+	 * time.
+	 *
+	 * @return the rate
+	 */
+	double getInputBytesPerSecond();
+
+	/**
+	 * Returns the share of the wall-clock time that was spent in the
+	 * processor, in percent. This can be more than 100 if the processor is
+	 * called in several threads.
+	 *
+	 * @return the share
+	 */
+	double getBusyPercent();
+
+	double getMeanLatencyMicros();
+
+	double getMedianLatencyMicros();
+
+	double getP90LatencyMicros();
+
+	double getP99LatencyMicros();
+
+	double getP999LatencyMicros();
+
+	double getMaxLatencyMicros();
+
+	/**
+	 * Returns the number of calls for each non-empty bucket of the latency
+	 * histogram, keyed by the upper bound of the bucket in microseconds.
+	 *
+	 * @return the histogram
+	 */
+	Map<Double, Long> getLatencyHistogramMicros();
+
+	/**
+	 * Returns the number of bytes that were allocated on the heap by the
+	 * processor per entity, or -1 if the JVM cannot measure this.
+	 *
+	 * @return the number of bytes
+	 */
+	double getAllocatedBytesPerEntity();
+
+	/**
+	 * Clears all counts, so that the rates and latencies show the current
+	 * behaviour in long runs instead of the average since the start.
+	 */
+	void reset();
+
+}
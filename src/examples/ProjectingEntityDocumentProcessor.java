@@ -0,0 +1,45 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Interface for {@link EntityDocumentProcessor} objects that only look at some
+ * parts of each entity and can say so with an {@link EntityProjection}. When
+ * reading a JSON dump with {@link ParallelJsonDumpProcessor}, the other parts
+ * are skipped while parsing, which saves time and memory for processors that
+ * need to see many entities, but only little data about each of them.
+ * <p>
+ * The documents passed to the processor only contain the projected data, so
+ * the projection must include everything that the processor uses.
+ */
+public interface ProjectingEntityDocumentProcessor extends
+		EntityDocumentProcessor {
+
+	/**
+	 * Returns the projection to the data that this processor needs.
+	 *
+	 * @return the projection, or null if all data is needed
+	 */
+	EntityProjection getEntityProjection();
+
+}
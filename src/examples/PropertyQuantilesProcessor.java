@@ -0,0 +1,547 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+/**
+ * This document processor computes the distribution of the values of
+ * selected properties with quantity or time values, such as population
+ * (P1082), height (P2048), or date of birth (P569). For each property, it
+ * finds the quantiles (e.g., the median or the value that is larger than 99%
+ * of all values) and a histogram. Quantities are counted separately for each
+ * unit, since a height in metres cannot be compared to one in feet, and
+ * times are counted by their year; times that are less precise than a year
+ * are ignored.
+ * <p>
+ * Only the best statements of each entity are used, i.e., the preferred
+ * statements if there are any, and the normal statements otherwise, as in
+ * the "truthy" statements of the Wikidata Query Service. Hence, an item with
+ * historical population figures only contributes its current population.
+ * <p>
+ * The values of each property and unit are kept in a {@link QuantileSketch}
+ * of a few KB, so hundreds of properties can be analyzed in one pass. When
+ * reading a JSON dump, the processor looks at the statements through a
+ * {@link FlyweightEntityDocument}, which parses quantities directly into
+ * doubles, so no BigDecimal objects or documents are created.
+ * <p>
+ * The results are written to the files property-quantiles.csv and
+ * property-histograms.csv.
+ */
+public class PropertyQuantilesProcessor implements
+		MergeableEntityDocumentProcessor<PropertyQuantilesProcessor>,
+		CheckpointableEntityDocumentProcessor,
+		StreamingEntityDocumentProcessor {
+
+	/**
+	 * The properties that are analyzed when running this class as a program.
+	 */
+	static final String[] DEFAULT_PROPERTY_IDS = { "P1082", "P2048", "P2067",
+			"P2046", "P2044", "P1120", "P569", "P570", "P571", "P577" };
+
+	/**
+	 * The unit that is used for the years of time values.
+	 */
+	static final String TIME_UNIT = "year";
+
+	/**
+	 * The fractions of the values for which quantiles are written.
+	 */
+	static final double[] QUANTILE_FRACTIONS = { 0, 0.01, 0.05, 0.25, 0.5,
+			0.75, 0.95, 0.99, 1 };
+
+	/**
+	 * The number of buckets of each histogram between the 1st and the 99th
+	 * percentile. There is one more bucket below and above of them.
+	 */
+	static final int HISTOGRAM_BUCKETS = 20;
+
+	/**
+	 * The values of one property with one unit.
+	 */
+	static class Distribution {
+		final String propertyId;
+		final String unit;
+		final QuantileSketch sketch = new QuantileSketch();
+
+		Distribution(String propertyId, String unit) {
+			this.propertyId = propertyId;
+			this.unit = unit;
+		}
+	}
+
+	final String[] propertyIds;
+	final EntityProjection projection;
+
+	/**
+	 * The distributions of the values of each property, one for each unit.
+	 */
+	final HashMap<String, List<Distribution>> distributions = new HashMap<>();
+
+	/**
+	 * The properties that have preferred statements in the current entity
+	 * view. Reused for all entities.
+	 */
+	String[] preferredPropertyIds = new String[8];
+
+	long entityCount = 0;
+
+	/**
+	 * If false, no intermediate status reports are printed. Used for copies
+	 * that only see part of the data when processing in parallel.
+	 */
+	boolean reportProgress = true;
+
+	/**
+	 * Main method. Processes the whole dump using this processor and writes the
+	 * results to a file. To change which dump file to use and whether to run in
+	 * offline mode, modify the settings in {@link ExampleHelpers}.
+	 */
+	public static void main(String[] args) {
+		ExampleHelpers.configureLogging();
+		PropertyQuantilesProcessor.printDocumentation();
+
+		PropertyQuantilesProcessor processor = new PropertyQuantilesProcessor(
+				DEFAULT_PROPERTY_IDS);
+		ExampleHelpers.processEntitiesFromWikidataDump(processor);
+		processor.writeFinalResults();
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param propertyIds
+	 *            the ids of the properties to analyze, such as "P1082"
+	 */
+	public PropertyQuantilesProcessor(String... propertyIds) {
+		this.propertyIds = propertyIds.clone();
+		this.projection = EntityProjection.EMPTY.withProperties(propertyIds);
+		for (String propertyId : propertyIds) {
+			this.distributions.put(propertyId, new ArrayList<>());
+		}
+	}
+
+	@Override
+	public EntityProjection getEntityProjection() {
+		return this.projection;
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		countValues(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		countValues(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		countValues(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		countValues(mediaInfoDocument);
+	}
+
+	@Override
+	public void processEntityView(FlyweightEntityDocument entityView) {
+		countEntity();
+
+		int preferredCount = 0;
+		for (int i = 0; i < entityView.getStatementCount(); i++) {
+			if (entityView.getRank(i) == StatementRank.PREFERRED) {
+				if (preferredCount == this.preferredPropertyIds.length) {
+					this.preferredPropertyIds = Arrays.copyOf(
+							this.preferredPropertyIds, 2 * preferredCount);
+				}
+				this.preferredPropertyIds[preferredCount++] = entityView
+						.getPropertyId(i);
+			}
+		}
+
+		for (int i = 0; i < entityView.getStatementCount(); i++) {
+			String propertyId = entityView.getPropertyId(i);
+			List<Distribution> propertyDistributions = this.distributions
+					.get(propertyId);
+			StatementRank rank = entityView.getRank(i);
+			if (propertyDistributions == null
+					|| rank == StatementRank.DEPRECATED
+					|| (rank == StatementRank.NORMAL && contains(
+							this.preferredPropertyIds, preferredCount,
+							propertyId))) {
+				continue;
+			}
+
+			switch (entityView.getValueKind(i)) {
+			case QUANTITY:
+				getDistribution(propertyDistributions, entityView, i).sketch
+						.add(entityView.getQuantityAmount(i));
+				break;
+			case TIME:
+				if (entityView.getTimePrecision(i) >= TimeValue.PREC_YEAR) {
+					getDistribution(propertyDistributions, propertyId,
+							TIME_UNIT).sketch.add(entityView.getTimeYear(i));
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	@Override
+	public PropertyQuantilesProcessor createWorkerCopy() {
+		PropertyQuantilesProcessor copy = new PropertyQuantilesProcessor(
+				this.propertyIds);
+		copy.reportProgress = false;
+		return copy;
+	}
+
+	@Override
+	public void merge(PropertyQuantilesProcessor other) {
+		this.entityCount += other.entityCount;
+		for (List<Distribution> otherDistributions : other.distributions
+				.values()) {
+			for (Distribution otherDistribution : otherDistributions) {
+				getDistribution(
+						this.distributions.get(otherDistribution.propertyId),
+						otherDistribution.propertyId, otherDistribution.unit).sketch
+						.merge(otherDistribution.sketch);
+			}
+		}
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeLong(this.entityCount);
+		for (String propertyId : this.propertyIds) {
+			List<Distribution> propertyDistributions = this.distributions
+					.get(propertyId);
+			out.writeInt(propertyDistributions.size());
+			for (Distribution distribution : propertyDistributions) {
+				out.writeUTF(distribution.unit);
+				distribution.sketch.write(out);
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		this.entityCount = in.readLong();
+		for (String propertyId : this.propertyIds) {
+			List<Distribution> propertyDistributions = this.distributions
+					.get(propertyId);
+			propertyDistributions.clear();
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				Distribution distribution = new Distribution(propertyId,
+						in.readUTF());
+				distribution.sketch.merge(QuantileSketch.read(in));
+				propertyDistributions.add(distribution);
+			}
+		}
+	}
+
+	/**
+	 * Counts the values of the best statements of the given document for all
+	 * properties that are analyzed.
+	 *
+	 * @param statementDocument
+	 *            the document
+	 */
+	void countValues(StatementDocument statementDocument) {
+		countEntity();
+
+		for (String propertyId : this.propertyIds) {
+			StatementGroup statementGroup = statementDocument
+					.findStatementGroup(propertyId);
+			if (statementGroup == null) {
+				continue;
+			}
+			StatementGroup bestStatements = statementGroup.getBestStatements();
+			if (bestStatements == null) {
+				continue;
+			}
+			List<Distribution> propertyDistributions = this.distributions
+					.get(propertyId);
+			for (Statement statement : bestStatements) {
+				Value value = statement.getValue();
+				if (value instanceof QuantityValue) {
+					QuantityValue quantityValue = (QuantityValue) value;
+					getDistribution(propertyDistributions, propertyId,
+							quantityValue.getUnit()).sketch.add(quantityValue
+							.getNumericValue().doubleValue());
+				} else if (value instanceof TimeValue) {
+					TimeValue timeValue = (TimeValue) value;
+					if (timeValue.getPrecision() >= TimeValue.PREC_YEAR) {
+						getDistribution(propertyDistributions, propertyId,
+								TIME_UNIT).sketch.add(timeValue.getYear());
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts one entity and prints the status once in a while.
+	 */
+	void countEntity() {
+		this.entityCount++;
+		if (this.reportProgress && this.entityCount % 1000000 == 0) {
+			printStatus();
+		}
+	}
+
+	/**
+	 * Returns the distribution of a property with the given unit, creating it
+	 * if needed.
+	 *
+	 * @param propertyDistributions
+	 *            the distributions of the property
+	 * @param propertyId
+	 *            the id of the property
+	 * @param unit
+	 *            the unit
+	 * @return the distribution
+	 */
+	Distribution getDistribution(List<Distribution> propertyDistributions,
+			String propertyId, String unit) {
+		for (Distribution distribution : propertyDistributions) {
+			if (distribution.unit.equals(unit)) {
+				return distribution;
+			}
+		}
+		Distribution distribution = new Distribution(propertyId, unit);
+		propertyDistributions.add(distribution);
+		return distribution;
+	}
+
+	/**
+	 * Variant of {@link #getDistribution(List, String, String)} for the unit
+	 * of a quantity value in an entity view, which only creates a string for
+	 * units that have not been seen before.
+	 *
+	 * @param propertyDistributions
+	 *            the distributions of the property
+	 * @param entityView
+	 *            the view
+	 * @param statement
+	 *            the number of the statement with the quantity value
+	 * @return the distribution
+	 */
+	Distribution getDistribution(List<Distribution> propertyDistributions,
+			FlyweightEntityDocument entityView, int statement) {
+		for (Distribution distribution : propertyDistributions) {
+			if (entityView.quantityUnitEquals(statement, distribution.unit)) {
+				return distribution;
+			}
+		}
+		return getDistribution(propertyDistributions,
+				entityView.getPropertyId(statement),
+				entityView.getQuantityUnit(statement));
+	}
+
+	/**
+	 * Returns true if the first elements of the given array contain the
+	 * given (shared) string object.
+	 */
+	static boolean contains(String[] strings, int size, String string) {
+		for (int i = 0; i < size; i++) {
+			if (strings[i] == string) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the results of the processing to two CSV files: the quantiles of
+	 * the values of each property and unit, and a histogram for each of
+	 * them. The histograms use logarithmic buckets if the values are positive
+	 * and span several orders of magnitude, and buckets of equal width
+	 * otherwise. The counts in the histograms are estimates.
+	 */
+	public void writeFinalResults() {
+		printStatus();
+
+		try (PrintStream out = new PrintStream(
+				ExampleHelpers
+						.openExampleFileOuputStream("property-quantiles.csv"))) {
+			out.println("Property id,Unit,Values,Min,P1,P5,P25,P50,P75,P95,P99,Max");
+			for (Distribution distribution : getDistributions()) {
+				out.print(distribution.propertyId + ","
+						+ formatUnit(distribution.unit) + ","
+						+ distribution.sketch.getCount());
+				for (double quantile : distribution.sketch
+						.getQuantiles(QUANTILE_FRACTIONS)) {
+					out.print("," + formatNumber(quantile));
+				}
+				out.println();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+
+		try (PrintStream out = new PrintStream(
+				ExampleHelpers
+						.openExampleFileOuputStream("property-histograms.csv"))) {
+			out.println("Property id,Unit,From,To,Values");
+			for (Distribution distribution : getDistributions()) {
+				writeHistogram(out, distribution);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes the rows of the histogram of one distribution.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param distribution
+	 *            the distribution
+	 */
+	void writeHistogram(PrintStream out, Distribution distribution) {
+		QuantileSketch sketch = distribution.sketch;
+		double[] percentiles = sketch.getQuantiles(0.01, 0.99);
+		double low = percentiles[0];
+		double high = percentiles[1];
+		boolean logarithmic = low > 0 && high / low > 1000;
+
+		// bounds of the buckets, including the smallest and largest value:
+		double[] bounds = new double[HISTOGRAM_BUCKETS + 3];
+		bounds[0] = sketch.getMin();
+		for (int i = 0; i <= HISTOGRAM_BUCKETS; i++) {
+			double fraction = (double) i / HISTOGRAM_BUCKETS;
+			if (logarithmic) {
+				bounds[i + 1] = low * Math.pow(high / low, fraction);
+			} else {
+				bounds[i + 1] = low + (high - low) * fraction;
+			}
+		}
+		bounds[HISTOGRAM_BUCKETS + 2] = sketch.getMax();
+
+		long[] countsBelow = sketch.getCountsBelow(bounds);
+		String prefix = distribution.propertyId + ","
+				+ formatUnit(distribution.unit) + ",";
+		for (int i = 0; i < bounds.length - 1; i++) {
+			// the last bucket also contains the largest value:
+			long countBelowEnd = i == bounds.length - 2 ? sketch.getCount()
+					: countsBelow[i + 1];
+			long count = countBelowEnd - countsBelow[i];
+			if (count > 0) {
+				out.println(prefix + formatNumber(bounds[i]) + ","
+						+ formatNumber(bounds[i + 1]) + "," + count);
+			}
+		}
+	}
+
+	/**
+	 * Returns all distributions, ordered by the properties in the order in
+	 * which they were given and by the order in which the units were found.
+	 *
+	 * @return the distributions
+	 */
+	List<Distribution> getDistributions() {
+		List<Distribution> result = new ArrayList<>();
+		for (String propertyId : this.propertyIds) {
+			result.addAll(this.distributions.get(propertyId));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a short form of a unit for the output: "1" for quantities
+	 * without unit, or the id of the item of the unit.
+	 */
+	static String formatUnit(String unit) {
+		return unit.substring(unit.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * Formats a number for the output, without decimal places if it is an
+	 * integer, such as a year.
+	 */
+	static String formatNumber(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return Long.toString((long) value);
+		} else {
+			return Double.toString(value);
+		}
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: PropertyQuantilesProcessor");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program will download and process dumps from Wikidata.");
+		System.out
+				.println("*** It will compute the distribution of the values of some properties");
+		System.out
+				.println("*** with quantities or dates, such as population or date of birth.");
+		System.out
+				.println("*** Quantiles and histograms will be stored in CSV files.");
+		System.out.println("*** See source code for further details.");
+		System.out
+				.println("********************************************************************");
+	}
+
+	/**
+	 * Prints the current status to the system output.
+	 */
+	void printStatus() {
+		System.out.println("*** Processed " + this.entityCount
+				+ " entities. Values found:");
+		for (Distribution distribution : getDistributions()) {
+			System.out.println("*** - " + distribution.propertyId + " ("
+					+ formatUnit(distribution.unit) + "): "
+					+ distribution.sketch.getCount());
+		}
+	}
+}
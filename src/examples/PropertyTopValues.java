@@ -0,0 +1,237 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+/**
+ * The most common values of each property in one position of statements
+ * (main snaks, qualifiers, or references), with one {@link HeavyHitters}
+ * summary per property. Summaries are only created for properties that are
+ * used with values, and their size is fixed, so the memory does not grow with
+ * the number of values.
+ * <p>
+ * Values are counted by a string form (see {@link #getValueKey(Value)}),
+ * which is the id for entities and the string for strings and external ids,
+ * so that the most common kinds of values are counted without creating any
+ * objects.
+ */
+public class PropertyTopValues {
+
+	final int capacity;
+
+	/**
+	 * The summary of each property, indexed by the number of the property
+	 * (31 for P31), or null if the property has not been used with a value.
+	 */
+	HeavyHitters[] summaries = new HeavyHitters[EntityStatisticsProcessor.PROPERTY_TABLE_SIZE];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity
+	 *            the number of values that are kept for each property
+	 */
+	public PropertyTopValues(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Counts one use of the given value with the given property.
+	 *
+	 * @param property
+	 *            the number of the property
+	 * @param value
+	 *            the value
+	 */
+	public void add(int property, Value value) {
+		getSummary(property).add(getValueKey(value));
+	}
+
+	/**
+	 * Returns the summary of the values of the given property.
+	 *
+	 * @param property
+	 *            the number of the property
+	 * @return the summary, or null if the property has not been used with a
+	 *         value
+	 */
+	public HeavyHitters get(int property) {
+		return property < this.summaries.length ? this.summaries[property]
+				: null;
+	}
+
+	/**
+	 * Returns a number such that all properties with larger numbers have no
+	 * summary.
+	 *
+	 * @return the limit of the property numbers with summaries
+	 */
+	public int size() {
+		return this.summaries.length;
+	}
+
+	/**
+	 * Adds all summaries of another object to the summaries of this object.
+	 *
+	 * @param other
+	 *            an object with the same number of values per property
+	 */
+	public void merge(PropertyTopValues other) {
+		for (int property = 0; property < other.summaries.length; property++) {
+			if (other.summaries[property] != null) {
+				getSummary(property).merge(other.summaries[property]);
+			}
+		}
+	}
+
+	/**
+	 * Writes all summaries for a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		int size = 0;
+		for (HeavyHitters summary : this.summaries) {
+			if (summary != null) {
+				size++;
+			}
+		}
+		out.writeInt(size);
+		for (int property = 0; property < this.summaries.length; property++) {
+			if (this.summaries[property] != null) {
+				out.writeInt(property);
+				this.summaries[property].write(out);
+			}
+		}
+	}
+
+	/**
+	 * Reads summaries that were written with {@link #write(DataOutput)} and
+	 * adds them to this object.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	public void read(DataInput in) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int property = in.readInt();
+			getSummary(property).merge(HeavyHitters.read(in));
+		}
+	}
+
+	/**
+	 * Returns the summary for the given property, creating it if needed.
+	 */
+	HeavyHitters getSummary(int property) {
+		if (property >= this.summaries.length) {
+			this.summaries = Arrays.copyOf(this.summaries,
+					Math.max(2 * this.summaries.length, property + 1));
+		}
+		HeavyHitters summary = this.summaries[property];
+		if (summary == null) {
+			summary = new HeavyHitters(this.capacity);
+			this.summaries[property] = summary;
+		}
+		return summary;
+	}
+
+	/**
+	 * Returns the string by which the given value is counted. Two values have
+	 * the same string if they are equal in the data model, except that the
+	 * bounds of quantities and the tolerances of times are ignored. Items and
+	 * units are given by their ids, so that the strings are short.
+	 *
+	 * @param value
+	 *            the value
+	 * @return the string for the value
+	 */
+	static String getValueKey(Value value) {
+		if (value instanceof EntityIdValue) {
+			return ((EntityIdValue) value).getId();
+		} else if (value instanceof StringValue) {
+			return ((StringValue) value).getString();
+		} else if (value instanceof MonolingualTextValue) {
+			MonolingualTextValue text = (MonolingualTextValue) value;
+			return text.getText() + "@" + text.getLanguageCode();
+		} else if (value instanceof TimeValue) {
+			TimeValue time = (TimeValue) value;
+			StringBuilder builder = new StringBuilder();
+			builder.append(time.getYear()).append('-')
+					.append(time.getMonth()).append('-')
+					.append(time.getDay());
+			if (time.getHour() != 0 || time.getMinute() != 0
+					|| time.getSecond() != 0) {
+				builder.append('T').append(time.getHour()).append(':')
+						.append(time.getMinute()).append(':')
+						.append(time.getSecond());
+			}
+			builder.append('/').append(time.getPrecision());
+			if (!TimeValue.CM_GREGORIAN_PRO.equals(time
+					.getPreferredCalendarModel())) {
+				builder.append(' ').append(
+						getLocalName(time.getPreferredCalendarModel()));
+			}
+			return builder.toString();
+		} else if (value instanceof QuantityValue) {
+			QuantityValue quantity = (QuantityValue) value;
+			String amount = quantity.getNumericValue().toString();
+			if ("1".equals(quantity.getUnit())) {
+				return amount;
+			} else {
+				return amount + " " + getLocalName(quantity.getUnit());
+			}
+		} else if (value instanceof GlobeCoordinatesValue) {
+			GlobeCoordinatesValue coordinates = (GlobeCoordinatesValue) value;
+			return coordinates.getLatitude() + "/"
+					+ coordinates.getLongitude() + "/"
+					+ coordinates.getPrecision() + " "
+					+ getLocalName(coordinates.getGlobe());
+		} else {
+			return value.toString();
+		}
+	}
+
+	/**
+	 * Returns the last part of an IRI, such as "Q11573" for the IRI of an
+	 * item that is used as a unit.
+	 */
+	static String getLocalName(String iri) {
+		return iri.substring(iri.lastIndexOf('/') + 1);
+	}
+}
@@ -0,0 +1,444 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Sketch of the distribution of a stream of numbers, computed with the KLL
+ * algorithm of Karnin, Lang, and Liberty. The sketch answers questions such
+ * as "which number is larger than 99% of all numbers" (quantiles) or "how
+ * many numbers are smaller than x" (ranks) with an error of about 1.7 / k of
+ * the number of values, e.g., 0.8% for the default k of 200, while keeping
+ * at most about 3k numbers.
+ * <p>
+ * The numbers are kept in levels, where each number on level h stands for
+ * 2^h numbers of the stream. When a level is full, it is sorted, and every
+ * other number (starting with a random one of the first two) is moved to the
+ * next level, while the others are dropped. The levels are smaller the
+ * lower they are, so most numbers are kept on the highest levels.
+ * <p>
+ * Sketches with the same k can be merged. Adding a number only uses
+ * primitive arithmetic and creates no objects, except when a level needs to
+ * grow. Objects of this class must not be used by several threads at the same
+ * time.
+ */
+public class QuantileSketch {
+
+	public static final int DEFAULT_K = 200;
+
+	/**
+	 * The smallest number of values that a level can keep.
+	 */
+	static final int MIN_LEVEL_CAPACITY = 8;
+
+	final int k;
+
+	/**
+	 * The values of each level, of which the first {@link #levelSizes} are
+	 * used.
+	 */
+	double[][] levels = new double[1][];
+	int[] levelSizes = new int[1];
+	int levelCount = 1;
+	/**
+	 * The number of values that each level can keep before it is compacted,
+	 * which only changes when a level is added; see
+	 * {@link #getCapacity(int)}.
+	 */
+	int[] capacities;
+
+	long count = 0;
+	double min = Double.NaN;
+	double max = Double.NaN;
+
+	/**
+	 * State of the xorshift generator for the random offsets of
+	 * compactions.
+	 */
+	long random = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Creates a sketch with the default k.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_K);
+	}
+
+	/**
+	 * Creates a sketch with the given k.
+	 *
+	 * @param k
+	 *            the number of values of the highest level, which determines
+	 *            the accuracy and size of the sketch
+	 */
+	public QuantileSketch(int k) {
+		if (k < MIN_LEVEL_CAPACITY) {
+			throw new IllegalArgumentException("k must be at least "
+					+ MIN_LEVEL_CAPACITY);
+		}
+		this.k = k;
+		this.levels[0] = new double[k];
+		updateCapacities();
+	}
+
+	/**
+	 * Adds a number to the sketch. NaN is ignored.
+	 *
+	 * @param value
+	 *            the number
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) {
+			return;
+		}
+		if (this.count == 0) {
+			this.min = value;
+			this.max = value;
+		} else if (value < this.min) {
+			this.min = value;
+		} else if (value > this.max) {
+			this.max = value;
+		}
+		this.count++;
+		append(0, value);
+		if (this.levelSizes[0] >= this.capacities[0]) {
+			compress();
+		}
+	}
+
+	/**
+	 * Adds all numbers of another sketch to this sketch.
+	 *
+	 * @param other
+	 *            a sketch with the same k
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.k != this.k) {
+			throw new IllegalArgumentException(
+					"Sketches with different k cannot be merged");
+		}
+		if (other.count == 0) {
+			return;
+		}
+		if (this.count == 0) {
+			this.min = other.min;
+			this.max = other.max;
+		} else {
+			this.min = Math.min(this.min, other.min);
+			this.max = Math.max(this.max, other.max);
+		}
+		this.count += other.count;
+		for (int level = 0; level < other.levelCount; level++) {
+			for (int i = 0; i < other.levelSizes[level]; i++) {
+				append(level, other.levels[level][i]);
+			}
+		}
+		compress();
+	}
+
+	/**
+	 * Returns the number of values that have been added.
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the smallest value that has been added.
+	 *
+	 * @return the smallest value, or NaN if there are no values
+	 */
+	public double getMin() {
+		return this.min;
+	}
+
+	/**
+	 * Returns the largest value that has been added.
+	 *
+	 * @return the largest value, or NaN if there are no values
+	 */
+	public double getMax() {
+		return this.max;
+	}
+
+	/**
+	 * Returns estimates of the values at the given fractions of the sorted
+	 * values, e.g., the median for 0.5. The fraction 0 gives the smallest
+	 * value and 1 the largest value.
+	 *
+	 * @param fractions
+	 *            the fractions, between 0 and 1
+	 * @return the values for the fractions, or NaN if there are no values
+	 */
+	public double[] getQuantiles(double... fractions) {
+		double[] result = new double[fractions.length];
+		if (this.count == 0) {
+			Arrays.fill(result, Double.NaN);
+			return result;
+		}
+		SortedView view = new SortedView();
+		for (int i = 0; i < fractions.length; i++) {
+			if (fractions[i] <= 0) {
+				result[i] = this.min;
+			} else if (fractions[i] >= 1) {
+				result[i] = this.max;
+			} else {
+				result[i] = view.getQuantile(fractions[i] * this.count);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns estimates of the number of values that are smaller than each of
+	 * the given numbers.
+	 *
+	 * @param values
+	 *            the numbers
+	 * @return the estimated counts
+	 */
+	public long[] getCountsBelow(double... values) {
+		long[] result = new long[values.length];
+		if (this.count == 0) {
+			return result;
+		}
+		SortedView view = new SortedView();
+		for (int i = 0; i < values.length; i++) {
+			result[i] = view.getCountBelow(values[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the sketch for a checkpoint.
+	 *
+	 * @param out
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.k);
+		out.writeLong(this.count);
+		out.writeDouble(this.min);
+		out.writeDouble(this.max);
+		out.writeInt(this.levelCount);
+		for (int level = 0; level < this.levelCount; level++) {
+			out.writeInt(this.levelSizes[level]);
+			for (int i = 0; i < this.levelSizes[level]; i++) {
+				out.writeDouble(this.levels[level][i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads a sketch that was written with {@link #write(DataOutput)}.
+	 *
+	 * @param in
+	 *            the input to read from
+	 * @return the sketch
+	 * @throws IOException
+	 *             if the data could not be read
+	 */
+	public static QuantileSketch read(DataInput in) throws IOException {
+		QuantileSketch result = new QuantileSketch(in.readInt());
+		result.count = in.readLong();
+		result.min = in.readDouble();
+		result.max = in.readDouble();
+		int levelCount = in.readInt();
+		for (int level = 0; level < levelCount; level++) {
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				result.append(level, in.readDouble());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of values that the given level can keep before it
+	 * is compacted. The highest level keeps k values, and each level below
+	 * keeps 2/3 of the values of the level above it.
+	 */
+	int getCapacity(int level) {
+		int depth = this.levelCount - 1 - level;
+		return Math.max(MIN_LEVEL_CAPACITY,
+				(int) Math.ceil(this.k * Math.pow(2.0 / 3.0, depth)));
+	}
+
+	/**
+	 * Computes {@link #capacities} for the current number of levels.
+	 */
+	void updateCapacities() {
+		this.capacities = new int[this.levelCount];
+		for (int level = 0; level < this.levelCount; level++) {
+			this.capacities[level] = getCapacity(level);
+		}
+	}
+
+	/**
+	 * Appends a value to the given level, creating the level if needed.
+	 */
+	void append(int level, double value) {
+		if (level >= this.levelCount) {
+			if (level >= this.levels.length) {
+				this.levels = Arrays.copyOf(this.levels, level + 1);
+				this.levelSizes = Arrays.copyOf(this.levelSizes, level + 1);
+			}
+			for (int i = this.levelCount; i <= level; i++) {
+				this.levels[i] = new double[MIN_LEVEL_CAPACITY];
+			}
+			this.levelCount = level + 1;
+			updateCapacities();
+		}
+		int size = this.levelSizes[level];
+		if (size == this.levels[level].length) {
+			this.levels[level] = Arrays.copyOf(this.levels[level], 2 * size);
+		}
+		this.levels[level][size] = value;
+		this.levelSizes[level] = size + 1;
+	}
+
+	/**
+	 * Compacts all levels that are full, from the lowest to the highest. When
+	 * a compaction adds a level, the capacities of all lower levels shrink, so
+	 * the levels are checked again until none of them is full.
+	 */
+	void compress() {
+		boolean compacted;
+		do {
+			compacted = false;
+			for (int level = 0; level < this.levelCount; level++) {
+				if (this.levelSizes[level] >= this.capacities[level]) {
+					compact(level);
+					compacted = true;
+				}
+			}
+		} while (compacted);
+	}
+
+	/**
+	 * Moves every other value of the given level to the next level, and
+	 * drops the others. If the level has an odd number of values, the
+	 * smallest value stays on the level.
+	 */
+	void compact(int level) {
+		double[] values = this.levels[level];
+		int size = this.levelSizes[level];
+		Arrays.sort(values, 0, size);
+		int start = size % 2;
+		this.random ^= this.random << 13;
+		this.random ^= this.random >>> 7;
+		this.random ^= this.random << 17;
+		int offset = (int) (this.random & 1);
+		for (int i = start + offset; i < size; i += 2) {
+			append(level + 1, values[i]);
+		}
+		// append may have replaced the array of the next level, but not this
+		// one:
+		this.levelSizes[level] = start;
+	}
+
+	/**
+	 * All values of the sketch, sorted, with the number of values that each
+	 * of them stands for.
+	 */
+	class SortedView {
+		final double[] values;
+		/**
+		 * The total weight of each value and all smaller values.
+		 */
+		final long[] cumulativeWeights;
+
+		SortedView() {
+			int size = 0;
+			for (int level = 0; level < QuantileSketch.this.levelCount; level++) {
+				size += QuantileSketch.this.levelSizes[level];
+			}
+			double[] values = new double[0];
+			long[] weights = new long[0];
+			for (int level = 0; level < QuantileSketch.this.levelCount; level++) {
+				int levelSize = QuantileSketch.this.levelSizes[level];
+				double[] levelValues = Arrays.copyOf(
+						QuantileSketch.this.levels[level], levelSize);
+				Arrays.sort(levelValues);
+				// merge the sorted values of the level into the result:
+				double[] mergedValues = new double[values.length + levelSize];
+				long[] mergedWeights = new long[mergedValues.length];
+				int i = 0, j = 0;
+				for (int m = 0; m < mergedValues.length; m++) {
+					if (j == levelSize
+							|| (i < values.length && values[i] <= levelValues[j])) {
+						mergedValues[m] = values[i];
+						mergedWeights[m] = weights[i++];
+					} else {
+						mergedValues[m] = levelValues[j++];
+						mergedWeights[m] = 1L << level;
+					}
+				}
+				values = mergedValues;
+				weights = mergedWeights;
+			}
+			assert values.length == size;
+			this.values = values;
+			this.cumulativeWeights = weights;
+			for (int i = 1; i < weights.length; i++) {
+				this.cumulativeWeights[i] += this.cumulativeWeights[i - 1];
+			}
+		}
+
+		/**
+		 * Returns the smallest value whose cumulative weight is at least the
+		 * given rank.
+		 */
+		double getQuantile(double rank) {
+			int index = Arrays.binarySearch(this.cumulativeWeights,
+					(long) Math.ceil(rank));
+			if (index < 0) {
+				index = -index - 1;
+			}
+			return this.values[Math.min(index, this.values.length - 1)];
+		}
+
+		/**
+		 * Returns the total weight of the values that are smaller than the
+		 * given value.
+		 */
+		long getCountBelow(double value) {
+			int low = 0, high = this.values.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (this.values[middle] < value) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low == 0 ? 0 : this.cumulativeWeights[low - 1];
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cheap test on the raw JSON of an entity that is used to skip entities
+ * before they are parsed. A filter only looks for byte patterns in the JSON
+ * line, such as the id of a property in quotes. It may therefore accept
+ * entities that do not really have the required data (e.g., if the property
+ * is only used in a qualifier), but it never rejects an entity that has it.
+ * Processors still have to check the documents they receive.
+ * <p>
+ * Filters are immutable. They can be combined with {@link #and(RawEntityFilter)}
+ * and {@link #or(RawEntityFilter)}.
+ *
+ * @see PrefilteredEntityDocumentProcessor
+ */
+public class RawEntityFilter {
+
+	/**
+	 * Filter that accepts all entities.
+	 */
+	public static final RawEntityFilter ALL = new RawEntityFilter(
+			Collections.singletonList(Collections.emptyList()));
+
+	static final byte[] NUMERIC_ID_KEY = "\"numeric-id\":"
+			.getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * A byte pattern that must occur in the JSON. If a number is given, the
+	 * pattern must be followed by this number (possibly after some spaces).
+	 */
+	static class Pattern {
+		final byte[] bytes;
+		final long number;
+		/**
+		 * Distance to shift the pattern for each byte value, as in the
+		 * Boyer-Moore-Horspool algorithm.
+		 */
+		final int[] shifts = new int[256];
+
+		Pattern(byte[] bytes, long number) {
+			this.bytes = bytes;
+			this.number = number;
+			for (int i = 0; i < 256; i++) {
+				this.shifts[i] = bytes.length;
+			}
+			for (int i = 0; i < bytes.length - 1; i++) {
+				this.shifts[bytes[i] & 0xff] = bytes.length - 1 - i;
+			}
+		}
+
+		boolean occursIn(byte[] data, int start, int end) {
+			int last = this.bytes.length - 1;
+			int position = start;
+			while (position + last < end) {
+				int i = last;
+				while (i >= 0 && data[position + i] == this.bytes[i]) {
+					i--;
+				}
+				if (i < 0 && (this.number < 0 || isFollowedByNumber(data,
+						position + this.bytes.length, end))) {
+					return true;
+				}
+				position += this.shifts[data[position + last] & 0xff];
+			}
+			return false;
+		}
+
+		boolean isFollowedByNumber(byte[] data, int position, int end) {
+			while (position < end && data[position] == ' ') {
+				position++;
+			}
+			long value = 0;
+			int digits = 0;
+			while (position < end && data[position] >= '0'
+					&& data[position] <= '9' && digits < 19) {
+				value = 10 * value + (data[position] - '0');
+				position++;
+				digits++;
+			}
+			return digits > 0 && value == this.number
+					&& (position == end || data[position] < '0'
+							|| data[position] > '9');
+		}
+	}
+
+	/**
+	 * The filter accepts an entity if one of these conjunctions is satisfied.
+	 * A conjunction is satisfied if each of its requirements is satisfied,
+	 * and a requirement is satisfied if one of its patterns occurs.
+	 */
+	final List<List<Pattern[]>> conjunctions;
+
+	RawEntityFilter(List<List<Pattern[]>> conjunctions) {
+		this.conjunctions = conjunctions;
+	}
+
+	/**
+	 * Returns a filter that accepts entities that use the given property.
+	 *
+	 * @param propertyId
+	 *            the id of the property, such as "P625"
+	 * @return the filter
+	 */
+	public static RawEntityFilter requireProperty(String propertyId) {
+		return requireAnyPattern(new Pattern(quote(propertyId), -1));
+	}
+
+	/**
+	 * Returns a filter that accepts entities that use the given property and
+	 * that refer to the given entity somewhere, e.g., as a value of this
+	 * property. Both the current JSON format ("id":"Q1731") and the older
+	 * format that only gives the number ("numeric-id":1731) are recognized.
+	 *
+	 * @param propertyId
+	 *            the id of the property, such as "P19"
+	 * @param entityId
+	 *            the id of the value, such as "Q1731"
+	 * @return the filter
+	 */
+	public static RawEntityFilter requirePropertyValue(String propertyId,
+			String entityId) {
+		Pattern idPattern = new Pattern(quote(entityId), -1);
+		Pattern numericIdPattern;
+		try {
+			numericIdPattern = new Pattern(NUMERIC_ID_KEY,
+					Long.parseLong(entityId.substring(1)));
+		} catch (NumberFormatException e) {
+			return requireProperty(propertyId).and(
+					requireAnyPattern(idPattern));
+		}
+		return requireProperty(propertyId).and(
+				requireAnyPattern(idPattern, numericIdPattern));
+	}
+
+	/**
+	 * Returns a filter that accepts entities that are accepted by this filter
+	 * and by the given filter.
+	 *
+	 * @param other
+	 *            the other filter
+	 * @return the combined filter
+	 */
+	public RawEntityFilter and(RawEntityFilter other) {
+		List<List<Pattern[]>> result = new ArrayList<>();
+		for (List<Pattern[]> conjunction : this.conjunctions) {
+			for (List<Pattern[]> otherConjunction : other.conjunctions) {
+				List<Pattern[]> combined = new ArrayList<>(conjunction);
+				combined.addAll(otherConjunction);
+				result.add(combined);
+			}
+		}
+		return new RawEntityFilter(result);
+	}
+
+	/**
+	 * Returns a filter that accepts entities that are accepted by this filter
+	 * or by the given filter.
+	 *
+	 * @param other
+	 *            the other filter
+	 * @return the combined filter
+	 */
+	public RawEntityFilter or(RawEntityFilter other) {
+		List<List<Pattern[]>> result = new ArrayList<>(this.conjunctions);
+		result.addAll(other.conjunctions);
+		return new RawEntityFilter(result);
+	}
+
+	/**
+	 * Checks if the entity with the given JSON serialization may be accepted
+	 * by this filter.
+	 *
+	 * @param data
+	 *            array that contains the JSON
+	 * @param start
+	 *            index of the first byte of the JSON
+	 * @param end
+	 *            index after the last byte of the JSON
+	 * @return false if the entity is certainly not needed
+	 */
+	public boolean mayMatch(byte[] data, int start, int end) {
+		for (List<Pattern[]> conjunction : this.conjunctions) {
+			if (satisfies(data, start, end, conjunction)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean satisfies(byte[] data, int start, int end,
+			List<Pattern[]> conjunction) {
+		for (Pattern[] requirement : conjunction) {
+			boolean found = false;
+			for (Pattern pattern : requirement) {
+				if (pattern.occursIn(data, start, end)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static RawEntityFilter requireAnyPattern(Pattern... patterns) {
+		return new RawEntityFilter(Collections.singletonList(Collections
+				.singletonList(patterns)));
+	}
+
+	static byte[] quote(String string) {
+		return ("\"" + string + "\"").getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,200 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.wikidata.wdtk.dumpfiles.MwDumpFile;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
+import org.wikidata.wdtk.util.CompressionType;
+
+/**
+ * Worker process of a {@link ShardedDumpProcessor}. Processes one
+ * {@link DumpShard} of a local dump file with the analyzers of
+ * {@link #createAnalyzers()}, and writes their partial results to standard
+ * output in binary form, where the coordinator reads them. All messages of
+ * the worker go to standard error instead.
+ * <p>
+ * The worker is started with the path of the dump file and the shard as
+ * arguments, e.g., "results/dump.json range:0-1000000". An uncompressed dump
+ * is read as a {@link MappedDumpFile}. The settings of {@link ExampleHelpers}
+ * for threads and decompression are used as usual.
+ */
+public class ShardWorker {
+
+	/**
+	 * First number of the results that a worker writes.
+	 */
+	static final int RESULT_MAGIC = 0x57445348;
+
+	/**
+	 * Last number of the results that a worker writes, to detect results
+	 * that have been cut off.
+	 */
+	static final int RESULT_END = 0x454e4421;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ShardWorker <dump file> <shard>");
+			System.exit(2);
+		}
+		// standard output is reserved for the results:
+		DataOutputStream resultOut = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(
+						FileDescriptor.out)));
+		System.setOut(System.err);
+		ExampleHelpers.configureLogging();
+
+		DumpShard shard = DumpShard.parse(args[1]);
+		AnalyzerGroup analyzers = createAnalyzers();
+		ParallelJsonDumpProcessor parallelJsonDumpProcessor = new ParallelJsonDumpProcessor(
+				analyzers, ExampleHelpers.PARALLEL_THREADS);
+		parallelJsonDumpProcessor.setShard(shard);
+		parallelJsonDumpProcessor.processDump(openDumpFile(Paths
+				.get(args[0])));
+
+		resultOut.writeInt(RESULT_MAGIC);
+		resultOut.writeUTF(shard.toString());
+		resultOut.writeLong(parallelJsonDumpProcessor.entityCount.sum());
+		analyzers.writeCheckpoint(resultOut);
+		resultOut.writeInt(RESULT_END);
+		resultOut.flush();
+	}
+
+	/**
+	 * Creates the analyzers that each worker runs, configured as in
+	 * {@link MultiAnalyzerRunner}. Only analyzers that can be merged and
+	 * checkpointed can be used.
+	 *
+	 * @return the analyzers
+	 */
+	static AnalyzerGroup createAnalyzers() {
+		AnalyzerGroup analyzers = new AnalyzerGroup();
+
+		EntityStatisticsProcessor entityStatisticsProcessor = new EntityStatisticsProcessor(
+				EntityStatisticsProcessor.DEFAULT_TOP_VALUE_COUNT);
+		entityStatisticsProcessor.reportProgress = false;
+		analyzers.addAnalyzer("EntityStatisticsProcessor",
+				entityStatisticsProcessor);
+
+		GenderRatioProcessor genderRatioProcessor = new GenderRatioProcessor();
+		genderRatioProcessor.reportProgress = false;
+		analyzers.addAnalyzer("GenderRatioProcessor", genderRatioProcessor);
+
+		LifeExpectancyProcessor lifeExpectancyProcessor = new LifeExpectancyProcessor();
+		lifeExpectancyProcessor.reportProgress = false;
+		analyzers.addAnalyzer("LifeExpectancyProcessor",
+				lifeExpectancyProcessor);
+
+		WorldMapProcessor worldMapProcessor = new WorldMapProcessor(8 * 360,
+				1.0);
+		worldMapProcessor.addSite(null); // all data, no filter
+		worldMapProcessor.addSite("enwiki");
+		worldMapProcessor.addSite("dewiki");
+		worldMapProcessor.addSite("frwiki");
+		worldMapProcessor.reportProgress = false;
+		analyzers.addAnalyzer("WorldMapProcessor", worldMapProcessor);
+
+		PropertyDistinctValuesProcessor propertyDistinctValuesProcessor = new PropertyDistinctValuesProcessor();
+		propertyDistinctValuesProcessor.reportProgress = false;
+		analyzers.addAnalyzer("PropertyDistinctValuesProcessor",
+				propertyDistinctValuesProcessor);
+
+		PropertyQuantilesProcessor propertyQuantilesProcessor = new PropertyQuantilesProcessor(
+				PropertyQuantilesProcessor.DEFAULT_PROPERTY_IDS);
+		propertyQuantilesProcessor.reportProgress = false;
+		analyzers.addAnalyzer("PropertyQuantilesProcessor",
+				propertyQuantilesProcessor);
+
+		return analyzers;
+	}
+
+	/**
+	 * Opens a local dump file, through memory mapping if it is not
+	 * compressed.
+	 *
+	 * @param path
+	 *            the path of the dump file
+	 * @return the dump file
+	 */
+	static MwDumpFile openDumpFile(Path path) {
+		MwLocalDumpFile dumpFile = new MwLocalDumpFile(path.toString());
+		if (isUncompressed(path)) {
+			return new MappedDumpFile(dumpFile);
+		} else {
+			return ExampleHelpers.getDecompressingDumpFile(dumpFile);
+		}
+	}
+
+	/**
+	 * Returns true if the dump file of the given path is not compressed, so
+	 * that it can be split into byte ranges.
+	 */
+	static boolean isUncompressed(Path path) {
+		return WmfDumpFile.getDumpFileCompressionType(path.getFileName()
+				.toString()) == CompressionType.NONE;
+	}
+
+	/**
+	 * Reads the results of a worker into the given analyzers, which must be
+	 * configured like those of {@link #createAnalyzers()}.
+	 *
+	 * @param in
+	 *            the output of the worker
+	 * @param shard
+	 *            the shard that the worker has processed
+	 * @param analyzers
+	 *            the analyzers to read the results into
+	 * @return the number of entities that the worker has processed
+	 * @throws IOException
+	 *             if the results are incomplete or belong to another shard
+	 */
+	static long readResults(DataInputStream in, DumpShard shard,
+			AnalyzerGroup analyzers) throws IOException {
+		try {
+			if (in.readInt() != RESULT_MAGIC) {
+				throw new IOException("Worker did not write results");
+			}
+			String shardString = in.readUTF();
+			if (!shardString.equals(shard.toString())) {
+				throw new IOException("Worker wrote results for shard "
+						+ shardString + " instead of " + shard);
+			}
+			long entityCount = in.readLong();
+			analyzers.readCheckpoint(in);
+			if (in.readInt() != RESULT_END) {
+				throw new IOException("Results of worker are incomplete");
+			}
+			return entityCount;
+		} catch (EOFException e) {
+			throw new IOException("Results of worker are incomplete", e);
+		}
+	}
+}
@@ -0,0 +1,390 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * Coordinator that processes a dump with several worker processes, which may
+ * run on the local machine or on other hosts. The dump is split into
+ * {@link DumpShard} objects: byte ranges if the dump is not compressed, and
+ * id-hash shards otherwise. Each shard is processed by a
+ * {@link ShardWorker} process, which writes the partial results of its
+ * analyzers to its standard output. The coordinator reads them into a copy
+ * of its own {@link AnalyzerGroup} and merges them, so that the final results
+ * are the same as if one process had read the whole dump.
+ * <p>
+ * There are more shards than workers usually, so that a fast worker can take
+ * over more shards than a slow one. A shard whose worker fails, or whose
+ * results are incomplete, is tried again (on another worker, if one is free)
+ * up to {@link #MAX_ATTEMPTS} times.
+ * <p>
+ * Remote workers are started with ssh, which must be possible without a
+ * password. The hosts need Java, the classes of the examples, and the dump
+ * file at the same paths as the local machine, e.g., on a shared file system.
+ */
+public class ShardedDumpProcessor {
+
+	/**
+	 * Number of times that a shard is tried before processing fails.
+	 */
+	static final int MAX_ATTEMPTS = 3;
+
+	/**
+	 * Number of shards if none is given to the main method.
+	 */
+	static final int DEFAULT_SHARD_COUNT = 8;
+
+	/**
+	 * Partial results of one shard.
+	 */
+	static class ShardResult {
+		final DumpShard shard;
+		final AnalyzerGroup analyzers;
+		final long entityCount;
+
+		ShardResult(DumpShard shard, AnalyzerGroup analyzers, long entityCount) {
+			this.shard = shard;
+			this.analyzers = analyzers;
+			this.entityCount = entityCount;
+		}
+	}
+
+	final Path dumpFile;
+	final AnalyzerGroup analyzers;
+	/**
+	 * Commands that start a worker, without the arguments for the dump and
+	 * the shard. Each command is used for one worker at a time.
+	 */
+	final List<List<String>> workerCommands = new ArrayList<>();
+	long entityCount = 0;
+
+	/**
+	 * Main method. Processes a local dump file with worker processes and
+	 * writes the results of the analyzers of
+	 * {@link ShardWorker#createAnalyzers()}. The arguments are the path of
+	 * the dump file, the number of shards (default
+	 * {@link #DEFAULT_SHARD_COUNT}), and the hosts for the workers. If no
+	 * host is given, local processes are used, as many as there are
+	 * processors.
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		ShardedDumpProcessor.printDocumentation();
+		if (args.length < 1) {
+			System.out.println("Usage: ShardedDumpProcessor <dump file>"
+					+ " [<number of shards> [<host> ...]]");
+			return;
+		}
+
+		Path dumpFile = Paths.get(args[0]);
+		int shardCount = args.length > 1 ? Integer.parseInt(args[1])
+				: DEFAULT_SHARD_COUNT;
+		AnalyzerGroup analyzers = ShardWorker.createAnalyzers();
+		ShardedDumpProcessor shardedDumpProcessor = new ShardedDumpProcessor(
+				dumpFile, analyzers);
+		if (args.length > 2) {
+			for (int i = 2; i < args.length; i++) {
+				shardedDumpProcessor.addRemoteWorker(args[i]);
+			}
+		} else {
+			shardedDumpProcessor.addLocalWorkers(Math.min(shardCount, Runtime
+					.getRuntime().availableProcessors()));
+		}
+
+		List<DumpShard> shards;
+		if (ShardWorker.isUncompressed(dumpFile)) {
+			shards = DumpShard.byteRangeShards(Files.size(dumpFile),
+					shardCount);
+		} else {
+			shards = DumpShard.idHashShards(shardCount);
+		}
+		shardedDumpProcessor.processShards(shards);
+
+		ExampleHelpers.setLastDumpFile(new MwLocalDumpFile(dumpFile
+				.toString()));
+		writeFinalResults(analyzers);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dumpFile
+	 *            the path of the dump file, which must be the same for all
+	 *            workers
+	 * @param analyzers
+	 *            the analyzers to merge the results into, which must be
+	 *            configured like those of the workers (see
+	 *            {@link ShardWorker#createAnalyzers()})
+	 */
+	public ShardedDumpProcessor(Path dumpFile, AnalyzerGroup analyzers) {
+		this.dumpFile = dumpFile.toAbsolutePath();
+		this.analyzers = analyzers;
+	}
+
+	/**
+	 * Adds a worker that is started with the given command. The path of the
+	 * dump and the shard are added as the last two arguments.
+	 *
+	 * @param command
+	 *            the command and its arguments
+	 */
+	public void addWorker(List<String> command) {
+		this.workerCommands.add(new ArrayList<>(command));
+	}
+
+	/**
+	 * Adds workers that run as processes on the local machine, with the same
+	 * Java installation and class path as the current process.
+	 *
+	 * @param count
+	 *            the number of workers
+	 */
+	public void addLocalWorkers(int count) {
+		for (int i = 0; i < count; i++) {
+			addWorker(Arrays.asList(
+					Paths.get(System.getProperty("java.home"), "bin", "java")
+							.toString(), "-cp",
+					System.getProperty("java.class.path"),
+					ShardWorker.class.getName()));
+		}
+	}
+
+	/**
+	 * Adds a worker that runs on the given host, started with ssh. The host
+	 * must have the classes of the examples and the dump file at the same
+	 * paths as the local machine.
+	 *
+	 * @param host
+	 *            the host name, possibly with a user name ("user@host")
+	 */
+	public void addRemoteWorker(String host) {
+		addWorker(Arrays.asList("ssh", "-o", "BatchMode=yes", host, "java",
+				"-cp", System.getProperty("java.class.path"),
+				ShardWorker.class.getName()));
+	}
+
+	/**
+	 * Processes the given shards with the workers, and merges their results
+	 * into the analyzers of this object as soon as they arrive.
+	 *
+	 * @param shards
+	 *            the shards, which together should contain the whole dump
+	 * @throws IOException
+	 *             if a shard failed on all attempts
+	 */
+	public void processShards(List<DumpShard> shards) throws IOException {
+		if (this.workerCommands.isEmpty()) {
+			throw new IllegalStateException("No workers have been added");
+		}
+		System.out.println("Processing " + shards.size() + " shard(s) of "
+				+ this.dumpFile + " with " + this.workerCommands.size()
+				+ " worker(s).");
+		long startTime = System.currentTimeMillis();
+
+		BlockingQueue<List<String>> freeWorkers = new LinkedBlockingQueue<>(
+				this.workerCommands);
+		ExecutorService executor = Executors
+				.newFixedThreadPool(this.workerCommands.size());
+		CompletionService<ShardResult> completionService = new ExecutorCompletionService<>(
+				executor);
+		for (DumpShard shard : shards) {
+			completionService.submit(() -> processShard(shard, freeWorkers));
+		}
+
+		try {
+			for (int i = 0; i < shards.size(); i++) {
+				ShardResult result = completionService.take().get();
+				this.analyzers.merge(result.analyzers);
+				this.entityCount += result.entityCount;
+				System.out.println("Finished shard " + result.shard + " ("
+						+ (i + 1) + " of " + shards.size() + ") with "
+						+ result.entityCount + " entities.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for workers", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		System.out.println("Finished processing " + this.entityCount
+				+ " entities in "
+				+ (System.currentTimeMillis() - startTime) / 1000
+				+ " seconds.");
+	}
+
+	/**
+	 * Processes one shard with the next free worker, trying again if this
+	 * fails. A worker that has failed is put at the end of the queue of free
+	 * workers, so that the next attempt uses another worker if possible.
+	 *
+	 * @param shard
+	 *            the shard to process
+	 * @param freeWorkers
+	 *            the commands of the workers that are not busy
+	 * @return the results of the shard
+	 * @throws IOException
+	 *             if all attempts failed
+	 * @throws InterruptedException
+	 *             if processing has been cancelled
+	 */
+	ShardResult processShard(DumpShard shard,
+			BlockingQueue<List<String>> freeWorkers) throws IOException,
+			InterruptedException {
+		IOException failure = null;
+		for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+			List<String> workerCommand = freeWorkers.take();
+			try {
+				return runWorker(workerCommand, shard);
+			} catch (IOException e) {
+				failure = e;
+				System.out.println("*** Shard " + shard + " failed (attempt "
+						+ attempt + " of " + MAX_ATTEMPTS + "): "
+						+ e.getMessage());
+			} finally {
+				freeWorkers.put(workerCommand);
+			}
+		}
+		throw new IOException("Shard " + shard + " failed " + MAX_ATTEMPTS
+				+ " times", failure);
+	}
+
+	/**
+	 * Runs a worker for the given shard and reads its results. The results
+	 * are read before the exit code of the worker is checked, since the
+	 * worker would block if its output was not read.
+	 *
+	 * @param workerCommand
+	 *            the command that starts the worker
+	 * @param shard
+	 *            the shard to process
+	 * @return the results of the shard
+	 * @throws IOException
+	 *             if the worker failed or its results are incomplete
+	 * @throws InterruptedException
+	 *             if processing has been cancelled
+	 */
+	ShardResult runWorker(List<String> workerCommand, DumpShard shard)
+			throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>(workerCommand);
+		command.add(this.dumpFile.toString());
+		command.add(shard.toString());
+		Process process = new ProcessBuilder(command).redirectError(
+				Redirect.INHERIT).start();
+		try {
+			AnalyzerGroup analyzers = this.analyzers.createWorkerCopy();
+			long entityCount;
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(process.getInputStream()))) {
+				entityCount = ShardWorker.readResults(in, shard, analyzers);
+			} catch (IOException e) {
+				// missing results are usually explained by the exit code:
+				int exitCode = process.waitFor();
+				if (exitCode != 0) {
+					throw new IOException("Worker exited with code "
+							+ exitCode, e);
+				}
+				throw e;
+			}
+			int exitCode = process.waitFor();
+			if (exitCode != 0) {
+				throw new IOException("Worker exited with code " + exitCode);
+			}
+			return new ShardResult(shard, analyzers, entityCount);
+		} finally {
+			process.destroy();
+		}
+	}
+
+	/**
+	 * Writes the final results of all analyzers of the given group.
+	 *
+	 * @param analyzers
+	 *            the analyzers
+	 */
+	static void writeFinalResults(AnalyzerGroup analyzers) {
+		for (EntityDocumentProcessor analyzer : analyzers.getAnalyzers()) {
+			if (analyzer instanceof EntityStatisticsProcessor) {
+				((EntityStatisticsProcessor) analyzer).writeFinalResults();
+			} else if (analyzer instanceof GenderRatioProcessor) {
+				((GenderRatioProcessor) analyzer).writeFinalResults();
+			} else if (analyzer instanceof LifeExpectancyProcessor) {
+				((LifeExpectancyProcessor) analyzer).writeFinalResults();
+			} else if (analyzer instanceof WorldMapProcessor) {
+				((WorldMapProcessor) analyzer).writeFinalData();
+			} else if (analyzer instanceof PropertyDistinctValuesProcessor) {
+				((PropertyDistinctValuesProcessor) analyzer).writeFinalResults();
+			} else if (analyzer instanceof PropertyQuantilesProcessor) {
+				((PropertyQuantilesProcessor) analyzer).writeFinalResults();
+			}
+		}
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: ShardedDumpProcessor");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program will process a local dump file with several");
+		System.out
+				.println("*** worker processes, each of which analyzes one part of the");
+		System.out
+				.println("*** dump. The partial results of the workers are merged into");
+		System.out
+				.println("*** the results of EntityStatisticsProcessor, GenderRatioProcessor,");
+		System.out
+				.println("*** LifeExpectancyProcessor, WorldMapProcessor,");
+		System.out
+				.println("*** PropertyDistinctValuesProcessor, and PropertyQuantilesProcessor.");
+		System.out.println("*** See source code for further details.");
+		System.out
+				.println("********************************************************************");
+	}
+}
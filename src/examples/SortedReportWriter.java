@@ -0,0 +1,337 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes the rows of a report, such as a CSV file, in descending order of a
+ * numeric score, without holding all rows in memory. Rows are added as pairs
+ * of score and id. They are sorted in runs of a fixed size, which are written
+ * to temporary files if there are more rows, and the runs are merged when the
+ * report is written. The text of each row is only created while the rows are
+ * merged, by a {@link RowFormatter} that is called for batches of rows on
+ * several threads; the rows are still written in the sorted order.
+ * <p>
+ * Rows with the same score are written in the order of their ids.
+ */
+public class SortedReportWriter implements Closeable {
+
+	/**
+	 * Number of rows that are formatted together by one thread.
+	 */
+	static final int BATCH_SIZE = 1024;
+
+	/**
+	 * Creates the text of the rows of a report.
+	 */
+	public interface RowFormatter {
+		/**
+		 * Called for every row in the order of the report, on the thread that
+		 * writes the report, before the row is formatted. This can be used to
+		 * make decisions that depend on the order of the rows.
+		 *
+		 * @param id
+		 *            the id of the row
+		 */
+		default void prepareRow(String id) {
+		}
+
+		/**
+		 * Returns the text of a row, including its line break. This may be
+		 * called on several threads at the same time.
+		 *
+		 * @param id
+		 *            the id of the row
+		 * @return the text of the row, or null if the row should be omitted
+		 */
+		String formatRow(String id);
+	}
+
+	/**
+	 * Score and id of a row.
+	 */
+	static class Row {
+		final long score;
+		final String id;
+
+		Row(long score, String id) {
+			this.score = score;
+			this.id = id;
+		}
+	}
+
+	static final Comparator<Row> ROW_ORDER = (a, b) -> {
+		int result = Long.compare(b.score, a.score);
+		return result != 0 ? result : a.id.compareTo(b.id);
+	};
+
+	/**
+	 * Reads the rows of one sorted run from a temporary file.
+	 */
+	static class RunReader {
+		final DataInputStream in;
+		Row row;
+
+		RunReader(Path runFile) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(
+					Files.newInputStream(runFile), 64 * 1024));
+		}
+
+		boolean next() throws IOException {
+			try {
+				this.row = new Row(this.in.readLong(), this.in.readUTF());
+				return true;
+			} catch (EOFException e) {
+				return false;
+			}
+		}
+
+		void close() throws IOException {
+			this.in.close();
+		}
+	}
+
+	final Path tempDirectory;
+	final int threadCount;
+	final Row[] run;
+	int runLength = 0;
+	final List<Path> runFiles = new ArrayList<>();
+	long rowCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param tempDirectory
+	 *            the directory for the temporary files of the sorted runs
+	 * @param runSize
+	 *            the number of rows that are sorted in memory at a time
+	 * @param threadCount
+	 *            the number of threads that format rows
+	 */
+	public SortedReportWriter(Path tempDirectory, int runSize, int threadCount) {
+		this.tempDirectory = tempDirectory;
+		this.threadCount = threadCount;
+		this.run = new Row[runSize];
+	}
+
+	/**
+	 * Adds a row to the report.
+	 *
+	 * @param score
+	 *            the score of the row; rows with higher scores come first
+	 * @param id
+	 *            the id of the row, which is given to the
+	 *            {@link RowFormatter}
+	 * @throws IOException
+	 *             if a temporary file could not be written
+	 */
+	public void addRow(long score, String id) throws IOException {
+		if (this.runLength == this.run.length) {
+			writeRun();
+		}
+		this.run[this.runLength++] = new Row(score, id);
+		this.rowCount++;
+	}
+
+	/**
+	 * Sorts the rows in memory and writes them to a temporary file.
+	 */
+	void writeRun() throws IOException {
+		Arrays.sort(this.run, 0, this.runLength, ROW_ORDER);
+		Path runFile = Files.createTempFile(this.tempDirectory, "report-run-",
+				".tmp");
+		this.runFiles.add(runFile);
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(runFile),
+						1024 * 1024))) {
+			for (int i = 0; i < this.runLength; i++) {
+				out.writeLong(this.run[i].score);
+				out.writeUTF(this.run[i].id);
+				this.run[i] = null;
+			}
+		}
+		this.runLength = 0;
+	}
+
+	/**
+	 * Writes all rows that have been added, in sorted order.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @param rowFormatter
+	 *            the formatter that creates the text of the rows
+	 * @throws IOException
+	 *             if a temporary file could not be read or written
+	 */
+	public void write(PrintStream out, RowFormatter rowFormatter)
+			throws IOException {
+		PriorityQueue<RunReader> readers = new PriorityQueue<>(
+				(a, b) -> ROW_ORDER.compare(a.row, b.row));
+		List<RunReader> openReaders = new ArrayList<>();
+		ExecutorService executor = this.threadCount > 1 ? Executors
+				.newFixedThreadPool(this.threadCount) : null;
+		try {
+			int memoryRowCount = 0;
+			if (this.runFiles.isEmpty()) {
+				Arrays.sort(this.run, 0, this.runLength, ROW_ORDER);
+				memoryRowCount = this.runLength;
+			} else {
+				if (this.runLength > 0) {
+					writeRun();
+				}
+				for (Path runFile : this.runFiles) {
+					RunReader reader = new RunReader(runFile);
+					openReaders.add(reader);
+					if (reader.next()) {
+						readers.add(reader);
+					}
+				}
+			}
+
+			ArrayDeque<Future<String[]>> pendingBatches = new ArrayDeque<>();
+			String[] batch = new String[BATCH_SIZE];
+			int batchLength = 0;
+			int memoryRow = 0;
+			while (memoryRow < memoryRowCount || !readers.isEmpty()) {
+				String id;
+				if (memoryRow < memoryRowCount) {
+					id = this.run[memoryRow++].id;
+				} else {
+					RunReader reader = readers.poll();
+					id = reader.row.id;
+					if (reader.next()) {
+						readers.add(reader);
+					}
+				}
+				rowFormatter.prepareRow(id);
+				batch[batchLength++] = id;
+				if (batchLength == BATCH_SIZE) {
+					submitBatch(batch, batchLength, rowFormatter, executor,
+							pendingBatches, out);
+					batch = new String[BATCH_SIZE];
+					batchLength = 0;
+				}
+			}
+			submitBatch(batch, batchLength, rowFormatter, executor,
+					pendingBatches, out);
+			while (!pendingBatches.isEmpty()) {
+				writeBatch(pendingBatches.poll(), out);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			for (RunReader reader : openReaders) {
+				reader.close();
+			}
+		}
+	}
+
+	/**
+	 * Formats a batch of rows, on another thread if there are several, and
+	 * writes the oldest batches that are pending once enough batches are
+	 * being formatted.
+	 */
+	void submitBatch(String[] batch, int batchLength,
+			RowFormatter rowFormatter, ExecutorService executor,
+			ArrayDeque<Future<String[]>> pendingBatches, PrintStream out)
+			throws IOException {
+		if (batchLength == 0) {
+			return;
+		}
+		if (executor == null) {
+			for (String row : formatBatch(batch, batchLength, rowFormatter)) {
+				if (row != null) {
+					out.print(row);
+				}
+			}
+			return;
+		}
+		pendingBatches.add(executor.submit(() -> formatBatch(batch,
+				batchLength, rowFormatter)));
+		while (pendingBatches.size() > 2 * this.threadCount) {
+			writeBatch(pendingBatches.poll(), out);
+		}
+	}
+
+	static String[] formatBatch(String[] batch, int batchLength,
+			RowFormatter rowFormatter) {
+		String[] rows = new String[batchLength];
+		for (int i = 0; i < batchLength; i++) {
+			rows[i] = rowFormatter.formatRow(batch[i]);
+		}
+		return rows;
+	}
+
+	/**
+	 * Waits until the given batch has been formatted and writes its rows.
+	 */
+	static void writeBatch(Future<String[]> pendingBatch, PrintStream out)
+			throws IOException {
+		String[] rows;
+		try {
+			rows = pendingBatch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while formatting rows", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		for (String row : rows) {
+			if (row != null) {
+				out.print(row);
+			}
+		}
+	}
+
+	/**
+	 * Deletes all temporary files.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Path runFile : this.runFiles) {
+			Files.deleteIfExists(runFile);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Interface for {@link EntityDocumentProcessor} objects that can also process
+ * entities through a {@link FlyweightEntityDocument}, a reusable view that is
+ * filled from the JSON without building documents. When reading a JSON dump
+ * with {@link ParallelJsonDumpProcessor}, such processors are only called
+ * with {@link #processEntityView(FlyweightEntityDocument)}; the methods for
+ * documents are still used when reading dumps in other ways.
+ * <p>
+ * The view only contains the statements and labels of the
+ * {@link EntityProjection} of the processor. It must not be kept after the
+ * call; see {@link FlyweightEntityDocument} for the rules.
+ */
+public interface StreamingEntityDocumentProcessor extends
+		ProjectingEntityDocumentProcessor {
+
+	/**
+	 * Processes one entity of any type.
+	 *
+	 * @param entityView
+	 *            the view on the entity, which is only valid during this call
+	 */
+	void processEntityView(FlyweightEntityDocument entityView);
+
+}
@@ -0,0 +1,1017 @@
+package examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2026 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.EntityDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
+import org.wikidata.wdtk.datamodel.helpers.PropertyDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+
+/**
+ * This program writes a synthetic JSON dump that looks like a Wikidata dump
+ * of any given size, so that the examples can be tested and benchmarked
+ * offline with realistic amounts of data. The dump can be read like any other
+ * local dump, e.g., with {@link MwLocalDumpFile}.
+ * <p>
+ * The shape of the data is taken from the statistics that
+ * {@link EntityStatisticsProcessor} writes: how many statements, labels,
+ * descriptions, aliases and site links an entity has on average, which
+ * properties are used in statements, qualifiers and references, and which
+ * languages and sites are used how often. The statistics of a real dump can
+ * be given as the directory of the CSV files; by default, the most recent
+ * results of EntityStatisticsProcessor are used, or, if there are none, the
+ * statistics of the (very small) sample dump. In addition, the
+ * first items of the dump form a class hierarchy with P279 (subclass of) that
+ * the values of P31 (instance of) refer to, and coordinates (P625) are
+ * clustered like places on earth.
+ * <p>
+ * Every entity is generated with a random generator of its own that is
+ * seeded from the seed of the dump and the number of the entity. The same
+ * seed and statistics thus always give the same dump.
+ */
+public class SyntheticDumpGenerator {
+
+	/**
+	 * Date of the synthetic dumps; the file names contain it, so that it is
+	 * recognized by {@link MwLocalDumpFile}.
+	 */
+	static final String DUMP_DATE = "20200101";
+
+	/**
+	 * Number of centers around which coordinates are generated.
+	 */
+	static final int COORDINATE_CLUSTER_COUNT = 500;
+
+	/**
+	 * Number of items that are generated and compressed together.
+	 */
+	static final int BLOCK_SIZE = 1000;
+
+	static final String[] SYLLABLES = { "an", "ber", "da", "el", "fi", "gar",
+			"hol", "ka", "lin", "lo", "mar", "mi", "ne", "or", "ru", "sa",
+			"sten", "tal", "to", "vi", "wen", "zu" };
+
+	/**
+	 * Datatypes of some well-known properties. All other properties get a
+	 * datatype that is chosen from {@link #OTHER_DATATYPES} by their number.
+	 */
+	static final Map<String, String> KNOWN_DATATYPES = new HashMap<>();
+	static {
+		for (String property : new String[] { "P17", "P19", "P20", "P21",
+				"P27", "P31", "P105", "P106", "P131", "P143", "P171", "P248",
+				"P279", "P361", "P407", "P495" }) {
+			KNOWN_DATATYPES.put(property, DatatypeIdValue.JSON_DT_ITEM);
+		}
+		for (String property : new String[] { "P569", "P570", "P571",
+				"P574", "P577", "P580", "P582", "P585", "P813" }) {
+			KNOWN_DATATYPES.put(property, DatatypeIdValue.JSON_DT_TIME);
+		}
+		for (String property : new String[] { "P1082", "P1087", "P1120",
+				"P2044", "P2046", "P2048" }) {
+			KNOWN_DATATYPES.put(property, DatatypeIdValue.JSON_DT_QUANTITY);
+		}
+		for (String property : new String[] { "P213", "P214", "P227",
+				"P244", "P646", "P698" }) {
+			KNOWN_DATATYPES.put(property, DatatypeIdValue.JSON_DT_EXTERNAL_ID);
+		}
+		KNOWN_DATATYPES.put("P18", DatatypeIdValue.JSON_DT_COMMONS_MEDIA);
+		KNOWN_DATATYPES.put("P373", DatatypeIdValue.JSON_DT_STRING);
+		KNOWN_DATATYPES.put("P625", DatatypeIdValue.JSON_DT_GLOBE_COORDINATES);
+		KNOWN_DATATYPES.put("P854", DatatypeIdValue.JSON_DT_URL);
+		KNOWN_DATATYPES.put("P856", DatatypeIdValue.JSON_DT_URL);
+		KNOWN_DATATYPES.put("P1476", DatatypeIdValue.JSON_DT_MONOLINGUAL_TEXT);
+		KNOWN_DATATYPES.put("P1630", DatatypeIdValue.JSON_DT_STRING);
+	}
+
+	/**
+	 * Datatypes of the other properties, roughly in the proportions of
+	 * Wikidata, where most properties are identifiers in other databases.
+	 */
+	static final String[] OTHER_DATATYPES = {
+			DatatypeIdValue.JSON_DT_EXTERNAL_ID,
+			DatatypeIdValue.JSON_DT_EXTERNAL_ID,
+			DatatypeIdValue.JSON_DT_EXTERNAL_ID,
+			DatatypeIdValue.JSON_DT_EXTERNAL_ID,
+			DatatypeIdValue.JSON_DT_EXTERNAL_ID, DatatypeIdValue.JSON_DT_ITEM,
+			DatatypeIdValue.JSON_DT_ITEM, DatatypeIdValue.JSON_DT_ITEM,
+			DatatypeIdValue.JSON_DT_STRING, DatatypeIdValue.JSON_DT_QUANTITY,
+			DatatypeIdValue.JSON_DT_TIME, DatatypeIdValue.JSON_DT_URL };
+
+	/**
+	 * Totals and distributions of one type of entities, as written by
+	 * {@link EntityStatisticsProcessor}.
+	 */
+	static class EntityStatistics {
+		long count;
+		long labels;
+		long descriptions;
+		long aliases;
+		long statements;
+		long referencedStatements;
+		long siteLinks;
+
+		/**
+		 * Uses of each property in statements, qualifiers and references.
+		 */
+		final Map<String, long[]> propertyCounts = new TreeMap<>();
+		/**
+		 * Labels, descriptions and aliases in each language.
+		 */
+		final Map<String, long[]> termCounts = new TreeMap<>();
+
+		/**
+		 * Returns the total of one column of {@link #propertyCounts} or
+		 * {@link #termCounts}.
+		 */
+		static long getTotal(Map<String, long[]> counts, int column) {
+			long result = 0;
+			for (long[] values : counts.values()) {
+				result += values[column];
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The statistics of a dump that determine the synthetic data.
+	 */
+	static class DumpStatistics {
+		final EntityStatistics items = new EntityStatistics();
+		final EntityStatistics properties = new EntityStatistics();
+		final Map<String, Long> siteLinkCounts = new TreeMap<>();
+
+		/**
+		 * Reads the CSV files that {@link EntityStatisticsProcessor} has
+		 * written to the given directory.
+		 *
+		 * @param directory
+		 *            the directory of the CSV files
+		 * @return the statistics
+		 * @throws IOException
+		 *             if the files could not be read
+		 */
+		static DumpStatistics readCsvFiles(Path directory) throws IOException {
+			DumpStatistics result = new DumpStatistics();
+			for (String[] row : readCsvFile(directory
+					.resolve("entity-counts.csv"))) {
+				EntityStatistics statistics = "property".equals(row[0])
+						? result.properties : result.items;
+				statistics.count = Long.parseLong(row[1]);
+				statistics.labels = Long.parseLong(row[2]);
+				statistics.descriptions = Long.parseLong(row[3]);
+				statistics.aliases = Long.parseLong(row[4]);
+				statistics.statements = Long.parseLong(row[5]);
+				statistics.referencedStatements = Long.parseLong(row[6]);
+				statistics.siteLinks = Long.parseLong(row[7]);
+			}
+			readCounts(directory.resolve("item-property-counts.csv"),
+					result.items.propertyCounts);
+			readCounts(directory.resolve("property-property-counts.csv"),
+					result.properties.propertyCounts);
+			readCounts(directory.resolve("item-term-counts.csv"),
+					result.items.termCounts);
+			readCounts(directory.resolve("property-term-counts.csv"),
+					result.properties.termCounts);
+			for (String[] row : readCsvFile(directory
+					.resolve("site-link-counts.csv"))) {
+				result.siteLinkCounts.put(row[0], Long.parseLong(row[1]));
+			}
+			return result;
+		}
+
+		/**
+		 * Copies the statistics that the given processor has gathered.
+		 *
+		 * @param processor
+		 *            the processor that has processed a dump
+		 * @return the statistics
+		 */
+		static DumpStatistics fromProcessor(EntityStatisticsProcessor processor) {
+			DumpStatistics result = new DumpStatistics();
+			copy(processor.itemStatistics, result.items);
+			copy(processor.propertyStatistics, result.properties);
+			result.items.siteLinks = processor.countSiteLinks;
+			for (int i = 0; i < processor.siteKeys.size(); i++) {
+				long count = processor.siteLinkStatistics.get(i);
+				if (count != 0) {
+					result.siteLinkCounts.put(processor.siteKeys.getKey(i),
+							count);
+				}
+			}
+			return result;
+		}
+
+		static void copy(EntityStatisticsProcessor.UsageStatistics from,
+				EntityStatistics to) {
+			to.count = from.count;
+			to.labels = from.countLabels;
+			to.descriptions = from.countDescriptions;
+			to.aliases = from.countAliases;
+			to.statements = from.countStatements;
+			to.referencedStatements = from.countReferencedStatements;
+			int limit = from.getPropertyLimit();
+			for (int property = 0; property < limit; property++) {
+				if (from.isPropertyUsed(property)) {
+					to.propertyCounts.put("P" + property, new long[] {
+							from.propertyCountsMain.get(property),
+							from.propertyCountsQualifier.get(property),
+							from.propertyCountsReferences.get(property) });
+				}
+			}
+			for (int i = 0; i < from.languages.size(); i++) {
+				long[] values = new long[] { from.labelCounts.get(i),
+						from.descriptionCounts.get(i), from.aliasCounts.get(i) };
+				if (values[0] != 0 || values[1] != 0 || values[2] != 0) {
+					to.termCounts.put(from.languages.getKey(i), values);
+				}
+			}
+		}
+
+		/**
+		 * Reads a CSV file with a key and three counts in each row.
+		 */
+		static void readCounts(Path file, Map<String, long[]> counts)
+				throws IOException {
+			for (String[] row : readCsvFile(file)) {
+				counts.put(row[0], new long[] { Long.parseLong(row[1]),
+						Long.parseLong(row[2]), Long.parseLong(row[3]) });
+			}
+		}
+
+		/**
+		 * Reads the rows of a CSV file without its header. The files of
+		 * {@link EntityStatisticsProcessor} contain no quoted values.
+		 */
+		static List<String[]> readCsvFile(Path file) throws IOException {
+			List<String[]> result = new ArrayList<>();
+			try (BufferedReader reader = Files.newBufferedReader(file,
+					StandardCharsets.UTF_8)) {
+				reader.readLine();
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.isEmpty()) {
+						result.add(line.split(","));
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Draws indices at random with probabilities that are proportional to
+	 * given weights, in constant time per draw (the alias method of Walker
+	 * and Vose).
+	 */
+	static class WeightedChoice {
+		final double[] probabilities;
+		final int[] aliases;
+
+		WeightedChoice(long[] weights) {
+			int size = weights.length;
+			this.probabilities = new double[size];
+			this.aliases = new int[size];
+			double total = 0;
+			for (long weight : weights) {
+				total += weight;
+			}
+			if (total == 0) {
+				return;
+			}
+			double[] scaled = new double[size];
+			ArrayDeque<Integer> small = new ArrayDeque<>();
+			ArrayDeque<Integer> large = new ArrayDeque<>();
+			for (int i = 0; i < size; i++) {
+				scaled[i] = weights[i] * size / total;
+				(scaled[i] < 1 ? small : large).add(i);
+			}
+			while (!small.isEmpty() && !large.isEmpty()) {
+				int less = small.poll();
+				int more = large.poll();
+				this.probabilities[less] = scaled[less];
+				this.aliases[less] = more;
+				scaled[more] = scaled[more] + scaled[less] - 1;
+				(scaled[more] < 1 ? small : large).add(more);
+			}
+			// the remaining entries are 1 up to rounding errors:
+			for (int i : large) {
+				this.probabilities[i] = 1;
+			}
+			for (int i : small) {
+				this.probabilities[i] = 1;
+			}
+		}
+
+		boolean isEmpty() {
+			return this.probabilities.length == 0;
+		}
+
+		int next(SplittableRandom random) {
+			int index = random.nextInt(this.probabilities.length);
+			return random.nextDouble() < this.probabilities[index] ? index
+					: this.aliases[index];
+		}
+	}
+
+	/**
+	 * The distributions of one type of entities.
+	 */
+	static class EntityModel {
+		final double labelsPerEntity;
+		final double descriptionsPerEntity;
+		final double aliasesPerEntity;
+		final double statementsPerEntity;
+		final double qualifiersPerStatement;
+		final double referenceRatio;
+		final double referenceSnaksPerReference;
+		final double siteLinksPerEntity;
+
+		final String[] languages;
+		final WeightedChoice labelLanguages;
+		final WeightedChoice descriptionLanguages;
+		final WeightedChoice aliasLanguages;
+
+		final PropertyIdValue[] properties;
+		final WeightedChoice statementProperties;
+		final WeightedChoice qualifierProperties;
+		final WeightedChoice referenceProperties;
+
+		EntityModel(EntityStatistics statistics, boolean excludeSubclassOf) {
+			long count = Math.max(statistics.count, 1);
+			long statements = Math.max(statistics.statements, 1);
+			this.labelsPerEntity = (double) statistics.labels / count;
+			this.descriptionsPerEntity = (double) statistics.descriptions
+					/ count;
+			this.aliasesPerEntity = (double) statistics.aliases / count;
+			this.statementsPerEntity = (double) statistics.statements / count;
+			this.qualifiersPerStatement = (double) EntityStatistics.getTotal(
+					statistics.propertyCounts, 1) / statements;
+			this.referenceRatio = Math.min(1.0,
+					(double) statistics.referencedStatements / statements);
+			this.referenceSnaksPerReference = (double) EntityStatistics
+					.getTotal(statistics.propertyCounts, 2)
+					/ Math.max(statistics.referencedStatements, 1);
+			this.siteLinksPerEntity = (double) statistics.siteLinks / count;
+
+			this.languages = statistics.termCounts.keySet().toArray(
+					new String[0]);
+			this.labelLanguages = makeChoice(statistics.termCounts, 0, null);
+			this.descriptionLanguages = makeChoice(statistics.termCounts, 1,
+					null);
+			this.aliasLanguages = makeChoice(statistics.termCounts, 2, null);
+
+			this.properties = new PropertyIdValue[statistics.propertyCounts
+					.size()];
+			int i = 0;
+			for (String property : statistics.propertyCounts.keySet()) {
+				this.properties[i++] = Datamodel
+						.makeWikidataPropertyIdValue(property);
+			}
+			// subclass of is only used in the class hierarchy of the items:
+			this.statementProperties = makeChoice(statistics.propertyCounts,
+					0, excludeSubclassOf ? "P279" : null);
+			this.qualifierProperties = makeChoice(statistics.propertyCounts,
+					1, null);
+			this.referenceProperties = makeChoice(statistics.propertyCounts,
+					2, null);
+		}
+
+		static WeightedChoice makeChoice(Map<String, long[]> counts,
+				int column, String excludedKey) {
+			long[] weights = new long[counts.size()];
+			int i = 0;
+			for (Entry<String, long[]> entry : counts.entrySet()) {
+				weights[i++] = entry.getKey().equals(excludedKey) ? 0 : entry
+						.getValue()[column];
+			}
+			return new WeightedChoice(weights);
+		}
+	}
+
+	final long itemCount;
+	final long seed;
+	final DumpStatistics statistics;
+	final EntityModel itemModel;
+	final EntityModel propertyModel;
+
+	/**
+	 * Number of items at the start of the dump that are classes.
+	 */
+	final long classCount;
+	final String[] siteKeys;
+	final WeightedChoice siteChoice;
+	final double[] clusterLatitudes = new double[COORDINATE_CLUSTER_COUNT];
+	final double[] clusterLongitudes = new double[COORDINATE_CLUSTER_COUNT];
+
+	/**
+	 * Runs the program. The arguments are the number of items (default:
+	 * 1000000), the seed (default: 1) and the directory of the CSV files of
+	 * {@link EntityStatisticsProcessor} (default: the most recent results of
+	 * EntityStatisticsProcessor, or else the statistics of the sample dump).
+	 *
+	 * @param args
+	 * @throws IOException
+	 *             if the statistics could not be read or the dump could not
+	 *             be written
+	 */
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		printDocumentation();
+
+		long itemCount = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		Path statisticsDirectory = args.length > 2 ? Paths.get(args[2])
+				: findStatisticsDirectory();
+		DumpStatistics statistics;
+		if (statisticsDirectory != null) {
+			System.out.println("Using the statistics in " + statisticsDirectory
+					+ ".");
+			statistics = DumpStatistics.readCsvFiles(statisticsDirectory);
+		} else {
+			System.out.println("No statistics of EntityStatisticsProcessor"
+					+ " found; using the statistics of the sample dump.");
+			statistics = getSampleDumpStatistics();
+		}
+
+		Path directory = Paths.get(ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY);
+		Files.createDirectories(directory);
+		Path file = directory.resolve("synthetic-" + DUMP_DATE + "-"
+				+ itemCount + "-seed" + seed + ".json.gz");
+
+		System.out.println("Writing " + itemCount + " items to " + file
+				+ " ...");
+		long startTime = System.currentTimeMillis();
+		long entityCount = new SyntheticDumpGenerator(statistics, itemCount,
+				seed).writeDump(file, Runtime.getRuntime()
+				.availableProcessors());
+		long seconds = Math.max(1,
+				(System.currentTimeMillis() - startTime) / 1000);
+		System.out.println("Wrote " + entityCount + " entities ("
+				+ (Files.size(file) / 1024 / 1024) + " MB) in " + seconds
+				+ " sec (" + (entityCount / seconds) + " entities/sec).");
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statistics
+	 *            the statistics that the dump should follow
+	 * @param itemCount
+	 *            the number of items to generate
+	 * @param seed
+	 *            the seed of the random generators
+	 */
+	public SyntheticDumpGenerator(DumpStatistics statistics, long itemCount,
+			long seed) {
+		this.statistics = statistics;
+		this.itemCount = itemCount;
+		this.seed = seed;
+		this.itemModel = new EntityModel(statistics.items, true);
+		this.propertyModel = new EntityModel(statistics.properties, false);
+
+		long subclassOfCount = statistics.items.propertyCounts
+				.getOrDefault("P279", new long[1])[0];
+		this.classCount = Math.max(1, Math.min(itemCount, Math.round(itemCount
+				* (double) subclassOfCount
+				/ Math.max(statistics.items.count, 1))));
+
+		this.siteKeys = statistics.siteLinkCounts.keySet().toArray(
+				new String[0]);
+		long[] siteWeights = new long[this.siteKeys.length];
+		for (int i = 0; i < this.siteKeys.length; i++) {
+			siteWeights[i] = statistics.siteLinkCounts.get(this.siteKeys[i]);
+		}
+		this.siteChoice = new WeightedChoice(siteWeights);
+
+		SplittableRandom random = new SplittableRandom(seed);
+		for (int i = 0; i < COORDINATE_CLUSTER_COUNT; i++) {
+			// more centers near the equator than near the poles:
+			this.clusterLatitudes[i] = Math.toDegrees(Math.asin(2 * random
+					.nextDouble() - 1)) * 0.8;
+			this.clusterLongitudes[i] = random.nextDouble() * 360 - 180;
+		}
+	}
+
+	/**
+	 * Writes the dump to the given file, compressed with gzip. All
+	 * properties that are used are written first, then the items.
+	 * <p>
+	 * The items are generated, serialized and compressed in blocks of
+	 * {@link #BLOCK_SIZE} items by several threads. Each block is a gzip
+	 * member of its own; a file of several members is a valid gzip file that
+	 * can be decompressed in parallel by {@link ParallelGzipInputStream}.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param threadCount
+	 *            the number of threads to use
+	 * @return the number of entities written
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public long writeDump(Path file, int threadCount) throws IOException {
+		List<String> properties = getProperties();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		ArrayDeque<Future<byte[]>> blocks = new ArrayDeque<>();
+		try (OutputStream out = Files.newOutputStream(file)) {
+			blocks.add(executor.submit(() -> {
+				StringBuilder json = new StringBuilder("[");
+				for (String property : properties) {
+					json.append(json.length() == 1 ? "\n" : ",\n");
+					json.append(JsonSerializer
+							.getJsonString(generateProperty(property)));
+				}
+				return compress(json);
+			}));
+			long written = 0;
+			for (long first = 1; first <= this.itemCount; first += BLOCK_SIZE) {
+				long firstItem = first;
+				long lastItem = Math.min(first + BLOCK_SIZE - 1, this.itemCount);
+				blocks.add(executor.submit(() -> {
+					StringBuilder json = new StringBuilder();
+					for (long i = firstItem; i <= lastItem; i++) {
+						json.append(",\n");
+						json.append(JsonSerializer.getJsonString(generateItem(i)));
+					}
+					return compress(json);
+				}));
+				// limit the memory of blocks that wait to be written:
+				if (blocks.size() > 2 * threadCount) {
+					out.write(getBlock(blocks.poll()));
+					written = printProgress(written, BLOCK_SIZE);
+				}
+			}
+			while (!blocks.isEmpty()) {
+				out.write(getBlock(blocks.poll()));
+				written = printProgress(written, BLOCK_SIZE);
+			}
+			out.write(compress(new StringBuilder("\n]")));
+		} finally {
+			executor.shutdownNow();
+		}
+		return properties.size() + this.itemCount;
+	}
+
+	/**
+	 * Prints the number of items written if it has passed a multiple of
+	 * 1000000.
+	 *
+	 * @return the new number of items written
+	 */
+	long printProgress(long written, long count) {
+		long result = Math.min(written + count, this.itemCount);
+		if (result / 1000000 > written / 1000000) {
+			System.out.println("Generated " + result + " items.");
+		}
+		return result;
+	}
+
+	static byte[] getBlock(Future<byte[]> block) throws IOException {
+		try {
+			return block.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while generating data", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Generation failed: "
+					+ e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Compresses the given text into a gzip member of its own.
+	 */
+	static byte[] compress(CharSequence text) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream(
+				text.length() / 4);
+		try (OutputStream out = new GZIPOutputStream(result, 1 << 16) {
+			{
+				this.def.setLevel(Deflater.BEST_SPEED);
+			}
+		}) {
+			out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Generates the item with the given number.
+	 *
+	 * @param number
+	 *            the number of the item, from 1 to the number of items
+	 * @return the item
+	 */
+	public ItemDocument generateItem(long number) {
+		SplittableRandom random = getRandom('Q', number);
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue("Q" + number);
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(itemId)
+				.withRevisionId(getRevisionId(random));
+		String label = generateName(random);
+		addTerms(builder, this.itemModel, label, random);
+
+		if (number <= this.classCount && number > 1) {
+			// classes near the top of the hierarchy have most subclasses:
+			long parent = 1 + (long) ((number - 1) * square(random
+					.nextDouble()));
+			builder.withStatement(StatementBuilder
+					.forSubjectAndProperty(itemId,
+							Datamodel.makeWikidataPropertyIdValue("P279"))
+					.withId(generateStatementId(itemId, random))
+					.withValue(Datamodel.makeWikidataItemIdValue("Q" + parent))
+					.build());
+		}
+		addStatements(builder, itemId, this.itemModel, random);
+
+		for (String site : drawDistinct(random,
+				this.itemModel.siteLinksPerEntity, this.siteKeys,
+				this.siteChoice)) {
+			builder.withSiteLink(label, site);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Generates the property with the given id.
+	 *
+	 * @param property
+	 *            the id of the property, such as "P31"
+	 * @return the property
+	 */
+	public PropertyDocument generateProperty(String property) {
+		SplittableRandom random = getRandom('P',
+				Long.parseLong(property.substring(1)));
+		PropertyIdValue propertyId = Datamodel
+				.makeWikidataPropertyIdValue(property);
+		PropertyDocumentBuilder builder = PropertyDocumentBuilder
+				.forPropertyIdAndDatatype(propertyId, Datamodel
+						.makeDatatypeIdValueFromJsonString(getDatatype(property)))
+				.withRevisionId(getRevisionId(random));
+		addTerms(builder, this.propertyModel, generateName(random), random);
+		addStatements(builder, propertyId, this.propertyModel, random);
+		return builder.build();
+	}
+
+	/**
+	 * Returns the datatype of the given property.
+	 *
+	 * @param property
+	 *            the id of the property
+	 * @return the JSON name of the datatype, such as "wikibase-item"
+	 */
+	static String getDatatype(String property) {
+		String result = KNOWN_DATATYPES.get(property);
+		if (result == null) {
+			long number = Long.parseLong(property.substring(1));
+			result = OTHER_DATATYPES[(int) ((number * 0x9E3779B97F4A7C15L) >>> 33)
+					% OTHER_DATATYPES.length];
+		}
+		return result;
+	}
+
+	void addTerms(EntityDocumentBuilder<?, ?> builder,
+			EntityModel model, String label, SplittableRandom random) {
+		if (model.languages.length == 0) {
+			return;
+		}
+		for (String language : drawDistinct(random, model.labelsPerEntity,
+				model.languages, model.labelLanguages)) {
+			builder.withLabel(label, language);
+		}
+		for (String language : drawDistinct(random,
+				model.descriptionsPerEntity, model.languages,
+				model.descriptionLanguages)) {
+			builder.withDescription(generateName(random) + " "
+					+ generateName(random), language);
+		}
+		long count = drawCount(random, model.aliasesPerEntity);
+		for (long i = 0; i < count; i++) {
+			builder.withAlias(generateName(random),
+					model.languages[model.aliasLanguages.next(random)]);
+		}
+	}
+
+	void addStatements(EntityDocumentBuilder<?, ?> builder,
+			EntityIdValue subject, EntityModel model, SplittableRandom random) {
+		if (model.properties.length == 0) {
+			return;
+		}
+		long count = drawCount(random, model.statementsPerEntity);
+		for (long i = 0; i < count; i++) {
+			PropertyIdValue property = model.properties[model.statementProperties
+					.next(random)];
+			StatementBuilder statementBuilder = StatementBuilder
+					.forSubjectAndProperty(subject, property)
+					.withId(generateStatementId(subject, random))
+					.withValue(generateValue(property, random));
+			long qualifiers = drawCount(random, model.qualifiersPerStatement);
+			for (long j = 0; j < qualifiers; j++) {
+				PropertyIdValue qualifier = model.properties[model.qualifierProperties
+						.next(random)];
+				statementBuilder.withQualifierValue(qualifier,
+						generateValue(qualifier, random));
+			}
+			if (random.nextDouble() < model.referenceRatio) {
+				ReferenceBuilder referenceBuilder = ReferenceBuilder
+						.newInstance();
+				long snaks = 1 + drawCount(random,
+						model.referenceSnaksPerReference - 1);
+				for (long j = 0; j < snaks; j++) {
+					PropertyIdValue reference = model.properties[model.referenceProperties
+							.next(random)];
+					referenceBuilder.withPropertyValue(reference,
+							generateValue(reference, random));
+				}
+				statementBuilder.withReference(referenceBuilder.build());
+			}
+			builder.withStatement(statementBuilder.build());
+		}
+	}
+
+	/**
+	 * Generates a value for the given property that fits its datatype.
+	 */
+	Value generateValue(PropertyIdValue property, SplittableRandom random) {
+		String id = property.getId();
+		if ("P31".equals(id)) {
+			// a few classes have most instances:
+			return Datamodel.makeWikidataItemIdValue("Q"
+					+ (1 + (long) (this.classCount * cube(random.nextDouble()))));
+		}
+		if ("P279".equals(id)) {
+			return Datamodel.makeWikidataItemIdValue("Q"
+					+ (1 + (long) (this.classCount * random.nextDouble())));
+		}
+		switch (getDatatype(id)) {
+		case DatatypeIdValue.JSON_DT_ITEM:
+			// popular items are used as values much more often:
+			return Datamodel.makeWikidataItemIdValue("Q"
+					+ (1 + (long) (this.itemCount * cube(random.nextDouble()))));
+		case DatatypeIdValue.JSON_DT_TIME:
+			// most dates are recent:
+			long year = 2020 - (long) (1500 * cube(random.nextDouble()));
+			if (random.nextInt(3) == 0) {
+				return Datamodel.makeTimeValue(year, (byte) 0, (byte) 0,
+						(byte) 0, (byte) 0, (byte) 0, TimeValue.PREC_YEAR, 0,
+						0, 0, TimeValue.CM_GREGORIAN_PRO);
+			}
+			return Datamodel.makeTimeValue(year,
+					(byte) (1 + random.nextInt(12)),
+					(byte) (1 + random.nextInt(28)), (byte) 0, (byte) 0,
+					(byte) 0, TimeValue.PREC_DAY, 0, 0, 0,
+					TimeValue.CM_GREGORIAN_PRO);
+		case DatatypeIdValue.JSON_DT_QUANTITY:
+			// spread over many orders of magnitude:
+			return Datamodel.makeQuantityValue(BigDecimal.valueOf(Math
+					.round(Math.pow(10, random.nextDouble() * 7))));
+		case DatatypeIdValue.JSON_DT_GLOBE_COORDINATES:
+			int cluster = random.nextInt(COORDINATE_CLUSTER_COUNT);
+			double latitude = this.clusterLatitudes[cluster]
+					+ nextGaussian(random) * 2;
+			double longitude = this.clusterLongitudes[cluster]
+					+ nextGaussian(random) * 2;
+			return Datamodel.makeGlobeCoordinatesValue(
+					Math.max(-90, Math.min(90, latitude)),
+					(longitude + 540) % 360 - 180,
+					GlobeCoordinatesValue.PREC_MILLI_ARCSECOND,
+					GlobeCoordinatesValue.GLOBE_EARTH);
+		case DatatypeIdValue.JSON_DT_COMMONS_MEDIA:
+			return Datamodel.makeStringValue(generateName(random) + ".jpg");
+		case DatatypeIdValue.JSON_DT_URL:
+			return Datamodel.makeStringValue("https://example.org/"
+					+ generateName(random).toLowerCase());
+		case DatatypeIdValue.JSON_DT_MONOLINGUAL_TEXT:
+			return Datamodel.makeMonolingualTextValue(generateName(random),
+					"en");
+		case DatatypeIdValue.JSON_DT_EXTERNAL_ID:
+			return Datamodel.makeStringValue(Long.toString(random
+					.nextLong(1000000000L)));
+		default:
+			return Datamodel.makeStringValue(generateName(random));
+		}
+	}
+
+	/**
+	 * Returns the random generator for the entity of the given type and
+	 * number.
+	 */
+	SplittableRandom getRandom(char type, long number) {
+		return new SplittableRandom(this.seed * 0x9E3779B97F4A7C15L + type
+				* 0xBF58476D1CE4E5B9L + number);
+	}
+
+	/**
+	 * Generates a statement id like those of Wikibase, which consist of the
+	 * id of the subject and a UUID.
+	 */
+	static String generateStatementId(EntityIdValue subject,
+			SplittableRandom random) {
+		return subject.getId() + "$"
+				+ new UUID(random.nextLong(), random.nextLong());
+	}
+
+	static long getRevisionId(SplittableRandom random) {
+		return 1 + random.nextLong(1000000000L);
+	}
+
+	/**
+	 * Generates a name of one or two capitalized words.
+	 */
+	static String generateName(SplittableRandom random) {
+		StringBuilder result = new StringBuilder();
+		int words = 1 + random.nextInt(2);
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				result.append(' ');
+			}
+			int start = result.length();
+			int syllables = 2 + random.nextInt(3);
+			for (int j = 0; j < syllables; j++) {
+				result.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+			}
+			result.setCharAt(start, Character.toUpperCase(result.charAt(start)));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Draws a number of distinct keys, such as languages or sites, where the
+	 * number has the given mean, and each key is drawn with its weight. Keys
+	 * that have been drawn already are drawn again a limited number of times.
+	 *
+	 * @return the keys, in the order in which they were drawn
+	 */
+	static Set<String> drawDistinct(SplittableRandom random, double mean,
+			String[] keys, WeightedChoice choice) {
+		Set<String> result = new LinkedHashSet<>();
+		long count = Math.min(drawCount(random, mean), keys.length);
+		for (long i = 0; i < 4 * count && result.size() < count; i++) {
+			result.add(keys[choice.next(random)]);
+		}
+		return result;
+	}
+
+	/**
+	 * Draws a number from the geometric distribution with the given mean.
+	 * Like the numbers of statements or site links on Wikidata, most numbers
+	 * are small, and a few are much larger than the mean.
+	 */
+	static long drawCount(SplittableRandom random, double mean) {
+		if (mean <= 0) {
+			return 0;
+		}
+		double p = 1 / (1 + mean);
+		return (long) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+	}
+
+	static double nextGaussian(SplittableRandom random) {
+		// Box-Muller transform:
+		return Math.sqrt(-2 * Math.log(1 - random.nextDouble()))
+				* Math.cos(2 * Math.PI * random.nextDouble());
+	}
+
+	static double square(double x) {
+		return x * x;
+	}
+
+	static double cube(double x) {
+		return x * x * x;
+	}
+
+	/**
+	 * Returns the ids of all properties that are used in the dump, ordered by
+	 * their number.
+	 */
+	List<String> getProperties() {
+		Map<Long, String> properties = new TreeMap<>();
+		for (EntityStatistics entityStatistics : new EntityStatistics[] {
+				this.statistics.items, this.statistics.properties }) {
+			for (String property : entityStatistics.propertyCounts.keySet()) {
+				properties.put(Long.parseLong(property.substring(1)), property);
+			}
+		}
+		properties.put(31L, "P31");
+		properties.put(279L, "P279");
+		return new ArrayList<>(properties.values());
+	}
+
+	/**
+	 * Returns the directory of the most recent results of
+	 * {@link EntityStatisticsProcessor} in the example output directory.
+	 *
+	 * @return the directory, or null if there are no such results
+	 * @throws IOException
+	 *             if the output directory could not be read
+	 */
+	static Path findStatisticsDirectory() throws IOException {
+		Path outputDirectory = Paths.get(ExampleHelpers.EXAMPLE_OUTPUT_DIRECTORY);
+		if (!Files.isDirectory(outputDirectory)) {
+			return null;
+		}
+		Path result = null;
+		long resultTime = 0;
+		try (Stream<Path> files = Files.find(outputDirectory, 2,
+				(path, attributes) -> path.endsWith("entity-counts.csv"))) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				long time = Files.getLastModifiedTime(file).toMillis();
+				if (result == null || time > resultTime) {
+					result = file.getParent();
+					resultTime = time;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the statistics of the sample dump that comes with the
+	 * examples.
+	 *
+	 * @return the statistics
+	 */
+	static DumpStatistics getSampleDumpStatistics() {
+		EntityStatisticsProcessor processor = new EntityStatisticsProcessor();
+		processor.reportProgress = false;
+		new ParallelJsonDumpProcessor(processor, 1)
+				.processDump(new MwLocalDumpFile(
+						"./resources/sample-dump-20150815.json.gz"));
+		return DumpStatistics.fromProcessor(processor);
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: SyntheticDumpGenerator");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program writes a synthetic dump with the shape of Wikidata.");
+		System.out
+				.println("*** Arguments: number of items, seed, directory of the statistics");
+		System.out
+				.println("*** that EntityStatisticsProcessor has written.");
+		System.out.println("*** See source code for further details.");
+		System.out
+				.println("********************************************************************");
+	}
+}
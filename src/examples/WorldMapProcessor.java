@@ -21,18 +21,21 @@ package examples;
  */
 
 import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 
 import javax.imageio.ImageIO;
 
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
@@ -46,11 +49,18 @@ import org.wikidata.wdtk.datamodel.interfaces.Value;
  * <p>
  * The size of the images, the projects that are included, and the brightness of
  * the maps can be modified in the main method.
+ * <p>
+ * Note that every copy of the processor that is used for processing in
+ * parallel needs its own set of maps, each of which takes about 16MB for the
+ * default image size.
  *
  * @author Markus Kroetzsch
  *
  */
-public class WorldMapProcessor implements EntityDocumentProcessor {
+public class WorldMapProcessor implements
+		MergeableEntityDocumentProcessor<WorldMapProcessor>,
+		PrefilteredEntityDocumentProcessor,
+		CheckpointableEntityDocumentProcessor {
 
 	/**
 	 * The property id that encodes coordinates.
@@ -96,6 +106,12 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 	 */
 	String globe = GlobeCoordinatesValue.GLOBE_EARTH;
 
+	/**
+	 * If false, no intermediate reports and images are written. Used for
+	 * copies that only see part of the data when processing in parallel.
+	 */
+	boolean reportProgress = true;
+
 	/**
 	 * Main method. Processes the whole dump using this processor and writes the
 	 * results to a file. To change which dump file to use and whether to run in
@@ -167,6 +183,19 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 		this.topValue = (int) ((1600 * 360 * 180) / (brightness * this.width * this.height));
 	}
 
+	/**
+	 * Creates a new processor with the same image settings as the given one.
+	 *
+	 * @param other
+	 *            the processor to take the settings from
+	 */
+	private WorldMapProcessor(WorldMapProcessor other) {
+		this.width = other.width;
+		this.height = other.height;
+		this.topValue = other.topValue;
+		this.globe = other.globe;
+	}
+
 	/**
 	 * Registers a new site for specific data collection. If null is used as a
 	 * site key, then all data is collected.
@@ -189,6 +218,12 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 		this.globe = globe;
 	}
 
+	@Override
+	public RawEntityFilter getRawEntityFilter() {
+		// Only items with coordinates are relevant:
+		return RawEntityFilter.requireProperty(COORD_PROPERTY);
+	}
+
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 
@@ -236,7 +271,7 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 		countCoordinates(xCoord, yCoord, itemDocument);
 		this.count += 1;
 
-		if (this.count % 100000 == 0) {
+		if (this.reportProgress && this.count % 100000 == 0) {
 			reportProgress();
 			writeImages();
 		}
@@ -261,6 +296,79 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 		}
 	}
 
+	@Override
+	public WorldMapProcessor createWorkerCopy() {
+		WorldMapProcessor copy = new WorldMapProcessor(this);
+		copy.reportProgress = false;
+		for (ValueMap vm : this.valueMaps) {
+			copy.addSite(vm.siteFilter);
+		}
+		return copy;
+	}
+
+	@Override
+	public void merge(WorldMapProcessor other) {
+		this.count += other.count;
+		for (Entry<String, Integer> entry : other.siteCounts.entrySet()) {
+			this.siteCounts.merge(entry.getKey(), entry.getValue(),
+					Integer::sum);
+		}
+		for (ValueMap vm : this.valueMaps) {
+			for (ValueMap otherVm : other.valueMaps) {
+				if (Objects.equals(vm.siteFilter, otherVm.siteFilter)) {
+					vm.merge(otherVm);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void writeCheckpoint(DataOutputStream out) throws IOException {
+		out.writeInt(this.count);
+		out.writeInt(this.siteCounts.size());
+		for (Entry<String, Integer> entry : this.siteCounts.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue());
+		}
+		out.writeInt(this.valueMaps.size());
+		for (ValueMap vm : this.valueMaps) {
+			out.writeBoolean(vm.siteFilter != null);
+			if (vm.siteFilter != null) {
+				out.writeUTF(vm.siteFilter);
+			}
+			vm.writeCheckpoint(out);
+		}
+	}
+
+	@Override
+	public void readCheckpoint(DataInputStream in) throws IOException {
+		this.count = in.readInt();
+		this.siteCounts.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			this.siteCounts.put(in.readUTF(), in.readInt());
+		}
+		size = in.readInt();
+		if (size != this.valueMaps.size()) {
+			throw new IOException("Checkpoint has data for " + size
+					+ " maps instead of " + this.valueMaps.size());
+		}
+		for (int i = 0; i < size; i++) {
+			String siteFilter = in.readBoolean() ? in.readUTF() : null;
+			ValueMap valueMap = null;
+			for (ValueMap vm : this.valueMaps) {
+				if (Objects.equals(vm.siteFilter, siteFilter)) {
+					valueMap = vm;
+				}
+			}
+			if (valueMap == null) {
+				throw new IOException("Checkpoint has data for site "
+						+ siteFilter + ", which is not registered");
+			}
+			valueMap.readCheckpoint(in);
+		}
+	}
+
 	/**
 	 * Writes all collected data to files after processing is finished.
 	 */
@@ -399,6 +507,82 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 			}
 		}
 
+		/**
+		 * Adds the counts of another map for the same site to this map.
+		 *
+		 * @param other
+		 *            the map to add
+		 */
+		public void merge(ValueMap other) {
+			this.count += other.count;
+			for (int x = 0; x < this.values.length; x++) {
+				for (int y = 0; y < this.values[x].length; y++) {
+					this.values[x][y] += other.values[x][y];
+					if (this.maxValue < this.values[x][y]) {
+						this.maxValue = this.values[x][y];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Writes the counts of this map to a checkpoint. Only the pixels with
+		 * a count are written, since most of the map is usually empty.
+		 *
+		 * @param out
+		 *            the stream to write to
+		 * @throws IOException
+		 *             if the data could not be written
+		 */
+		public void writeCheckpoint(DataOutputStream out) throws IOException {
+			int height = WorldMapProcessor.this.height;
+			int pixelCount = 0;
+			for (int x = 0; x < this.values.length; x++) {
+				for (int y = 0; y < height; y++) {
+					if (this.values[x][y] != 0) {
+						pixelCount++;
+					}
+				}
+			}
+			out.writeInt(this.count);
+			out.writeInt(this.maxValue);
+			out.writeInt(pixelCount);
+			for (int x = 0; x < this.values.length; x++) {
+				for (int y = 0; y < height; y++) {
+					if (this.values[x][y] != 0) {
+						out.writeInt(x * height + y);
+						out.writeInt(this.values[x][y]);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Replaces the counts of this map by those of a checkpoint that has
+		 * been written with {@link #writeCheckpoint(DataOutputStream)}.
+		 *
+		 * @param in
+		 *            the stream to read from
+		 * @throws IOException
+		 *             if the data could not be read
+		 */
+		public void readCheckpoint(DataInputStream in) throws IOException {
+			int height = WorldMapProcessor.this.height;
+			for (int[] column : this.values) {
+				Arrays.fill(column, 0);
+			}
+			this.count = in.readInt();
+			this.maxValue = in.readInt();
+			int pixelCount = in.readInt();
+			for (int i = 0; i < pixelCount; i++) {
+				int pixel = in.readInt();
+				if (pixel < 0 || pixel >= this.values.length * height) {
+					throw new IOException("Checkpoint has a different map size");
+				}
+				this.values[pixel / height][pixel % height] = in.readInt();
+			}
+		}
+
 		/**
 		 * Writes the image file for the collected data.
 		 */
@@ -31,12 +31,13 @@ import java.util.Set;
 
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
-import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
 import examples.ExampleHelpers;
+import examples.PrefilteredEntityDocumentProcessor;
+import examples.RawEntityFilter;
 import org.wikidata.wdtk.util.WebResourceFetcherImpl;
 import org.wikidata.wdtk.wikibaseapi.BasicApiConnection;
 import org.wikidata.wdtk.wikibaseapi.LoginFailedException;
@@ -79,7 +80,8 @@ import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
  * @author Markus Kroetzsch
  *
  */
-public class SetLabelsForNumbersBot implements EntityDocumentProcessor {
+public class SetLabelsForNumbersBot implements
+		PrefilteredEntityDocumentProcessor {
 
 	final BasicApiConnection connection;
 	final WikibaseDataEditor dataEditor;
@@ -184,6 +186,12 @@ public class SetLabelsForNumbersBot implements EntityDocumentProcessor {
 								+ timeStamp + ".txt"));
 	}
 
+	@Override
+	public RawEntityFilter getRawEntityFilter() {
+		// Only items with a numeric value (P1181) are relevant:
+		return RawEntityFilter.requireProperty("P1181");
+	}
+
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 		if (itemDocument.hasStatement("P1181")) {